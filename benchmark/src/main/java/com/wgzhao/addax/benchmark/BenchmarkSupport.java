@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.benchmark;
+
+import com.wgzhao.addax.core.constant.PluginType;
+import com.wgzhao.addax.core.element.ColumnCast;
+import com.wgzhao.addax.core.plugin.TaskPluginCollector;
+import com.wgzhao.addax.core.statistics.communication.Communication;
+import com.wgzhao.addax.core.statistics.plugin.task.StdoutPluginCollector;
+import com.wgzhao.addax.core.transport.channel.Channel;
+import com.wgzhao.addax.core.transport.channel.memory.MemoryChannel;
+import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.core.util.container.CoreConstant;
+
+/**
+ * Shared fixtures for the benchmarks: a channel configuration equivalent to the
+ * one a task group hands to its tasks, with flow control disabled so the
+ * measured rate is the transport itself rather than the speed limit.
+ */
+final class BenchmarkSupport
+{
+    static final int TASK_GROUP_ID = 0;
+    static final int TASK_ID = 0;
+
+    private BenchmarkSupport() {}
+
+    static Configuration channelConfiguration(int capacity, int bufferSize)
+    {
+        Configuration configuration = Configuration.newDefault();
+        configuration.set(CoreConstant.CORE_CONTAINER_TASK_GROUP_ID, TASK_GROUP_ID);
+        configuration.set(CoreConstant.CORE_TRANSPORT_CHANNEL_CAPACITY, capacity);
+        configuration.set(CoreConstant.CORE_TRANSPORT_EXCHANGER_BUFFER_SIZE, bufferSize);
+        configuration.set(CoreConstant.CORE_TRANSPORT_CHANNEL_SPEED_BYTE, -1);
+        configuration.set(CoreConstant.CORE_TRANSPORT_CHANNEL_SPEED_RECORD, -1);
+        return configuration;
+    }
+
+    /*
+     * The engine binds the column casts once at startup, string to date conversions
+     * fail with a NPE without it.
+     */
+    static void bindColumnCast()
+    {
+        ColumnCast.bind(Configuration.newDefault());
+    }
+
+    static Channel newChannel(Configuration configuration, Communication communication)
+    {
+        Channel channel = new MemoryChannel(configuration);
+        channel.setCommunication(communication);
+        return channel;
+    }
+
+    static TaskPluginCollector newCollector(Configuration configuration, Communication communication, PluginType type)
+    {
+        return new StdoutPluginCollector(configuration, communication, type);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.benchmark;
+
+import com.wgzhao.addax.core.constant.PluginType;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.plugin.TaskPluginCollector;
+import com.wgzhao.addax.core.statistics.communication.Communication;
+import com.wgzhao.addax.core.transport.channel.Channel;
+import com.wgzhao.addax.core.transport.exchanger.BufferedRecordExchanger;
+import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.plugin.reader.streamreader.StreamReader;
+import com.wgzhao.addax.plugin.writer.streamwriter.StreamKey;
+import com.wgzhao.addax.plugin.writer.streamwriter.StreamWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reader to channel to writer throughput, wired the same way a task group wires
+ * a reader runner and a writer runner: the stream reader task produces into a
+ * {@link BufferedRecordExchanger} on its own thread, the consumer pulls from a
+ * second exchanger over the same {@link com.wgzhao.addax.core.transport.channel.memory.MemoryChannel}.
+ * <p>
+ * {@code streamToDrain} only takes records off the channel, {@code streamToStreamWriter}
+ * runs the stream writer task against {@code /dev/null} so that its formatting is included.
+ * The score is records per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChannelBenchmark
+{
+    private static final int RECORDS = 100_000;
+
+    @Param({"constant", "generated"})
+    public String columns;
+
+    @Param({"32", "256"})
+    public int bufferSize;
+
+    @Param({"2048"})
+    public int capacity;
+
+    private ExecutorService readerThread;
+    private Configuration channelConf;
+    private Configuration readerSliceConf;
+    private Configuration writerSliceConf;
+
+    private Communication communication;
+    private BufferedRecordExchanger sender;
+    private BufferedRecordExchanger receiver;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        readerThread = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "benchmark-reader");
+            t.setDaemon(true);
+            return t;
+        });
+        BenchmarkSupport.bindColumnCast();
+        channelConf = BenchmarkSupport.channelConfiguration(capacity, bufferSize);
+        readerSliceConf = readerSliceConfiguration("generated".equals(columns));
+
+        writerSliceConf = Configuration.newDefault();
+        writerSliceConf.set(StreamKey.PRINT, false);
+        writerSliceConf.set(StreamKey.PATH, "/dev");
+        writerSliceConf.set(StreamKey.FILE_NAME, "null");
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation()
+    {
+        communication = new Communication();
+        Channel channel = BenchmarkSupport.newChannel(channelConf, communication);
+        sender = new BufferedRecordExchanger(channel,
+                BenchmarkSupport.newCollector(channelConf, communication, PluginType.READER));
+        receiver = new BufferedRecordExchanger(channel,
+                BenchmarkSupport.newCollector(channelConf, communication, PluginType.WRITER));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        readerThread.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long streamToDrain(Blackhole bh)
+            throws Exception
+    {
+        Future<?> reading = startReader();
+        long count = 0;
+        Record record;
+        while ((record = receiver.getFromReader()) != null) {
+            bh.consume(record);
+            count++;
+        }
+        reading.get();
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void streamToStreamWriter()
+            throws Exception
+    {
+        Future<?> reading = startReader();
+        StreamWriter.Task writer = new StreamWriter.Task();
+        writer.setPluginJobConf(writerSliceConf);
+        writer.setTaskPluginCollector(BenchmarkSupport.newCollector(channelConf, communication, PluginType.WRITER));
+        writer.init();
+        writer.startWrite(receiver);
+        writer.destroy();
+        reading.get();
+    }
+
+    private Future<?> startReader()
+    {
+        StreamReader.Task reader = new StreamReader.Task();
+        reader.setPluginJobConf(readerSliceConf.clone());
+        reader.setTaskPluginCollector(BenchmarkSupport.newCollector(channelConf, communication, PluginType.READER));
+        reader.init();
+        return readerThread.submit(() -> {
+            reader.startRead(sender);
+            sender.terminate();
+        });
+    }
+
+    /*
+     * Run the job side of the stream reader once, so the slice configuration carries
+     * the same normalized column definitions a real task would get.
+     */
+    private static Configuration readerSliceConfiguration(boolean generated)
+    {
+        String column = generated
+                ? """
+                [
+                  {"incr": "1", "type": "long"},
+                  {"random": "8,16", "type": "string"},
+                  {"random": "0,1000", "type": "double"},
+                  {"incr": "2024-01-01 00:00:00,1,s", "type": "date", "dateFormat": "yyyy-MM-dd HH:mm:ss"}
+                ]"""
+                : """
+                [
+                  {"value": "19890604", "type": "long"},
+                  {"value": "addax benchmark", "type": "string"},
+                  {"value": "3.1415926", "type": "double"},
+                  {"value": "2024-01-01 00:00:00", "type": "date", "dateFormat": "yyyy-MM-dd HH:mm:ss"},
+                  {"value": "true", "type": "bool"}
+                ]""";
+        Configuration jobConf = Configuration.from("{\"column\": " + column + ", \"sliceRecordCount\": " + RECORDS + "}");
+        StreamReader.Job job = new StreamReader.Job();
+        job.setPluginJobConf(jobConf);
+        job.init();
+        List<Configuration> slices = job.split(1);
+        return slices.get(0);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.benchmark;
+
+import com.wgzhao.addax.core.element.BytesColumn;
+import com.wgzhao.addax.core.element.Column;
+import com.wgzhao.addax.core.element.DateColumn;
+import com.wgzhao.addax.core.element.DoubleColumn;
+import com.wgzhao.addax.core.element.LongColumn;
+import com.wgzhao.addax.core.element.StringColumn;
+import com.wgzhao.addax.core.element.TimestampColumn;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Column conversions that writers call once per cell ({@code asLong}, {@code asDate},
+ * {@code asString}, ...), including the string to date path through {@code ColumnCast},
+ * and the cost of assembling a {@link DefaultRecord}. The score is nanoseconds per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnBenchmark
+{
+    private Column stringLong;
+    private Column stringDouble;
+    private Column stringDatetime;
+    private Column stringDate;
+    private Column longColumn;
+    private Column doubleColumn;
+    private Column decimalColumn;
+    private Column dateColumn;
+    private Column timestampColumn;
+    private Column bytesColumn;
+
+    @Setup
+    public void setup()
+    {
+        BenchmarkSupport.bindColumnCast();
+
+        stringLong = new StringColumn("1234567890123");
+        stringDouble = new StringColumn("12345.6789");
+        stringDatetime = new StringColumn("2024-03-15 12:34:56");
+        stringDate = new StringColumn("2024-03-15");
+        longColumn = new LongColumn(1234567890123L);
+        doubleColumn = new DoubleColumn(12345.6789d);
+        decimalColumn = new DoubleColumn(new BigDecimal("12345678901234567890.123456789"));
+        dateColumn = new DateColumn(new Date(1710477296000L));
+        timestampColumn = new TimestampColumn(1710477296123L);
+        bytesColumn = new BytesColumn("addax benchmark".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public Long stringAsLong()
+    {
+        return stringLong.asLong();
+    }
+
+    @Benchmark
+    public Double stringAsDouble()
+    {
+        return stringDouble.asDouble();
+    }
+
+    @Benchmark
+    public Date stringAsDate()
+    {
+        return stringDatetime.asDate();
+    }
+
+    @Benchmark
+    public Date stringAsDateFallback()
+    {
+        // the datetime pattern fails first, then the date pattern matches
+        return stringDate.asDate();
+    }
+
+    @Benchmark
+    public String longAsString()
+    {
+        return longColumn.asString();
+    }
+
+    @Benchmark
+    public Long doubleAsLong()
+    {
+        return doubleColumn.asLong();
+    }
+
+    @Benchmark
+    public String doubleAsString()
+    {
+        return doubleColumn.asString();
+    }
+
+    @Benchmark
+    public BigDecimal decimalAsBigDecimal()
+    {
+        return decimalColumn.asBigDecimal();
+    }
+
+    @Benchmark
+    public String dateAsString()
+    {
+        return dateColumn.asString();
+    }
+
+    @Benchmark
+    public Long dateAsLong()
+    {
+        return dateColumn.asLong();
+    }
+
+    @Benchmark
+    public String timestampAsString()
+    {
+        return timestampColumn.asString();
+    }
+
+    @Benchmark
+    public String bytesAsString()
+    {
+        return bytesColumn.asString();
+    }
+
+    @Benchmark
+    public DefaultRecord buildRecord()
+    {
+        DefaultRecord record = new DefaultRecord();
+        record.addColumn(new LongColumn(1234567890123L));
+        record.addColumn(new StringColumn("addax benchmark"));
+        record.addColumn(new DoubleColumn(12345.6789d));
+        record.addColumn(new DateColumn(1710477296000L));
+        return record;
+    }
+}
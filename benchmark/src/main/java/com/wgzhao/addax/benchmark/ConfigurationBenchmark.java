@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.benchmark;
+
+import com.wgzhao.addax.core.util.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Configuration} lookups on a job shaped like the ones the engine merges with
+ * {@code core.json}: path lookups of various depths, typed getters with defaults,
+ * sub-configuration extraction, and the clone and parse done once per task.
+ * The score is nanoseconds per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationBenchmark
+{
+    private static final String JOB = """
+            {
+              "core": {
+                "container": {"taskGroup": {"id": 0, "channel": 5}},
+                "transport": {
+                  "channel": {"capacity": 2048, "byteCapacity": 8388608, "speed": {"byte": -1, "record": -1}},
+                  "exchanger": {"bufferSize": 32}
+                }
+              },
+              "job": {
+                "setting": {"speed": {"channel": 4}, "errorLimit": {"record": 0, "percentage": 0.02}},
+                "content": {
+                  "reader": {
+                    "name": "mysqlreader",
+                    "parameter": {
+                      "username": "addax",
+                      "password": "addax",
+                      "column": ["id", "name", "amount", "created_at", "updated_at", "status", "remark"],
+                      "splitPk": "id",
+                      "connection": {"jdbcUrl": "jdbc:mysql://127.0.0.1:3306/addax", "table": ["orders"]}
+                    }
+                  },
+                  "writer": {
+                    "name": "streamwriter",
+                    "parameter": {"print": false, "fieldDelimiter": ","}
+                  }
+                }
+              }
+            }""";
+
+    private Configuration configuration;
+
+    @Setup
+    public void setup()
+    {
+        configuration = Configuration.from(JOB);
+    }
+
+    @Benchmark
+    public String getShallowString()
+    {
+        return configuration.getString("job.content.writer.name");
+    }
+
+    @Benchmark
+    public String getDeepString()
+    {
+        return configuration.getString("job.content.reader.parameter.connection.jdbcUrl");
+    }
+
+    @Benchmark
+    public Integer getIntWithDefault()
+    {
+        return configuration.getInt("core.transport.exchanger.bufferSize", 32);
+    }
+
+    @Benchmark
+    public Long getMissingLongWithDefault()
+    {
+        return configuration.getLong("core.transport.channel.flowControlInterval", 1000L);
+    }
+
+    @Benchmark
+    public List<String> getList()
+    {
+        return configuration.getList("job.content.reader.parameter.column", String.class);
+    }
+
+    @Benchmark
+    public Configuration getConfiguration()
+    {
+        return configuration.getConfiguration("job.content.reader.parameter");
+    }
+
+    @Benchmark
+    public Configuration cloneConfiguration()
+    {
+        return configuration.clone();
+    }
+
+    @Benchmark
+    public Configuration parse()
+    {
+        return Configuration.from(JOB);
+    }
+}
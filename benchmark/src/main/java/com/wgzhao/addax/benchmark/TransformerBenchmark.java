@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.benchmark;
+
+import com.wgzhao.addax.core.constant.PluginType;
+import com.wgzhao.addax.core.element.LongColumn;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.element.StringColumn;
+import com.wgzhao.addax.core.statistics.communication.Communication;
+import com.wgzhao.addax.core.transport.exchanger.BufferedRecordTransformerExchanger;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import com.wgzhao.addax.core.transport.transformer.TransformerExecution;
+import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.core.util.TransformerUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transformer chains as the writer side of the exchanger runs them: the executions are
+ * built from a job {@code transformer} section by {@link TransformerUtil} and every record
+ * goes through {@link BufferedRecordTransformerExchanger#doTransformer(Record)}.
+ * <p>
+ * The built-in transformers modify the record in place, so each call starts from a fresh
+ * record; {@code buildRecordOnly} measures that part alone. {@code transformBatch} runs the chain
+ * over a buffer of records at once, as the exchanger does when it flushes. The score is nanoseconds
+ * per record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformerBenchmark
+{
+    // the default exchanger buffer size, which is what a flush transforms at once
+    private static final int BATCH_SIZE = 32;
+
+    private static final Map<String, String> CHAINS = Map.of(
+            "substr", """
+                    [
+                      {"name": "dx_substr", "parameter": {"columnIndex": 1, "paras": ["0", "8"]}}
+                    ]""",
+            "substr_pad_replace", """
+                    [
+                      {"name": "dx_substr", "parameter": {"columnIndex": 1, "paras": ["0", "8"]}},
+                      {"name": "dx_pad", "parameter": {"columnIndex": 2, "paras": ["l", "12", "0"]}},
+                      {"name": "dx_replace", "parameter": {"columnIndex": 3, "paras": ["0", "3", "***"]}}
+                    ]""",
+            "substr_pad_replace_filter", """
+                    [
+                      {"name": "dx_substr", "parameter": {"columnIndex": 1, "paras": ["0", "8"]}},
+                      {"name": "dx_pad", "parameter": {"columnIndex": 2, "paras": ["l", "12", "0"]}},
+                      {"name": "dx_replace", "parameter": {"columnIndex": 3, "paras": ["0", "3", "***"]}},
+                      {"name": "dx_filter", "parameter": {"columnIndex": 0, "paras": ["<", "0"]}}
+                    ]""",
+            "groovy", """
+                    [
+                      {"name": "dx_groovy", "parameter": {"code": "record.setColumn(1, new StringColumn(record.getColumn(1).asString().toUpperCase())); return record;"}}
+                    ]"""
+    );
+
+    @Param({"substr", "substr_pad_replace", "substr_pad_replace_filter", "groovy"})
+    public String chain;
+
+    private BufferedRecordTransformerExchanger exchanger;
+
+    @Setup
+    public void setup()
+    {
+        Configuration taskConf = Configuration.from("{\"transformer\": " + CHAINS.get(chain) + "}");
+        List<TransformerExecution> executions = TransformerUtil.buildTransformerInfo(taskConf);
+
+        Configuration channelConf = BenchmarkSupport.channelConfiguration(2048, 32);
+        Communication communication = new Communication();
+        exchanger = new BufferedRecordTransformerExchanger(BenchmarkSupport.TASK_GROUP_ID, BenchmarkSupport.TASK_ID,
+                BenchmarkSupport.newChannel(channelConf, communication), communication,
+                BenchmarkSupport.newCollector(channelConf, communication, PluginType.READER), executions);
+    }
+
+    @Benchmark
+    public Record buildRecordOnly()
+    {
+        return newRecord();
+    }
+
+    @Benchmark
+    public Record transform()
+    {
+        return exchanger.doTransformer(newRecord());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Record> transformBatch()
+    {
+        List<Record> records = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            records.add(newRecord());
+        }
+        exchanger.doTransformer(records);
+        return records;
+    }
+
+    private static Record newRecord()
+    {
+        Record record = new DefaultRecord();
+        record.addColumn(new LongColumn(20240315L));
+        record.addColumn(new StringColumn("addax-benchmark-record"));
+        record.addColumn(new StringColumn("42"));
+        record.addColumn(new StringColumn("13800138000"));
+        return record;
+    }
+}
@@ -19,7 +19,7 @@
 #
 # addax-server.sh - start/stop the minimal Addax server (JDK HttpServer based)
 # Usage:
-#   addax-server.sh start [-p <parallel>] [--port <port>] [--daemon]
+#   addax-server.sh start [-p <parallel>] [--port <port>] [--max-channels <n>] [--queue-size <n>] [--daemon]
 #   addax-server.sh stop
 #
 
@@ -38,6 +38,8 @@ OUT_FILE="$ADDAX_HOME/addax-server.out"
 start_server() {
   PARALLEL=30
   PORT=10601
+  MAX_CHANNELS=256
+  QUEUE_SIZE=1000
   DAEMON=0
   while [[ $# -gt 0 ]]; do
     case "$1" in
@@ -45,6 +47,10 @@ start_server() {
         PARALLEL="$2"; shift 2;;
       --port)
         PORT="$2"; shift 2;;
+      --max-channels)
+        MAX_CHANNELS="$2"; shift 2;;
+      --queue-size)
+        QUEUE_SIZE="$2"; shift 2;;
       --daemon)
         DAEMON=1; shift;;
       *)
@@ -53,7 +59,8 @@ start_server() {
   done
 
 
-  CMD=(java -server -Daddax.home=${ADDAX_HOME} -cp "lib/*" com.wgzhao.addax.server.AddaxServer --port "$PORT" -p "$PARALLEL")
+  CMD=(java -server -Daddax.home=${ADDAX_HOME} -cp "lib/*" com.wgzhao.addax.server.AddaxServer --port "$PORT" -p "$PARALLEL" \
+    --max-channels "$MAX_CHANNELS" --queue-size "$QUEUE_SIZE")
 
   if [[ $DAEMON -eq 1 ]]; then
     nohup "${CMD[@]}" > "$OUT_FILE" 2>&1 &
@@ -90,7 +97,7 @@ case "${1:-}" in
     stop_server
     ;;
   *)
-    echo "Usage: $0 {start [-p <parallel>] [--port <port>] [--daemon] | stop}"
+    echo "Usage: $0 {start [-p <parallel>] [--port <port>] [--max-channels <n>] [--queue-size <n>] [--daemon] | stop}"
     exit 1
     ;;
 esac
@@ -20,11 +20,14 @@
 package com.wgzhao.addax.core;
 
 import com.wgzhao.addax.core.element.ColumnCast;
+import com.wgzhao.addax.core.exception.AddaxException;
+import com.wgzhao.addax.core.statistics.MetricsExporter;
 import com.wgzhao.addax.core.statistics.VMInfo;
 import com.wgzhao.addax.core.util.Configuration;
 import com.wgzhao.addax.core.job.JobContainer;
 import com.wgzhao.addax.core.util.ConfigParser;
 import com.wgzhao.addax.core.util.ConfigurationValidate;
+import com.wgzhao.addax.core.util.container.CoreConstant;
 import com.wgzhao.addax.core.util.container.LoadUtil;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.DefaultParser;
@@ -33,12 +36,15 @@ import org.apache.commons.lang3.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.Properties;
 import java.util.Set;
 
+import static com.wgzhao.addax.core.spi.ErrorCode.CONFIG_ERROR;
+
 /**
  * Engine is the entry class of Addax. This class is responsible for initializing the running container of Job or Task,
  * and running the Job or Task logic of the plugin.
@@ -64,7 +70,29 @@ public class Engine
         AbstractContainer container;
         container = new JobContainer(allConf);
 
-        container.start();
+        int metricsPort = allConf.getInt(CoreConstant.CORE_METRICS_PORT, 0);
+        if (metricsPort <= 0) {
+            container.start();
+            return;
+        }
+        Closeable metricsListener;
+        try {
+            metricsListener = MetricsExporter.serve(metricsPort);
+        }
+        catch (IOException e) {
+            throw AddaxException.asAddaxException(CONFIG_ERROR,
+                    "Failed to start the metrics listener on port " + metricsPort, e);
+        }
+        try {
+            container.start();
+        }
+        finally {
+            try {
+                metricsListener.close();
+            }
+            catch (IOException ignored) {
+            }
+        }
     }
 
     /**
@@ -77,11 +105,8 @@ public class Engine
     {
         Configuration jobConfWithSetting = configuration.getConfiguration("job").clone();
 
-        Configuration jobContent = jobConfWithSetting.getConfiguration("content");
-
-        filterSensitiveConfiguration(jobContent);
-
-        jobConfWithSetting.set("content", jobContent);
+        // the settings carry secrets as well, such as the password of the checkpoint store
+        filterSensitiveConfiguration(jobConfWithSetting);
 
         return jobConfWithSetting.beautify();
     }
@@ -120,8 +145,17 @@ public class Engine
         CommandLine cl = parser.parse(options, args);
 
         String jobPath = cl.getOptionValue("job");
-        Configuration configuration = ConfigParser.parse(jobPath);
+        run(ConfigParser.parse(jobPath));
+    }
 
+    /**
+     * Validate and run a job configuration already merged by {@link ConfigParser}, this is how a
+     * long-running server runs its jobs without going through files and command line arguments.
+     *
+     * @param configuration the merged job configuration
+     */
+    public static void run(Configuration configuration)
+    {
         // Print VM info
         VMInfo vmInfo = VMInfo.getVmInfo();
         if (vmInfo != null) {
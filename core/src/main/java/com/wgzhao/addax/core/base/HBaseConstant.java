@@ -25,6 +25,10 @@ public final class HBaseConstant extends Constant
     public static final String ROWKEY_FLAG = "rowkey";
     public static final int DEFAULT_SCAN_CACHE_SIZE = 256;
     public static final int DEFAULT_SCAN_BATCH_SIZE = 100;
+    // the number of cells expected to be fetched per scanner RPC when scanCacheSize is not configured
+    public static final int DEFAULT_SCAN_CELLS_PER_RPC = DEFAULT_SCAN_CACHE_SIZE * DEFAULT_SCAN_BATCH_SIZE;
+    public static final int MAX_SCAN_CACHE_SIZE = 4096;
+    public static final long DEFAULT_MIN_SPLIT_SIZE = 256 * 1024 * 1024L;
 
     public static final String DEFAULT_SERIALIZATION = "PROTOBUF";
 
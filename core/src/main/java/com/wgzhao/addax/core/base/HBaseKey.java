@@ -36,6 +36,8 @@ public final class HBaseKey
     public static final String IS_BINARY_ROW_KEY = "isBinaryRowkey";
     public static final String SCAN_CACHE_SIZE = "scanCacheSize";
     public static final String SCAN_BATCH_SIZE = "scanBatchSize";
+    // regions larger than this size (in bytes) may be divided into several row key ranges when splitting
+    public static final String MIN_SPLIT_SIZE = "minSplitSize";
 
     // serialization format, default is protobuf. string type
     public static final String SERIALIZATION_NAME = "serialization";
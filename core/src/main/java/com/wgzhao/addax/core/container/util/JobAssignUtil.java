@@ -27,6 +27,7 @@ import org.apache.commons.lang3.StringUtils;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -188,6 +189,12 @@ public final class JobAssignUtil
             taskGroupConfigList.add(new ArrayList<>());
         }
 
+        // the task ids have gaps when a resumed job skips the splits finished earlier
+        Map<Integer, Configuration> taskConfigById = new HashMap<>();
+        for (Configuration taskConfig : contentConfig) {
+            taskConfigById.put(taskConfig.getInt(CoreConstant.TASK_ID), taskConfig);
+        }
+
         int mapValueMaxLength = -1;
 
         List<String> resourceMarks = new ArrayList<>();
@@ -203,7 +210,7 @@ public final class JobAssignUtil
             for (String resourceMark : resourceMarks) {
                 if (!resourceMarkAndTaskIdMap.get(resourceMark).isEmpty()) {
                     int taskId = resourceMarkAndTaskIdMap.get(resourceMark).get(0);
-                    taskGroupConfigList.get(taskGroupIndex % taskGroupNumber).add(contentConfig.get(taskId));
+                    taskGroupConfigList.get(taskGroupIndex % taskGroupNumber).add(taskConfigById.get(taskId));
                     taskGroupIndex++;
 
                     resourceMarkAndTaskIdMap.get(resourceMark).remove(0);
@@ -33,8 +33,24 @@ import java.util.TimeZone;
 public final class ColumnCast
 {
 
+    // the part of the job configuration the casts are bound from
+    private static final String SETTINGS = "common.column";
+
     private ColumnCast() {}
 
+    /**
+     * The casting settings of a job. They are bound globally by {@link #bind(Configuration)}, so jobs
+     * sharing a JVM must run one after another unless their settings are equal.
+     *
+     * @param configuration the job configuration
+     * @return the settings as JSON, empty if the job keeps the defaults
+     */
+    public static String settingsOf(final Configuration configuration)
+    {
+        Configuration settings = configuration.getConfiguration(SETTINGS);
+        return settings == null ? "" : settings.toJSON();
+    }
+
     public static void bind(final Configuration configuration)
     {
         StringCast.init(configuration);
@@ -33,14 +33,19 @@ import com.wgzhao.addax.core.util.StrUtil;
 import com.wgzhao.addax.core.AbstractContainer;
 import com.wgzhao.addax.core.Engine;
 import com.wgzhao.addax.core.container.util.JobAssignUtil;
+import com.wgzhao.addax.core.job.checkpoint.JobCheckpoint;
 import com.wgzhao.addax.core.job.scheduler.AbstractScheduler;
+import com.wgzhao.addax.core.job.scheduler.distributed.DistributedScheduler;
 import com.wgzhao.addax.core.job.scheduler.processinner.StandAloneScheduler;
 import com.wgzhao.addax.core.statistics.communication.Communication;
 import com.wgzhao.addax.core.statistics.communication.CommunicationTool;
+import com.wgzhao.addax.core.statistics.communication.LocalTGCommunicationManager;
 import com.wgzhao.addax.core.statistics.container.communicator.AbstractContainerCommunicator;
+import com.wgzhao.addax.core.statistics.container.communicator.job.DistributedJobContainerCommunicator;
 import com.wgzhao.addax.core.statistics.container.communicator.job.StandAloneJobContainerCommunicator;
 import com.wgzhao.addax.core.statistics.plugin.DefaultJobPluginCollector;
 import com.wgzhao.addax.core.util.ErrorRecordChecker;
+import com.wgzhao.addax.core.util.FilterPushdown;
 import com.wgzhao.addax.core.util.container.ClassLoaderSwapper;
 import com.wgzhao.addax.core.util.container.CoreConstant;
 import com.wgzhao.addax.core.util.container.LoadUtil;
@@ -58,6 +63,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.wgzhao.addax.core.spi.ErrorCode.CONFIG_ERROR;
 import static com.wgzhao.addax.core.spi.ErrorCode.EXECUTE_FAIL;
@@ -77,6 +83,9 @@ public class JobContainer
 
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
+    // the jobs run by this JVM, several of them side by side in a server
+    private static final AtomicLong JOB_IDS = new AtomicLong(0);
+
     private final ClassLoaderSwapper classLoaderSwapper = ClassLoaderSwapper.newCurrentThreadClassLoaderSwapper();
     private final ErrorRecordChecker errorLimit;
     private String readerPluginName;
@@ -90,11 +99,16 @@ public class JobContainer
     private long endTransferTimeStamp;
     private int needChannelNumber;
     private int totalStage = 1;
+    private JobCheckpoint checkpoint;
 
     public JobContainer(Configuration configuration)
     {
         super(configuration);
 
+        if (configuration.get(CoreConstant.CORE_CONTAINER_JOB_ID) == null) {
+            configuration.set(CoreConstant.CORE_CONTAINER_JOB_ID, JOB_IDS.incrementAndGet());
+        }
+
         errorLimit = new ErrorRecordChecker(configuration);
     }
 
@@ -124,6 +138,7 @@ public class JobContainer
 
                 LOG.debug("The jobContainer begins to perform init ...");
                 this.init();
+                this.initCheckpoint();
                 LOG.debug("The jobContainer begins to perform prepare ...");
                 this.prepare();
                 LOG.debug("The jobContainer begins to perform split ...");
@@ -135,6 +150,9 @@ public class JobContainer
 
                 LOG.debug("The jobContainer begins to perform postHandle ...");
                 this.postHandle();
+                if (this.checkpoint != null) {
+                    this.checkpoint.complete();
+                }
 
                 LOG.debug("The jobContainer completed successfully.");
                 // disable hook function
@@ -174,6 +192,9 @@ public class JobContainer
         finally {
             if (!isDryRun) {
 
+                if (this.checkpoint != null) {
+                    this.checkpoint.close();
+                }
                 this.destroy();
                 this.endTimeStamp = System.currentTimeMillis();
                 if (!hasException) {
@@ -185,6 +206,7 @@ public class JobContainer
                     this.logStatistics();
                 }
             }
+            LocalTGCommunicationManager.clear(configuration.getLong(CoreConstant.CORE_CONTAINER_JOB_ID));
         }
     }
 
@@ -205,8 +227,7 @@ public class JobContainer
     {
         Thread.currentThread().setName("job-0");
 
-        JobPluginCollector jobPluginCollector = new DefaultJobPluginCollector(
-                this.getContainerCommunicator());
+        JobPluginCollector jobPluginCollector = new DefaultJobPluginCollector(this::getContainerCommunicator);
         this.jobReader = this.preCheckReaderInit(jobPluginCollector);
         this.jobWriter = this.preCheckWriterInit(jobPluginCollector);
     }
@@ -275,12 +296,32 @@ public class JobContainer
     {
         Thread.currentThread().setName("job-0");
 
-        JobPluginCollector jobPluginCollector = new DefaultJobPluginCollector(this.getContainerCommunicator());
+        JobPluginCollector jobPluginCollector = new DefaultJobPluginCollector(this::getContainerCommunicator);
+        // the reader job must see the where/query with the filters pushed down
+        FilterPushdown.apply(this.configuration);
         // reader must be initialized before writer
         this.jobReader = this.initJobReader(jobPluginCollector);
         this.jobWriter = this.initJobWriter(jobPluginCollector);
     }
 
+    /**
+     * Open the checkpoint of the job when {@code job.setting.checkpoint} is configured. A job
+     * resumes only if its writer supports it, otherwise the splits finished earlier are forgotten.
+     */
+    private void initCheckpoint()
+    {
+        Configuration checkpointConf = this.configuration.getConfiguration(CoreConstant.JOB_SETTING_CHECKPOINT);
+        if (checkpointConf == null) {
+            return;
+        }
+        this.checkpoint = JobCheckpoint.open(checkpointConf, JSON.toJSONString(userConf.get(CoreConstant.JOB_CONTENT)));
+        if (this.checkpoint.isResuming() && !this.jobWriter.supportResume()) {
+            LOG.warn("The writer [{}] does not support resuming a job, all the splits run again.", this.writerPluginName);
+            this.checkpoint.reset();
+        }
+        this.jobWriter.setResuming(this.checkpoint.isResuming());
+    }
+
     private void prepare()
     {
         this.prepareJobReader();
@@ -311,7 +352,7 @@ public class JobContainer
 
         AbstractJobPlugin handler = LoadUtil.loadJobPlugin(handlerPluginType, handlerPluginName);
 
-        JobPluginCollector jobPluginCollector = new DefaultJobPluginCollector(this.getContainerCommunicator());
+        JobPluginCollector jobPluginCollector = new DefaultJobPluginCollector(this::getContainerCommunicator);
         handler.setJobPluginCollector(jobPluginCollector);
 
         handler.preHandler(configuration);
@@ -343,7 +384,7 @@ public class JobContainer
 
         AbstractJobPlugin handler = LoadUtil.loadJobPlugin(handlerPluginType, handlerPluginName);
 
-        JobPluginCollector jobPluginCollector = new DefaultJobPluginCollector(this.getContainerCommunicator());
+        JobPluginCollector jobPluginCollector = new DefaultJobPluginCollector(this::getContainerCommunicator);
         handler.setJobPluginCollector(jobPluginCollector);
 
         handler.postHandler(configuration);
@@ -365,6 +406,10 @@ public class JobContainer
 
         List<Configuration> readerTaskConfigs = this.doReaderSplit(this.needChannelNumber);
         int taskNumber = readerTaskConfigs.size();
+        // the channels scheduled never outnumber the tasks
+        this.jobWriter.setChannelNumber(Math.min(this.needChannelNumber, taskNumber));
+        this.jobWriter.setDistributed("distributed".equalsIgnoreCase(
+                this.configuration.getString(CoreConstant.CORE_CONTAINER_MODE, "standalone")));
         List<Configuration> writerTaskConfigs = this.doWriterSplit(taskNumber);
 
         List<Configuration> transformerList = this.configuration.getListConfiguration(CoreConstant.JOB_CONTENT_TRANSFORMER);
@@ -374,6 +419,9 @@ public class JobContainer
          * input is reader and writer parameter list, output is content list
          */
         List<Configuration> contentConfig = mergeReaderAndWriterTaskConfigs(readerTaskConfigs, writerTaskConfigs, transformerList);
+        if (this.checkpoint != null) {
+            contentConfig = this.checkpoint.skipFinished(contentConfig);
+        }
 
         LOG.debug("The contentConfig configuration:{} ", JSON.toJSONString(contentConfig));
 
@@ -443,6 +491,10 @@ public class JobContainer
          */
         int channelsPerTaskGroup = this.configuration.getInt(CoreConstant.CORE_CONTAINER_TASK_GROUP_CHANNEL, 5);
         int taskNumber = this.configuration.getList(CoreConstant.JOB_CONTENT).size();
+        if (taskNumber == 0) {
+            LOG.info("All the splits of the job were finished by an earlier run, nothing to schedule.");
+            return;
+        }
 
         this.needChannelNumber = Math.min(this.needChannelNumber, taskNumber);
         PerfTrace.getInstance().setChannelNumber(needChannelNumber);
@@ -457,7 +509,8 @@ public class JobContainer
 
         AbstractScheduler scheduler;
         try {
-            scheduler = initStandaloneScheduler(this.configuration);
+            scheduler = initScheduler(this.configuration);
+            scheduler.setCheckpoint(this.checkpoint);
             this.startTransferTimeStamp = System.currentTimeMillis();
             scheduler.schedule(taskGroupConfigs);
             this.endTransferTimeStamp = System.currentTimeMillis();
@@ -475,12 +528,35 @@ public class JobContainer
         this.checkLimit();
     }
 
-    private AbstractScheduler initStandaloneScheduler(Configuration configuration)
+    private AbstractScheduler initScheduler(Configuration configuration)
     {
-        AbstractContainerCommunicator containerCommunicator = new StandAloneJobContainerCommunicator(configuration);
-        super.setContainerCommunicator(containerCommunicator);
+        String mode = configuration.getString(CoreConstant.CORE_CONTAINER_MODE, "standalone");
+        AbstractScheduler scheduler;
+        if ("distributed".equalsIgnoreCase(mode)) {
+            DistributedJobContainerCommunicator containerCommunicator = new DistributedJobContainerCommunicator(configuration);
+            super.setContainerCommunicator(containerCommunicator);
+            scheduler = new DistributedScheduler(containerCommunicator);
+        }
+        else if ("standalone".equalsIgnoreCase(mode)) {
+            AbstractContainerCommunicator containerCommunicator = new StandAloneJobContainerCommunicator(configuration);
+            super.setContainerCommunicator(containerCommunicator);
+            scheduler = new StandAloneScheduler(containerCommunicator);
+        }
+        else {
+            throw AddaxException.asAddaxException(CONFIG_ERROR,
+                    "The core.container.mode only supports standalone or distributed, but got '" + mode + "'");
+        }
+
+        Map<String, String> jobInfo = new HashMap<>();
+        jobInfo.put("reader", this.readerPluginName);
+        jobInfo.put("writer", this.writerPluginName);
+        String jobName = configuration.getString(CoreConstant.ENTRY_VARIABLES + ".jobName");
+        if (StringUtils.isNotBlank(jobName)) {
+            jobInfo.put("name", jobName);
+        }
+        LocalTGCommunicationManager.registerJobInfo(configuration.getLong(CoreConstant.CORE_CONTAINER_JOB_ID), jobInfo);
 
-        return new StandAloneScheduler(containerCommunicator);
+        return scheduler;
     }
 
     private void post()
@@ -539,13 +615,14 @@ public class JobContainer
         if (StringUtils.isNotBlank(jobResultReportUrl)) {
             String jobKey = "jobName";
             // Get the job name, there are two ways to get it:
-            // 1. Pass it through the command line using -DjobName;
+            // 1. Pass it through the command line using -DjobName, or as a variable of a job submitted to the server;
             // 2. Analyze the log writing path of the writer plugin and splice the 2nd and 3rd directories
             String jobContentWriterPath = userConf.getString(CoreConstant.JOB_CONTENT_WRITER_PATH);
             int timeoutMills = userConf.getInt(CoreConstant.CORE_SERVER_TIMEOUT_SEC, 2) * 1000;
             StringBuilder jobName = new StringBuilder();
-            if (System.getProperty(jobKey) != null) {
-                jobName.append(System.getProperty(jobKey));
+            String jobNameValue = userConf.getString(CoreConstant.ENTRY_VARIABLES + "." + jobKey, System.getProperty(jobKey));
+            if (jobNameValue != null) {
+                jobName.append(jobNameValue);
             }
             else if (StringUtils.isNotBlank(jobContentWriterPath)) {
                 String[] pathArr = jobContentWriterPath.split("/");
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.job.checkpoint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Where a checkpointed job keeps the splits it has finished, so that a run after a failure can
+ * skip them. The same split may be recorded more than once when a job has identical splits.
+ */
+public interface CheckpointStore
+        extends Closeable
+{
+    /**
+     * @param jobKey the key of the job
+     * @return the keys of the splits the job has finished, one per finished split
+     * @throws IOException if the store can not be read
+     */
+    List<String> getFinishedSplits(String jobKey)
+            throws IOException;
+
+    void markFinished(String jobKey, Collection<String> splitKeys)
+            throws IOException;
+
+    /**
+     * Forget a job, once it succeeded or when it has to start over.
+     *
+     * @param jobKey the key of the job
+     * @throws IOException if the store can not be written
+     */
+    void clear(String jobKey)
+            throws IOException;
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.job.checkpoint;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps the finished splits in a table, created when missing, so that a job can be resumed on
+ * another host. The JDBC driver has to be on the classpath of the engine, such as in
+ * {@code $ADDAX_HOME/lib}, the drivers of the plugins are not visible to it.
+ */
+public class JdbcCheckpointStore
+        implements CheckpointStore
+{
+    private final Connection connection;
+    private final String table;
+
+    public JdbcCheckpointStore(String jdbcUrl, String username, String password, String table)
+            throws IOException
+    {
+        this.table = table;
+        try {
+            this.connection = DriverManager.getConnection(jdbcUrl, username, password);
+            this.connection.setAutoCommit(true);
+            createTableIfMissing();
+        }
+        catch (SQLException e) {
+            throw new IOException("Failed to open the checkpoint table " + table + " at " + jdbcUrl, e);
+        }
+    }
+
+    private void createTableIfMissing()
+            throws SQLException
+    {
+        try (ResultSet tables = connection.getMetaData().getTables(null, null, table, null);
+                ResultSet upperTables = connection.getMetaData().getTables(null, null, table.toUpperCase(), null)) {
+            if (tables.next() || upperTables.next()) {
+                return;
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE " + table + " (job_key VARCHAR(64) NOT NULL, split_key VARCHAR(64) NOT NULL, "
+                    + "finished_at BIGINT NOT NULL)");
+        }
+    }
+
+    @Override
+    public synchronized List<String> getFinishedSplits(String jobKey)
+            throws IOException
+    {
+        List<String> splits = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT split_key FROM " + table + " WHERE job_key = ?")) {
+            statement.setString(1, jobKey);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    splits.add(rs.getString(1));
+                }
+            }
+            return splits;
+        }
+        catch (SQLException e) {
+            throw new IOException("Failed to read the checkpoint of " + jobKey, e);
+        }
+    }
+
+    @Override
+    public synchronized void markFinished(String jobKey, Collection<String> splitKeys)
+            throws IOException
+    {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO " + table + " (job_key, split_key, finished_at) VALUES (?, ?, ?)")) {
+            long now = System.currentTimeMillis();
+            for (String splitKey : splitKeys) {
+                statement.setString(1, jobKey);
+                statement.setString(2, splitKey);
+                statement.setLong(3, now);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        catch (SQLException e) {
+            throw new IOException("Failed to record the finished splits of " + jobKey, e);
+        }
+    }
+
+    @Override
+    public synchronized void clear(String jobKey)
+            throws IOException
+    {
+        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + table + " WHERE job_key = ?")) {
+            statement.setString(1, jobKey);
+            statement.executeUpdate();
+        }
+        catch (SQLException e) {
+            throw new IOException("Failed to clear the checkpoint of " + jobKey, e);
+        }
+    }
+
+    @Override
+    public synchronized void close()
+            throws IOException
+    {
+        try {
+            connection.close();
+        }
+        catch (SQLException e) {
+            throw new IOException(e);
+        }
+    }
+}
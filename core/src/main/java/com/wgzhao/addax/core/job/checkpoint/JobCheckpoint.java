@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.job.checkpoint;
+
+import com.wgzhao.addax.core.exception.AddaxException;
+import com.wgzhao.addax.core.meta.State;
+import com.wgzhao.addax.core.statistics.communication.Communication;
+import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.core.util.container.CoreConstant;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import static com.wgzhao.addax.core.spi.ErrorCode.CONFIG_ERROR;
+import static com.wgzhao.addax.core.spi.ErrorCode.IO_ERROR;
+
+/**
+ * The checkpoint of a job, configured by {@code job.setting.checkpoint}: the splits it finished are
+ * recorded as they finish, and a later run of the same job skips them until the job succeeds.
+ * <p>
+ * A job is known by the {@code id} of its checkpoint, or else by the digest of its content, and a
+ * split by the digest of its reader, writer and transformer parameters, so that a split is only
+ * skipped when the run produces it again unchanged.
+ */
+public class JobCheckpoint
+        implements Closeable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(JobCheckpoint.class);
+
+    // the length of a hex SHA-256 digest
+    static final int KEY_LENGTH = 64;
+
+    private static final String DEFAULT_TABLE = "addax_checkpoint";
+
+    private final CheckpointStore store;
+    private final String jobKey;
+    // the splits finished by earlier runs, identical splits are counted
+    private final Map<String, Integer> finishedSplits = new HashMap<>();
+    // the splits of this run not recorded yet, by task id
+    private final Map<Integer, String> pendingSplits = new HashMap<>();
+
+    private JobCheckpoint(CheckpointStore store, String jobKey)
+            throws IOException
+    {
+        this.store = store;
+        this.jobKey = jobKey;
+        for (String split : store.getFinishedSplits(jobKey)) {
+            finishedSplits.merge(split, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * @param conf the {@code job.setting.checkpoint} configuration
+     * @param jobContent the content of the job as the user configured it, to know the job by
+     * @return the checkpoint of the job
+     */
+    public static JobCheckpoint open(Configuration conf, String jobContent)
+    {
+        String jobKey = conf.getString("id");
+        if (StringUtils.isBlank(jobKey)) {
+            jobKey = digest(jobContent);
+        }
+        CheckpointStore store;
+        try {
+            if (StringUtils.isNotBlank(conf.getString("jdbcUrl"))) {
+                store = new JdbcCheckpointStore(conf.getString("jdbcUrl"), conf.getString("username"),
+                        conf.getString("password"), conf.getString("table", DEFAULT_TABLE));
+            }
+            else if (StringUtils.isNotBlank(conf.getString("path"))) {
+                store = new LocalCheckpointStore(Path.of(conf.getString("path")));
+            }
+            else {
+                throw AddaxException.asAddaxException(CONFIG_ERROR,
+                        "The checkpoint requires either a path or a jdbcUrl to keep the finished splits in");
+            }
+            JobCheckpoint checkpoint = new JobCheckpoint(store, jobKey);
+            LOG.info("The checkpoint of the job [{}] has [{}] finished splits.", jobKey, checkpoint.finishedSplits.values()
+                    .stream().mapToInt(Integer::intValue).sum());
+            return checkpoint;
+        }
+        catch (IOException e) {
+            throw AddaxException.asAddaxException(IO_ERROR, "Failed to open the checkpoint of the job", e);
+        }
+    }
+
+    /**
+     * @return whether an earlier run of the job has finished some of the splits
+     */
+    public boolean isResuming()
+    {
+        return !finishedSplits.isEmpty();
+    }
+
+    /**
+     * Forget the splits finished by earlier runs, the job runs all of them again.
+     */
+    public void reset()
+    {
+        try {
+            store.clear(jobKey);
+            finishedSplits.clear();
+        }
+        catch (IOException e) {
+            throw AddaxException.asAddaxException(IO_ERROR, "Failed to reset the checkpoint of the job", e);
+        }
+    }
+
+    /**
+     * @param tasks the task configurations of this run
+     * @return those of the splits not finished by an earlier run
+     * @throws AddaxException if a split finished earlier is not among the splits of this run. The writer
+     * has already kept what the earlier runs wrote, so the checkpoint is cleared and the job fails rather
+     * than write the same rows again under other splits; its next run starts over.
+     */
+    public synchronized List<Configuration> skipFinished(List<Configuration> tasks)
+    {
+        Map<String, Integer> toSkip = new HashMap<>(finishedSplits);
+        List<Configuration> remaining = new ArrayList<>(tasks.size());
+        for (Configuration task : tasks) {
+            Configuration split = task.clone();
+            int taskId = split.getInt(CoreConstant.TASK_ID);
+            split.remove(CoreConstant.TASK_ID);
+            String key = digest(split.toJSON());
+            if (toSkip.getOrDefault(key, 0) > 0) {
+                toSkip.merge(key, -1, Integer::sum);
+                continue;
+            }
+            pendingSplits.put(taskId, key);
+            remaining.add(task);
+        }
+        int changed = toSkip.values().stream().mapToInt(Integer::intValue).sum();
+        if (changed > 0) {
+            pendingSplits.clear();
+            reset();
+            throw AddaxException.asAddaxException(CONFIG_ERROR, String.format(
+                    "[%d] of the splits an earlier run of the job has finished are not split the same way any more, "
+                            + "the checkpoint is cleared and the next run of the job starts over.", changed));
+        }
+        if (remaining.size() < tasks.size()) {
+            LOG.info("Skipped [{}] of the [{}] splits, which an earlier run of the job has finished.",
+                    tasks.size() - remaining.size(), tasks.size());
+        }
+        return remaining;
+    }
+
+    /**
+     * Record the splits which have finished since the last call.
+     *
+     * @param tasks the communications of the tasks, keyed by task id
+     */
+    public synchronized void record(Map<Integer, Communication> tasks)
+    {
+        List<Integer> finished = new ArrayList<>();
+        tasks.forEach((taskId, communication) -> {
+            // only the writer marks a task succeeded, once its post is done
+            if (communication.getState() == State.SUCCEEDED && pendingSplits.containsKey(taskId)) {
+                finished.add(taskId);
+            }
+        });
+        if (finished.isEmpty()) {
+            return;
+        }
+        try {
+            store.markFinished(jobKey, finished.stream().map(pendingSplits::get).toList());
+            finished.forEach(pendingSplits::remove);
+        }
+        catch (IOException e) {
+            // the splits run again on resume, which is only slower
+            LOG.warn("Failed to record the finished splits in the checkpoint: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * The job succeeded, its next run starts over.
+     */
+    public void complete()
+    {
+        try {
+            store.clear(jobKey);
+        }
+        catch (IOException e) {
+            LOG.warn("Failed to clear the checkpoint of the succeeded job: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        try {
+            store.close();
+        }
+        catch (IOException e) {
+            LOG.warn("Failed to close the checkpoint store: {}", e.getMessage());
+        }
+    }
+
+    private static String digest(String text)
+    {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.job.checkpoint;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps the finished splits of every job in a file of its own under a directory, one split key
+ * per line, synced to disk before returning.
+ */
+public class LocalCheckpointStore
+        implements CheckpointStore
+{
+    private final Path directory;
+
+    public LocalCheckpointStore(Path directory)
+            throws IOException
+    {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    @Override
+    public List<String> getFinishedSplits(String jobKey)
+            throws IOException
+    {
+        Path file = file(jobKey);
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        // a line cut by a crash is not a key
+        return Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+                .filter(line -> line.length() == JobCheckpoint.KEY_LENGTH)
+                .toList();
+    }
+
+    @Override
+    public void markFinished(String jobKey, Collection<String> splitKeys)
+            throws IOException
+    {
+        StringBuilder lines = new StringBuilder();
+        splitKeys.forEach(key -> lines.append(key).append('\n'));
+        try (FileChannel channel = FileChannel.open(file(jobKey),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(lines.toString());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public void clear(String jobKey)
+            throws IOException
+    {
+        Files.deleteIfExists(file(jobKey));
+    }
+
+    @Override
+    public void close()
+    {
+        //
+    }
+
+    private Path file(String jobKey)
+    {
+        return directory.resolve(jobKey + ".checkpoint");
+    }
+}
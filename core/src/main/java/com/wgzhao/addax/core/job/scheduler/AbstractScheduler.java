@@ -20,10 +20,12 @@
 package com.wgzhao.addax.core.job.scheduler;
 
 import com.wgzhao.addax.core.exception.AddaxException;
+import com.wgzhao.addax.core.job.checkpoint.JobCheckpoint;
 import com.wgzhao.addax.core.util.Configuration;
 import com.wgzhao.addax.core.meta.State;
 import com.wgzhao.addax.core.statistics.communication.Communication;
 import com.wgzhao.addax.core.statistics.communication.CommunicationTool;
+import com.wgzhao.addax.core.statistics.communication.LocalTGCommunicationManager;
 import com.wgzhao.addax.core.statistics.container.communicator.AbstractContainerCommunicator;
 import com.wgzhao.addax.core.util.ErrorRecordChecker;
 import com.wgzhao.addax.core.util.container.CoreConstant;
@@ -42,11 +44,21 @@ public abstract class AbstractScheduler
 
     private final AbstractContainerCommunicator containerCommunicator;
 
+    private JobCheckpoint checkpoint;
+
     public AbstractScheduler(AbstractContainerCommunicator containerCommunicator)
     {
         this.containerCommunicator = containerCommunicator;
     }
 
+    /**
+     * @param checkpoint where to record the splits as they finish
+     */
+    public void setCheckpoint(JobCheckpoint checkpoint)
+    {
+        this.checkpoint = checkpoint;
+    }
+
     public void schedule(List<Configuration> configurations)
     {
         Validate.notNull(configurations, "The scheduler configuration cannot be empty");
@@ -56,6 +68,7 @@ public abstract class AbstractScheduler
                 CoreConstant.CORE_CONTAINER_JOB_SLEEP_INTERVAL, 10000);
 
         ErrorRecordChecker errorLimit = new ErrorRecordChecker(configurations.get(0));
+        long jobId = configurations.get(0).getLong(CoreConstant.CORE_CONTAINER_JOB_ID, 0L);
 
         /*
          * Register communication channels for TaskGroupContainers
@@ -85,6 +98,10 @@ public abstract class AbstractScheduler
             nowJobContainerCommunication.setTimestamp(System.currentTimeMillis());
             LOG.debug(nowJobContainerCommunication.toString());
 
+            if (checkpoint != null) {
+                checkpoint.record(LocalTGCommunicationManager.getTaskCommunicationMap(jobId));
+            }
+
             long now = System.currentTimeMillis();
             if (now - lastReportTimeStamp > jobReportIntervalInMillSec) {
                 Communication reportCommunication = CommunicationTool
@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.job.scheduler.distributed;
+
+import com.wgzhao.addax.core.exception.AddaxException;
+import com.wgzhao.addax.core.job.scheduler.AbstractScheduler;
+import com.wgzhao.addax.core.meta.State;
+import com.wgzhao.addax.core.statistics.communication.Communication;
+import com.wgzhao.addax.core.statistics.communication.CommunicationTool;
+import com.wgzhao.addax.core.statistics.container.collector.DistributedCollector;
+import com.wgzhao.addax.core.statistics.container.communicator.AbstractContainerCommunicator;
+import com.wgzhao.addax.core.statistics.container.communicator.job.DistributedJobContainerCommunicator;
+import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.core.util.container.CoreConstant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.wgzhao.addax.core.spi.ErrorCode.RUNTIME_ERROR;
+import static com.wgzhao.addax.core.spi.ErrorCode.WAIT_TIME_EXCEED;
+
+/**
+ * Runs every task group of a job in a worker JVM of its own, see {@link TaskGroupWorker}.
+ * <p>
+ * The workers report the communications of their tasks to a {@link DistributedCollector}. A worker
+ * which exits before reporting the end of its task group, or stays silent for longer than the
+ * heartbeat timeout, is lost, and its unfinished tasks run again in a new worker the way a
+ * task group retries a failed task: up to {@code core.container.task.failOver.maxRetryTimes}
+ * attempts, {@code retryIntervalInMsec} apart, as long as every one of them either had not
+ * passed any record to its writer or has a writer which supports fail over. The lost worker is
+ * given {@code maxWaitInMsec} to exit, then killed, and its tasks run again once it is gone. The
+ * monitor does not wait for it meanwhile, it checks the exit on its next rounds.
+ */
+public class DistributedScheduler
+        extends AbstractScheduler
+{
+    private static final Logger LOG = LoggerFactory.getLogger(DistributedScheduler.class);
+
+    private static final long CHECK_INTERVAL_MS = 1000L;
+
+    private final DistributedCollector collector;
+    private final Map<Integer, Worker> workers = new ConcurrentHashMap<>();
+
+    private WorkerReportServer server;
+    private WorkerLauncher launcher;
+    private ScheduledExecutorService monitor;
+
+    private int maxAttempts;
+    private long retryIntervalInMs;
+    private long maxWaitInMs;
+    private long heartbeatTimeoutInMs;
+
+    public DistributedScheduler(DistributedJobContainerCommunicator containerCommunicator)
+    {
+        super(containerCommunicator);
+        this.collector = containerCommunicator.getCollector();
+    }
+
+    @Override
+    public void schedule(List<Configuration> configurations)
+    {
+        try {
+            super.schedule(configurations);
+        }
+        finally {
+            shutdown();
+        }
+    }
+
+    @Override
+    protected void startAllTaskGroup(List<Configuration> configurations)
+    {
+        Configuration configuration = configurations.get(0);
+        this.maxAttempts = configuration.getInt(CoreConstant.CORE_CONTAINER_TASK_FAIL_OVER_MAX_RETRY_TIMES, 1);
+        this.retryIntervalInMs = configuration.getLong(CoreConstant.CORE_CONTAINER_TASK_FAIL_OVER_RETRY_INTERVAL_IN_MSEC, 10000);
+        this.maxWaitInMs = configuration.getLong(CoreConstant.CORE_CONTAINER_TASK_FAIL_OVER_MAX_WAIT_IN_MSEC, 60000);
+        this.heartbeatTimeoutInMs = configuration.getLong(CoreConstant.CORE_CONTAINER_DISTRIBUTED_HEARTBEAT_TIMEOUT, 60000);
+
+        String host = configuration.getString(CoreConstant.CORE_CONTAINER_DISTRIBUTED_HOST, "127.0.0.1");
+        String token = UUID.randomUUID().toString();
+        try {
+            this.server = new WorkerReportServer(host, token, collector);
+        }
+        catch (IOException e) {
+            throw AddaxException.asAddaxException(RUNTIME_ERROR, "Failed to listen for the workers at " + host, e);
+        }
+        this.launcher = new WorkerLauncher(configuration);
+
+        for (Configuration taskGroupConfiguration : configurations) {
+            taskGroupConfiguration.set(CoreConstant.CORE_CONTAINER_DISTRIBUTED_HOST, host);
+            taskGroupConfiguration.set(CoreConstant.CORE_CONTAINER_DISTRIBUTED_PORT, server.getPort());
+            taskGroupConfiguration.set(CoreConstant.CORE_CONTAINER_DISTRIBUTED_TOKEN, token);
+            launch(taskGroupConfiguration, 1);
+        }
+
+        this.monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "worker-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        monitor.scheduleWithFixedDelay(this::checkWorkers, CHECK_INTERVAL_MS, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void dealFailedStat(AbstractContainerCommunicator frameworkCollector, Throwable throwable)
+    {
+        shutdown();
+        throw AddaxException.asAddaxException(RUNTIME_ERROR, throwable);
+    }
+
+    @Override
+    protected void dealKillingStat(AbstractContainerCommunicator frameworkCollector, int totalTasks)
+    {
+        shutdown();
+        throw AddaxException.asAddaxException(RUNTIME_ERROR, "The job was terminated");
+    }
+
+    private void launch(Configuration taskGroupConfiguration, int attempt)
+    {
+        int taskGroupId = taskGroupConfiguration.getInt(CoreConstant.CORE_CONTAINER_TASK_GROUP_ID);
+        taskGroupConfiguration.set(CoreConstant.CORE_CONTAINER_DISTRIBUTED_ATTEMPT, attempt);
+        try {
+            Process process = launcher.launch(taskGroupConfiguration);
+            workers.put(taskGroupId, new Worker(taskGroupConfiguration, attempt, process));
+            LOG.info("Launched the worker [pid {}] of taskGroup[{}] attempt [{}] for [{}] tasks.", process.pid(), taskGroupId,
+                    attempt, taskGroupConfiguration.getListConfiguration(CoreConstant.JOB_CONTENT).size());
+        }
+        catch (IOException e) {
+            collector.markFailed(taskGroupId, AddaxException.asAddaxException(RUNTIME_ERROR,
+                    "Failed to launch the worker of taskGroup[" + taskGroupId + "]", e));
+        }
+    }
+
+    private synchronized void checkWorkers()
+    {
+        try {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<Integer, Worker> entry : workers.entrySet()) {
+                int taskGroupId = entry.getKey();
+                Worker worker = entry.getValue();
+                if (collector.isFinished(taskGroupId)) {
+                    continue;
+                }
+                if (worker.retry != null) {
+                    if (now >= worker.retryAt) {
+                        launch(worker.retry, worker.attempt + 1);
+                    }
+                    continue;
+                }
+                if (worker.exit != null) {
+                    awaitExit(taskGroupId, worker, now);
+                    continue;
+                }
+                String reason = lostReason(taskGroupId, worker, now);
+                if (reason != null) {
+                    lost(taskGroupId, worker, reason, now);
+                }
+            }
+        }
+        catch (RuntimeException e) {
+            LOG.error("Failed to check the workers", e);
+        }
+    }
+
+    private String lostReason(int taskGroupId, Worker worker, long now)
+    {
+        if (!worker.process.isAlive()) {
+            // give the last report the worker sent before exiting the time to be read
+            if (worker.exitedAt == 0) {
+                worker.exitedAt = now;
+                return null;
+            }
+            return "it exited with code " + worker.process.exitValue() + " before reporting the end of the task group";
+        }
+        long lastReportTime = Math.max(collector.getLastReportTime(taskGroupId), worker.startTime);
+        if (now - lastReportTime > heartbeatTimeoutInMs) {
+            return "it sent no report for " + (now - lastReportTime) + " ms";
+        }
+        return null;
+    }
+
+    private void lost(int taskGroupId, Worker worker, String reason, long now)
+    {
+        LOG.warn("The worker [pid {}] of taskGroup[{}] attempt [{}] is lost, {}.", worker.process.pid(), taskGroupId,
+                worker.attempt, reason);
+        worker.lostReason = reason;
+        worker.exit = worker.process.onExit();
+        worker.stoppedAt = now;
+        worker.process.destroy();
+        awaitExit(taskGroupId, worker, now);
+    }
+
+    /*
+     * Replace the lost worker once it has exited, kill it when it does not exit in time
+     */
+    private void awaitExit(int taskGroupId, Worker worker, long now)
+    {
+        if (worker.exit.isDone()) {
+            failover(taskGroupId, worker, now);
+            return;
+        }
+        if (now - worker.stoppedAt < maxWaitInMs) {
+            return;
+        }
+        if (!worker.killed) {
+            LOG.warn("The lost worker [pid {}] of taskGroup[{}] did not exit in [{}] ms, killing it.", worker.process.pid(),
+                    taskGroupId, maxWaitInMs);
+            worker.process.destroyForcibly();
+            worker.killed = true;
+            worker.stoppedAt = now;
+            return;
+        }
+        collector.markFailed(taskGroupId, AddaxException.asAddaxException(WAIT_TIME_EXCEED,
+                "The lost worker of taskGroup[" + taskGroupId + "] did not exit in " + maxWaitInMs + " ms"));
+    }
+
+    private void failover(int taskGroupId, Worker worker, long now)
+    {
+        Map<Integer, Communication> taskCommunications = collector.getTaskCommunications(taskGroupId);
+        List<Configuration> rerunTasks = worker.configuration.getListConfiguration(CoreConstant.JOB_CONTENT).stream()
+                .filter(task -> {
+                    Communication communication = taskCommunications.get(task.getInt(CoreConstant.TASK_ID));
+                    return communication == null || communication.getState() != State.SUCCEEDED;
+                })
+                .toList();
+        if (rerunTasks.isEmpty()) {
+            collector.receive(taskGroupId, worker.attempt, Map.of(), State.SUCCEEDED, null);
+            return;
+        }
+
+        boolean canRerun = rerunTasks.stream().allMatch(task -> {
+            Communication communication = taskCommunications.get(task.getInt(CoreConstant.TASK_ID));
+            return communication == null
+                    || communication.getLongCounter(CommunicationTool.WRITE_RECEIVED_RECORDS) == 0
+                    || communication.getLongCounter(CommunicationTool.WRITER_FAIL_OVER) == 1;
+        });
+        if (!canRerun || worker.attempt >= maxAttempts) {
+            collector.markFailed(taskGroupId, AddaxException.asAddaxException(RUNTIME_ERROR,
+                    "The worker of taskGroup[" + taskGroupId + "] attempt [" + worker.attempt + "] is lost, " + worker.lostReason
+                            + (canRerun ? ", and no attempt is left" : ", and the writer does not support fail over")));
+            return;
+        }
+
+        Configuration retry = worker.configuration.clone();
+        retry.set(CoreConstant.JOB_CONTENT, rerunTasks);
+        collector.startAttempt(taskGroupId, worker.attempt + 1,
+                rerunTasks.stream().map(task -> task.getInt(CoreConstant.TASK_ID)).toList());
+        worker.retry = retry;
+        worker.retryAt = now + retryIntervalInMs;
+        LOG.info("The [{}] unfinished tasks of taskGroup[{}] will run again in [{}] ms.", rerunTasks.size(), taskGroupId,
+                retryIntervalInMs);
+    }
+
+    private static boolean stop(Process process, long waitInMs)
+    {
+        if (!process.isAlive()) {
+            return true;
+        }
+        process.destroy();
+        try {
+            if (!process.waitFor(waitInMs, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                return process.waitFor(waitInMs, TimeUnit.MILLISECONDS);
+            }
+            return true;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+            return false;
+        }
+    }
+
+    private synchronized void shutdown()
+    {
+        if (monitor != null) {
+            monitor.shutdownNow();
+            monitor = null;
+        }
+        // the workers of a finished task group are on their way out, the others are stopped
+        for (Map.Entry<Integer, Worker> entry : workers.entrySet()) {
+            Process process = entry.getValue().process;
+            try {
+                if (collector.isFinished(entry.getKey())) {
+                    process.waitFor(maxWaitInMs, TimeUnit.MILLISECONDS);
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            stop(process, maxWaitInMs);
+        }
+        workers.clear();
+        if (server != null) {
+            server.close();
+            server = null;
+        }
+    }
+
+    private static final class Worker
+    {
+        private final Configuration configuration;
+        private final int attempt;
+        private final Process process;
+        private final long startTime = System.currentTimeMillis();
+        private long exitedAt;
+        // why the worker is lost, and its exit once it is being stopped
+        private String lostReason;
+        private CompletableFuture<Process> exit;
+        private long stoppedAt;
+        private boolean killed;
+        // the configuration of the next attempt once this worker is lost
+        private Configuration retry;
+        private long retryAt;
+
+        private Worker(Configuration configuration, int attempt, Process process)
+        {
+            this.configuration = configuration;
+            this.attempt = attempt;
+            this.process = process;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.job.scheduler.distributed;
+
+import com.wgzhao.addax.core.element.ColumnCast;
+import com.wgzhao.addax.core.meta.State;
+import com.wgzhao.addax.core.statistics.communication.Communication;
+import com.wgzhao.addax.core.statistics.communication.LocalTGCommunicationManager;
+import com.wgzhao.addax.core.taskgroup.TaskGroupContainer;
+import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.core.util.container.CoreConstant;
+import com.wgzhao.addax.core.util.container.LoadUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The entry of a worker JVM, running one task group of a distributed job.
+ * <p>
+ * It reads the configuration of the task group from its standard input, runs it in a
+ * {@link TaskGroupContainer} as the job JVM would, and reports the communications of the tasks to
+ * the job every heartbeat interval and once more at the end. A worker which lost the job exits,
+ * the job replaces a worker it lost.
+ */
+public final class TaskGroupWorker
+{
+    private static final Logger LOG = LoggerFactory.getLogger(TaskGroupWorker.class);
+
+    private final Configuration configuration;
+    private final long jobId;
+    private final int taskGroupId;
+
+    private BufferedWriter out;
+
+    private TaskGroupWorker(Configuration configuration)
+    {
+        this.configuration = configuration;
+        this.jobId = configuration.getLong(CoreConstant.CORE_CONTAINER_JOB_ID, 0L);
+        this.taskGroupId = configuration.getInt(CoreConstant.CORE_CONTAINER_TASK_GROUP_ID);
+    }
+
+    public static void main(String[] args)
+    {
+        Configuration configuration = Configuration.from(System.in);
+        Thread.currentThread().setName("taskGroup-" + configuration.getInt(CoreConstant.CORE_CONTAINER_TASK_GROUP_ID));
+        boolean succeeded = new TaskGroupWorker(configuration).run();
+        System.exit(succeeded ? 0 : 1);
+    }
+
+    private boolean run()
+    {
+        ColumnCast.bind(configuration);
+        LoadUtil.bind(configuration);
+        LocalTGCommunicationManager.registerTaskGroupCommunication(jobId, taskGroupId,
+                configuration.getInt(CoreConstant.CORE_CONTAINER_TASK_GROUP_CHANNEL, 1), new Communication());
+
+        String host = configuration.getString(CoreConstant.CORE_CONTAINER_DISTRIBUTED_HOST);
+        int port = configuration.getInt(CoreConstant.CORE_CONTAINER_DISTRIBUTED_PORT);
+        int attempt = configuration.getInt(CoreConstant.CORE_CONTAINER_DISTRIBUTED_ATTEMPT, 1);
+        long heartbeatInterval = configuration.getLong(CoreConstant.CORE_CONTAINER_DISTRIBUTED_HEARTBEAT_INTERVAL, 1000L);
+
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "worker-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            send(WorkerProtocol.hello(configuration.getString(CoreConstant.CORE_CONTAINER_DISTRIBUTED_TOKEN), taskGroupId, attempt));
+            LOG.info("The worker of taskGroup[{}] attempt [{}] reports to {}:{}", taskGroupId, attempt, host, port);
+
+            heartbeat.scheduleWithFixedDelay(() -> {
+                try {
+                    report(State.RUNNING, null);
+                }
+                catch (IOException e) {
+                    // nobody is waiting for the tasks any more
+                    LOG.error("The worker of taskGroup[{}] lost the job, exiting: {}", taskGroupId, e.getMessage());
+                    Runtime.getRuntime().halt(1);
+                }
+            }, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+
+            Throwable failure = null;
+            try {
+                new TaskGroupContainer(configuration).start();
+            }
+            catch (Throwable e) {
+                LOG.error("The taskGroup[{}] failed", taskGroupId, e);
+                failure = e;
+            }
+            heartbeat.shutdownNow();
+            heartbeat.awaitTermination(heartbeatInterval, TimeUnit.MILLISECONDS);
+            report(failure == null ? State.SUCCEEDED : State.FAILED, failure);
+            return failure == null;
+        }
+        catch (IOException e) {
+            LOG.error("The worker of taskGroup[{}] failed to report to {}:{}", taskGroupId, host, port, e);
+            return false;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void report(State state, Throwable throwable)
+            throws IOException
+    {
+        send(WorkerProtocol.report(LocalTGCommunicationManager.getTaskCommunicationMap(jobId), state, throwable));
+    }
+
+    private synchronized void send(String message)
+            throws IOException
+    {
+        out.write(message);
+        out.write('\n');
+        out.flush();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.job.scheduler.distributed;
+
+import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.core.util.container.CoreConstant;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Starts the worker JVM of a task group on this host, with the classpath of the job JVM and
+ * the configuration of the task group passed on its standard input rather than on the command
+ * line or in a file, as it holds the passwords of the job.
+ */
+final class WorkerLauncher
+{
+    // options of the job JVM a worker must not inherit, such as those listening on a port
+    private static final List<String> NOT_INHERITED = List.of("-agentlib", "-javaagent", "-Xdebug", "-Xrunjdwp",
+            "-Dcom.sun.management.jmxremote");
+
+    private final List<String> command = new ArrayList<>();
+
+    WorkerLauncher(Configuration configuration)
+    {
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        String jvm = configuration.getString(CoreConstant.CORE_CONTAINER_DISTRIBUTED_JVM);
+        List<String> jvmOptions;
+        if (StringUtils.isNotBlank(jvm)) {
+            jvmOptions = Arrays.asList(StringUtils.split(jvm));
+        }
+        else {
+            jvmOptions = ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                    .filter(option -> NOT_INHERITED.stream().noneMatch(option::startsWith))
+                    .toList();
+        }
+        command.addAll(jvmOptions);
+        if (CoreConstant.HOME != null && jvmOptions.stream().noneMatch(option -> option.startsWith("-Daddax.home="))) {
+            command.add("-Daddax.home=" + CoreConstant.HOME);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(TaskGroupWorker.class.getName());
+    }
+
+    Process launch(Configuration taskGroupConfiguration)
+            throws IOException
+    {
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write(taskGroupConfiguration.toJSON().getBytes(StandardCharsets.UTF_8));
+        }
+        catch (IOException e) {
+            process.destroyForcibly();
+            throw e;
+        }
+        return process;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.job.scheduler.distributed;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.wgzhao.addax.core.meta.State;
+import com.wgzhao.addax.core.statistics.communication.Communication;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The messages between a worker and the job, one JSON object per line.
+ * <p>
+ * A worker first sends a hello naming its task group and attempt along with the token of the job,
+ * then reports of the communications of its tasks, the last of them with the end state of the
+ * task group.
+ */
+final class WorkerProtocol
+{
+    static final String TOKEN = "token";
+    static final String TASK_GROUP_ID = "taskGroupId";
+    static final String ATTEMPT = "attempt";
+    static final String TASKS = "tasks";
+    static final String STATE = "state";
+    static final String THROWABLE = "throwable";
+
+    private static final String COUNTER = "counter";
+    private static final String MESSAGE = "message";
+    private static final String TIMESTAMP = "timestamp";
+
+    private WorkerProtocol() {}
+
+    static String hello(String token, int taskGroupId, int attempt)
+    {
+        JSONObject hello = new JSONObject();
+        hello.put(TOKEN, token);
+        hello.put(TASK_GROUP_ID, taskGroupId);
+        hello.put(ATTEMPT, attempt);
+        return hello.toJSONString();
+    }
+
+    static String report(Map<Integer, Communication> tasks, State state, Throwable throwable)
+    {
+        JSONObject encodedTasks = new JSONObject();
+        tasks.forEach((taskId, communication) -> encodedTasks.put(String.valueOf(taskId), encode(communication)));
+        JSONObject report = new JSONObject();
+        report.put(TASKS, encodedTasks);
+        report.put(STATE, state.name());
+        if (throwable != null) {
+            report.put(THROWABLE, ExceptionUtils.getStackTrace(throwable));
+        }
+        return report.toJSONString();
+    }
+
+    static Map<Integer, Communication> decodeTasks(JSONObject report)
+    {
+        Map<Integer, Communication> tasks = new HashMap<>();
+        JSONObject encodedTasks = report.getJSONObject(TASKS);
+        if (encodedTasks != null) {
+            encodedTasks.forEach((taskId, communication) ->
+                    tasks.put(Integer.parseInt(taskId), decode((JSONObject) communication)));
+        }
+        return tasks;
+    }
+
+    static Throwable decodeThrowable(JSONObject report)
+    {
+        String stackTrace = report.getString(THROWABLE);
+        return stackTrace == null ? null : new RuntimeException("Failed on the worker: " + stackTrace);
+    }
+
+    private static JSONObject encode(Communication communication)
+    {
+        JSONObject encoded = new JSONObject();
+        encoded.put(COUNTER, new HashMap<>(communication.getCounter()));
+        encoded.put(STATE, communication.getState().name());
+        encoded.put(TIMESTAMP, communication.getTimestamp());
+        // writers hand the files they wrote to the job this way, to publish them in one commit
+        if (!communication.getMessage().isEmpty()) {
+            encoded.put(MESSAGE, new HashMap<>(communication.getMessage()));
+        }
+        if (communication.getThrowable() != null) {
+            encoded.put(THROWABLE, ExceptionUtils.getStackTrace(communication.getThrowable()));
+        }
+        return encoded;
+    }
+
+    private static Communication decode(JSONObject encoded)
+    {
+        Communication communication = new Communication();
+        JSONObject counter = encoded.getJSONObject(COUNTER);
+        if (counter != null) {
+            counter.forEach((key, value) -> {
+                // doubles come back as decimals, keep the integer counters as long
+                if (value instanceof BigDecimal || value instanceof Double || value instanceof Float) {
+                    communication.setDoubleCounter(key, ((Number) value).doubleValue());
+                }
+                else if (value instanceof Number number) {
+                    communication.setLongCounter(key, number.longValue());
+                }
+            });
+        }
+        JSONObject message = encoded.getJSONObject(MESSAGE);
+        if (message != null) {
+            message.forEach((key, values) -> ((JSONArray) values).forEach(value -> communication.addMessage(key, (String) value)));
+        }
+        communication.setState(State.valueOf(encoded.getString(STATE)), true);
+        communication.setTimestamp(encoded.getLongValue(TIMESTAMP));
+        communication.setThrowable(decodeThrowable(encoded), true);
+        return communication;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.job.scheduler.distributed;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.wgzhao.addax.core.meta.State;
+import com.wgzhao.addax.core.statistics.container.collector.DistributedCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Listens for the workers of a distributed job and hands their reports to the collector, one
+ * thread per worker connection.
+ */
+final class WorkerReportServer
+        implements Closeable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(WorkerReportServer.class);
+
+    private final ServerSocket serverSocket;
+    private final String token;
+    private final DistributedCollector collector;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    WorkerReportServer(String host, String token, DistributedCollector collector)
+            throws IOException
+    {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName(host));
+        this.token = token;
+        this.collector = collector;
+        Thread acceptor = new Thread(this::accept, "worker-report-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        LOG.info("Listening for the reports of the workers at {}:{}", host, getPort());
+    }
+
+    int getPort()
+    {
+        return serverSocket.getLocalPort();
+    }
+
+    private void accept()
+    {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                Thread reader = new Thread(() -> read(socket), "worker-report-" + socket.getPort());
+                reader.setDaemon(true);
+                reader.start();
+            }
+            catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    LOG.warn("Failed to accept a worker connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void read(Socket socket)
+    {
+        int taskGroupId = -1;
+        try (socket; BufferedReader reader = new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            JSONObject hello = JSON.parseObject(reader.readLine());
+            if (hello == null || !token.equals(hello.getString(WorkerProtocol.TOKEN))) {
+                LOG.warn("Rejected a connection from {} without the token of the job", socket.getRemoteSocketAddress());
+                return;
+            }
+            taskGroupId = hello.getIntValue(WorkerProtocol.TASK_GROUP_ID);
+            int attempt = hello.getIntValue(WorkerProtocol.ATTEMPT);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JSONObject report = JSON.parseObject(line);
+                collector.receive(taskGroupId, attempt, WorkerProtocol.decodeTasks(report),
+                        State.valueOf(report.getString(WorkerProtocol.STATE)), WorkerProtocol.decodeThrowable(report));
+            }
+        }
+        catch (SocketException e) {
+            // closed along with the server, or by a worker going away, which the scheduler notices
+            LOG.debug("The connection of taskGroup[{}] is closed: {}", taskGroupId, e.getMessage());
+        }
+        catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to read the report of taskGroup[{}]: {}", taskGroupId, e.getMessage());
+        }
+        finally {
+            connections.remove(socket);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        try {
+            serverSocket.close();
+        }
+        catch (IOException ignored) {
+        }
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            }
+            catch (IOException ignored) {
+            }
+        }
+    }
+}
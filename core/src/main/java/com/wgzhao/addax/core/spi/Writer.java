@@ -31,6 +31,9 @@ public abstract class Writer
     public abstract static class Job
             extends AbstractJobPlugin
     {
+        private boolean resuming = false;
+        private int channelNumber = 1;
+        private boolean distributed = false;
 
         /**
          * split the task
@@ -39,6 +42,58 @@ public abstract class Writer
          * @return list of configuration
          */
         public abstract List<Configuration> split(int mandatoryNumber);
+
+        /**
+         * Whether a checkpointed job may be resumed, skipping the splits an earlier run has finished.
+         * A writer which only makes the output of its tasks visible in {@link #post()} must not.
+         *
+         * @return true if the output of a finished task survives a failure of the job
+         */
+        public boolean supportResume()
+        {
+            return false;
+        }
+
+        /**
+         * @return true if the job resumes from its checkpoint, {@link #prepare()} must then keep what
+         * the earlier runs have written, such as by not running the preSql
+         */
+        public boolean isResuming()
+        {
+            return resuming;
+        }
+
+        public void setResuming(boolean resuming)
+        {
+            this.resuming = resuming;
+        }
+
+        /**
+         * @return the number of tasks which run at the same time, known when {@link #split(int)} is called
+         */
+        public int getChannelNumber()
+        {
+            return channelNumber;
+        }
+
+        public void setChannelNumber(int channelNumber)
+        {
+            this.channelNumber = channelNumber;
+        }
+
+        /**
+         * @return true if the task groups run in worker JVMs, the tasks then share neither the JVM of
+         * the job nor, across task groups, a JVM of their own
+         */
+        public boolean isDistributed()
+        {
+            return distributed;
+        }
+
+        public void setDistributed(boolean distributed)
+        {
+            this.distributed = distributed;
+        }
     }
 
     public abstract static class Task
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.statistics;
+
+import com.sun.net.httpserver.HttpServer;
+import com.wgzhao.addax.core.statistics.communication.Communication;
+import com.wgzhao.addax.core.statistics.communication.CommunicationTool;
+import com.wgzhao.addax.core.statistics.communication.LocalTGCommunicationManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Renders the live statistics of the jobs running in this JVM in the Prometheus text format.
+ * <p>
+ * Counters are exposed as they are, so that {@code rate()} gives the per job and per task
+ * throughput, along with the speeds of the latest job report, the channel gauges, the share of
+ * channel time readers and writers spent waiting, the transformer time and the GC and memory
+ * pools of the JVM. The server mounts {@link #scrape()} at {@code /metrics}, a standalone job
+ * opens its own listener with {@link #serve(int)} when {@code core.metrics.port} is set.
+ */
+public final class MetricsExporter
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsExporter.class);
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    private MetricsExporter() {}
+
+    /**
+     * @return the metrics of all the jobs running in this JVM and of the JVM itself
+     */
+    public static String scrape()
+    {
+        MetricsExporter exporter = new MetricsExporter();
+        exporter.collectJobs();
+        exporter.collectJvm();
+        return exporter.render();
+    }
+
+    /**
+     * Start an HTTP listener serving {@link #scrape()} at {@code /metrics}.
+     *
+     * @param port the port to listen to
+     * @return the handle to stop the listener with
+     * @throws IOException if the port can not be bound
+     */
+    public static Closeable serve(int port)
+            throws IOException
+    {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] bytes = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-listener");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+        LOG.info("The metrics are served at http://{}:{}/metrics", server.getAddress().getHostString(), port);
+        return () -> server.stop(0);
+    }
+
+    private void collectJobs()
+    {
+        long now = System.currentTimeMillis();
+        List<Long> jobIds = new ArrayList<>(LocalTGCommunicationManager.getJobIds());
+        jobIds.sort(null);
+        gauge("addax_jobs_running", "The number of jobs running in this JVM", Map.of(), jobIds.size());
+
+        for (long jobId : jobIds) {
+            Map<String, String> labels = Map.of("job", String.valueOf(jobId));
+
+            Map<String, String> info = new TreeMap<>(LocalTGCommunicationManager.getJobInfo(jobId));
+            info.put("job", String.valueOf(jobId));
+            gauge("addax_job_info", "The reader, writer and name of a job", info, 1);
+
+            // the task group reports lag by the report interval, sum the live task communications instead
+            Map<Integer, Communication> tasks = new TreeMap<>(LocalTGCommunicationManager.getTaskCommunicationMap(jobId));
+            Communication job;
+            if (tasks.isEmpty()) {
+                job = LocalTGCommunicationManager.getJobCommunication(jobId);
+            }
+            else {
+                job = new Communication();
+                tasks.values().forEach(job::mergeFrom);
+            }
+            collectTransport("addax_job", job, labels);
+            counter("addax_job_read_failed_records_total", "Records failed by the reader",
+                    labels, job.getLongCounter(CommunicationTool.READ_FAILED_RECORDS));
+            counter("addax_job_write_failed_records_total", "Records failed by the writer",
+                    labels, job.getLongCounter(CommunicationTool.WRITE_FAILED_RECORDS));
+            counter("addax_job_transformer_seconds_total", "Time spent in transformers",
+                    labels, job.getLongCounter(CommunicationTool.TRANSFORMER_USED_TIME) / NANOS_PER_SECOND);
+            counter("addax_job_transformer_succeed_records_total", "Records passed by the transformers",
+                    labels, job.getLongCounter(CommunicationTool.TRANSFORMER_SUCCEED_RECORDS));
+            counter("addax_job_transformer_failed_records_total", "Records failed by the transformers",
+                    labels, job.getLongCounter(CommunicationTool.TRANSFORMER_FAILED_RECORDS));
+            counter("addax_job_transformer_filter_records_total", "Records filtered out by the transformers",
+                    labels, job.getLongCounter(CommunicationTool.TRANSFORMER_FILTER_RECORDS));
+
+            int channels = LocalTGCommunicationManager.getChannelNumber(jobId);
+            gauge("addax_job_channels", "The number of channels of a job", labels, channels);
+            // the share of the channel time since the job started, rate() of the wait counters gives the recent one
+            double channelSeconds = Math.max(1, channels) * Math.max(1, now - LocalTGCommunicationManager.getStartTime(jobId)) / 1000d;
+            gauge("addax_job_wait_reader_ratio", "Share of the channel time writers spent waiting for the reader",
+                    labels, job.getLongCounter(CommunicationTool.WAIT_READER_TIME) / NANOS_PER_SECOND / channelSeconds);
+            gauge("addax_job_wait_writer_ratio", "Share of the channel time readers spent waiting for the writer",
+                    labels, job.getLongCounter(CommunicationTool.WAIT_WRITER_TIME) / NANOS_PER_SECOND / channelSeconds);
+
+            Communication report = LocalTGCommunicationManager.getJobReport(jobId);
+            if (report != null) {
+                gauge("addax_job_byte_speed", "Bytes read per second over the latest report interval",
+                        labels, report.getLongCounter(CommunicationTool.BYTE_SPEED));
+                gauge("addax_job_record_speed", "Records read per second over the latest report interval",
+                        labels, report.getLongCounter(CommunicationTool.RECORD_SPEED));
+                gauge("addax_job_progress", "The share of the tasks of a job finished",
+                        labels, report.getDoubleCounter(CommunicationTool.PERCENTAGE));
+            }
+
+            for (Map.Entry<Integer, Communication> task : tasks.entrySet()) {
+                collectTransport("addax_task", task.getValue(),
+                        Map.of("job", String.valueOf(jobId), "task", String.valueOf(task.getKey())));
+            }
+        }
+    }
+
+    private void collectTransport(String prefix, Communication communication, Map<String, String> labels)
+    {
+        counter(prefix + "_read_records_total", "Records read", labels,
+                communication.getLongCounter(CommunicationTool.READ_SUCCEED_RECORDS));
+        counter(prefix + "_read_bytes_total", "Bytes read", labels,
+                communication.getLongCounter(CommunicationTool.READ_SUCCEED_BYTES));
+        counter(prefix + "_write_received_records_total", "Records received by the writer", labels,
+                communication.getLongCounter(CommunicationTool.WRITE_RECEIVED_RECORDS));
+        counter(prefix + "_write_received_bytes_total", "Bytes received by the writer", labels,
+                communication.getLongCounter(CommunicationTool.WRITE_RECEIVED_BYTES));
+        counter(prefix + "_wait_reader_seconds_total", "Time the writer waited for records from the reader", labels,
+                communication.getLongCounter(CommunicationTool.WAIT_READER_TIME) / NANOS_PER_SECOND);
+        counter(prefix + "_wait_writer_seconds_total", "Time the reader waited for room in the channel", labels,
+                communication.getLongCounter(CommunicationTool.WAIT_WRITER_TIME) / NANOS_PER_SECOND);
+        gauge(prefix + "_channel_queue_records", "Records waiting in the channel", labels,
+                communication.getLongCounter(CommunicationTool.CHANNEL_QUEUE_RECORDS));
+        gauge(prefix + "_channel_memory_bytes", "Estimated memory of the records waiting in the channel", labels,
+                communication.getLongCounter(CommunicationTool.CHANNEL_MEMORY_BYTES));
+    }
+
+    private void collectJvm()
+    {
+        VMInfo vmInfo = VMInfo.getVmInfo();
+        if (vmInfo == null) {
+            return;
+        }
+        vmInfo.getGcTotals().forEach((name, total) -> {
+            counter("addax_jvm_gc_collections_total", "Collections of a garbage collector", Map.of("gc", name), total[0]);
+            counter("addax_jvm_gc_seconds_total", "Time spent by a garbage collector", Map.of("gc", name), total[1] / 1000d);
+        });
+        vmInfo.getMemoryPoolUsages().forEach((name, usage) -> {
+            gauge("addax_jvm_memory_pool_used_bytes", "Used bytes of a memory pool", Map.of("pool", name), usage[0]);
+            gauge("addax_jvm_memory_pool_committed_bytes", "Committed bytes of a memory pool", Map.of("pool", name), usage[1]);
+            gauge("addax_jvm_memory_pool_max_bytes", "Max bytes of a memory pool, -1 when undefined", Map.of("pool", name), usage[2]);
+        });
+    }
+
+    private void counter(String name, String help, Map<String, String> labels, Number value)
+    {
+        sample(name, "counter", help, labels, value);
+    }
+
+    private void gauge(String name, String help, Map<String, String> labels, Number value)
+    {
+        sample(name, "gauge", help, labels, value);
+    }
+
+    private void sample(String name, String type, String help, Map<String, String> labels, Number value)
+    {
+        StringBuilder sb = new StringBuilder(name);
+        if (!labels.isEmpty()) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<String, String> label : new TreeMap<>(labels).entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                sb.append(label.getKey()).append("=\"").append(escape(label.getValue())).append('"');
+            }
+            sb.append('}');
+        }
+        sb.append(' ').append(value == null ? 0 : value);
+        families.computeIfAbsent(name, k -> new Family(type, help, new ArrayList<>())).samples().add(sb.toString());
+    }
+
+    private String render()
+    {
+        StringBuilder sb = new StringBuilder();
+        families.forEach((name, family) -> {
+            sb.append("# HELP ").append(name).append(' ').append(family.help()).append('\n');
+            sb.append("# TYPE ").append(name).append(' ').append(family.type()).append('\n');
+            family.samples().forEach(sample -> sb.append(sample).append('\n'));
+        });
+        return sb.toString();
+    }
+
+    private static String escape(String value)
+    {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private record Family(String type, String help, List<String> samples) {}
+}
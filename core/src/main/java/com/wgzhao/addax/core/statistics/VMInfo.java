@@ -27,6 +27,7 @@ import java.lang.management.OperatingSystemMXBean;
 import java.lang.management.RuntimeMXBean;
 import java.lang.management.ThreadMXBean;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -165,6 +166,33 @@ public class VMInfo
         }
     }
 
+    /**
+     * @return the collection count and the accumulated collection time in milliseconds
+     * of each garbage collector, read from the MXBeans at the time of the call
+     */
+    public Map<String, long[]> getGcTotals()
+    {
+        Map<String, long[]> result = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean garbage : garbageCollectorMXBeanList) {
+            result.put(garbage.getName(), new long[] {garbage.getCollectionCount(), garbage.getCollectionTime()});
+        }
+        return result;
+    }
+
+    /**
+     * @return the used, committed and max bytes of each memory pool, read from the MXBeans
+     * at the time of the call, max is -1 when undefined
+     */
+    public Map<String, long[]> getMemoryPoolUsages()
+    {
+        Map<String, long[]> result = new LinkedHashMap<>();
+        for (MemoryPoolMXBean pool : memoryPoolMXBeanList) {
+            var usage = pool.getUsage();
+            result.put(pool.getName(), new long[] {usage.getUsed(), usage.getCommitted(), usage.getMax()});
+        }
+        return result;
+    }
+
     private long getTotalThreadCpuTime()
     {
         long totalCpuTime = 0;
@@ -51,6 +51,11 @@ public final class CommunicationTool
     public static final String TRANSFORMER_SUCCEED_RECORDS = "totalTransformerSuccessRecords";
     public static final String TRANSFORMER_FAILED_RECORDS = "totalTransformerFailedRecords";
     public static final String TRANSFORMER_FILTER_RECORDS = "totalTransformerFilterRecords";
+    // gauges of the channel, summed up when merged like the counters above
+    public static final String CHANNEL_QUEUE_RECORDS = "channelQueueRecords";
+    public static final String CHANNEL_MEMORY_BYTES = "channelMemoryBytes";
+    // 1 once the writer of a task has declared it can be run again, see Writer.Task#supportFailOver
+    public static final String WRITER_FAIL_OVER = "writerFailOver";
     private static final String TOTAL_READ_BYTES = "totalReadBytes";
     private static final String TOTAL_ERROR_RECORDS = "totalErrorRecords";
     private static final String TOTAL_ERROR_BYTES = "totalErrorBytes";
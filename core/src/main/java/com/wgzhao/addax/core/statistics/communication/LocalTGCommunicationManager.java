@@ -22,28 +22,62 @@ package com.wgzhao.addax.core.statistics.communication;
 import com.wgzhao.addax.core.meta.State;
 import org.apache.commons.lang3.Validate;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The communications of the task groups running in this JVM, per job, since a long-running
+ * server runs several jobs side by side and every one of them numbers its task groups from 0.
+ * The live communications of the tasks and the latest report of each job are kept here as well,
+ * for the metrics endpoint.
+ */
 public final class LocalTGCommunicationManager
 {
-    private static final Map<Integer, Communication> taskGroupCommunicationMap = new ConcurrentHashMap<>();
+    private static final Map<Long, JobCommunications> jobCommunicationMap = new ConcurrentHashMap<>();
 
     private LocalTGCommunicationManager() {}
 
-    public static void registerTaskGroupCommunication(int taskGroupId, Communication communication)
+    private static JobCommunications job(long jobId)
+    {
+        return jobCommunicationMap.computeIfAbsent(jobId, k -> new JobCommunications());
+    }
+
+    public static void registerTaskGroupCommunication(long jobId, int taskGroupId, int channelNumber, Communication communication)
+    {
+        JobCommunications job = job(jobId);
+        job.taskGroups.put(taskGroupId, communication);
+        job.channels.put(taskGroupId, channelNumber);
+    }
+
+    /**
+     * Describe a job for the metrics endpoint, such as its reader and writer.
+     * @param jobId job id
+     * @param info the labels of the job
+     */
+    public static void registerJobInfo(long jobId, Map<String, String> info)
     {
-        taskGroupCommunicationMap.put(taskGroupId, communication);
+        job(jobId).info = Map.copyOf(info);
     }
 
-    public static Communication getJobCommunication()
+    public static Map<String, String> getJobInfo(long jobId)
+    {
+        JobCommunications job = jobCommunicationMap.get(jobId);
+        return job == null ? Map.of() : job.info;
+    }
+
+    public static Communication getJobCommunication(long jobId)
     {
         Communication communication = new Communication();
         communication.setState(State.SUCCEEDED);
 
+        JobCommunications job = jobCommunicationMap.get(jobId);
+        if (job == null) {
+            return communication;
+        }
         // use snapshot to prevent ConcurrentModificationException
-        Communication[] snapshot = taskGroupCommunicationMap.values().toArray(new Communication[0]);
+        Communication[] snapshot = job.taskGroups.values().toArray(new Communication[0]);
         for (Communication taskGroupCommunication : snapshot) {
             if (taskGroupCommunication != null) {
                 communication.mergeFrom(taskGroupCommunication);
@@ -56,33 +90,120 @@ public final class LocalTGCommunicationManager
     /**
      * Get the communication of the task group according to the taskGroupId
      * prevent the modification of the map key-value pair
+     * @param jobId job id
      * @param taskGroupId task group id
      * @return Communication
      */
-    public static Communication getTaskGroupCommunication(int taskGroupId)
+    public static Communication getTaskGroupCommunication(long jobId, int taskGroupId)
     {
         Validate.isTrue(taskGroupId >= 0, "The number of taskGroupId cannot be less than zero.");
 
-        return taskGroupCommunicationMap.get(taskGroupId);
+        JobCommunications job = jobCommunicationMap.get(jobId);
+        return job == null ? null : job.taskGroups.get(taskGroupId);
     }
 
-    public static void updateTaskGroupCommunication(final int taskGroupId,
+    public static void updateTaskGroupCommunication(final long jobId, final int taskGroupId,
             final Communication communication)
     {
-        Communication previous = taskGroupCommunicationMap.replace(taskGroupId, communication);
+        JobCommunications job = jobCommunicationMap.get(jobId);
+        Communication previous = job == null ? null : job.taskGroups.replace(taskGroupId, communication);
 
         Validate.isTrue(previous!=null,
                 "There is no communication registered for taskGroupId[" + taskGroupId + "] in taskGroupCommunicationMap," +
                 "Unable to update the information for this taskGroup");
     }
 
+    /**
+     * Expose the live communications of the tasks of a task group, keyed by task id.
+     * @param jobId job id
+     * @param taskGroupId task group id
+     * @param taskCommunicationMap the map the task group container updates
+     */
+    public static void registerTaskCommunicationMap(long jobId, int taskGroupId, Map<Integer, Communication> taskCommunicationMap)
+    {
+        job(jobId).tasks.put(taskGroupId, taskCommunicationMap);
+    }
+
+    public static void updateJobReport(long jobId, Communication report)
+    {
+        JobCommunications job = jobCommunicationMap.get(jobId);
+        if (job != null) {
+            job.report = report;
+        }
+    }
+
+    public static void clear(long jobId)
+    {
+        jobCommunicationMap.remove(jobId);
+    }
+
     public static void clear()
     {
-        taskGroupCommunicationMap.clear();
+        jobCommunicationMap.clear();
+    }
+
+    public static Map<Integer, Communication> getTaskGroupCommunicationMap(long jobId)
+    {
+        JobCommunications job = jobCommunicationMap.get(jobId);
+        return job == null ? Map.of() : Map.copyOf(job.taskGroups);
+    }
+
+    public static Set<Long> getJobIds()
+    {
+        return Set.copyOf(jobCommunicationMap.keySet());
+    }
+
+    /**
+     * @param jobId job id
+     * @return the communications of the tasks of the job, keyed by task id
+     */
+    public static Map<Integer, Communication> getTaskCommunicationMap(long jobId)
+    {
+        Map<Integer, Communication> result = new HashMap<>();
+        JobCommunications job = jobCommunicationMap.get(jobId);
+        if (job != null) {
+            job.tasks.values().forEach(result::putAll);
+        }
+        return result;
+    }
+
+    /**
+     * @param jobId job id
+     * @return the latest report of the job, with its speeds, or null before the first one
+     */
+    public static Communication getJobReport(long jobId)
+    {
+        JobCommunications job = jobCommunicationMap.get(jobId);
+        return job == null ? null : job.report;
+    }
+
+    /**
+     * @param jobId job id
+     * @return the number of channels of all the task groups of the job
+     */
+    public static int getChannelNumber(long jobId)
+    {
+        JobCommunications job = jobCommunicationMap.get(jobId);
+        return job == null ? 0 : job.channels.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * @param jobId job id
+     * @return when the first task group of the job was registered, in milliseconds, or 0 if unknown
+     */
+    public static long getStartTime(long jobId)
+    {
+        JobCommunications job = jobCommunicationMap.get(jobId);
+        return job == null ? 0L : job.startTime;
     }
 
-    public static Map<Integer, Communication> getTaskGroupCommunicationMap()
+    private static final class JobCommunications
     {
-        return Map.copyOf(taskGroupCommunicationMap);
+        private final long startTime = System.currentTimeMillis();
+        private final Map<Integer, Communication> taskGroups = new ConcurrentHashMap<>();
+        private final Map<Integer, Integer> channels = new ConcurrentHashMap<>();
+        private final Map<Integer, Map<Integer, Communication>> tasks = new ConcurrentHashMap<>();
+        private volatile Communication report;
+        private volatile Map<String, String> info = Map.of();
     }
 }
@@ -32,6 +32,13 @@ import java.util.concurrent.ConcurrentHashMap;
 public abstract class AbstractCollector
 {
     private final Map<Integer, Communication> taskCommunicationMap = new ConcurrentHashMap<>();
+    protected final long jobId;
+
+    protected AbstractCollector(long jobId)
+    {
+        this.jobId = jobId;
+    }
+
     public Map<Integer, Communication> getTaskCommunicationMap()
     {
         return taskCommunicationMap;
@@ -41,7 +48,8 @@ public abstract class AbstractCollector
     {
         for (Configuration config : taskGroupConfigurationList) {
             int taskGroupId = config.getInt(CoreConstant.CORE_CONTAINER_TASK_GROUP_ID);
-            LocalTGCommunicationManager.registerTaskGroupCommunication(taskGroupId, new Communication());
+            int channelNumber = config.getInt(CoreConstant.CORE_CONTAINER_TASK_GROUP_CHANNEL, 1);
+            LocalTGCommunicationManager.registerTaskGroupCommunication(jobId, taskGroupId, channelNumber, new Communication());
         }
     }
 
@@ -69,12 +77,12 @@ public abstract class AbstractCollector
 
     public Map<Integer, Communication> getTGCommunicationMap()
     {
-        return LocalTGCommunicationManager.getTaskGroupCommunicationMap();
+        return LocalTGCommunicationManager.getTaskGroupCommunicationMap(jobId);
     }
 
     public Communication getTGCommunication(Integer taskGroupId)
     {
-        return LocalTGCommunicationManager.getTaskGroupCommunication(taskGroupId);
+        return LocalTGCommunicationManager.getTaskGroupCommunication(jobId, taskGroupId);
     }
 
     public Communication getTaskCommunication(Integer taskId)
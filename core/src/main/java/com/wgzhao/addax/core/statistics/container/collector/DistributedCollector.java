@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.statistics.container.collector;
+
+import com.wgzhao.addax.core.meta.State;
+import com.wgzhao.addax.core.statistics.communication.Communication;
+import com.wgzhao.addax.core.statistics.communication.LocalTGCommunicationManager;
+import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.core.util.container.CoreConstant;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the communications the workers of a distributed job report for their task groups.
+ * <p>
+ * The communication of a task group is merged from those of its tasks, so that when a lost worker
+ * is replaced the tasks it had finished keep their counters and the others start over. Reports
+ * of an attempt which has been replaced are dropped.
+ */
+public class DistributedCollector
+        extends AbstractCollector
+{
+    private final Map<Integer, TaskGroupState> taskGroups = new ConcurrentHashMap<>();
+
+    public DistributedCollector(long jobId)
+    {
+        super(jobId);
+    }
+
+    @Override
+    public void registerTGCommunication(List<Configuration> taskGroupConfigurationList)
+    {
+        super.registerTGCommunication(taskGroupConfigurationList);
+        for (Configuration config : taskGroupConfigurationList) {
+            int taskGroupId = config.getInt(CoreConstant.CORE_CONTAINER_TASK_GROUP_ID);
+            TaskGroupState state = new TaskGroupState();
+            taskGroups.put(taskGroupId, state);
+            LocalTGCommunicationManager.registerTaskCommunicationMap(jobId, taskGroupId, state.tasks);
+        }
+    }
+
+    @Override
+    public Communication collectFromTaskGroup()
+    {
+        return LocalTGCommunicationManager.getJobCommunication(jobId);
+    }
+
+    /**
+     * Start another attempt of a task group.
+     *
+     * @param taskGroupId task group id
+     * @param attempt the attempt number, from 1
+     * @param rerunTaskIds the tasks to run again, their communications are dropped
+     */
+    public void startAttempt(int taskGroupId, int attempt, Collection<Integer> rerunTaskIds)
+    {
+        TaskGroupState state = taskGroups.get(taskGroupId);
+        synchronized (state) {
+            state.attempt = attempt;
+            state.lastReportTime = 0;
+            rerunTaskIds.forEach(state.tasks::remove);
+            update(taskGroupId, state, State.RUNNING, null);
+        }
+    }
+
+    /**
+     * Take the report of a worker.
+     *
+     * @param taskGroupId task group id
+     * @param attempt the attempt the worker runs
+     * @param tasks the communications of the tasks, keyed by task id
+     * @param state the state of the task group, finished only with the last report of the worker
+     * @param throwable why the task group failed, or null
+     */
+    public void receive(int taskGroupId, int attempt, Map<Integer, Communication> tasks, State state, Throwable throwable)
+    {
+        TaskGroupState taskGroup = taskGroups.get(taskGroupId);
+        if (taskGroup == null) {
+            return;
+        }
+        synchronized (taskGroup) {
+            if (attempt != taskGroup.attempt || taskGroup.finished) {
+                return;
+            }
+            taskGroup.tasks.putAll(tasks);
+            taskGroup.lastReportTime = System.currentTimeMillis();
+            update(taskGroupId, taskGroup, state, throwable);
+        }
+    }
+
+    /**
+     * Fail a task group whose worker can not report it, such as a lost one which can not be replaced.
+     *
+     * @param taskGroupId task group id
+     * @param throwable the cause
+     */
+    public void markFailed(int taskGroupId, Throwable throwable)
+    {
+        TaskGroupState taskGroup = taskGroups.get(taskGroupId);
+        synchronized (taskGroup) {
+            update(taskGroupId, taskGroup, State.FAILED, throwable);
+        }
+    }
+
+    public boolean isFinished(int taskGroupId)
+    {
+        return taskGroups.get(taskGroupId).finished;
+    }
+
+    /**
+     * @param taskGroupId task group id
+     * @return when the current attempt of the task group reported last, 0 if it has not yet
+     */
+    public long getLastReportTime(int taskGroupId)
+    {
+        return taskGroups.get(taskGroupId).lastReportTime;
+    }
+
+    public Map<Integer, Communication> getTaskCommunications(int taskGroupId)
+    {
+        return Map.copyOf(taskGroups.get(taskGroupId).tasks);
+    }
+
+    private void update(int taskGroupId, TaskGroupState taskGroup, State state, Throwable throwable)
+    {
+        Communication communication = new Communication();
+        communication.setState(State.SUCCEEDED);
+        taskGroup.tasks.values().forEach(communication::mergeFrom);
+        // a task failed in a running worker may still be retried there, only the end of the worker decides
+        communication.setState(state, true);
+        if (throwable != null) {
+            communication.setThrowable(throwable, true);
+        }
+        taskGroup.finished = state.isFinished();
+        LocalTGCommunicationManager.updateTaskGroupCommunication(jobId, taskGroupId, communication);
+    }
+
+    private static final class TaskGroupState
+    {
+        private final Map<Integer, Communication> tasks = new ConcurrentHashMap<>();
+        private volatile int attempt = 1;
+        private volatile long lastReportTime;
+        private volatile boolean finished;
+    }
+}
@@ -26,13 +26,14 @@ public class ProcessInnerCollector
         extends AbstractCollector
 {
 
-    public ProcessInnerCollector()
+    public ProcessInnerCollector(long jobId)
     {
+        super(jobId);
     }
 
     @Override
     public Communication collectFromTaskGroup()
     {
-        return LocalTGCommunicationManager.getJobCommunication();
+        return LocalTGCommunicationManager.getJobCommunication(jobId);
     }
 }
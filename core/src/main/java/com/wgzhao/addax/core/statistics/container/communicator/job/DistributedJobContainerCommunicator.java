@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.statistics.container.communicator.job;
+
+import com.wgzhao.addax.core.statistics.container.collector.DistributedCollector;
+import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.core.util.container.CoreConstant;
+
+/**
+ * The job communicator of a distributed job, whose task groups are reported by worker JVMs
+ * instead of threads of this one.
+ */
+public class DistributedJobContainerCommunicator
+        extends StandAloneJobContainerCommunicator
+{
+    public DistributedJobContainerCommunicator(Configuration configuration)
+    {
+        super(configuration);
+        setCollector(new DistributedCollector(configuration.getLong(CoreConstant.CORE_CONTAINER_JOB_ID, 0L)));
+    }
+
+    @Override
+    public DistributedCollector getCollector()
+    {
+        return (DistributedCollector) super.getCollector();
+    }
+}
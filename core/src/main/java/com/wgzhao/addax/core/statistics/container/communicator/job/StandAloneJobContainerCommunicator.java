@@ -26,6 +26,7 @@ import com.wgzhao.addax.core.statistics.communication.CommunicationTool;
 import com.wgzhao.addax.core.statistics.container.collector.ProcessInnerCollector;
 import com.wgzhao.addax.core.statistics.container.communicator.AbstractContainerCommunicator;
 import com.wgzhao.addax.core.statistics.container.report.ProcessInnerReporter;
+import com.wgzhao.addax.core.util.container.CoreConstant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,8 +41,9 @@ public class StandAloneJobContainerCommunicator
     public StandAloneJobContainerCommunicator(Configuration configuration)
     {
         super(configuration);
-        setCollector(new ProcessInnerCollector());
-        setReporter(new ProcessInnerReporter());
+        long jobId = configuration.getLong(CoreConstant.CORE_CONTAINER_JOB_ID, 0L);
+        setCollector(new ProcessInnerCollector(jobId));
+        setReporter(new ProcessInnerReporter(jobId));
     }
 
     @Override
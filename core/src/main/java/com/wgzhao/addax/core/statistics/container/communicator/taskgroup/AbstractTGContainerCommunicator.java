@@ -22,6 +22,7 @@ package com.wgzhao.addax.core.statistics.container.communicator.taskgroup;
 import com.wgzhao.addax.core.util.Configuration;
 import com.wgzhao.addax.core.meta.State;
 import com.wgzhao.addax.core.statistics.communication.Communication;
+import com.wgzhao.addax.core.statistics.communication.LocalTGCommunicationManager;
 import com.wgzhao.addax.core.statistics.container.collector.ProcessInnerCollector;
 import com.wgzhao.addax.core.statistics.container.communicator.AbstractContainerCommunicator;
 import com.wgzhao.addax.core.util.container.CoreConstant;
@@ -38,11 +39,13 @@ public abstract class AbstractTGContainerCommunicator
         extends AbstractContainerCommunicator
 {
     protected int taskGroupId;
+    protected long jobId;
 
     public AbstractTGContainerCommunicator(Configuration configuration)
     {
         super(configuration);
-        super.setCollector(new ProcessInnerCollector());
+        this.jobId = configuration.getLong(CoreConstant.CORE_CONTAINER_JOB_ID, 0L);
+        super.setCollector(new ProcessInnerCollector(jobId));
         this.taskGroupId = configuration.getInt(CoreConstant.CORE_CONTAINER_TASK_GROUP_ID);
     }
 
@@ -50,6 +53,7 @@ public abstract class AbstractTGContainerCommunicator
     public void registerCommunication(List<Configuration> configurationList)
     {
         super.getCollector().registerTaskCommunication(configurationList);
+        LocalTGCommunicationManager.registerTaskCommunicationMap(jobId, taskGroupId, super.getCollector().getTaskCommunicationMap());
     }
 
     @Override
@@ -30,7 +30,7 @@ public class StandaloneTGContainerCommunicator
     public StandaloneTGContainerCommunicator(Configuration configuration)
     {
         super(configuration);
-        super.setReporter(new ProcessInnerReporter());
+        super.setReporter(new ProcessInnerReporter(super.jobId));
     }
 
     @Override
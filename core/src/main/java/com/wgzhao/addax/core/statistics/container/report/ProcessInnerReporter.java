@@ -26,15 +26,23 @@ public class ProcessInnerReporter
         extends AbstractReporter
 {
 
+    private final long jobId;
+
+    public ProcessInnerReporter(long jobId)
+    {
+        this.jobId = jobId;
+    }
+
     @Override
     public void reportJobCommunication(Communication communication)
     {
-        // do nothing
+        // keep the latest report for the metrics endpoint
+        LocalTGCommunicationManager.updateJobReport(jobId, communication);
     }
 
     @Override
     public void reportTGCommunication(Integer taskGroupId, Communication communication)
     {
-        LocalTGCommunicationManager.updateTaskGroupCommunication(taskGroupId, communication);
+        LocalTGCommunicationManager.updateTaskGroupCommunication(jobId, taskGroupId, communication);
     }
 }
@@ -20,11 +20,11 @@
 package com.wgzhao.addax.core.statistics.plugin;
 
 import com.wgzhao.addax.core.plugin.JobPluginCollector;
-import com.wgzhao.addax.core.statistics.communication.Communication;
 import com.wgzhao.addax.core.statistics.container.communicator.AbstractContainerCommunicator;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Created by jingxing on 14-9-9.
@@ -32,9 +32,10 @@ import java.util.Map;
 public final class DefaultJobPluginCollector
         implements JobPluginCollector
 {
-    private final AbstractContainerCommunicator jobCollector;
+    // the job container creates its communicator when it schedules, after the plugins are initialized
+    private final Supplier<AbstractContainerCommunicator> jobCollector;
 
-    public DefaultJobPluginCollector(AbstractContainerCommunicator containerCollector)
+    public DefaultJobPluginCollector(Supplier<AbstractContainerCommunicator> containerCollector)
     {
         this.jobCollector = containerCollector;
     }
@@ -42,14 +43,14 @@ public final class DefaultJobPluginCollector
     @Override
     public Map<String, List<String>> getMessage()
     {
-        Communication totalCommunication = this.jobCollector.collect();
-        return totalCommunication.getMessage();
+        AbstractContainerCommunicator collector = this.jobCollector.get();
+        return collector == null ? Map.of() : collector.collect().getMessage();
     }
 
     @Override
     public List<String> getMessage(String key)
     {
-        Communication totalCommunication = this.jobCollector.collect();
-        return totalCommunication.getMessage(key);
+        AbstractContainerCommunicator collector = this.jobCollector.get();
+        return collector == null ? null : collector.collect().getMessage(key);
     }
 }
@@ -61,6 +61,8 @@ public class WriterRunner
             initPerfRecord.start();
             taskWriter.init();
             initPerfRecord.end();
+            // a distributed job reruns the task elsewhere when its worker is lost, if the writer allows it
+            super.getRunnerCommunication().setLongCounter(CommunicationTool.WRITER_FAIL_OVER, taskWriter.supportFailOver() ? 1 : 0);
 
             LOG.debug("task writer starts to do prepare ...");
             PerfRecord preparePerfRecord = new PerfRecord(getTaskGroupId(), getTaskId(), PerfRecord.PHASE.WRITE_TASK_PREPARE);
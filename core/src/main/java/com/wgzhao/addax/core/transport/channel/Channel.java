@@ -59,6 +59,11 @@ public abstract class Channel
     protected volatile AtomicLong waitReaderTime = new AtomicLong(0);
     protected volatile AtomicLong waitWriterTime = new AtomicLong(0);
     private Communication currentCommunication;
+    // the channel gauges need the queue lock, refresh them once every GAUGE_INTERVAL single record operations.
+    // The reader pushes and the writer pulls from their own threads, each side counts down on its own.
+    private static final int GAUGE_INTERVAL = 64;
+    private int pushGaugeCountdown = 0;
+    private int pullGaugeCountdown = 0;
 
     public Channel(Configuration configuration)
     {
@@ -121,6 +126,10 @@ public abstract class Channel
         Validate.notNull(r, "The record cannot be empty.");
         this.doPush(r);
         this.statPush(1L, r.getByteSize());
+        if (--pushGaugeCountdown <= 0) {
+            pushGaugeCountdown = GAUGE_INTERVAL;
+            this.updateGauges();
+        }
     }
 
     public void pushTerminate(TerminateRecord r)
@@ -135,12 +144,17 @@ public abstract class Channel
         Validate.noNullElements(rs);
         this.doPushAll(rs);
         this.statPush(rs.size(), this.getByteSize(rs));
+        this.updateGauges();
     }
 
     public Record pull()
     {
         Record record = this.doPull();
         this.statPull(1L, record.getByteSize());
+        if (--pullGaugeCountdown <= 0) {
+            pullGaugeCountdown = GAUGE_INTERVAL;
+            this.updateGauges();
+        }
         return record;
     }
 
@@ -149,6 +163,7 @@ public abstract class Channel
         Validate.notNull(rs, "The Record must not be empty");
         this.doPullAll(rs);
         this.statPull(rs.size(), this.getByteSize(rs));
+        this.updateGauges();
     }
 
     protected abstract void doPush(Record r);
@@ -165,6 +180,20 @@ public abstract class Channel
 
     public abstract void clear();
 
+    /**
+     * @return the estimated memory held by the records in the channel, in bytes, 0 if the channel does not track it
+     */
+    public long getMemoryBytes()
+    {
+        return 0;
+    }
+
+    private void updateGauges()
+    {
+        currentCommunication.setLongCounter(CommunicationTool.CHANNEL_QUEUE_RECORDS, size());
+        currentCommunication.setLongCounter(CommunicationTool.CHANNEL_MEMORY_BYTES, getMemoryBytes());
+    }
+
     private long getByteSize(Collection<Record> rs)
     {
         long size = 0;
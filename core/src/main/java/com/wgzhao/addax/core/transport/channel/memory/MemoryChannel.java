@@ -80,13 +80,19 @@ public class MemoryChannel
         this.queue.clear();
     }
 
+    @Override
+    public long getMemoryBytes()
+    {
+        return memoryBytes.get();
+    }
+
     @Override
     protected void doPush(Record r)
     {
         try {
             long startTime = System.nanoTime();
             this.queue.put(r);
-            waitReaderTime.addAndGet(System.nanoTime() - startTime);
+            waitWriterTime.addAndGet(System.nanoTime() - startTime);
             memoryBytes.addAndGet(r.getMemorySize());
         }
         catch (InterruptedException ex) {
@@ -105,7 +111,7 @@ public class MemoryChannel
                 notInsufficient.await(200L, TimeUnit.MILLISECONDS);
             }
             this.queue.addAll(rs);
-            waitReaderTime.addAndGet(System.nanoTime() - startTime);
+            waitWriterTime.addAndGet(System.nanoTime() - startTime);
             memoryBytes.addAndGet(bytes);
             notEmpty.signalAll();
         }
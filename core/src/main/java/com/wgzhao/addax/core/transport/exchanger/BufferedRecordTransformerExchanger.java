@@ -104,18 +104,7 @@ public class BufferedRecordTransformerExchanger
 
         Validate.notNull(record, "The record cannot be empty.");
 
-        record = doTransformer(record);
-
-        if (record == null) {
-            return;
-        }
-
-        if (record.getMemorySize() > this.byteCapacity) {
-            this.pluginCollector.collectDirtyRecord(record,
-                    new Exception(String.format("A single record exceeds the size limit. The current limit is %d", this.byteCapacity)));
-            return;
-        }
-
+        // records are buffered as read and transformed as a batch when the buffer is flushed
         boolean isFull = (this.bufferIndex >= this.bufferSize
                 || this.memoryBytes.get() + record.getMemorySize() > this.byteCapacity);
         if (isFull) {
@@ -133,7 +122,8 @@ public class BufferedRecordTransformerExchanger
         if (shutdown) {
             throw AddaxException.asAddaxException(ErrorCode.SHUT_DOWN_TASK, "");
         }
-        this.channel.pushAll(this.buffer);
+        doTransformer(this.buffer);
+        pushTransformed();
         // Keep transformer stats in sync with channel pushes
         doStat();
         this.buffer.clear();
@@ -141,6 +131,35 @@ public class BufferedRecordTransformerExchanger
         this.memoryBytes.set(0);
     }
 
+    /*
+     * The buffer was sized on the records as read, a transformer may have made them bigger:
+     * drop the ones over the limit and split the push so that each part fits in the channel.
+     */
+    private void pushTransformed()
+    {
+        this.buffer.removeIf(record -> {
+            if (record.getMemorySize() > this.byteCapacity) {
+                this.pluginCollector.collectDirtyRecord(record,
+                        new Exception(String.format("A single record exceeds the size limit. The current limit is %d", this.byteCapacity)));
+                return true;
+            }
+            return false;
+        });
+
+        int from = 0;
+        long bytes = 0;
+        for (int i = 0; i < this.buffer.size(); i++) {
+            int size = this.buffer.get(i).getMemorySize();
+            if (bytes + size > this.byteCapacity) {
+                this.channel.pushAll(this.buffer.subList(from, i));
+                from = i;
+                bytes = 0;
+            }
+            bytes += size;
+        }
+        this.channel.pushAll(from == 0 ? this.buffer : this.buffer.subList(from, this.buffer.size()));
+    }
+
     @Override
     public void terminate()
     {
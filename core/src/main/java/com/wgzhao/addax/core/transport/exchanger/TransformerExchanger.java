@@ -20,17 +20,14 @@
 package com.wgzhao.addax.core.transport.exchanger;
 
 import com.wgzhao.addax.core.element.Record;
-import com.wgzhao.addax.core.exception.AddaxException;
 import com.wgzhao.addax.core.plugin.TaskPluginCollector;
 import com.wgzhao.addax.core.statistics.communication.Communication;
 import com.wgzhao.addax.core.statistics.communication.CommunicationTool;
 import com.wgzhao.addax.core.transport.transformer.TransformerExecution;
-import com.wgzhao.addax.core.util.container.ClassLoaderSwapper;
+import com.wgzhao.addax.core.transport.transformer.TransformerPipeline;
 
 import java.util.List;
 
-import static com.wgzhao.addax.core.spi.ErrorCode.ILLEGAL_VALUE;
-
 /**
  * no comments.
  * Created by liqiang on 16/3/9.
@@ -43,105 +40,48 @@ public abstract class TransformerExchanger
     protected final int taskGroupId;
     protected final int taskId;
     protected final Communication currentCommunication;
-    private final List<TransformerExecution> transformerExecs;
-    private final ClassLoaderSwapper classLoaderSwapper = ClassLoaderSwapper.newCurrentThreadClassLoaderSwapper();
-    private long totalExhaustedTime = 0;
-    private long totalFilterRecords = 0;
-    private long totalSuccessRecords = 0;
-    private long totalFailedRecords = 0;
+    private final TransformerPipeline pipeline;
 
     public TransformerExchanger(int taskGroupId, int taskId, Communication communication,
             List<TransformerExecution> transformerExecs,
             TaskPluginCollector pluginCollector)
     {
 
-        this.transformerExecs = transformerExecs;
         this.pluginCollector = pluginCollector;
         this.taskGroupId = taskGroupId;
         this.taskId = taskId;
         this.currentCommunication = communication;
+        this.pipeline = TransformerPipeline.compile(transformerExecs, pluginCollector);
     }
 
     public Record doTransformer(Record record)
     {
-        if (transformerExecs == null || transformerExecs.isEmpty()) {
+        if (pipeline == null) {
             return record;
         }
+        return pipeline.evaluate(record);
+    }
 
-        Record result = record;
-
-        long diffExhaustedTime = 0;
-        String errorMsg = null;
-        boolean failed = false;
-        for (TransformerExecution transformerInfoExec : transformerExecs) {
-            long startTs = System.nanoTime();
-
-            if (transformerInfoExec.getClassLoader() != null) {
-                classLoaderSwapper.setCurrentThreadClassLoader(transformerInfoExec.getClassLoader());
-            }
-
-            /*
-             * Deferred validation of transformer parameters; throw directly if invalid rather than marking dirty.
-             * No need to validate parameters inside plugins except for plugin-specific ones like parameter count.
-             */
-            if (!transformerInfoExec.isChecked()) {
-
-                if (transformerInfoExec.getColumnIndex() != null
-                        && transformerInfoExec.getColumnIndex() >= record.getColumnNumber()) {
-                    throw AddaxException.asAddaxException(ILLEGAL_VALUE,
-                            String.format("columnIndex[%s] out of bound[%s]. name=%s",
-                                    transformerInfoExec.getColumnIndex(), record.getColumnNumber(),
-                                    transformerInfoExec.getTransformerName()));
-                }
-                transformerInfoExec.setIsChecked(true);
-            }
-
-            try {
-                result = transformerInfoExec
-                        .getTransformer()
-                        .evaluate(result, transformerInfoExec.getContext(),
-                                transformerInfoExec.getFinalParas());
-            }
-            catch (Exception e) {
-                errorMsg = String.format("The transformer(%s) has encountered an exception(%s)",
-                        transformerInfoExec.getTransformerName(),
-                        e.getMessage());
-                failed = true;
-                break;
-            }
-            finally {
-                if (transformerInfoExec.getClassLoader() != null) {
-                    classLoaderSwapper.restoreCurrentThreadClassLoader();
-                }
-            }
-
-            if (result == null) {
-                totalFilterRecords++;
-                break;
-            }
-
-            long diff = System.nanoTime() - startTs;
-            diffExhaustedTime += diff;
-        }
-
-        totalExhaustedTime += diffExhaustedTime;
-
-        if (failed) {
-            totalFailedRecords++;
-            this.pluginCollector.collectDirtyRecord(record, errorMsg);
-            return null;
-        }
-        else {
-            totalSuccessRecords++;
-            return result;
+    /**
+     * Transform a batch of records, the list keeps only the records to send to the writer.
+     *
+     * @param records the records to transform
+     */
+    public void doTransformer(List<Record> records)
+    {
+        if (pipeline != null) {
+            pipeline.evaluateBatch(records);
         }
     }
 
     public void doStat()
     {
-        currentCommunication.setLongCounter(CommunicationTool.TRANSFORMER_SUCCEED_RECORDS, totalSuccessRecords);
-        currentCommunication.setLongCounter(CommunicationTool.TRANSFORMER_FAILED_RECORDS, totalFailedRecords);
-        currentCommunication.setLongCounter(CommunicationTool.TRANSFORMER_FILTER_RECORDS, totalFilterRecords);
-        currentCommunication.setLongCounter(CommunicationTool.TRANSFORMER_USED_TIME, totalExhaustedTime);
+        if (pipeline == null) {
+            return;
+        }
+        currentCommunication.setLongCounter(CommunicationTool.TRANSFORMER_SUCCEED_RECORDS, pipeline.getSuccessRecords());
+        currentCommunication.setLongCounter(CommunicationTool.TRANSFORMER_FAILED_RECORDS, pipeline.getFailedRecords());
+        currentCommunication.setLongCounter(CommunicationTool.TRANSFORMER_FILTER_RECORDS, pipeline.getFilterRecords());
+        currentCommunication.setLongCounter(CommunicationTool.TRANSFORMER_USED_TIME, pipeline.getUsedTime());
     }
 }
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.transport.transformer;
+
+import com.wgzhao.addax.core.element.Record;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compiled transformer that prefers to see the records of a task a batch at a time.
+ * {@link TransformerPipeline#evaluateBatch(List)} hands it every record still alive at its
+ * stage at once, while a single record is evaluated as a batch of one.
+ */
+public interface BatchCompiledTransformer
+        extends CompiledTransformer
+{
+    /**
+     * @param records the records to transform, a mutable list owned by the caller
+     * @return the records that go on, in order, at most as many as received; the records
+     * left out are filtered
+     */
+    List<Record> evaluateBatch(List<Record> records);
+
+    @Override
+    default Record evaluate(Record record)
+    {
+        List<Record> records = new ArrayList<>(1);
+        records.add(record);
+        List<Record> result = evaluateBatch(records);
+        return result == null || result.isEmpty() ? null : result.get(0);
+    }
+}
@@ -44,4 +44,16 @@ public abstract class ComplexTransformer
      * @return record
      */
     public abstract Record evaluate(Record record, Map<String, Object> tContext, Object... paras);
+
+    /**
+     * Bind the context and parameters once for a task, see {@link Transformer#compile(Object...)}
+     *
+     * @param tContext the transformer function context
+     * @param paras transformer parameters
+     * @return the compiled transformer
+     */
+    public CompiledTransformer compile(Map<String, Object> tContext, Object... paras)
+    {
+        return record -> evaluate(record, tContext, paras);
+    }
 }
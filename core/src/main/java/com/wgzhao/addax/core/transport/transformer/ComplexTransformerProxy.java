@@ -40,4 +40,9 @@ public class ComplexTransformerProxy
     public Record evaluate(Record record, Map<String, Object> tContext, Object... paras) {
         return this.realTransformer.evaluate(record, paras);
     }
+
+    @Override
+    public CompiledTransformer compile(Map<String, Object> tContext, Object... paras) {
+        return this.realTransformer.compile(paras);
+    }
 }
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.transport.transformer;
+
+import com.wgzhao.addax.core.element.BoolColumn;
+import com.wgzhao.addax.core.element.BytesColumn;
+import com.wgzhao.addax.core.element.Column;
+import com.wgzhao.addax.core.element.DateColumn;
+import com.wgzhao.addax.core.element.DoubleColumn;
+import com.wgzhao.addax.core.element.LongColumn;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.element.StringColumn;
+
+import java.util.regex.Pattern;
+
+/**
+ * One condition of {@code dx_filter}, compiled once: the operator is resolved, the regular
+ * expression of {@code like}/{@code not like} is compiled and numeric values are parsed ahead.
+ * A record matching the condition is the one the filter drops.
+ */
+public final class FilterCondition
+{
+    public enum Operator
+    {
+        LIKE, NOT_LIKE, GT, LT, GE, LE, EQ, NE;
+
+        public static Operator of(String code)
+        {
+            return switch (code.trim().toLowerCase()) {
+                case "like" -> LIKE;
+                case "not like" -> NOT_LIKE;
+                case ">" -> GT;
+                case "<" -> LT;
+                case ">=" -> GE;
+                case "<=" -> LE;
+                case "=", "==" -> EQ;
+                case "!=" -> NE;
+                default -> throw new IllegalArgumentException("dx_filter code:" + code + " is unsupported");
+            };
+        }
+    }
+
+    private final int columnIndex;
+    private final Operator operator;
+    private final String value;
+    private final Pattern pattern;
+    private final Long longValue;
+    private final Double doubleValue;
+    private final boolean nullValue;
+
+    public FilterCondition(int columnIndex, String code, String value)
+    {
+        this.columnIndex = columnIndex;
+        this.operator = Operator.of(code);
+        this.value = value;
+        this.pattern = (operator == Operator.LIKE || operator == Operator.NOT_LIKE) ? Pattern.compile(value) : null;
+        this.longValue = parseLong(value);
+        this.doubleValue = parseDouble(value);
+        this.nullValue = "null".equalsIgnoreCase(value);
+    }
+
+    public int getColumnIndex()
+    {
+        return columnIndex;
+    }
+
+    public Operator getOperator()
+    {
+        return operator;
+    }
+
+    public String getValue()
+    {
+        return value;
+    }
+
+    /**
+     * @return true if the value is a number, so the condition compares the same way on any numeric column
+     */
+    public boolean isNumeric()
+    {
+        return doubleValue != null && !doubleValue.isNaN() && !doubleValue.isInfinite();
+    }
+
+    /**
+     * @param record the record to test
+     * @return true if the record matches the condition, that is, the filter drops it
+     */
+    public boolean matches(Record record)
+    {
+        Column column = record.getColumn(columnIndex);
+        return switch (operator) {
+            case LIKE -> like(column);
+            case NOT_LIKE -> !like(column);
+            case GT -> column.getRawData() != null && compare(column, ">=,>") > 0;
+            case GE -> column.getRawData() != null && compare(column, ">=,>") >= 0;
+            case LT -> column.getRawData() != null && compare(column, "<=,<") < 0;
+            case LE -> column.getRawData() != null && compare(column, "<=,<") <= 0;
+            // If the field is null, only match when the target value is "null"
+            case EQ -> column.getRawData() == null ? nullValue : compare(column, "==") == 0;
+            case NE -> column.getRawData() == null ? !nullValue : compare(column, "==") != 0;
+        };
+    }
+
+    private boolean like(Column column)
+    {
+        String originalValue = column.asString();
+        return originalValue != null && pattern.matcher(originalValue).matches();
+    }
+
+    /*
+     * For DoubleColumn compares as double, for LongColumn and DateColumn as long,
+     * for StringColumn, BytesColumn and BoolColumn compares their String value.
+     */
+    private int compare(Column column, String op)
+    {
+        if (column instanceof DoubleColumn) {
+            double val = doubleValue != null ? doubleValue : Double.parseDouble(value);
+            return Double.compare(column.asDouble(), val);
+        }
+        else if (column instanceof LongColumn || column instanceof DateColumn) {
+            long val = longValue != null ? longValue : Long.parseLong(value);
+            return Long.compare(column.asLong(), val);
+        }
+        else if (column instanceof StringColumn
+                || column instanceof BytesColumn
+                || column instanceof BoolColumn) {
+            return column.asString().compareTo(value);
+        }
+        else {
+            throw new RuntimeException(op + " can't support this columnType:" + column.getClass().getSimpleName());
+        }
+    }
+
+    private static Long parseLong(String value)
+    {
+        try {
+            return Long.parseLong(value);
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double parseDouble(String value)
+    {
+        try {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
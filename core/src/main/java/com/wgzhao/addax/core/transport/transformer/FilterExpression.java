@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.transport.transformer;
+
+import com.wgzhao.addax.core.element.Record;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The condition of a {@code dx_filter}, made of one or more {@link FilterCondition} joined
+ * with {@code and}/{@code or}. {@code and} binds tighter than {@code or}, so the expression is
+ * kept as a list of OR-ed groups of AND-ed conditions.
+ * <p>
+ * The parameters are {@code [columnIndex, code, value]} for a single condition, each further
+ * condition appends {@code [and|or, columnIndex, code, value]}, for example
+ * {@code [1, ">", "100", "and", "3", "like", "^tmp_.*"]}.
+ */
+public final class FilterExpression
+{
+    private final FilterCondition[][] groups;
+
+    private FilterExpression(FilterCondition[][] groups)
+    {
+        this.groups = groups;
+    }
+
+    public static FilterExpression parse(Object... paras)
+    {
+        if (paras.length < 3 || (paras.length - 3) % 4 != 0) {
+            throw new IllegalArgumentException("The dx_filter parameters must be 3, "
+                    + "or 3 plus 4 for each additional condition");
+        }
+
+        List<FilterCondition[]> groups = new ArrayList<>();
+        List<FilterCondition> current = new ArrayList<>();
+        current.add(condition(paras[0], paras[1], paras[2]));
+        for (int i = 3; i < paras.length; i += 4) {
+            String connector = String.valueOf(paras[i]).trim().toLowerCase();
+            if ("or".equals(connector)) {
+                groups.add(current.toArray(new FilterCondition[0]));
+                current = new ArrayList<>();
+            }
+            else if (!"and".equals(connector)) {
+                throw new IllegalArgumentException("The dx_filter conditions must be joined with and/or, "
+                        + "the current one is " + paras[i]);
+            }
+            current.add(condition(paras[i + 1], paras[i + 2], paras[i + 3]));
+        }
+        groups.add(current.toArray(new FilterCondition[0]));
+        return new FilterExpression(groups.toArray(new FilterCondition[0][]));
+    }
+
+    private static FilterCondition condition(Object columnIndex, Object code, Object value)
+    {
+        int index = columnIndex instanceof Integer i ? i : Integer.parseInt(String.valueOf(columnIndex).trim());
+        if (StringUtils.isEmpty((String) value)) {
+            throw new IllegalArgumentException("The second parameter of dx_filter cannot be null");
+        }
+        return new FilterCondition(index, code.toString(), (String) value);
+    }
+
+    /**
+     * @return the conditions, as OR-ed groups of AND-ed conditions
+     */
+    public FilterCondition[][] getGroups()
+    {
+        return groups;
+    }
+
+    /**
+     * @param record the record to test
+     * @return true if the record matches the expression, that is, the filter drops it
+     */
+    public boolean matches(Record record)
+    {
+        for (FilterCondition[] group : groups) {
+            boolean all = true;
+            for (FilterCondition condition : group) {
+                if (!condition.matches(record)) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.transport.transformer;
+
+import com.wgzhao.addax.core.element.Record;
+
+import java.util.List;
+
+/**
+ * The base class of a dx_groovy script written against a whole batch, that is with
+ * {@code "batch": true}: the code is the body of {@link #evaluateBatch(List)} and returns
+ * the records to keep.
+ */
+public abstract class GroovyBatchRule
+        extends Transformer
+        implements BatchCompiledTransformer
+{
+    @Override
+    public abstract List<Record> evaluateBatch(List<Record> records);
+
+    @Override
+    public Record evaluate(Record record, Object... paras)
+    {
+        return evaluate(record);
+    }
+}
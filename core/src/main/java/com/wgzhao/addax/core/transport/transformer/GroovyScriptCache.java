@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.transport.transformer;
+
+import com.wgzhao.addax.core.exception.AddaxException;
+import groovy.lang.GroovyClassLoader;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static com.wgzhao.addax.core.spi.ErrorCode.RUNTIME_ERROR;
+
+/**
+ * The classes compiled from dx_groovy scripts, keyed by the SHA-256 of the generated source.
+ * <p>
+ * The cache is static, so a script is compiled once per JVM: all the tasks of a job share the
+ * class, and so do the jobs a long-running server executes one after another. When asked to, a
+ * script is compiled with {@code @CompileStatic} first and falls back to dynamic Groovy when it
+ * does not type check. Concurrent requests for the same script wait for a single compilation.
+ * The least recently used classes are dropped beyond {@link #MAX_SCRIPTS} entries.
+ */
+final class GroovyScriptCache
+{
+    private static final Logger LOG = LoggerFactory.getLogger(GroovyScriptCache.class);
+
+    static final int MAX_SCRIPTS = 256;
+
+    private static final String COMPILE_STATIC = "@groovy.transform.CompileStatic ";
+
+    private static final Map<String, CompletableFuture<Class<?>>> CLASSES = new LinkedHashMap<>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<Class<?>>> eldest)
+        {
+            return size() > MAX_SCRIPTS;
+        }
+    };
+
+    private GroovyScriptCache() {}
+
+    /**
+     * @param imports the import statements of the script
+     * @param declaration the declaration of the script class, named {@code RULE}
+     * @param compileStatic whether to try {@code @CompileStatic} first
+     * @return the compiled class, shared by every caller of the same source
+     */
+    static Class<?> getClass(String imports, String declaration, boolean compileStatic)
+    {
+        String key = sha256((compileStatic ? COMPILE_STATIC : "") + imports + declaration);
+        CompletableFuture<Class<?>> future;
+        boolean owner = false;
+        synchronized (CLASSES) {
+            future = CLASSES.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                CLASSES.put(key, future);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            try {
+                future.complete(compile(imports, declaration, compileStatic, key));
+            }
+            catch (RuntimeException e) {
+                synchronized (CLASSES) {
+                    CLASSES.remove(key, future);
+                }
+                future.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return future.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw AddaxException.asAddaxException(RUNTIME_ERROR, e.getCause());
+        }
+    }
+
+    static int size()
+    {
+        synchronized (CLASSES) {
+            return CLASSES.size();
+        }
+    }
+
+    private static Class<?> compile(String imports, String declaration, boolean compileStatic, String key)
+    {
+        long start = System.currentTimeMillis();
+        if (compileStatic) {
+            try {
+                Class<?> clazz = newLoader().parseClass(imports + COMPILE_STATIC + declaration);
+                LOG.info("Compiled the groovy script {} statically in {}ms", key, System.currentTimeMillis() - start);
+                return clazz;
+            }
+            catch (CompilationFailedException e) {
+                LOG.warn("The groovy script {} does not compile statically, use dynamic groovy instead: {}",
+                        key, e.getMessage());
+            }
+        }
+
+        try {
+            Class<?> clazz = newLoader().parseClass(imports + declaration);
+            LOG.info("Compiled the groovy script {} in {}ms", key, System.currentTimeMillis() - start);
+            return clazz;
+        }
+        catch (CompilationFailedException cfe) {
+            throw AddaxException.asAddaxException(RUNTIME_ERROR, cfe);
+        }
+    }
+
+    // one loader per script, every script declares the same class name
+    private static GroovyClassLoader newLoader()
+    {
+        return new GroovyClassLoader(GroovyScriptCache.class.getClassLoader());
+    }
+
+    private static String sha256(String source)
+    {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw AddaxException.asAddaxException(RUNTIME_ERROR, e);
+        }
+    }
+}
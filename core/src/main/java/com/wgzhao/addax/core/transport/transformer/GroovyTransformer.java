@@ -21,9 +21,7 @@ package com.wgzhao.addax.core.transport.transformer;
 
 import com.wgzhao.addax.core.element.Record;
 import com.wgzhao.addax.core.exception.AddaxException;
-import groovy.lang.GroovyClassLoader;
 import org.apache.commons.lang3.StringUtils;
-import org.codehaus.groovy.control.CompilationFailedException;
 
 import java.util.Arrays;
 import java.util.List;
@@ -34,12 +32,17 @@ import static com.wgzhao.addax.core.spi.ErrorCode.RUNTIME_ERROR;
 /**
  * no comments.
  * Created by liqiang on 16/3/4.
+ * <p>
+ * The script is compiled once per JVM through {@link GroovyScriptCache}, every task gets its own
+ * instance of the compiled class. With {@code "batch": true} the code is the body of
+ * {@link GroovyBatchRule#evaluateBatch(List)} instead of a per record method. With
+ * {@code "compileStatic": true} the script is compiled with {@code @CompileStatic}, which is
+ * faster but resolves methods and properties at compile time, so a script relying on dynamic
+ * dispatch may behave differently; it is off by default.
  */
 public class GroovyTransformer
         extends Transformer
 {
-    private Transformer groovyTransformer;
-
     public GroovyTransformer()
     {
         setTransformerName("dx_groovy");
@@ -48,42 +51,25 @@ public class GroovyTransformer
     @Override
     public Record evaluate(Record record, Object... paras)
     {
-
-        if (groovyTransformer == null) {
-            // global unique initialization
-            if (paras.length < 1 || paras.length > 2) {
-                throw AddaxException.asAddaxException(
-                        ILLEGAL_VALUE,
-                        "The dx_groovy parameters must be 1 or 2. The current parameter is: " + Arrays.asList(paras));
-            }
-            synchronized (this) {
-
-                if (groovyTransformer == null) {
-                    String code = (String) paras[0];
-                    @SuppressWarnings("unchecked") List<String> extraPackage = paras.length == 2 ?
-                            (List<String>) paras[1] : null;
-                    initGroovyTransformer(code, extraPackage);
-                }
-            }
-        }
-
-        return this.groovyTransformer.evaluate(record);
+        return compiled(paras).evaluate(record);
     }
 
-    private void initGroovyTransformer(String code, List<String> extraPackage)
+    @Override
+    public CompiledTransformer compile(Object... paras)
     {
-        GroovyClassLoader loader = new GroovyClassLoader(GroovyTransformer.class.getClassLoader());
-        String groovyRule = getGroovyRule(code, extraPackage);
-
-        Class groovyClass;
-        try {
-            groovyClass = loader.parseClass(groovyRule);
-        }
-        catch (CompilationFailedException cfe) {
+        if (paras.length < 1 || paras.length > 4) {
             throw AddaxException.asAddaxException(
-                    RUNTIME_ERROR, cfe);
+                    ILLEGAL_VALUE,
+                    "The dx_groovy parameters must be 1 to 4. The current parameter is: " + Arrays.asList(paras));
         }
+        String code = (String) paras[0];
+        @SuppressWarnings("unchecked") List<String> extraPackage = paras.length >= 2 ?
+                (List<String>) paras[1] : null;
+        boolean batch = paras.length >= 3 && Boolean.TRUE.equals(paras[2]);
+        boolean compileStatic = paras.length == 4 && Boolean.TRUE.equals(paras[3]);
 
+        Class<?> groovyClass = GroovyScriptCache.getClass(getImports(extraPackage), getGroovyRule(code, batch), compileStatic);
+        Transformer groovyTransformer;
         try {
             Object t = groovyClass.getConstructor().newInstance();
             if (!(t instanceof Transformer)) {
@@ -91,15 +77,23 @@ public class GroovyTransformer
                         RUNTIME_ERROR,
                         "Addax bug! ");
             }
-            this.groovyTransformer = (Transformer) t;
+            groovyTransformer = (Transformer) t;
+        }
+        catch (AddaxException ex) {
+            throw ex;
         }
         catch (Throwable ex) {
             throw AddaxException.asAddaxException(
                     RUNTIME_ERROR, ex);
         }
+
+        if (groovyTransformer instanceof GroovyBatchRule batchRule) {
+            return batchRule;
+        }
+        return groovyTransformer::evaluate;
     }
 
-    private String getGroovyRule(String expression, List<String> extraPackagesStrList)
+    private String getImports(List<String> extraPackagesStrList)
     {
         StringBuilder sb = new StringBuilder();
         if (extraPackagesStrList != null) {
@@ -112,10 +106,23 @@ public class GroovyTransformer
         sb.append("import static com.wgzhao.addax.core.transport.transformer.GroovyTransformerStaticUtil.*;");
         sb.append("import com.wgzhao.addax.core.element.*;");
         sb.append("import com.wgzhao.addax.core.exception.AddaxException;");
+        sb.append("import com.wgzhao.addax.core.transport.transformer.GroovyBatchRule;");
         sb.append("import com.wgzhao.addax.core.transport.transformer.Transformer;");
         sb.append("import java.util.*;");
-        sb.append("public class RULE extends Transformer").append("{");
-        sb.append("public Record evaluate(Record record, Object... paras) {");
+        return sb.toString();
+    }
+
+    private String getGroovyRule(String expression, boolean batch)
+    {
+        StringBuilder sb = new StringBuilder();
+        if (batch) {
+            sb.append("public class RULE extends GroovyBatchRule").append("{");
+            sb.append("public List<Record> evaluateBatch(List<Record> records) {");
+        }
+        else {
+            sb.append("public class RULE extends Transformer").append("{");
+            sb.append("public Record evaluate(Record record, Object... paras) {");
+        }
         sb.append(expression);
         sb.append("}}");
 
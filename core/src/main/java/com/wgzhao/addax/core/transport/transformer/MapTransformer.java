@@ -50,13 +50,15 @@ public class MapTransformer
     @Override
     public Record evaluate(Record record, Object... paras)
     {
+        return compiled(paras).evaluate(record);
+    }
 
+    @Override
+    public CompiledTransformer compile(Object... paras)
+    {
         int columnIndex;
         String code;
         String value;
-        String newValue;
-        Column column;
-        int scale = 2; //默认精度
 
         try {
             if (paras.length != 3) {
@@ -66,18 +68,35 @@ public class MapTransformer
             columnIndex = (Integer) paras[0];
             code = (String) paras[1];
             value = (String) paras[2];
+            Double.valueOf(value);
+        }
+        catch (Exception e) {
+            throw AddaxException.asAddaxException(
+                    ILLEGAL_VALUE,
+                    "paras:" + Arrays.asList(paras) + " => " + e.getMessage());
+        }
+
+        return record -> map(record, columnIndex, code, value);
+    }
+
+    private Record map(Record record, int columnIndex, String code, String value)
+    {
+        String newValue;
+        Column column;
+        int scale = 2; //默认精度
+
+        try {
             column = record.getColumn(columnIndex);
             if (column.getRawData() == null) {
                 return record;
             }
 
             Double.valueOf(column.asString());
-            Double.valueOf(value);
         }
         catch (Exception e) {
             throw AddaxException.asAddaxException(
                     ILLEGAL_VALUE,
-                    "paras:" + Arrays.asList(paras) + " => " + e.getMessage());
+                    "paras:" + Arrays.asList(columnIndex, code, value) + " => " + e.getMessage());
         }
 
         if (column.asString().split("\\.").length >= 2) {
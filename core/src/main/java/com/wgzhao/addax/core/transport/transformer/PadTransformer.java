@@ -44,7 +44,12 @@ public class PadTransformer
     @Override
     public Record evaluate(Record record, Object... paras)
     {
+        return compiled(paras).evaluate(record);
+    }
 
+    @Override
+    public CompiledTransformer compile(Object... paras)
+    {
         int columnIndex;
         String padType;
         int length;
@@ -59,6 +64,10 @@ public class PadTransformer
             padType = (String) paras[1];
             length = Integer.parseInt((String) paras[2]);
             padString = (String) paras[3];
+            if (!"r".equalsIgnoreCase(padType) && !"l".equalsIgnoreCase(padType)) {
+                throw new RuntimeException(String.format("The first parameter of dx_pad must be either l or r, " +
+                        "The current parameter is %s", padType));
+            }
         }
         catch (Exception e) {
             throw AddaxException.asAddaxException(
@@ -66,6 +75,11 @@ public class PadTransformer
                     "paras:" + Arrays.asList(paras) + " => " + e.getMessage());
         }
 
+        return record -> pad(record, columnIndex, padType, length, padString);
+    }
+
+    private Record pad(Record record, int columnIndex, String padType, int length, String padString)
+    {
         Column column = record.getColumn(columnIndex);
 
         try {
@@ -75,10 +89,6 @@ public class PadTransformer
                 oriValue = "";
             }
             String newValue;
-            if (!"r".equalsIgnoreCase(padType) && !"l".equalsIgnoreCase(padType)) {
-                throw new RuntimeException(String.format("The first parameter of dx_pad must be either l or r, " +
-                        "The current parameter is %s", padType));
-            }
             if (length <= oriValue.length()) {
                 newValue = oriValue.substring(0, length);
             }
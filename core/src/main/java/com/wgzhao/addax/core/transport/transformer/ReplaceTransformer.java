@@ -44,7 +44,12 @@ public class ReplaceTransformer
     @Override
     public Record evaluate(Record record, Object... paras)
     {
+        return compiled(paras).evaluate(record);
+    }
 
+    @Override
+    public CompiledTransformer compile(Object... paras)
+    {
         int columnIndex;
         int startIndex;
         int length;
@@ -64,6 +69,11 @@ public class ReplaceTransformer
                     "paras:" + Arrays.asList(paras) + " => " + e.getMessage());
         }
 
+        return record -> replace(record, columnIndex, startIndex, length, replaceString);
+    }
+
+    private static Record replace(Record record, int columnIndex, int startIndex, int length, String replaceString)
+    {
         Column column = record.getColumn(columnIndex);
 
         try {
@@ -50,7 +50,12 @@ public class SubstrTransformer
     @Override
     public Record evaluate(Record record, Object... paras)
     {
+        return compiled(paras).evaluate(record);
+    }
 
+    @Override
+    public CompiledTransformer compile(Object... paras)
+    {
         int columnIndex;
         int startIndex;
         int length;
@@ -69,6 +74,11 @@ public class SubstrTransformer
                     "paras:" + Arrays.asList(paras) + " => " + e.getMessage());
         }
 
+        return record -> substr(record, columnIndex, startIndex, length);
+    }
+
+    private static Record substr(Record record, int columnIndex, int startIndex, int length)
+    {
         Column column = record.getColumn(columnIndex);
 
         try {
@@ -19,9 +19,17 @@ package com.wgzhao.addax.core.transport.transformer;
 
 import com.wgzhao.addax.core.element.Record;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class Transformer
 {
+    // the parameter sets of a job are few, the cache is only emptied if it is fed per record parameters
+    private static final int MAX_COMPILED = 64;
+
+    private final Map<List<Object>, CompiledTransformer> compiled = new ConcurrentHashMap<>();
     private String transformerName;
 
     public String getTransformerName()
@@ -40,4 +48,44 @@ public abstract class Transformer
      * @return record
      */
     public abstract Record evaluate(Record record, Object... paras);
+
+    /**
+     * Bind the parameters once for a task and return the operation applied to every record.
+     * Transformers whose parameters need parsing or validation should override it so that
+     * the work is not repeated per record; the default dispatches to {@link #evaluate(Record, Object...)}.
+     *
+     * @param paras transformer parameters
+     * @return the compiled transformer
+     */
+    public CompiledTransformer compile(Object... paras)
+    {
+        return record -> evaluate(record, paras);
+    }
+
+    /**
+     * The compiled form of the parameters, compiled once per parameter set.
+     * Transformers which override {@link #compile(Object...)} implement
+     * {@link #evaluate(Record, Object...)} with it, so that callers which do not go through the
+     * pipeline do not parse the parameters for every record.
+     *
+     * @param paras transformer parameters
+     * @return the compiled transformer
+     */
+    protected final CompiledTransformer compiled(Object... paras)
+    {
+        if (paras == null) {
+            return compile((Object[]) null);
+        }
+        List<Object> key = Arrays.asList(paras);
+        CompiledTransformer result = compiled.get(key);
+        if (result == null) {
+            result = compile(paras);
+            if (compiled.size() >= MAX_COMPILED) {
+                compiled.clear();
+            }
+            // copy the parameters, the caller may reuse its array
+            compiled.put(Arrays.asList(paras.clone()), result);
+        }
+        return result;
+    }
 }
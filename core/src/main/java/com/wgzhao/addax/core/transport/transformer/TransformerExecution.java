@@ -41,9 +41,11 @@ public class TransformerExecution
     {
 
         if ("dx_groovy".equals(transformerInfo.getTransformer().getTransformerName())) {
-            finalParas = new Object[2];
+            finalParas = new Object[4];
             finalParas[0] = transformerExecutionParas.getCode();
             finalParas[1] = transformerExecutionParas.getExtraPackage();
+            finalParas[2] = transformerExecutionParas.isBatch();
+            finalParas[3] = transformerExecutionParas.isCompileStatic();
             return;
         }
 
@@ -33,6 +33,8 @@ public class TransformerExecutionParas
     private Map<String, Object> tContext;
     private String code;
     private List<String> extraPackage;
+    private boolean batch;
+    private boolean compileStatic;
 
     public Integer getColumnIndex()
     {
@@ -83,4 +85,24 @@ public class TransformerExecutionParas
     {
         this.extraPackage = extraPackage;
     }
+
+    public boolean isBatch()
+    {
+        return batch;
+    }
+
+    public void setBatch(boolean batch)
+    {
+        this.batch = batch;
+    }
+
+    public boolean isCompileStatic()
+    {
+        return compileStatic;
+    }
+
+    public void setCompileStatic(boolean compileStatic)
+    {
+        this.compileStatic = compileStatic;
+    }
 }
@@ -0,0 +1,383 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.transport.transformer;
+
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.exception.AddaxException;
+import com.wgzhao.addax.core.plugin.TaskPluginCollector;
+import com.wgzhao.addax.core.util.container.ClassLoaderSwapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.wgzhao.addax.core.spi.ErrorCode.ILLEGAL_VALUE;
+
+/**
+ * The transformer chain of one task, compiled once into a single operator.
+ * <p>
+ * Every {@link TransformerExecution} is compiled with its parameters already bound, so a
+ * record only pays for the transformation itself. Consecutive transformers coming from the
+ * same class loader form a segment and the thread context class loader is swapped once per
+ * segment, which means never for a chain made of built-in transformers only. The time spent
+ * in each transformer is measured on one record out of {@link #SAMPLE_INTERVAL} and
+ * extrapolated, a batch evaluated by {@link #evaluateBatch(List)} is always measured since
+ * the cost of reading the clock is shared by all of its records.
+ * <p>
+ * Like the exchanger that owns it, a pipeline is used by a single thread.
+ */
+public class TransformerPipeline
+{
+    public static final int SAMPLE_INTERVAL = 128;
+    private static final int SAMPLE_MASK = SAMPLE_INTERVAL - 1;
+
+    private final String[] names;
+    private final Integer[] columnIndexes;
+    private final CompiledTransformer[] operators;
+    // [from, to) of each segment, and the class loader to run it with, null for the current one
+    private final int[] segmentEnds;
+    private final ClassLoader[] segmentClassLoaders;
+
+    private final TaskPluginCollector pluginCollector;
+    private final ClassLoaderSwapper classLoaderSwapper = ClassLoaderSwapper.newCurrentThreadClassLoaderSwapper();
+
+    private boolean checked = false;
+    private long evaluatedRecords = 0;
+    private long sampledRecords = 0;
+    private final long[] sampledTime;
+
+    private long successRecords = 0;
+    private long filterRecords = 0;
+    private long failedRecords = 0;
+
+    private TransformerPipeline(List<TransformerExecution> executions, TaskPluginCollector pluginCollector)
+    {
+        int n = executions.size();
+        this.names = new String[n];
+        this.columnIndexes = new Integer[n];
+        this.operators = new CompiledTransformer[n];
+        this.sampledTime = new long[n];
+        this.pluginCollector = pluginCollector;
+
+        List<Integer> ends = new ArrayList<>();
+        List<ClassLoader> loaders = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            TransformerExecution execution = executions.get(i);
+            ClassLoader classLoader = execution.getClassLoader();
+            names[i] = execution.getTransformerName();
+            columnIndexes[i] = execution.getColumnIndex();
+            operators[i] = compile(execution, classLoader);
+
+            if (i == 0 || classLoader != loaders.get(loaders.size() - 1)) {
+                if (i > 0) {
+                    ends.add(i);
+                }
+                loaders.add(classLoader);
+            }
+        }
+        ends.add(n);
+        this.segmentEnds = ends.stream().mapToInt(Integer::intValue).toArray();
+        this.segmentClassLoaders = loaders.toArray(new ClassLoader[0]);
+    }
+
+    /**
+     * @param executions the transformer executions of a task, in configuration order
+     * @param pluginCollector where records failed by a transformer are reported
+     * @return the compiled pipeline, or null when there is no transformer to run
+     */
+    public static TransformerPipeline compile(List<TransformerExecution> executions, TaskPluginCollector pluginCollector)
+    {
+        if (executions == null || executions.isEmpty()) {
+            return null;
+        }
+        return new TransformerPipeline(executions, pluginCollector);
+    }
+
+    private CompiledTransformer compile(TransformerExecution execution, ClassLoader classLoader)
+    {
+        if (classLoader != null) {
+            classLoaderSwapper.setCurrentThreadClassLoader(classLoader);
+        }
+        try {
+            return execution.getTransformer().compile(execution.getContext(), execution.getFinalParas());
+        }
+        finally {
+            if (classLoader != null) {
+                classLoaderSwapper.restoreCurrentThreadClassLoader();
+            }
+        }
+    }
+
+    /**
+     * Run one record through the chain.
+     *
+     * @param record the record to transform
+     * @return the transformed record, or null when it was filtered out or failed,
+     * failed records have been reported as dirty already
+     */
+    public Record evaluate(Record record)
+    {
+        check(record);
+        boolean sampled = (evaluatedRecords++ & SAMPLE_MASK) == 0;
+        if (sampled) {
+            sampledRecords++;
+        }
+
+        Record result = record;
+        int from = 0;
+        for (int s = 0; s < segmentEnds.length; s++) {
+            ClassLoader classLoader = segmentClassLoaders[s];
+            int to = segmentEnds[s];
+            if (classLoader != null) {
+                classLoaderSwapper.setCurrentThreadClassLoader(classLoader);
+            }
+            try {
+                for (int i = from; i < to; i++) {
+                    long startTs = sampled ? System.nanoTime() : 0L;
+                    try {
+                        result = operators[i].evaluate(result);
+                    }
+                    catch (Exception e) {
+                        fail(record, i, e);
+                        return null;
+                    }
+                    if (sampled) {
+                        sampledTime[i] += System.nanoTime() - startTs;
+                    }
+                    if (result == null) {
+                        filterRecords++;
+                        return null;
+                    }
+                }
+            }
+            finally {
+                if (classLoader != null) {
+                    classLoaderSwapper.restoreCurrentThreadClassLoader();
+                }
+            }
+            from = to;
+        }
+        successRecords++;
+        return result;
+    }
+
+    /**
+     * Run a batch of records through the chain, one transformer at a time over the whole batch.
+     * The list is updated in place and keeps only the records that passed every transformer,
+     * in their original order. A {@link BatchCompiledTransformer} gets the records alive at its
+     * stage in a single call.
+     *
+     * @param records the records to transform
+     */
+    public void evaluateBatch(List<Record> records)
+    {
+        int size = records.size();
+        if (size == 0) {
+            return;
+        }
+        check(records.get(0));
+        evaluatedRecords += size;
+        sampledRecords += size;
+
+        Record[] originals = records.toArray(new Record[0]);
+        Record[] current = originals.clone();
+        int alive = size;
+        int from = 0;
+        for (int s = 0; s < segmentEnds.length && alive > 0; s++) {
+            ClassLoader classLoader = segmentClassLoaders[s];
+            int to = segmentEnds[s];
+            if (classLoader != null) {
+                classLoaderSwapper.setCurrentThreadClassLoader(classLoader);
+            }
+            try {
+                for (int i = from; i < to && alive > 0; i++) {
+                    CompiledTransformer operator = operators[i];
+                    long startTs = System.nanoTime();
+                    if (operator instanceof BatchCompiledTransformer batchOperator) {
+                        alive = evaluateBatch(batchOperator, i, originals, current, alive);
+                        sampledTime[i] += System.nanoTime() - startTs;
+                        continue;
+                    }
+                    for (int j = 0; j < size; j++) {
+                        if (current[j] == null) {
+                            continue;
+                        }
+                        try {
+                            current[j] = operator.evaluate(current[j]);
+                            if (current[j] == null) {
+                                filterRecords++;
+                                alive--;
+                            }
+                        }
+                        catch (Exception e) {
+                            current[j] = null;
+                            alive--;
+                            fail(originals[j], i, e);
+                        }
+                    }
+                    sampledTime[i] += System.nanoTime() - startTs;
+                }
+            }
+            finally {
+                if (classLoader != null) {
+                    classLoaderSwapper.restoreCurrentThreadClassLoader();
+                }
+            }
+            from = to;
+        }
+
+        records.clear();
+        for (Record record : current) {
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        successRecords += alive;
+    }
+
+    /*
+     * Hand every record still alive to a batch stage at once. The records it returns take the
+     * alive slots in order, the slots left over are filtered. A failure of the stage fails the
+     * whole batch, since there is no telling which record caused it.
+     */
+    private int evaluateBatch(BatchCompiledTransformer operator, int stage, Record[] originals, Record[] current, int alive)
+    {
+        List<Record> input = new ArrayList<>(alive);
+        for (Record record : current) {
+            if (record != null) {
+                input.add(record);
+            }
+        }
+
+        List<Record> output;
+        try {
+            output = operator.evaluateBatch(input);
+            if (output != null && output.size() > alive) {
+                throw new IllegalStateException(String.format(
+                        "%d records returned from a batch of %d, a batch transformer can not add records", output.size(), alive));
+            }
+        }
+        catch (Exception e) {
+            for (int j = 0; j < current.length; j++) {
+                if (current[j] != null) {
+                    current[j] = null;
+                    fail(originals[j], stage, e);
+                }
+            }
+            return 0;
+        }
+
+        int next = 0;
+        int kept = 0;
+        for (int j = 0; j < current.length; j++) {
+            if (current[j] == null) {
+                continue;
+            }
+            Record record = output != null && next < output.size() ? output.get(next++) : null;
+            if (record == null) {
+                current[j] = null;
+                filterRecords++;
+            }
+            else {
+                // a later failure reports the record this stage produced
+                current[j] = record;
+                originals[j] = record;
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    /*
+     * Deferred validation of transformer parameters, done on the first record only:
+     * throw directly if invalid rather than marking the record dirty.
+     */
+    private void check(Record record)
+    {
+        if (checked) {
+            return;
+        }
+        for (int i = 0; i < operators.length; i++) {
+            if (columnIndexes[i] != null && columnIndexes[i] >= record.getColumnNumber()) {
+                throw AddaxException.asAddaxException(ILLEGAL_VALUE,
+                        String.format("columnIndex[%s] out of bound[%s]. name=%s",
+                                columnIndexes[i], record.getColumnNumber(), names[i]));
+            }
+        }
+        checked = true;
+    }
+
+    private void fail(Record record, int stage, Exception e)
+    {
+        failedRecords++;
+        pluginCollector.collectDirtyRecord(record,
+                String.format("The transformer(%s) has encountered an exception(%s)", names[stage], e.getMessage()));
+    }
+
+    public long getSuccessRecords()
+    {
+        return successRecords;
+    }
+
+    public long getFilterRecords()
+    {
+        return filterRecords;
+    }
+
+    public long getFailedRecords()
+    {
+        return failedRecords;
+    }
+
+    /**
+     * @return the estimated time spent in transformers so far, in nanoseconds
+     */
+    public long getUsedTime()
+    {
+        long total = 0;
+        for (long time : sampledTime) {
+            total += time;
+        }
+        return extrapolate(total);
+    }
+
+    /**
+     * @return the estimated time spent in each transformer so far, in nanoseconds, in chain order
+     */
+    public Map<String, Long> getUsedTimeByTransformer()
+    {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            // the same transformer may appear more than once in a chain
+            result.merge(names[i], extrapolate(sampledTime[i]), Long::sum);
+        }
+        return result;
+    }
+
+    private long extrapolate(long time)
+    {
+        if (sampledRecords == 0 || sampledRecords == evaluatedRecords) {
+            return time;
+        }
+        return (long) ((double) time * evaluatedRecords / sampledRecords);
+    }
+}
@@ -29,6 +29,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -45,6 +46,7 @@ import static com.wgzhao.addax.core.spi.ErrorCode.CONFIG_ERROR;
 import static com.wgzhao.addax.core.spi.ErrorCode.PLUGIN_INIT_ERROR;
 import static com.wgzhao.addax.core.spi.ErrorCode.REQUIRED_VALUE;
 import static com.wgzhao.addax.core.util.container.CoreConstant.CONF_PATH;
+import static com.wgzhao.addax.core.util.container.CoreConstant.ENTRY_VARIABLES;
 import static com.wgzhao.addax.core.util.container.CoreConstant.JOB_CONTENT;
 import static com.wgzhao.addax.core.util.container.CoreConstant.JOB_CONTENT_READER;
 import static com.wgzhao.addax.core.util.container.CoreConstant.JOB_CONTENT_READER_NAME;
@@ -62,6 +64,14 @@ public final class ConfigParser
 {
     private static final Logger LOG = LoggerFactory.getLogger(ConfigParser.class);
 
+    /*
+     * core.json and the plugin.json files, parsed once per JVM and parsed again only when
+     * modified, so that a long-running server does not read them for every job
+     */
+    private static final Map<String, CachedFile> CACHED_FILES = new ConcurrentHashMap<>();
+
+    private record CachedFile(long lastModified, Configuration configuration) {}
+
     private ConfigParser()
     {
     }
@@ -74,14 +84,39 @@ public final class ConfigParser
      */
     public static Configuration parse(String jobPath)
     {
-        Configuration configuration = ConfigParser.parseJobConfig(jobPath);
+        return parse(jobPath, Map.of());
+    }
 
+    /**
+     * Parse the job configuration file with job scoped variables and merge the core configuration
+     *
+     * @param jobPath the path of the job configuration file
+     * @param variables the values of the {@code ${name}} placeholders, they take precedence over the system properties
+     * @return the merged configuration
+     */
+    public static Configuration parse(String jobPath, Map<String, String> variables)
+    {
+        return parse(ConfigParser.parseJobConfig(jobPath, variables), variables);
+    }
+
+    /**
+     * Merge the core and plugin configurations into an already parsed job configuration
+     *
+     * @param configuration the job configuration
+     * @param variables the variables the job configuration was parsed with, kept under {@code entry.variables}
+     * @return the merged configuration
+     */
+    public static Configuration parse(Configuration configuration, Map<String, String> variables)
+    {
         // Upgrade the new job format to the old one
         upgradeJobConfig(configuration);
         //validate job json
         validateJob(configuration);
 
         configuration.merge(ConfigParser.parseCoreConfig(), false);
+        if (!variables.isEmpty()) {
+            configuration.set(ENTRY_VARIABLES, variables);
+        }
         String readerPluginName = configuration.getString(JOB_CONTENT_READER_NAME);
         String writerPluginName = configuration.getString(JOB_CONTENT_WRITER_NAME);
 
@@ -148,22 +183,33 @@ public final class ConfigParser
 
     private static Configuration parseCoreConfig()
     {
+        File file = new File(CONF_PATH);
+        CachedFile cached = CACHED_FILES.get(file.getPath());
+        if (cached != null && cached.lastModified() == file.lastModified()) {
+            return cached.configuration().clone();
+        }
 
-        Configuration coreConfig = Configuration.from(new File(CONF_PATH));
+        Configuration coreConfig = Configuration.from(file);
         // apply the environment variables
         coreConfig.getMap("entry.environment").forEach((k, v) -> {
             System.setProperty(k, v.toString());
         });
+        CACHED_FILES.put(file.getPath(), new CachedFile(file.lastModified(), coreConfig.clone()));
         return coreConfig;
     }
 
     public static Configuration parseJobConfig(String path)
+    {
+        return parseJobConfig(path, Map.of());
+    }
+
+    public static Configuration parseJobConfig(String path, Map<String, String> variables)
     {
         String jobContent = getJobContent(path);
         if (isYamlPath(path)) {
-            return parseYamlJobConfig(jobContent, path);
+            return parseYamlJobConfig(StrUtil.replaceVariable(jobContent, variables), path);
         }
-        return Configuration.from(jobContent);
+        return Configuration.from(jobContent, variables);
     }
 
     private static boolean isYamlPath(String path)
@@ -237,9 +283,17 @@ public final class ConfigParser
             if (!file.exists()) {
                 throw AddaxException.asAddaxException(PLUGIN_INIT_ERROR, "The plugin '" + plugin + "' has not installed yet");
             }
-            Configuration pluginConf = Configuration.from(file);
-            if (StringUtils.isBlank(pluginConf.getString("path"))) {
-                pluginConf.set("path", pluginPath);
+            Configuration pluginConf;
+            CachedFile cached = CACHED_FILES.get(filePath);
+            if (cached != null && cached.lastModified() == file.lastModified()) {
+                pluginConf = cached.configuration().clone();
+            }
+            else {
+                pluginConf = Configuration.from(file);
+                if (StringUtils.isBlank(pluginConf.getString("path"))) {
+                    pluginConf.set("path", pluginPath);
+                }
+                CACHED_FILES.put(filePath, new CachedFile(file.lastModified(), pluginConf.clone()));
             }
             Configuration result = Configuration.newDefault();
             result.set(String.format("plugin.%s.%s", pluginType, plugin), pluginConf.getInternal());
@@ -87,7 +87,20 @@ public class Configuration
 
     public static Configuration from(String json)
     {
-        json = StrUtil.replaceVariable(json);
+        return from(json, Map.of());
+    }
+
+    /**
+     * Parse a json string, with the {@code ${name}} placeholders replaced by the given variables first
+     * and by the system properties next.
+     *
+     * @param json the json string
+     * @param variables the variables of the job
+     * @return {@link Configuration}
+     */
+    public static Configuration from(String json, Map<String, String> variables)
+    {
+        json = StrUtil.replaceVariable(json, variables);
         checkJSON(json);
 
         try {
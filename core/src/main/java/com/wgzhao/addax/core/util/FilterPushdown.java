@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.util;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.wgzhao.addax.core.base.Key;
+import com.wgzhao.addax.core.transport.transformer.FilterCondition;
+import com.wgzhao.addax.core.transport.transformer.FilterExpression;
+import com.wgzhao.addax.core.util.container.CoreConstant;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/**
+ * Push {@code dx_filter} conditions down into the reader, so that the rows the filter would
+ * drop are not read at all. Supported readers are the RDBMS ones, where the condition is added
+ * to {@code where}, and {@code elasticsearchreader}, where it is added to each {@code search}
+ * query as a {@code must_not} clause.
+ * <p>
+ * Only the filters at the head of the chain are considered, since a transformer before them
+ * could change the column. A condition is pushable when it compares a column to a number;
+ * {@code like} uses Java regular expressions and is never pushed. The filter itself stays in
+ * the chain. A column that is not numeric in the source may compare differently in the
+ * database than in {@code dx_filter}, so the rewrite is only applied when the filter sets
+ * {@code "pushdown": true}, otherwise the pushable condition is only logged. A where is only
+ * built on columns that are plain identifiers, an expression or a quoted name is not pushed.
+ */
+public final class FilterPushdown
+{
+    private static final Logger LOG = LoggerFactory.getLogger(FilterPushdown.class);
+
+    private static final String ES_READER = "elasticsearchreader";
+    private static final String ES_SEARCH = "search";
+    // a column name, optionally qualified by its table, which is safe to write into a where
+    private static final Pattern PLAIN_IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)?");
+
+    private FilterPushdown() {}
+
+    public static void apply(Configuration configuration)
+    {
+        List<Configuration> transformers = configuration.getListConfiguration(CoreConstant.JOB_CONTENT_TRANSFORMER);
+        if (transformers == null || transformers.isEmpty()) {
+            return;
+        }
+        String readerName = configuration.getString(CoreConstant.JOB_CONTENT_READER_NAME);
+        Configuration parameter = configuration.getConfiguration(CoreConstant.JOB_CONTENT_READER_PARAMETER);
+        if (parameter == null) {
+            return;
+        }
+        boolean isEs = ES_READER.equals(readerName);
+        boolean isRdbms = parameter.get(Key.CONNECTION + "." + Key.JDBC_URL) != null
+                && parameter.get(Key.CONNECTION + "." + Key.QUERY_SQL) == null;
+        if (!isEs && !isRdbms) {
+            return;
+        }
+        List<String> columns = parameter.getList(Key.COLUMN, String.class);
+        if (columns == null || columns.isEmpty() || columns.contains("*")) {
+            return;
+        }
+
+        for (Configuration transformer : transformers) {
+            if (!"dx_filter".equals(transformer.getString("name"))) {
+                break;
+            }
+            FilterExpression expression = parse(transformer);
+            if (expression == null) {
+                continue;
+            }
+            boolean pushdown = transformer.getBool(CoreConstant.TRANSFORMER_PARAMETER_PUSHDOWN, false);
+            if (isRdbms) {
+                String keep = toSql(expression, columns);
+                if (keep == null) {
+                    continue;
+                }
+                if (!pushdown) {
+                    LOG.info("The dx_filter {} can be pushed down to the reader as where [{}], " +
+                            "set \"pushdown\": true in its parameter to do so.", transformer.get("parameter"), keep);
+                    continue;
+                }
+                String where = parameter.getString(Key.WHERE);
+                where = StringUtils.isBlank(where) ? keep : "(" + where + ") AND " + keep;
+                configuration.set(CoreConstant.JOB_CONTENT_READER_PARAMETER + "." + Key.WHERE, where);
+                parameter.set(Key.WHERE, where);
+                LOG.info("Push dx_filter down to the reader, the where becomes [{}]", where);
+            }
+            else {
+                JSONObject drop = toEsQuery(expression, columns);
+                if (drop == null) {
+                    continue;
+                }
+                if (!pushdown) {
+                    LOG.info("The dx_filter {} can be pushed down to the reader as a must_not [{}], " +
+                            "set \"pushdown\": true in its parameter to do so.", transformer.get("parameter"), drop);
+                    continue;
+                }
+                Object search = parameter.get(ES_SEARCH);
+                Object rewritten = rewriteSearch(search, drop);
+                if (rewritten != null) {
+                    configuration.set(CoreConstant.JOB_CONTENT_READER_PARAMETER + "." + ES_SEARCH, rewritten);
+                    parameter.set(ES_SEARCH, rewritten);
+                    LOG.info("Push dx_filter down to the reader, the search becomes {}", rewritten);
+                }
+            }
+        }
+    }
+
+    private static FilterExpression parse(Configuration transformer)
+    {
+        Integer columnIndex = transformer.getInt(CoreConstant.TRANSFORMER_PARAMETER_COLUMN_INDEX);
+        List<String> paras = transformer.getList(CoreConstant.TRANSFORMER_PARAMETER_PARAS, String.class);
+        if (columnIndex == null || paras == null) {
+            return null;
+        }
+        List<Object> all = new ArrayList<>(paras.size() + 1);
+        all.add(columnIndex);
+        all.addAll(paras);
+        try {
+            return FilterExpression.parse(all.toArray());
+        }
+        catch (Exception e) {
+            // let the transformer report the error when the task starts
+            return null;
+        }
+    }
+
+    private static boolean isPushable(FilterCondition condition, List<String> columns)
+    {
+        return condition.getColumnIndex() < columns.size()
+                && condition.isNumeric()
+                && condition.getOperator() != FilterCondition.Operator.LIKE
+                && condition.getOperator() != FilterCondition.Operator.NOT_LIKE;
+    }
+
+    /*
+     * The filter drops a record when any group has all its conditions true, the where has to
+     * keep the rows where every group has at least one false condition. A null column never
+     * matches a comparison in dx_filter, except for != which drops it.
+     */
+    private static String toSql(FilterExpression expression, List<String> columns)
+    {
+        StringJoiner keep = new StringJoiner(" AND ");
+        for (FilterCondition[] group : expression.getGroups()) {
+            StringJoiner keepGroup = group.length > 1 ? new StringJoiner(" OR ", "(", ")") : new StringJoiner(" OR ");
+            for (FilterCondition condition : group) {
+                if (!isPushable(condition, columns)) {
+                    return null;
+                }
+                String column = columns.get(condition.getColumnIndex());
+                if (!PLAIN_IDENTIFIER.matcher(column).matches()) {
+                    LOG.info("The dx_filter on column [{}] is not pushed down to the reader, it is not a plain identifier", column);
+                    return null;
+                }
+                String value = condition.getValue().trim();
+                keepGroup.add(switch (condition.getOperator()) {
+                    case GT -> "(" + column + " IS NULL OR " + column + " <= " + value + ")";
+                    case GE -> "(" + column + " IS NULL OR " + column + " < " + value + ")";
+                    case LT -> "(" + column + " IS NULL OR " + column + " >= " + value + ")";
+                    case LE -> "(" + column + " IS NULL OR " + column + " > " + value + ")";
+                    case EQ -> "(" + column + " IS NULL OR " + column + " <> " + value + ")";
+                    case NE -> column + " = " + value;
+                    default -> throw new IllegalStateException("unexpected operator " + condition.getOperator());
+                });
+            }
+            keep.add(keepGroup.toString());
+        }
+        return "(" + keep + ")";
+    }
+
+    /*
+     * The query of the documents to drop, documents without the field never match a range or
+     * a term, which is how dx_filter treats a null column.
+     */
+    private static JSONObject toEsQuery(FilterExpression expression, List<String> columns)
+    {
+        JSONArray should = new JSONArray();
+        for (FilterCondition[] group : expression.getGroups()) {
+            JSONArray must = new JSONArray();
+            for (FilterCondition condition : group) {
+                if (!isPushable(condition, columns)) {
+                    return null;
+                }
+                String field = columns.get(condition.getColumnIndex());
+                Number value = number(condition.getValue().trim());
+                must.add(switch (condition.getOperator()) {
+                    case GT -> range(field, "gt", value);
+                    case GE -> range(field, "gte", value);
+                    case LT -> range(field, "lt", value);
+                    case LE -> range(field, "lte", value);
+                    case EQ -> term(field, value);
+                    case NE -> bool("must_not", JSONArray.of(term(field, value)));
+                    default -> throw new IllegalStateException("unexpected operator " + condition.getOperator());
+                });
+            }
+            should.add(bool("must", must));
+        }
+        JSONObject drop = bool("should", should);
+        drop.getJSONObject("bool").put("minimum_should_match", 1);
+        return drop;
+    }
+
+    private static Object rewriteSearch(Object search, JSONObject drop)
+    {
+        if (search instanceof List<?> list) {
+            List<Object> result = new ArrayList<>(list.size());
+            for (Object each : list) {
+                Object rewritten = rewriteSearch(each, drop);
+                if (rewritten == null) {
+                    return null;
+                }
+                result.add(rewritten);
+            }
+            return result;
+        }
+        JSONObject body;
+        if (search == null) {
+            body = new JSONObject();
+        }
+        else if (search instanceof String s) {
+            body = JSON.parseObject(s);
+        }
+        else {
+            body = JSON.parseObject(JSON.toJSONString(search));
+        }
+        if (body == null) {
+            return null;
+        }
+        Object query = body.containsKey("query") ? body.get("query") : JSONObject.of("match_all", new JSONObject());
+        JSONObject bool = new JSONObject();
+        bool.put("must", JSONArray.of(query));
+        bool.put("must_not", JSONArray.of(drop));
+        body.put("query", JSONObject.of("bool", bool));
+        return search instanceof String ? body.toJSONString() : body;
+    }
+
+    private static JSONObject range(String field, String op, Number value)
+    {
+        return JSONObject.of("range", JSONObject.of(field, JSONObject.of(op, value)));
+    }
+
+    private static JSONObject term(String field, Number value)
+    {
+        return JSONObject.of("term", JSONObject.of(field, value));
+    }
+
+    private static JSONObject bool(String occur, JSONArray clauses)
+    {
+        return JSONObject.of("bool", JSONObject.of(occur, clauses));
+    }
+
+    private static Number number(String value)
+    {
+        try {
+            return Long.parseLong(value);
+        }
+        catch (NumberFormatException e) {
+            return Double.parseDouble(value);
+        }
+    }
+}
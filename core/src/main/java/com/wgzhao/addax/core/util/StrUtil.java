@@ -68,13 +68,29 @@ public class StrUtil
     }
 
     public static String replaceVariable(final String param)
+    {
+        return replaceVariable(param, Map.of());
+    }
+
+    /**
+     * Replace the {@code ${name}} placeholders, looking up the given variables first and the
+     * system properties next. Placeholders without a value are kept as is.
+     *
+     * @param param the string to replace in
+     * @param variables the variables of the job, not null
+     * @return the replaced string
+     */
+    public static String replaceVariable(final String param, final Map<String, String> variables)
     {
         Map<String, String> mapping = new HashMap<>();
 
         Matcher matcher = VARIABLE_PATTERN.matcher(param);
         while (matcher.find()) {
             String variable = matcher.group(2);
-            String value = System.getProperty(variable);
+            String value = variables.get(variable);
+            if (value == null) {
+                value = System.getProperty(variable);
+            }
             if (StringUtils.isBlank(value)) {
                 value = matcher.group();
             }
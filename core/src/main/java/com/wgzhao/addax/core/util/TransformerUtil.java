@@ -137,6 +137,9 @@ public class TransformerUtil
                 if (extraPackage != null && !extraPackage.isEmpty()) {
                     transformerExecutionParas.setExtraPackage(extraPackage);
                 }
+                transformerExecutionParas.setBatch(configuration.getBool(CoreConstant.TRANSFORMER_PARAMETER_BATCH, false));
+                transformerExecutionParas.setCompileStatic(
+                        configuration.getBool(CoreConstant.TRANSFORMER_PARAMETER_COMPILE_STATIC, false));
             }
             transformerExecutionParas.settContext(configuration.getMap(CoreConstant.TRANSFORMER_PARAMETER_CONTEXT)
             );
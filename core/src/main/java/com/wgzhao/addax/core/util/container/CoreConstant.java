@@ -38,6 +38,33 @@ public class CoreConstant
 
     public static final String CORE_CONTAINER_TASK_GROUP_ID = "core.container.taskGroup.id";
 
+    // unique among the jobs run by one JVM, assigned by the JobContainer
+    public static final String CORE_CONTAINER_JOB_ID = "core.container.job.id";
+
+    // the port of the Prometheus metrics listener of a standalone job, disabled when not set
+    public static final String CORE_METRICS_PORT = "core.metrics.port";
+
+    // "standalone" runs the task groups as threads of the job JVM, "distributed" in worker JVMs of their own
+    public static final String CORE_CONTAINER_MODE = "core.container.mode";
+
+    // the JVM options of the workers, those of the job JVM when not set
+    public static final String CORE_CONTAINER_DISTRIBUTED_JVM = "core.container.distributed.jvm";
+
+    // the address the job listens to for the reports of its workers
+    public static final String CORE_CONTAINER_DISTRIBUTED_HOST = "core.container.distributed.host";
+
+    public static final String CORE_CONTAINER_DISTRIBUTED_HEARTBEAT_INTERVAL = "core.container.distributed.heartbeatInterval";
+
+    // a worker silent for longer is considered lost, as one which exited before reporting its end
+    public static final String CORE_CONTAINER_DISTRIBUTED_HEARTBEAT_TIMEOUT = "core.container.distributed.heartbeatTimeout";
+
+    // set by the scheduler for every worker it launches
+    public static final String CORE_CONTAINER_DISTRIBUTED_PORT = "core.container.distributed.port";
+
+    public static final String CORE_CONTAINER_DISTRIBUTED_TOKEN = "core.container.distributed.token";
+
+    public static final String CORE_CONTAINER_DISTRIBUTED_ATTEMPT = "core.container.distributed.attempt";
+
     public static final String CORE_CONTAINER_TASK_GROUP_SLEEP_INTERVAL = "core.container.taskGroup.sleepInterval";
 
     public static final String CORE_CONTAINER_TASK_GROUP_REPORT_INTERVAL = "core.container.taskGroup.reportInterval";
@@ -102,6 +129,9 @@ public class CoreConstant
 
     public static final String JOB_SETTING_DRY_RUN = "job.setting.dryRun";
 
+    // where the splits a job finished are kept, for a run after a failure to skip them
+    public static final String JOB_SETTING_CHECKPOINT = "job.setting.checkpoint";
+
     public static final String JOB_PRE_HANDLER_PLUGIN_TYPE = "job.preHandler.pluginType";
 
     public static final String JOB_PRE_HANDLER_PLUGIN_NAME = "job.preHandler.pluginName";
@@ -122,6 +152,9 @@ public class CoreConstant
 
     public static final String JOB_READER_PARAMETER = "reader.parameter";
 
+    // the variables a job was submitted with, they take precedence over the system properties
+    public static final String ENTRY_VARIABLES = "entry.variables";
+
     public static final String JOB_WRITER_NAME = "writer.name";
 
     public static final String JOB_WRITER_PARAMETER = "writer.parameter";
@@ -135,6 +168,15 @@ public class CoreConstant
     // load groovy code from special file
     public static final String TRANSFORMER_PARAMETER_CODE_FILE = "parameter.codeFile";
 
+    // the groovy code is the body of evaluateBatch(List<Record> records) instead of evaluate(Record record)
+    public static final String TRANSFORMER_PARAMETER_BATCH = "parameter.batch";
+
+    // compile the groovy code with @CompileStatic, falling back to dynamic groovy if it does not type check
+    public static final String TRANSFORMER_PARAMETER_COMPILE_STATIC = "parameter.compileStatic";
+
+    // push dx_filter down to the reader's where or query when possible
+    public static final String TRANSFORMER_PARAMETER_PUSHDOWN = "parameter.pushdown";
+
     public static final String TASK_ID = "taskId";
 
     // ----------------------------- environment ---------------------------------
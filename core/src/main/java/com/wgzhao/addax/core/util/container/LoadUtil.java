@@ -32,6 +32,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.wgzhao.addax.core.spi.ErrorCode.PLUGIN_INSTALL_ERROR;
 import static com.wgzhao.addax.core.spi.ErrorCode.RUNTIME_ERROR;
@@ -41,7 +42,9 @@ import static com.wgzhao.addax.core.spi.ErrorCode.RUNTIME_ERROR;
  */
 public class LoadUtil
 {
-    private static Configuration configurationSet;
+    // keyed by plugin.<type>.<name>, kept across jobs as are the jar loaders, so that jobs
+    // running side by side in one JVM do not replace each other's plugin configurations
+    private static final Map<String, Configuration> pluginConfigurations = new ConcurrentHashMap<>();
 
     private static final Map<String, JarLoader> jarLoaderCenter = new HashMap<>();
 
@@ -52,7 +55,22 @@ public class LoadUtil
 
     public static synchronized void bind(Configuration pluginConfigs)
     {
-        configurationSet = pluginConfigs;
+        for (PluginType pluginType : new PluginType[] {PluginType.READER, PluginType.WRITER}) {
+            String prefix = "plugin." + pluginType;
+            Map<String, Object> plugins = pluginConfigs.getMap(prefix);
+            if (plugins == null) {
+                continue;
+            }
+            for (String pluginName : plugins.keySet()) {
+                String pluginKey = generatePluginKey(pluginType, pluginName);
+                Configuration pluginConf = pluginConfigs.getConfiguration(pluginKey);
+                Configuration previous = pluginConfigurations.put(pluginKey, pluginConf);
+                // the plugin was installed again at another path, its classes have to be loaded again
+                if (previous != null && !StringUtils.equals(previous.getString("path"), pluginConf.getString("path"))) {
+                    jarLoaderCenter.remove(pluginKey);
+                }
+            }
+        }
     }
 
     private static String generatePluginKey(PluginType pluginType, String pluginName)
@@ -62,7 +80,7 @@ public class LoadUtil
 
     private static Configuration getPluginConf(PluginType pluginType, String pluginName)
     {
-        Configuration pluginConf = configurationSet.getConfiguration(generatePluginKey(pluginType, pluginName));
+        Configuration pluginConf = pluginConfigurations.get(generatePluginKey(pluginType, pluginName));
 
         if (null == pluginConf) {
             throw AddaxException.asAddaxException(
@@ -70,7 +88,7 @@ public class LoadUtil
                     String.format("Can not find the configure of plugin [%s].", pluginName));
         }
 
-        return pluginConf;
+        return pluginConf.clone();
     }
 
     public static AbstractJobPlugin loadJobPlugin(PluginType pluginType, String pluginName)
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.core.job.checkpoint;
+
+import com.wgzhao.addax.core.exception.AddaxException;
+import com.wgzhao.addax.core.meta.State;
+import com.wgzhao.addax.core.statistics.communication.Communication;
+import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.core.util.container.CoreConstant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobCheckpointTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    void resumedRunSkipsTheFinishedSplits()
+    {
+        try (JobCheckpoint checkpoint = open()) {
+            assertFalse(checkpoint.isResuming());
+            assertEquals(3, checkpoint.skipFinished(tasks("a", "b", "c")).size());
+            checkpoint.record(Map.of(0, succeeded(), 1, new Communication()));
+        }
+
+        try (JobCheckpoint checkpoint = open()) {
+            assertTrue(checkpoint.isResuming());
+            List<Configuration> remaining = checkpoint.skipFinished(tasks("a", "b", "c"));
+            assertEquals(List.of("b", "c"), remaining.stream().map(task -> task.getString("split")).toList());
+            checkpoint.complete();
+        }
+
+        try (JobCheckpoint checkpoint = open()) {
+            assertFalse(checkpoint.isResuming());
+        }
+    }
+
+    @Test
+    void newSplitsAreRunWithTheUnchangedOnes()
+    {
+        try (JobCheckpoint checkpoint = open()) {
+            checkpoint.skipFinished(tasks("a", "b"));
+            checkpoint.record(Map.of(0, succeeded()));
+        }
+
+        try (JobCheckpoint checkpoint = open()) {
+            assertEquals(3, checkpoint.skipFinished(tasks("b", "a", "c", "d")).size());
+        }
+    }
+
+    @Test
+    void changedSplitsInvalidateTheCheckpoint()
+    {
+        try (JobCheckpoint checkpoint = open()) {
+            checkpoint.skipFinished(tasks("a", "b"));
+            checkpoint.record(Map.of(0, succeeded()));
+        }
+
+        try (JobCheckpoint checkpoint = open()) {
+            assertTrue(checkpoint.isResuming());
+            // the split finished earlier is gone, its rows may be written again by the new ones
+            assertThrows(AddaxException.class, () -> checkpoint.skipFinished(tasks("a1", "a2", "b")));
+        }
+
+        try (JobCheckpoint checkpoint = open()) {
+            assertFalse(checkpoint.isResuming());
+        }
+    }
+
+    private JobCheckpoint open()
+    {
+        return JobCheckpoint.open(Configuration.from("{\"path\": \"" + directory.toString().replace("\\", "/") + "\"}"), "{\"job\": 1}");
+    }
+
+    private static List<Configuration> tasks(String... splits)
+    {
+        List<Configuration> tasks = new ArrayList<>();
+        for (int i = 0; i < splits.length; i++) {
+            Configuration task = Configuration.newDefault();
+            task.set(CoreConstant.TASK_ID, i);
+            task.set("split", splits[i]);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static Communication succeeded()
+    {
+        Communication communication = new Communication();
+        communication.setState(State.SUCCEEDED);
+        return communication;
+    }
+}
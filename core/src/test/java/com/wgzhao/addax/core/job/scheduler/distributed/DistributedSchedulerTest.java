@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.core.job.scheduler.distributed;
+
+import com.wgzhao.addax.core.element.LongColumn;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.meta.State;
+import com.wgzhao.addax.core.plugin.RecordReceiver;
+import com.wgzhao.addax.core.plugin.RecordSender;
+import com.wgzhao.addax.core.spi.Reader;
+import com.wgzhao.addax.core.spi.Writer;
+import com.wgzhao.addax.core.statistics.communication.Communication;
+import com.wgzhao.addax.core.statistics.communication.CommunicationTool;
+import com.wgzhao.addax.core.statistics.communication.LocalTGCommunicationManager;
+import com.wgzhao.addax.core.statistics.container.communicator.job.DistributedJobContainerCommunicator;
+import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.core.util.container.CoreConstant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs jobs of three task groups in local worker JVMs, one of the workers hangs in its first
+ * attempt and is killed or frozen by the test, and checks that its tasks run again in another
+ * worker and are counted once.
+ */
+class DistributedSchedulerTest
+{
+    private static final int TASK_GROUPS = 3;
+    private static final int TASKS_PER_GROUP = 2;
+    private static final int RECORDS_PER_TASK = 10;
+    // the task whose writer hangs in the first attempt, in the second task group
+    private static final int HANGING_TASK_ID = 2;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @Timeout(120)
+    void killedWorkerIsReplaced()
+            throws Exception
+    {
+        CompletableFuture<Void> killer = CompletableFuture.runAsync(() ->
+                ProcessHandle.of(awaitHangingWorker()).ifPresent(ProcessHandle::destroyForcibly));
+
+        Communication communication = runJob(1L);
+
+        killer.get(10, TimeUnit.SECONDS);
+        assertMerged(1L, communication);
+    }
+
+    @Test
+    @Timeout(120)
+    @EnabledOnOs(OS.LINUX)
+    void frozenWorkerIsKilledAndReplaced()
+            throws Exception
+    {
+        // a stopped JVM sends no heartbeat and ignores the polite destroy, the scheduler has to kill it
+        CompletableFuture<Void> freezer = CompletableFuture.runAsync(() -> {
+            try {
+                new ProcessBuilder("kill", "-STOP", String.valueOf(awaitHangingWorker())).start().waitFor();
+            }
+            catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        long start = System.currentTimeMillis();
+        Communication communication = runJob(2L);
+
+        freezer.get(10, TimeUnit.SECONDS);
+        assertMerged(2L, communication);
+        assertTrue(System.currentTimeMillis() - start >= 3000, "the worker was replaced before the heartbeat timeout");
+    }
+
+    private Communication runJob(long jobId)
+    {
+        Configuration job = Configuration.newDefault();
+        job.set(CoreConstant.CORE_CONTAINER_JOB_ID, jobId);
+        job.set(CoreConstant.CORE_CONTAINER_JOB_SLEEP_INTERVAL, 200);
+        job.set(CoreConstant.CORE_CONTAINER_TASK_GROUP_CHANNEL, TASKS_PER_GROUP);
+        job.set(CoreConstant.CORE_CONTAINER_DISTRIBUTED_HEARTBEAT_INTERVAL, 200);
+        job.set(CoreConstant.CORE_CONTAINER_DISTRIBUTED_HEARTBEAT_TIMEOUT, 3000);
+        job.set(CoreConstant.CORE_CONTAINER_TASK_FAIL_OVER_MAX_RETRY_TIMES, 2);
+        job.set(CoreConstant.CORE_CONTAINER_TASK_FAIL_OVER_RETRY_INTERVAL_IN_MSEC, 0);
+        job.set(CoreConstant.CORE_CONTAINER_TASK_FAIL_OVER_MAX_WAIT_IN_MSEC, 1000);
+        // the plugins are on the classpath, the directory of their jars is empty
+        job.set("plugin.reader.counting.class", CountingReader.class.getName());
+        job.set("plugin.reader.counting.path", directory.toString());
+        job.set("plugin.writer.hanging.class", HangingWriter.class.getName());
+        job.set("plugin.writer.hanging.path", directory.toString());
+
+        List<Configuration> taskGroups = new ArrayList<>();
+        for (int taskGroupId = 0; taskGroupId < TASK_GROUPS; taskGroupId++) {
+            List<Configuration> tasks = new ArrayList<>();
+            for (int i = 0; i < TASKS_PER_GROUP; i++) {
+                Configuration task = Configuration.newDefault();
+                task.set(CoreConstant.TASK_ID, taskGroupId * TASKS_PER_GROUP + i);
+                task.set(CoreConstant.JOB_READER_NAME, "counting");
+                task.set(CoreConstant.JOB_READER_PARAMETER, Map.of("count", RECORDS_PER_TASK));
+                task.set(CoreConstant.JOB_WRITER_NAME, "hanging");
+                task.set(CoreConstant.JOB_WRITER_PARAMETER, Map.of("directory", directory.toString(), "taskId", HANGING_TASK_ID));
+                tasks.add(task);
+            }
+            Configuration taskGroup = job.clone();
+            taskGroup.set(CoreConstant.CORE_CONTAINER_TASK_GROUP_ID, taskGroupId);
+            taskGroup.set(CoreConstant.JOB_CONTENT, tasks);
+            taskGroups.add(taskGroup);
+        }
+
+        new DistributedScheduler(new DistributedJobContainerCommunicator(job)).schedule(taskGroups);
+        return LocalTGCommunicationManager.getJobCommunication(jobId);
+    }
+
+    private static void assertMerged(long jobId, Communication communication)
+    {
+        assertEquals(State.SUCCEEDED, communication.getState());
+        Map<Integer, Communication> tasks = LocalTGCommunicationManager.getTaskCommunicationMap(jobId);
+        assertEquals(TASK_GROUPS * TASKS_PER_GROUP, tasks.size());
+        tasks.values().forEach(task -> assertEquals(State.SUCCEEDED, task.getState()));
+        // the hanging task counts once, with the records of its second attempt
+        assertEquals((long) TASK_GROUPS * TASKS_PER_GROUP * RECORDS_PER_TASK,
+                communication.getLongCounter(CommunicationTool.READ_SUCCEED_RECORDS));
+    }
+
+    /*
+     * The pid of the worker whose writer hangs, once it hangs
+     */
+    private long awaitHangingWorker()
+    {
+        Path pid = directory.resolve(HangingWriter.PID_FILE);
+        try {
+            while (!Files.exists(pid)) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+            return Long.parseLong(Files.readString(pid).trim());
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static class CountingReader
+            extends Reader
+    {
+        public static class Task
+                extends Reader.Task
+        {
+            @Override
+            public void init()
+            {
+            }
+
+            @Override
+            public void destroy()
+            {
+            }
+
+            @Override
+            public void startRead(RecordSender recordSender)
+            {
+                int count = getPluginJobConf().getInt("count");
+                for (int i = 0; i < count; i++) {
+                    Record record = recordSender.createRecord();
+                    record.addColumn(new LongColumn(i));
+                    recordSender.sendToWriter(record);
+                }
+                recordSender.flush();
+            }
+        }
+    }
+
+    /**
+     * Writes nothing, the writer of the given task hangs before it receives any record the first
+     * time it runs and leaves the pid of its worker in the given directory.
+     */
+    public static class HangingWriter
+            extends Writer
+    {
+        static final String PID_FILE = "pid";
+
+        public static class Task
+                extends Writer.Task
+        {
+            @Override
+            public void init()
+            {
+            }
+
+            @Override
+            public void destroy()
+            {
+            }
+
+            @Override
+            public void startWrite(RecordReceiver lineReceiver)
+            {
+                Path directory = Path.of(getPluginJobConf().getString("directory"));
+                if (getTaskId() == getPluginJobConf().getInt("taskId") && hangsFirst(directory)) {
+                    try {
+                        TimeUnit.MINUTES.sleep(10);
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                while (lineReceiver.getFromReader() != null) {
+                    // drain
+                }
+            }
+
+            private static boolean hangsFirst(Path directory)
+            {
+                try {
+                    Files.createFile(directory.resolve("hung"));
+                    Path pid = directory.resolve(PID_FILE + ".tmp");
+                    Files.writeString(pid, String.valueOf(ProcessHandle.current().pid()));
+                    Files.move(pid, directory.resolve(PID_FILE), StandardCopyOption.ATOMIC_MOVE);
+                    return true;
+                }
+                catch (FileAlreadyExistsException e) {
+                    return false;
+                }
+                catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.core.transport.channel;
+
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.element.StringColumn;
+import com.wgzhao.addax.core.statistics.communication.Communication;
+import com.wgzhao.addax.core.statistics.communication.CommunicationTool;
+import com.wgzhao.addax.core.transport.channel.memory.MemoryChannel;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import com.wgzhao.addax.core.util.Configuration;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.wgzhao.addax.core.util.container.CoreConstant.CORE_CONTAINER_TASK_GROUP_ID;
+import static com.wgzhao.addax.core.util.container.CoreConstant.CORE_TRANSPORT_CHANNEL_SPEED_BYTE;
+import static com.wgzhao.addax.core.util.container.CoreConstant.CORE_TRANSPORT_CHANNEL_SPEED_RECORD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChannelTest
+{
+    @Test
+    void eachSideRefreshesTheGaugesOnItsOwn()
+    {
+        Communication communication = new Communication();
+        Channel channel = new MemoryChannel(configuration());
+        channel.setCommunication(communication);
+
+        channel.push(record("a"));
+        channel.push(record("b"));
+        assertEquals(1L, communication.getLongCounter(CommunicationTool.CHANNEL_QUEUE_RECORDS));
+
+        // the first pull refreshes the gauges, whatever the count of pushes
+        channel.pull();
+        assertEquals(1L, communication.getLongCounter(CommunicationTool.CHANNEL_QUEUE_RECORDS));
+        assertTrue(communication.getLongCounter(CommunicationTool.CHANNEL_MEMORY_BYTES) > 0);
+
+        List<Record> batch = new ArrayList<>();
+        channel.pullAll(batch);
+        assertEquals(0L, communication.getLongCounter(CommunicationTool.CHANNEL_QUEUE_RECORDS));
+        assertEquals(0L, communication.getLongCounter(CommunicationTool.CHANNEL_MEMORY_BYTES));
+    }
+
+    @Test
+    void concurrentPushAndPullKeepTheCounts()
+            throws Exception
+    {
+        Communication communication = new Communication();
+        Channel channel = new MemoryChannel(configuration());
+        channel.setCommunication(communication);
+        int records = 20_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < records; i++) {
+                    channel.push(record("r" + i));
+                }
+            });
+            Future<Integer> reader = executor.submit(() -> {
+                for (int i = 0; i < records; i++) {
+                    channel.pull();
+                }
+                return records;
+            });
+            writer.get();
+            assertEquals(records, reader.get());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        assertEquals((long) records, communication.getLongCounter(CommunicationTool.READ_SUCCEED_RECORDS));
+        assertEquals((long) records, communication.getLongCounter(CommunicationTool.WRITE_RECEIVED_RECORDS));
+        assertTrue(channel.isEmpty());
+    }
+
+    @Test
+    void channelsWhichDoNotTrackMemoryReportZero()
+    {
+        Communication communication = new Communication();
+        Channel channel = new DequeChannel(configuration());
+        channel.setCommunication(communication);
+
+        channel.push(record("a"));
+        assertEquals(0L, channel.getMemoryBytes());
+        assertEquals(1L, communication.getLongCounter(CommunicationTool.CHANNEL_QUEUE_RECORDS));
+        assertEquals("a", channel.pull().getColumn(0).asString());
+    }
+
+    private static Configuration configuration()
+    {
+        Configuration configuration = Configuration.newDefault();
+        configuration.set(CORE_CONTAINER_TASK_GROUP_ID, 0);
+        configuration.set(CORE_TRANSPORT_CHANNEL_SPEED_BYTE, -1);
+        configuration.set(CORE_TRANSPORT_CHANNEL_SPEED_RECORD, -1);
+        return configuration;
+    }
+
+    private static Record record(String value)
+    {
+        Record record = new DefaultRecord();
+        record.addColumn(new StringColumn(value));
+        return record;
+    }
+
+    /*
+     * A channel of another implementation, which keeps the default memory estimate
+     */
+    private static final class DequeChannel
+            extends Channel
+    {
+        private final Deque<Record> deque = new ArrayDeque<>();
+
+        DequeChannel(Configuration configuration)
+        {
+            super(configuration);
+        }
+
+        @Override
+        protected void doPush(Record r)
+        {
+            deque.add(r);
+        }
+
+        @Override
+        protected void doPushAll(Collection<Record> rs)
+        {
+            deque.addAll(rs);
+        }
+
+        @Override
+        protected Record doPull()
+        {
+            return deque.poll();
+        }
+
+        @Override
+        protected void doPullAll(Collection<Record> rs)
+        {
+            rs.addAll(deque);
+            deque.clear();
+        }
+
+        @Override
+        public int size()
+        {
+            return deque.size();
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return deque.isEmpty();
+        }
+
+        @Override
+        public void clear()
+        {
+            deque.clear();
+        }
+    }
+}
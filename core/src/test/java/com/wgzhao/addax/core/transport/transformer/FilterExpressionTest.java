@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.core.transport.transformer;
+
+import com.wgzhao.addax.core.element.DoubleColumn;
+import com.wgzhao.addax.core.element.LongColumn;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.element.StringColumn;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FilterExpressionTest
+{
+    @Test
+    void singleCondition()
+    {
+        FilterExpression expression = FilterExpression.parse(1, ">", "100");
+
+        assertTrue(expression.matches(record("a", 101L, 0.0)));
+        assertFalse(expression.matches(record("a", 100L, 0.0)));
+        assertFalse(expression.matches(record("a", null, 0.0)));
+    }
+
+    @Test
+    void andBindsTighterThanOr()
+    {
+        // col1 > 100 and col0 like tmp_.*  or  col2 <= 1.5
+        FilterExpression expression = FilterExpression.parse(
+                1, ">", "100", "and", "0", "like", "tmp_.*", "or", "2", "<=", "1.5");
+
+        assertEquals(2, expression.getGroups().length);
+        assertEquals(2, expression.getGroups()[0].length);
+        assertTrue(expression.matches(record("tmp_1", 200L, 9.0)));
+        assertFalse(expression.matches(record("keep", 200L, 9.0)));
+        assertFalse(expression.matches(record("tmp_1", 50L, 9.0)));
+        assertTrue(expression.matches(record("keep", 50L, 1.5)));
+    }
+
+    @Test
+    void nullValuesMatchOnlyTheNullLiteral()
+    {
+        assertTrue(FilterExpression.parse(0, "=", "null").matches(record(null, 1L, 0.0)));
+        assertFalse(FilterExpression.parse(0, "!=", "null").matches(record(null, 1L, 0.0)));
+        assertTrue(FilterExpression.parse(0, "!=", "null").matches(record("x", 1L, 0.0)));
+        // a null value is not like any pattern
+        assertTrue(FilterExpression.parse(0, "not like", "x").matches(record(null, 1L, 0.0)));
+    }
+
+    @Test
+    void columnIndexMayBeAString()
+    {
+        assertTrue(FilterExpression.parse(" 1 ", "==", "7").matches(record("a", 7L, 0.0)));
+    }
+
+    @Test
+    void invalidParametersAreRejected()
+    {
+        assertThrows(IllegalArgumentException.class, () -> FilterExpression.parse(1, ">"));
+        assertThrows(IllegalArgumentException.class, () -> FilterExpression.parse(1, ">", "1", "and", "2"));
+        assertThrows(IllegalArgumentException.class, () -> FilterExpression.parse(1, ">", "1", "xor", "2", "<", "3"));
+        assertThrows(IllegalArgumentException.class, () -> FilterExpression.parse(1, "~", "1"));
+        assertThrows(IllegalArgumentException.class, () -> FilterExpression.parse(1, ">", ""));
+    }
+
+    private static Record record(String text, Long number, double decimal)
+    {
+        Record record = new DefaultRecord();
+        record.addColumn(new StringColumn(text));
+        record.addColumn(new LongColumn(number));
+        record.addColumn(new DoubleColumn(decimal));
+        return record;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.core.transport.transformer;
+
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.element.StringColumn;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class GroovyTransformerTest
+{
+    private static final String UPPER = "record.setColumn(0, new StringColumn(record.getColumn(0).asString().toUpperCase())); return record;";
+
+    @Test
+    void evaluateReusesTheCompiledScript()
+    {
+        GroovyTransformer transformer = new GroovyTransformer();
+        Object[] paras = {UPPER, null, false, false};
+
+        assertEquals("ABC", transformer.evaluate(record("abc"), paras).getColumn(0).asString());
+        CompiledTransformer first = transformer.compiled(paras);
+        assertEquals("DEF", transformer.evaluate(record("def"), paras).getColumn(0).asString());
+        assertSame(first, transformer.compiled(paras));
+    }
+
+    @Test
+    void staticCompilationIsOptIn()
+    {
+        GroovyTransformer transformer = new GroovyTransformer();
+        String code = "// static or not\n" + UPPER;
+        int before = GroovyScriptCache.size();
+
+        assertEquals("ABC", transformer.compile(code, null, false, false).evaluate(record("abc")).getColumn(0).asString());
+        assertEquals("ABC", transformer.compile(code, null, false, true).evaluate(record("abc")).getColumn(0).asString());
+        // the dynamic and the static classes are cached apart
+        assertEquals(before + 2, GroovyScriptCache.size());
+    }
+
+    @Test
+    void dynamicScriptsStillRunWhenAskedToCompileStatically()
+    {
+        // the elements of an Object[] are Objects to the type checker, asString only resolves at runtime
+        String code = "Object[] columns = [record.getColumn(0)] as Object[]; if (columns[0].asString() == 'drop') { return null }; return record;";
+        CompiledTransformer compiled = new GroovyTransformer().compile(code, null, false, true);
+
+        assertNull(compiled.evaluate(record("drop")));
+        assertEquals("keep", compiled.evaluate(record("keep")).getColumn(0).asString());
+    }
+
+    @Test
+    void batchScripts()
+    {
+        String code = "return records.findAll { it.getColumn(0).asString() != 'b' };";
+        CompiledTransformer compiled = new GroovyTransformer().compile(code, List.of(), true, false);
+
+        List<Record> result = ((BatchCompiledTransformer) compiled).evaluateBatch(List.of(record("a"), record("b"), record("c")));
+        assertEquals(List.of("a", "c"), result.stream().map(r -> r.getColumn(0).asString()).toList());
+    }
+
+    private static Record record(String value)
+    {
+        Record record = new DefaultRecord();
+        record.addColumn(new StringColumn(value));
+        return record;
+    }
+}
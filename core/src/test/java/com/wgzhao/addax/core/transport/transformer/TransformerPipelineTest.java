@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.core.transport.transformer;
+
+import com.wgzhao.addax.core.element.LongColumn;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.element.StringColumn;
+import com.wgzhao.addax.core.exception.AddaxException;
+import com.wgzhao.addax.core.plugin.TaskPluginCollector;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransformerPipelineTest
+{
+    private final DirtyCollector collector = new DirtyCollector();
+
+    @Test
+    void recordsRunThroughTheChainInOrder()
+    {
+        TransformerPipeline pipeline = TransformerPipeline.compile(List.of(
+                execution(new SubstrTransformer(), 0, "0", "3"),
+                execution(new FilterTransformer(), 1, ">", "100")), collector);
+
+        Record kept = pipeline.evaluate(record("abcdef", 5));
+        assertEquals("abc", kept.getColumn(0).asString());
+        assertNull(pipeline.evaluate(record("ghijkl", 500)));
+
+        assertEquals(1, pipeline.getSuccessRecords());
+        assertEquals(1, pipeline.getFilterRecords());
+        assertEquals(0, pipeline.getFailedRecords());
+        assertEquals(List.of("dx_substr", "dx_filter"), new ArrayList<>(pipeline.getUsedTimeByTransformer().keySet()));
+    }
+
+    @Test
+    void failedRecordsAreReportedAsDirty()
+    {
+        TransformerPipeline pipeline = TransformerPipeline.compile(List.of(
+                execution(new MapTransformer(), 0, "+", "1")), collector);
+
+        assertNull(pipeline.evaluate(record("not a number", 1)));
+        assertEquals("2", pipeline.evaluate(record("1", 1)).getColumn(0).asString());
+
+        assertEquals(1, pipeline.getFailedRecords());
+        assertEquals(1, collector.dirty.size());
+        assertEquals("not a number", collector.dirty.get(0).getColumn(0).asString());
+    }
+
+    @Test
+    void batchKeepsThePassingRecordsInOrder()
+    {
+        TransformerPipeline pipeline = TransformerPipeline.compile(List.of(
+                execution(new FilterTransformer(), 1, ">", "2"),
+                execution(new PadTransformer(), 0, "r", "3", "x")), collector);
+
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            records.add(record("r" + i, i));
+        }
+        pipeline.evaluateBatch(records);
+
+        assertEquals(3, records.size());
+        assertEquals(List.of("r0x", "r1x", "r2x"), records.stream().map(r -> r.getColumn(0).asString()).toList());
+        assertEquals(3, pipeline.getSuccessRecords());
+        assertEquals(2, pipeline.getFilterRecords());
+    }
+
+    @Test
+    void columnIndexIsCheckedOnTheFirstRecord()
+    {
+        TransformerPipeline pipeline = TransformerPipeline.compile(List.of(
+                execution(new SubstrTransformer(), 5, "0", "1")), collector);
+
+        assertThrows(AddaxException.class, () -> pipeline.evaluate(record("abc", 1)));
+    }
+
+    @Test
+    void noTransformerMeansNoPipeline()
+    {
+        assertNull(TransformerPipeline.compile(List.of(), collector));
+    }
+
+    @Test
+    void evaluateCompilesOncePerParameterSet()
+    {
+        CountingTransformer transformer = new CountingTransformer();
+        Record record = record("a", 1);
+        for (int i = 0; i < 10; i++) {
+            assertSame(record, transformer.evaluate(record, 0, "x"));
+            transformer.evaluate(record, new Object[] {0, "y"});
+        }
+        assertEquals(2, transformer.compilations.get());
+    }
+
+    private static TransformerExecution execution(Transformer transformer, int columnIndex, String... paras)
+    {
+        TransformerInfo info = new TransformerInfo();
+        info.setTransformer(new ComplexTransformerProxy(transformer));
+        info.setIsNative(true);
+        TransformerExecutionParas executionParas = new TransformerExecutionParas();
+        executionParas.setColumnIndex(columnIndex);
+        executionParas.setParas(paras);
+        TransformerExecution execution = new TransformerExecution(info, executionParas);
+        execution.genFinalParas();
+        return execution;
+    }
+
+    private static Record record(String text, long number)
+    {
+        Record record = new DefaultRecord();
+        record.addColumn(new StringColumn(text));
+        record.addColumn(new LongColumn(number));
+        return record;
+    }
+
+    private static final class CountingTransformer
+            extends Transformer
+    {
+        private final AtomicInteger compilations = new AtomicInteger();
+
+        @Override
+        public Record evaluate(Record record, Object... paras)
+        {
+            return compiled(paras).evaluate(record);
+        }
+
+        @Override
+        public CompiledTransformer compile(Object... paras)
+        {
+            compilations.incrementAndGet();
+            return record -> record;
+        }
+    }
+
+    private static final class DirtyCollector
+            extends TaskPluginCollector
+    {
+        private final List<Record> dirty = new ArrayList<>();
+
+        @Override
+        public void collectDirtyRecord(Record dirtyRecord, Throwable t, String errorMessage)
+        {
+            dirty.add(dirtyRecord);
+        }
+
+        @Override
+        public void collectMessage(String key, String value) {}
+    }
+}
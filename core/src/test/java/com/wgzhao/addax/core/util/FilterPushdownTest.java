@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FilterPushdownTest
+{
+    private static Configuration job(String columns)
+    {
+        return Configuration.from("{\"job\": {\"content\": {"
+                + "\"reader\": {\"name\": \"mysqlreader\", \"parameter\": {"
+                + "\"connection\": {\"jdbcUrl\": \"jdbc:mysql://127.0.0.1/db\", \"table\": [\"t\"]},"
+                + "\"column\": " + columns + "}},"
+                + "\"transformer\": [{\"name\": \"dx_filter\", \"parameter\": "
+                + "{\"columnIndex\": 1, \"paras\": [\">\", \"100\"], \"pushdown\": true}}]}}}");
+    }
+
+    @Test
+    void plainColumnIsPushed()
+    {
+        Configuration configuration = job("[\"id\", \"t.amount\"]");
+
+        FilterPushdown.apply(configuration);
+
+        assertEquals("((t.amount IS NULL OR t.amount <= 100))", configuration.getString("job.content.reader.parameter.where"));
+    }
+
+    @Test
+    void expressionColumnIsNotPushed()
+    {
+        for (String column : new String[] {"\"amount * 2\"", "\"1) OR (1=1\"", "\"`amount`\"", "\"max(amount)\""}) {
+            Configuration configuration = job("[\"id\", " + column + "]");
+
+            FilterPushdown.apply(configuration);
+
+            assertNull(configuration.getString("job.content.reader.parameter.where"), column);
+        }
+    }
+}
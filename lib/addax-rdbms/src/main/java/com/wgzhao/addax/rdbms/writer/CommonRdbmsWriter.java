@@ -109,6 +109,26 @@ public class CommonRdbmsWriter
             privilegeValid(originalConfig, dataBaseType);
         }
 
+        /**
+         * Whether a resumed job may write the splits which were not finished. A split may have been
+         * written in part before the failure, so only the write modes which upsert write it again
+         * without duplicating its rows.
+         *
+         * @param originalConfig the original configuration holding the write mode
+         * @return true if the write mode is replace or update
+         * @throws AddaxException CONFIG_ERROR if the write mode inserts
+         */
+        public boolean supportResume(Configuration originalConfig)
+        {
+            String writeMode = originalConfig.getString(Key.WRITE_MODE, "insert").trim().toLowerCase();
+            if (writeMode.startsWith("replace") || writeMode.startsWith("update")) {
+                return true;
+            }
+            throw AddaxException.asAddaxException(CONFIG_ERROR, "The job can not resume with the writeMode '" + writeMode
+                    + "', the rows of a split written in part before the failure would be inserted again."
+                    + " Use the replace or update writeMode, or remove the checkpoint to run the job from the start.");
+        }
+
         /**
          * Validate pre and post SQL syntax.
          *
@@ -177,6 +197,18 @@ public class CommonRdbmsWriter
          * @param originalConfig the original job configuration to prepare
          */
         public void prepare(Configuration originalConfig)
+        {
+            prepare(originalConfig, false);
+        }
+
+        /**
+         * Prepare job level resources, the pre SQL is skipped when the job resumes from its
+         * checkpoint, since it would undo the tasks finished by the earlier runs.
+         *
+         * @param originalConfig the original job configuration to prepare
+         * @param resuming whether the job resumes from its checkpoint
+         */
+        public void prepare(Configuration originalConfig, boolean resuming)
         {
             int tableNumber = originalConfig.getInt(Key.TABLE_NUMBER);
             if (tableNumber == 1) {
@@ -198,11 +230,16 @@ public class CommonRdbmsWriter
                 originalConfig.remove(Key.CONNECTION);
                 if (!renderedPreSqls.isEmpty()) {
                     originalConfig.remove(Key.PRE_SQL);
-                    Connection conn = DBUtil.getConnection(dataBaseType, jdbcUrl, username, password);
-                    LOG.info("Begin to execute preSqls:[{}]. context info:{}.", StringUtils.join(renderedPreSqls, ";"), jdbcUrl);
+                    if (resuming) {
+                        LOG.info("The job resumes from its checkpoint, skip the preSqls:[{}].", StringUtils.join(renderedPreSqls, ";"));
+                    }
+                    else {
+                        Connection conn = DBUtil.getConnection(dataBaseType, jdbcUrl, username, password);
+                        LOG.info("Begin to execute preSqls:[{}]. context info:{}.", StringUtils.join(renderedPreSqls, ";"), jdbcUrl);
 
-                    WriterUtil.executeSqls(conn, renderedPreSqls);
-                    DBUtil.closeDBResources(null, null, conn);
+                        WriterUtil.executeSqls(conn, renderedPreSqls);
+                        DBUtil.closeDBResources(null, null, conn);
+                    }
                 }
             }
 
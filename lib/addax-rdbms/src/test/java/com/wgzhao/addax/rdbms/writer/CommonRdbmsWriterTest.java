@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.rdbms.writer;
+
+import com.wgzhao.addax.core.exception.AddaxException;
+import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.rdbms.util.DataBaseType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommonRdbmsWriterTest
+{
+    private final CommonRdbmsWriter.Job job = new CommonRdbmsWriter.Job(DataBaseType.MySql);
+
+    @Test
+    void upsertWriteModesResume()
+    {
+        assertTrue(job.supportResume(Configuration.from("{\"writeMode\": \"replace\"}")));
+        assertTrue(job.supportResume(Configuration.from("{\"writeMode\": \"update\"}")));
+        assertTrue(job.supportResume(Configuration.from("{\"writeMode\": \" UPDATE (id)\"}")));
+    }
+
+    @Test
+    void insertWriteModeRefusesToResume()
+    {
+        AddaxException e = assertThrows(AddaxException.class, () -> job.supportResume(Configuration.from("{\"writeMode\": \"insert\"}")));
+        assertTrue(e.getMessage().contains("'insert'"));
+        // insert is the default
+        assertThrows(AddaxException.class, () -> job.supportResume(Configuration.from("{}")));
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.plugin.reader.dbfreader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.JulianFields;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A fixed-width reader of dBase/FoxPro table files.
+ * <p>
+ * The records of a DBF file all have the same length and follow the header, so record N starts at
+ * {@code headerLength + N * recordLength}. The records of a range are read a window at a time into
+ * one buffer, and only the fields asked for are decoded, straight from their bytes. Memo fields refer
+ * to a separate memo file, they are read as null like before.
+ */
+final class DbfFile
+        implements Closeable
+{
+    // the size of the windows of the file read at a time, rounded down to whole records
+    private static final int WINDOW_SIZE = 1024 * 1024;
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final byte DELETED = '*';
+    private static final byte END_OF_FILE = 0x1A;
+
+    private final String path;
+    private final FileChannel channel;
+    private final Charset charset;
+    private final boolean foxPro;
+    private final int headerLength;
+    private final int recordLength;
+    private final long recordCount;
+    private final List<Field> fields;
+
+    /**
+     * A field of the table, {@code offset} is the position of its bytes in a record.
+     */
+    record Field(String name, char type, int length, int decimalCount, int offset) {}
+
+    DbfFile(String path, Charset charset)
+            throws IOException
+    {
+        this.path = path;
+        this.charset = charset;
+        this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        try {
+            ByteBuffer head = read(0, 32);
+            int version = head.get(0) & 0xff;
+            this.foxPro = version == 0x30 || version == 0x31 || version == 0x32 || version == 0xf5;
+            this.headerLength = head.getShort(8) & 0xffff;
+            this.recordLength = head.getShort(10) & 0xffff;
+            if (recordLength == 0 || headerLength < 32) {
+                throw new IOException("Not a DBF file: " + path);
+            }
+            // the count of the header is not always updated, trust the size of the file as well
+            long stored = (channel.size() - headerLength) / recordLength;
+            this.recordCount = Math.max(0, Math.min(head.getInt(4) & 0xffffffffL, stored));
+            this.fields = readFields((version & 0x07) == 4);
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private ByteBuffer read(long position, int length)
+            throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(buffer, position);
+        return buffer;
+    }
+
+    // fill the buffer, from 0 up to its limit, with the bytes at the position of the file, then flip it
+    private void readFully(ByteBuffer buffer, long position)
+            throws IOException
+    {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the DBF file: " + path);
+            }
+        }
+        buffer.flip();
+    }
+
+    /*
+     * The field descriptors follow the first 32 bytes (68 for dBase 7) of the header, until a 0x0D
+     */
+    private List<Field> readFields(boolean dBase7)
+            throws IOException
+    {
+        int start = dBase7 ? 68 : 32;
+        int size = dBase7 ? 48 : 32;
+        int nameLength = dBase7 ? 32 : 11;
+        ByteBuffer header = read(0, headerLength);
+        List<Field> result = new ArrayList<>();
+        // the first byte of a record is the deletion flag
+        int offset = 1;
+        for (int pos = start; pos + size <= headerLength && header.get(pos) != 0x0D; pos += size) {
+            int nameEnd = 0;
+            while (nameEnd < nameLength && header.get(pos + nameEnd) != 0) {
+                nameEnd++;
+            }
+            byte[] name = new byte[nameEnd];
+            header.get(pos, name);
+            char type = (char) header.get(pos + nameLength);
+            int length = header.get(pos + nameLength + 5) & 0xff;
+            int decimalCount = header.get(pos + nameLength + 6) & 0xff;
+            if (dBase7) {
+                length = header.get(pos + 33) & 0xff;
+                decimalCount = header.get(pos + 34) & 0xff;
+            }
+            else if (type == 'C') {
+                // Clipper and FoxPro keep the high byte of long character fields in the decimal count
+                length |= decimalCount << 8;
+                decimalCount = 0;
+            }
+            // the hidden system fields of FoxPro, such as _NullFlags, take room in the record only
+            boolean system = foxPro && (header.get(pos + 18) & 0x01) != 0;
+            if (!system) {
+                result.add(new Field(new String(name, charset).trim(), type, length, decimalCount, offset));
+            }
+            offset += length;
+        }
+        if (offset > recordLength) {
+            throw new IOException("The fields of the DBF file " + path + " are longer than its records");
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    List<Field> getFields()
+    {
+        return fields;
+    }
+
+    long getRecordCount()
+    {
+        return recordCount;
+    }
+
+    int getRecordLength()
+    {
+        return recordLength;
+    }
+
+    /**
+     * Read the records of a range, skipping the deleted ones.
+     *
+     * @param start the first record, from 0
+     * @param end the record after the last one, capped to the count of records
+     * @param projection the indexes of the fields to decode, the others are left null
+     * @param consumer receives the values of a record, by field index; the array is reused
+     * @return the number of records read
+     * @throws IOException if the file can not be read
+     */
+    long read(long start, long end, int[] projection, Consumer<String[]> consumer)
+            throws IOException
+    {
+        end = Math.min(end, recordCount);
+        String[] values = new String[fields.size()];
+        byte[] scratch = new byte[maxLength(projection)];
+        long recordsPerWindow = Math.max(1, WINDOW_SIZE / recordLength);
+        // a heap buffer for the whole range, the memory of a mapped window would only be released by the GC
+        ByteBuffer window = ByteBuffer.allocate((int) (Math.min(recordsPerWindow, Math.max(0, end - start)) * recordLength))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        long count = 0;
+        for (long first = start; first < end; first += recordsPerWindow) {
+            long records = Math.min(recordsPerWindow, end - first);
+            window.clear().limit((int) (records * recordLength));
+            readFully(window, headerLength + first * recordLength);
+            for (int base = 0; base < window.limit(); base += recordLength) {
+                byte flag = window.get(base);
+                if (flag == END_OF_FILE) {
+                    return count;
+                }
+                if (flag == DELETED) {
+                    continue;
+                }
+                for (int index : projection) {
+                    values[index] = decode(window, base, fields.get(index), scratch);
+                }
+                consumer.accept(values);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // the size of the buffer the text of the fields projected is copied to
+    private int maxLength(int[] projection)
+    {
+        int max = 0;
+        for (int index : projection) {
+            max = Math.max(max, fields.get(index).length());
+        }
+        return max;
+    }
+
+    private String decode(ByteBuffer record, int base, Field field, byte[] scratch)
+    {
+        int pos = base + field.offset();
+        int length = field.length();
+        switch (field.type()) {
+            case 'C':
+            case 'V':
+                // a blank text is empty, not null
+                String text = text(record, pos, length, scratch, charset);
+                return text == null ? "" : text;
+            case 'N':
+            case 'F':
+                String number = text(record, pos, length, scratch, StandardCharsets.ISO_8859_1);
+                // an overflowed value is filled with '*'
+                return number == null || number.charAt(0) == '*' || number.charAt(0) == '?' ? null : number;
+            case 'D':
+                return date(record, pos);
+            case 'L':
+                return logical(record.get(pos));
+            case 'I':
+            case '+':
+                return Integer.toString(record.getInt(pos));
+            case 'Y':
+                return BigDecimal.valueOf(record.getLong(pos), 4).toPlainString();
+            case 'B':
+                // a double in FoxPro, a memo block number in dBase
+                return length == 8 ? Double.toString(record.getDouble(pos)) : null;
+            case 'O':
+                return Double.toString(Double.longBitsToDouble(Long.reverseBytes(record.getLong(pos))));
+            case 'T':
+            case '@':
+                return timestamp(record.getInt(pos), record.getInt(pos + 4));
+            default:
+                // the memo, general and picture fields are stored in the memo file
+                return null;
+        }
+    }
+
+    /*
+     * The text of a field without its padding of spaces and zeros, null if it is empty
+     */
+    private static String text(ByteBuffer record, int pos, int length, byte[] scratch, Charset charset)
+    {
+        int from = pos;
+        int to = pos + length;
+        while (to > from && (record.get(to - 1) == ' ' || record.get(to - 1) == 0)) {
+            to--;
+        }
+        if (charset == StandardCharsets.ISO_8859_1) {
+            // numbers are right aligned
+            while (from < to && record.get(from) == ' ') {
+                from++;
+            }
+        }
+        if (from == to) {
+            return null;
+        }
+        record.get(from, scratch, 0, to - from);
+        return new String(scratch, 0, to - from, charset);
+    }
+
+    /*
+     * YYYYMMDD, as yyyy-MM-dd, the format the dates were read in before
+     */
+    private static String date(ByteBuffer record, int pos)
+    {
+        char[] chars = new char[10];
+        int digits = 0;
+        for (int i = 0, j = 0; i < 8; i++, j++) {
+            byte b = record.get(pos + i);
+            if (b < '0' || b > '9') {
+                return null;
+            }
+            if (i == 4 || i == 6) {
+                chars[j++] = '-';
+            }
+            chars[j] = (char) b;
+            digits += b - '0';
+        }
+        return digits == 0 ? null : new String(chars);
+    }
+
+    private static String logical(byte value)
+    {
+        return switch (value) {
+            case 'T', 't', 'Y', 'y' -> "true";
+            case 'F', 'f', 'N', 'n' -> "false";
+            default -> null;
+        };
+    }
+
+    /*
+     * The julian day and the milliseconds of the day
+     */
+    private static String timestamp(int julianDay, int millis)
+    {
+        if (julianDay == 0) {
+            return null;
+        }
+        LocalDate date = LocalDate.MIN.with(JulianFields.JULIAN_DAY, julianDay);
+        return format(date.atStartOfDay().plusNanos(millis * 1_000_000L));
+    }
+
+    private static String format(LocalDateTime dateTime)
+    {
+        return TIMESTAMP_FORMAT.format(dateTime);
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        channel.close();
+    }
+}
@@ -19,9 +19,6 @@
 
 package com.wgzhao.addax.plugin.reader.dbfreader;
 
-import com.linuxense.javadbf.DBFDataType;
-import com.linuxense.javadbf.DBFReader;
-import com.linuxense.javadbf.DBFRow;
 import com.wgzhao.addax.core.base.Key;
 import com.wgzhao.addax.core.element.ColumnEntry;
 import com.wgzhao.addax.core.exception.AddaxException;
@@ -34,13 +31,14 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.nio.charset.Charset;
-import java.text.SimpleDateFormat;
+import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.wgzhao.addax.core.spi.ErrorCode.CONFIG_ERROR;
+import static com.wgzhao.addax.core.spi.ErrorCode.IO_ERROR;
 import static com.wgzhao.addax.core.spi.ErrorCode.REQUIRED_VALUE;
 import static com.wgzhao.addax.core.spi.ErrorCode.RUNTIME_ERROR;
 
@@ -50,6 +48,13 @@ import static com.wgzhao.addax.core.spi.ErrorCode.RUNTIME_ERROR;
 public class DbfReader
         extends Reader
 {
+    // the range of records of the file of a task, the end excluded
+    private static final String START_RECORD = "startRecord";
+    private static final String END_RECORD = "endRecord";
+
+    // a file is split in ranges of at least this size
+    private static final long MIN_SPLIT_SIZE = 64L * 1024 * 1024;
+
     public static class Job
             extends Reader.Job
     {
@@ -109,23 +114,53 @@ public class DbfReader
             //
         }
 
+        /*
+         * One task per file, and a large file is split in ranges of records,
+         * so that the files together make about adviceNumber tasks
+         */
         @Override
         public List<Configuration> split(int adviceNumber)
         {
             LOG.debug("split() begin...");
             List<Configuration> readerSplitConfigs = new ArrayList<>();
 
-            int splitNumber = this.sourceFiles.size();
-            if (0 == splitNumber) {
+            if (this.sourceFiles.isEmpty()) {
                 throw AddaxException.asAddaxException(
                         RUNTIME_ERROR, "can not find any files to read in " + this.originConfig.getString(Key.PATH));
             }
 
-            List<List<String>> splitSourceFiles = FileHelper.splitSourceFiles(this.sourceFiles, splitNumber);
-            for (List<String> files : splitSourceFiles) {
-                Configuration splitConfig = this.originConfig.clone();
-                splitConfig.set(Key.SOURCE_FILES, files);
-                readerSplitConfigs.add(splitConfig);
+            Charset charset = Charset.forName(this.originConfig.getString(Key.ENCODING));
+            long[] recordCounts = new long[sourceFiles.size()];
+            int[] recordLengths = new int[sourceFiles.size()];
+            long totalSize = 0;
+            for (int i = 0; i < sourceFiles.size(); i++) {
+                try (DbfFile dbf = new DbfFile(sourceFiles.get(i), charset)) {
+                    recordCounts[i] = dbf.getRecordCount();
+                    recordLengths[i] = dbf.getRecordLength();
+                    totalSize += recordCounts[i] * recordLengths[i];
+                }
+                catch (IOException e) {
+                    // read as a whole, the task reports the error
+                    LOG.warn("Failed to read the header of [{}]: {}", sourceFiles.get(i), e.getMessage());
+                    recordCounts[i] = -1;
+                }
+            }
+            long splitSize = Math.max(MIN_SPLIT_SIZE, totalSize / Math.max(1, adviceNumber));
+
+            for (int i = 0; i < sourceFiles.size(); i++) {
+                long records = recordCounts[i];
+                int ranges = records <= 0 ? 1 : (int) Math.max(1, (records * recordLengths[i] + splitSize - 1) / splitSize);
+                long recordsPerRange = ranges == 1 ? Long.MAX_VALUE : (records + ranges - 1) / ranges;
+                for (int r = 0; r < ranges; r++) {
+                    Configuration splitConfig = this.originConfig.clone();
+                    splitConfig.set(Key.SOURCE_FILES, List.of(sourceFiles.get(i)));
+                    splitConfig.set(START_RECORD, r * (ranges == 1 ? 0 : recordsPerRange));
+                    splitConfig.set(END_RECORD, r == ranges - 1 ? Long.MAX_VALUE : (r + 1) * recordsPerRange);
+                    readerSplitConfigs.add(splitConfig);
+                }
+                if (ranges > 1) {
+                    LOG.info("Split [{}] of {} records into {} ranges", sourceFiles.get(i), records, ranges);
+                }
             }
             LOG.debug("split() ok and end...");
             return readerSplitConfigs;
@@ -139,12 +174,16 @@ public class DbfReader
 
         private Configuration readerSliceConfig;
         private List<String> sourceFiles;
+        private long startRecord;
+        private long endRecord;
 
         @Override
         public void init()
         {
             this.readerSliceConfig = this.getPluginJobConf();
             this.sourceFiles = this.readerSliceConfig.getList(Key.SOURCE_FILES, String.class);
+            this.startRecord = this.readerSliceConfig.getLong(START_RECORD, 0L);
+            this.endRecord = this.readerSliceConfig.getLong(END_RECORD, Long.MAX_VALUE);
         }
 
         @Override
@@ -169,118 +208,98 @@ public class DbfReader
         public void startRead(RecordSender recordSender)
         {
             LOG.debug("begin reading dbf files...");
-            String encode = readerSliceConfig.getString(Key.ENCODING);
+            Charset charset = Charset.forName(readerSliceConfig.getString(Key.ENCODING));
             String nullFormat = readerSliceConfig.getString(Key.NULL_FORMAT);
-            List<ColumnEntry> column = StorageReaderUtil.getListColumnEntry(readerSliceConfig, Key.COLUMN);
-            if (column == null || column.isEmpty()) {
-                // get column description from dbf file
-                column = getColumnInfo(this.sourceFiles.get(0), encode);
-            }
-            if (column == null) {
-                throw AddaxException.asAddaxException(
-                        RUNTIME_ERROR, "can not retrieve the field information from " + this.sourceFiles.get(0));
-            }
-            int colNum = column.size();
-            DBFRow row;
+            List<ColumnEntry> configured = StorageReaderUtil.getListColumnEntry(readerSliceConfig, Key.COLUMN);
             for (String fileName : this.sourceFiles) {
                 if (StringUtils.isBlank(fileName)) {
                     LOG.warn("source file name is blank, continue...");
                     continue;
                 }
                 LOG.info("begin reading file : [{}]", fileName);
-                try (DBFReader reader = new DBFReader(new FileInputStream(fileName), Charset.forName(encode))) {
-                    while ((row = reader.nextRow()) != null) {
-                        String[] sourceLine = new String[colNum];
-                        for (int i = 0; i < colNum; i++) {
-                            // constant value ?
-                            if (column.get(i) != null && column.get(i).getValue() != null) {
-                                sourceLine[i] = column.get(i).getValue();
-                            }
-                            else if (row.getString(i) != null && "date".equalsIgnoreCase(column.get(i).getType())) {
-                                // DBase's date type does not include time part
-                                sourceLine[i] = new SimpleDateFormat("yyyy-MM-dd").format(row.getDate(i));
-                            }
-                            else {
-                                sourceLine[i] = row.getString(i);
-                            }
-                        }
-                        StorageReaderUtil.transportOneRecord(recordSender, column, sourceLine, nullFormat, this.getTaskPluginCollector());
-                    }
+                try (DbfFile dbf = new DbfFile(fileName, charset)) {
+                    // get column description from dbf file
+                    List<ColumnEntry> column = configured == null || configured.isEmpty() ? getColumnInfo(dbf) : configured;
+                    int[] projection = getProjection(column, dbf, fileName);
+                    long count = dbf.read(startRecord, endRecord, projection, values ->
+                            StorageReaderUtil.transportOneRecord(recordSender, column, values, nullFormat, this.getTaskPluginCollector()));
+                    LOG.info("read {} records from [{}]", count, fileName);
                 }
-                catch (FileNotFoundException e) {
+                catch (NoSuchFileException e) {
                     LOG.error("FileNotFoundException occurred: ", e);
                 }
+                catch (IOException e) {
+                    throw AddaxException.asAddaxException(IO_ERROR, "Failed to read the dbf file " + fileName, e);
+                }
             }
             LOG.debug("end reading dbf files...");
         }
 
+        /*
+         * The fields the columns read, only those are decoded
+         */
+        private static int[] getProjection(List<ColumnEntry> column, DbfFile dbf, String fileName)
+        {
+            return column.stream()
+                    .filter(entry -> entry.getValue() == null && entry.getIndex() != null)
+                    .mapToInt(entry -> {
+                        if (entry.getIndex() < 0 || entry.getIndex() >= dbf.getFields().size()) {
+                            throw AddaxException.asAddaxException(CONFIG_ERROR, String.format(
+                                    "The column index [%d] is out of the %d fields of %s", entry.getIndex(), dbf.getFields().size(), fileName));
+                        }
+                        return entry.getIndex();
+                    })
+                    .distinct()
+                    .toArray();
+        }
+
         /**
          * get column description from dbf file
          *
-         * @param fPath dbf file path
-         * @param encoding the dbf file encoding
+         * @param dbf the dbf file
          * @return list of column entry
          */
-        private List<ColumnEntry> getColumnInfo(String fPath, String encoding)
+        private List<ColumnEntry> getColumnInfo(DbfFile dbf)
         {
             List<ColumnEntry> column = new ArrayList<>();
-            DBFDataType type;
-            try (DBFReader reader = new DBFReader(new FileInputStream(fPath), Charset.forName(encoding))) {
-                for (int i = 0; i < reader.getFieldCount(); i++) {
-                    ColumnEntry columnEntry = new ColumnEntry();
-                    columnEntry.setIndex(i);
-                    type = reader.getField(i).getType();
-                    switch (type) {
-                        case DATE:
-                            columnEntry.setType("date");
-                            break;
-                        case NUMERIC:
-                            if (reader.getField(i).getDecimalCount() > 0) {
-                                columnEntry.setType("double");
-                            }
-                            else {
-                                columnEntry.setType("long");
-                            }
-                            break;
-                        case FLOATING_POINT:
-                        case DOUBLE:
+            List<DbfFile.Field> fields = dbf.getFields();
+            for (int i = 0; i < fields.size(); i++) {
+                ColumnEntry columnEntry = new ColumnEntry();
+                columnEntry.setIndex(i);
+                switch (fields.get(i).type()) {
+                    case 'D':
+                    case 'T':
+                    case '@':
+                        columnEntry.setType("date");
+                        break;
+                    case 'N':
+                        if (fields.get(i).decimalCount() > 0) {
                             columnEntry.setType("double");
-                            break;
-                        case LOGICAL:
-                            columnEntry.setType("boolean");
-                            break;
-                        case MEMO:
-                        case BINARY:
-                        case BLOB:
-                        case GENERAL_OLE:
-                        case PICTURE:
-                        case VARBINARY:
-                            columnEntry.setType("bytes");
-                            break;
-                        case CURRENCY:
-                            columnEntry.setType("decimal");
-                            break;
-                        case LONG:
-                        case AUTOINCREMENT:
+                        }
+                        else {
                             columnEntry.setType("long");
-                            break;
-                        case TIMESTAMP:
-                        case TIMESTAMP_DBASE7:
-                            columnEntry.setType("timestamp");
-                            break;
-                        default:
-                            columnEntry.setType("string");
-                            break;
-                    }
-                    column.add(columnEntry);
+                        }
+                        break;
+                    case 'F':
+                    case 'O':
+                    case 'B':
+                    case 'Y':
+                        columnEntry.setType("double");
+                        break;
+                    case 'L':
+                        columnEntry.setType("boolean");
+                        break;
+                    case 'I':
+                    case '+':
+                        columnEntry.setType("long");
+                        break;
+                    default:
+                        columnEntry.setType("string");
+                        break;
                 }
-                return column;
-            }
-            catch (FileNotFoundException e) {
-                LOG.error("FileNotFoundException occurred: ", e);
-                throw AddaxException.asAddaxException(
-                        RUNTIME_ERROR, "can not retrieve the field information from " + fPath);
+                column.add(columnEntry);
             }
+            return column;
         }
     }
 }
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.reader.dbfreader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DbfFileTest
+{
+    // NAME C(10), AMOUNT N(10, 2), BORN D, OK L
+    private static final int RECORD_LENGTH = 1 + 10 + 10 + 8 + 1;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void headerDescribesTheFields()
+            throws IOException
+    {
+        try (DbfFile dbf = new DbfFile(write(5), StandardCharsets.UTF_8)) {
+            assertEquals(5, dbf.getRecordCount());
+            assertEquals(RECORD_LENGTH, dbf.getRecordLength());
+            assertEquals(List.of(
+                    new DbfFile.Field("NAME", 'C', 10, 0, 1),
+                    new DbfFile.Field("AMOUNT", 'N', 10, 2, 11),
+                    new DbfFile.Field("BORN", 'D', 8, 0, 21),
+                    new DbfFile.Field("OK", 'L', 1, 0, 29)), dbf.getFields());
+        }
+    }
+
+    @Test
+    void onlyTheProjectedFieldsAreDecoded()
+            throws IOException
+    {
+        List<String[]> rows = new ArrayList<>();
+        long count;
+        try (DbfFile dbf = new DbfFile(write(5), StandardCharsets.UTF_8)) {
+            count = dbf.read(0, Long.MAX_VALUE, new int[] {1, 2}, values -> rows.add(values.clone()));
+        }
+        // the third record is deleted
+        assertEquals(4, count);
+        assertArrayEquals(new String[] {null, "0.00", "2024-01-01", null}, rows.get(0));
+        assertArrayEquals(new String[] {null, "4.50", "2024-01-04", null}, rows.get(2));
+    }
+
+    @Test
+    void rangesReadEveryRecordOnce()
+            throws IOException
+    {
+        // a few windows of records
+        int records = 100_000;
+        String path = write(records);
+        List<String> whole = new ArrayList<>();
+        List<String> ranged = new ArrayList<>();
+        try (DbfFile dbf = new DbfFile(path, StandardCharsets.UTF_8)) {
+            dbf.read(0, Long.MAX_VALUE, new int[] {0}, values -> whole.add(values[0]));
+            long[] bounds = {0, 33_334, 66_668, Long.MAX_VALUE};
+            for (int i = 0; i < bounds.length - 1; i++) {
+                dbf.read(bounds[i], bounds[i + 1], new int[] {0}, values -> ranged.add(values[0]));
+            }
+            // an empty range beyond the records
+            assertEquals(0, dbf.read(records, Long.MAX_VALUE, new int[] {0}, values -> ranged.add(values[0])));
+        }
+        assertEquals(records - (records + 997) / 1000, whole.size());
+        assertEquals("name1", whole.get(1));
+        assertEquals("name3", whole.get(2));
+        assertEquals(whole, ranged);
+    }
+
+    private static boolean deleted(int i)
+    {
+        return i % 1000 == 2;
+    }
+
+    /*
+     * A dBase III file of count records, the record i named "name" + i, worth 1.5 * i, born on the i % 28 + 1 of January
+     */
+    private String write(int count)
+            throws IOException
+    {
+        String[] names = {"NAME", "AMOUNT", "BORN", "OK"};
+        char[] types = {'C', 'N', 'D', 'L'};
+        int[] lengths = {10, 10, 8, 1};
+        int headerLength = 32 + 32 * names.length + 1;
+        ByteBuffer buffer = ByteBuffer.allocate(headerLength + count * RECORD_LENGTH + 1).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 0x03).put(new byte[] {124, 1, 1});
+        buffer.putInt(count).putShort((short) headerLength).putShort((short) RECORD_LENGTH);
+        buffer.position(32);
+        for (int i = 0; i < names.length; i++) {
+            byte[] descriptor = new byte[32];
+            byte[] name = names[i].getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(name, 0, descriptor, 0, name.length);
+            descriptor[11] = (byte) types[i];
+            descriptor[16] = (byte) lengths[i];
+            descriptor[17] = (byte) (types[i] == 'N' ? 2 : 0);
+            buffer.put(descriptor);
+        }
+        buffer.put((byte) 0x0D);
+        for (int i = 0; i < count; i++) {
+            String record = (deleted(i) ? "*" : " ")
+                    + pad("name" + i, 10, false)
+                    + pad(String.format(Locale.ROOT, "%.2f", 1.5 * i), 10, true)
+                    + String.format("202401%02d", i % 28 + 1)
+                    + (i % 2 == 0 ? "T" : "F");
+            buffer.put(record.getBytes(StandardCharsets.US_ASCII));
+        }
+        buffer.put((byte) 0x1A);
+        Path file = dir.resolve("test.dbf");
+        Files.write(file, Arrays.copyOf(buffer.array(), buffer.position()));
+        return file.toString();
+    }
+
+    private static String pad(String value, int length, boolean left)
+    {
+        String spaces = " ".repeat(length - value.length());
+        return left ? spaces + value : value + spaces;
+    }
+}
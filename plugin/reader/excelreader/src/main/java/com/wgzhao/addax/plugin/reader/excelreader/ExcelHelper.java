@@ -28,6 +28,7 @@ import com.wgzhao.addax.core.element.LongColumn;
 import com.wgzhao.addax.core.element.Record;
 import com.wgzhao.addax.core.element.StringColumn;
 import com.wgzhao.addax.core.exception.AddaxException;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.FormulaEvaluator;
@@ -36,6 +37,7 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -51,6 +53,7 @@ public class ExcelHelper
     Workbook workbook;
     private FormulaEvaluator evaluator;
     private Iterator<Row> rowIterator;
+    private StreamingSheetReader sheetReader;
 
     public ExcelHelper(boolean header, int skipRows) {
         this.header = header;
@@ -59,22 +62,22 @@ public class ExcelHelper
     public void open(String filePath)
     {
         try {
-            this.file = new FileInputStream(filePath);
-            workbook = WorkbookFactory.create(file);
-            // ONLY read the first sheet
-            Sheet sheet = workbook.getSheetAt(0);
-            this.evaluator =  workbook.getCreationHelper().createFormulaEvaluator();
-            this.rowIterator = sheet.iterator();
-            if (this.header && this.rowIterator.hasNext()) {
-                // skip header
-                this.rowIterator.next();
+            if (FileMagic.valueOf(new File(filePath)) == FileMagic.OOXML) {
+                // xlsx is streamed, the workbook model would hold the whole sheet in memory
+                this.sheetReader = new StreamingSheetReader(filePath);
             }
-            if (this.skipRows > 0) {
-                int i =0;
-                while (this.rowIterator.hasNext() && i < this.skipRows) {
-                    this.rowIterator.next();
-                    i++;
-                }
+            else {
+                this.file = new FileInputStream(filePath);
+                workbook = WorkbookFactory.create(file);
+                // ONLY read the first sheet
+                Sheet sheet = workbook.getSheetAt(0);
+                this.evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+                this.rowIterator = sheet.iterator();
+            }
+            int skip = (this.header ? 1 : 0) + Math.max(0, this.skipRows);
+            // skip header and the leading rows
+            for (int i = 0; i < skip && skipRow(); i++) {
+                // discard
             }
         }
         catch (FileNotFoundException e) {
@@ -89,16 +92,44 @@ public class ExcelHelper
     public void close()
     {
         try {
-            this.workbook.close();
-            this.file.close();
+            if (this.sheetReader != null) {
+                this.sheetReader.close();
+            }
+            if (this.workbook != null) {
+                this.workbook.close();
+            }
+            if (this.file != null) {
+                this.file.close();
+            }
         }
         catch (IOException ignored) {
 
         }
     }
 
+    private boolean skipRow()
+            throws IOException
+    {
+        if (sheetReader != null) {
+            return sheetReader.skipRow();
+        }
+        if (rowIterator.hasNext()) {
+            rowIterator.next();
+            return true;
+        }
+        return false;
+    }
+
     public Record readLine(Record record)
     {
+        if (sheetReader != null) {
+            try {
+                return sheetReader.nextRow(record) ? record : null;
+            }
+            catch (IOException e) {
+                throw AddaxException.asAddaxException(IO_ERROR, e);
+            }
+        }
         if (rowIterator.hasNext()) {
             Row row = rowIterator.next();
             //For each row, iterate through all the columns
@@ -0,0 +1,306 @@
+/*
+ *
+ *  * Licensed to the Apache Software Foundation (ASF) under one
+ *  * or more contributor license agreements.  See the NOTICE file
+ *  * distributed with this work for additional information
+ *  * regarding copyright ownership.  The ASF licenses this file
+ *  * to you under the Apache License, Version 2.0 (the
+ *  * "License"); you may not use this file except in compliance
+ *  * with the License.  You may obtain a copy of the License at
+ *  *
+ *  *   http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  * Unless required by applicable law or agreed to in writing,
+ *  * software distributed under the License is distributed on an
+ *  * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  * KIND, either express or implied.  See the License for the
+ *  * specific language governing permissions and limitations
+ *  * under the License.
+ *
+ */
+
+package com.wgzhao.addax.plugin.reader.excelreader;
+
+import com.wgzhao.addax.core.element.BoolColumn;
+import com.wgzhao.addax.core.element.DateColumn;
+import com.wgzhao.addax.core.element.DoubleColumn;
+import com.wgzhao.addax.core.element.LongColumn;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.element.StringColumn;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Reads the first sheet of an xlsx file row by row with a streaming XML parser over the OPC package.
+ * <p>
+ * Only the shared strings and the cell styles are held in memory, the sheet itself is never loaded,
+ * so the heap used does not grow with the number of rows. Formula cells yield their cached result,
+ * as saved by the application that wrote the file.
+ */
+public class StreamingSheetReader
+        implements AutoCloseable
+{
+    private final OPCPackage pkg;
+    private final ReadOnlySharedStringsTable sharedStrings;
+    private final StylesTable styles;
+    private final boolean date1904;
+    private final InputStream sheetStream;
+    private final XMLStreamReader sheet;
+    // whether the number format of a cell style is a date format, by style index
+    private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+    private final StringBuilder text = new StringBuilder();
+
+    public StreamingSheetReader(String filePath)
+            throws IOException
+    {
+        this.pkg = openPackage(filePath);
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            this.sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+            this.styles = reader.getStylesTable();
+            try (InputStream workbook = reader.getWorkbookData()) {
+                this.date1904 = isDate1904(workbook);
+            }
+            // ONLY read the first sheet
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IOException("There is no sheet in " + filePath);
+            }
+            this.sheetStream = sheets.next();
+            this.sheet = XMLHelper.newXMLInputFactory().createXMLStreamReader(sheetStream);
+        }
+        catch (OpenXML4JException | SAXException | XMLStreamException e) {
+            pkg.revert();
+            throw new IOException("Failed to open the sheet of " + filePath, e);
+        }
+        catch (IOException | RuntimeException e) {
+            pkg.revert();
+            throw e;
+        }
+    }
+
+    /**
+     * Fill the record with the cells of the next row.
+     *
+     * @param record the record to fill
+     * @return false when there are no more rows
+     * @throws IOException if the sheet is malformed
+     */
+    public boolean nextRow(Record record)
+            throws IOException
+    {
+        try {
+            while (sheet.hasNext()) {
+                int event = sheet.next();
+                if (event == XMLStreamConstants.START_ELEMENT && "row".equals(sheet.getLocalName())) {
+                    readRow(record);
+                    return true;
+                }
+                if (event == XMLStreamConstants.END_ELEMENT && "sheetData".equals(sheet.getLocalName())) {
+                    return false;
+                }
+            }
+            return false;
+        }
+        catch (XMLStreamException e) {
+            throw new IOException("Failed to parse the sheet", e);
+        }
+    }
+
+    /**
+     * Skip the next row without reading its cells.
+     *
+     * @return false when there are no more rows
+     * @throws IOException if the sheet is malformed
+     */
+    public boolean skipRow()
+            throws IOException
+    {
+        try {
+            while (sheet.hasNext()) {
+                int event = sheet.next();
+                if (event == XMLStreamConstants.START_ELEMENT && "row".equals(sheet.getLocalName())) {
+                    skipElement();
+                    return true;
+                }
+                if (event == XMLStreamConstants.END_ELEMENT && "sheetData".equals(sheet.getLocalName())) {
+                    return false;
+                }
+            }
+            return false;
+        }
+        catch (XMLStreamException e) {
+            throw new IOException("Failed to parse the sheet", e);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        try {
+            sheet.close();
+            sheetStream.close();
+        }
+        catch (XMLStreamException | IOException ignored) {
+            // the package is reverted anyway
+        }
+        // opened read only, nothing to save
+        pkg.revert();
+    }
+
+    private void readRow(Record record)
+            throws XMLStreamException
+    {
+        while (sheet.hasNext()) {
+            int event = sheet.next();
+            if (event == XMLStreamConstants.START_ELEMENT && "c".equals(sheet.getLocalName())) {
+                readCell(record);
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(sheet.getLocalName())) {
+                return;
+            }
+        }
+    }
+
+    private void skipElement()
+            throws XMLStreamException
+    {
+        int depth = 1;
+        while (depth > 0 && sheet.hasNext()) {
+            int event = sheet.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private void readCell(Record record)
+            throws XMLStreamException
+    {
+        String type = sheet.getAttributeValue(null, "t");
+        String style = sheet.getAttributeValue(null, "s");
+        String value = null;
+        text.setLength(0);
+        boolean inlineString = false;
+        while (sheet.hasNext()) {
+            int event = sheet.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = sheet.getLocalName();
+                if ("v".equals(name)) {
+                    value = sheet.getElementText();
+                }
+                else if ("t".equals(name)) {
+                    // the runs of an inline rich text string are concatenated
+                    inlineString = true;
+                    text.append(sheet.getElementText());
+                }
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT && "c".equals(sheet.getLocalName())) {
+                break;
+            }
+        }
+        if (inlineString) {
+            value = text.toString();
+        }
+
+        if (value == null) {
+            // empty cell
+            record.addColumn(new StringColumn(""));
+            return;
+        }
+        if (type == null) {
+            type = "n";
+        }
+        switch (type) {
+            case "s" -> record.addColumn(new StringColumn(
+                    sharedStrings.getItemAt(Integer.parseInt(value.trim())).getString().trim()));
+            case "inlineStr", "str" -> record.addColumn(new StringColumn(value.trim()));
+            case "b" -> record.addColumn(new BoolColumn("1".equals(value.trim()) || "true".equalsIgnoreCase(value.trim())));
+            // #VALUE!
+            case "e" -> record.addColumn(new StringColumn());
+            case "n" -> {
+                double number = Double.parseDouble(value);
+                if (style != null && isDateStyle(Integer.parseInt(style)) && DateUtil.isValidExcelDate(number)) {
+                    record.addColumn(new DateColumn(DateUtil.getJavaDate(number, date1904)));
+                }
+                else if ((long) number == number) {
+                    // integer or long ?
+                    record.addColumn(new LongColumn((long) number));
+                }
+                else {
+                    record.addColumn(new DoubleColumn(number));
+                }
+            }
+            default -> record.addColumn(new StringColumn(value.trim()));
+        }
+    }
+
+    private boolean isDateStyle(int styleIndex)
+    {
+        return dateStyles.computeIfAbsent(styleIndex, index -> {
+            if (styles == null || index >= styles.getNumCellStyles()) {
+                return false;
+            }
+            XSSFCellStyle cellStyle = styles.getStyleAt(index);
+            return cellStyle != null
+                    && DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+        });
+    }
+
+    private static boolean isDate1904(InputStream workbook)
+            throws XMLStreamException
+    {
+        XMLStreamReader reader = XMLHelper.newXMLInputFactory().createXMLStreamReader(workbook);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("workbookPr".equals(name)) {
+                        String value = reader.getAttributeValue(null, "date1904");
+                        return "1".equals(value) || "true".equalsIgnoreCase(value);
+                    }
+                    if ("sheets".equals(name)) {
+                        // workbookPr comes before the sheets
+                        return false;
+                    }
+                }
+            }
+            return false;
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    private static OPCPackage openPackage(String filePath)
+            throws IOException
+    {
+        try {
+            return OPCPackage.open(filePath, PackageAccess.READ);
+        }
+        catch (OpenXML4JException e) {
+            throw new IOException("Failed to open " + filePath, e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.reader.excelreader;
+
+import com.wgzhao.addax.core.element.Column;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes xlsx files with POI and reads them back with the streaming reader.
+ */
+class StreamingSheetReaderTest
+{
+    private static final Date DATE = Date.from(LocalDateTime.of(2024, 2, 29, 13, 45, 30)
+            .atZone(ZoneId.systemDefault()).toInstant());
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsSharedStringsNumbersDatesAndBlankCells()
+            throws IOException
+    {
+        // the workbook model puts the strings in the shared string table
+        Path file = write(new XSSFWorkbook(), "shared.xlsx");
+
+        List<Record> records = readAll(file);
+        assertEquals(3, records.size());
+        assertRow(records.get(0), "id", "name", "amount", "born", "active", "note");
+        assertTypedRow(records.get(1));
+        assertRow(records.get(2), "2", "second", "", "", "false");
+    }
+
+    @Test
+    void readsInlineStrings()
+            throws IOException
+    {
+        // the streaming workbook writes the strings inline into the sheet
+        Path file = write(new SXSSFWorkbook(null, 100, true, false), "inline.xlsx");
+        String sheet = sheetXml(file);
+        assertTrue(sheet.contains("inlineStr"));
+
+        List<Record> records = readAll(file);
+        assertEquals(3, records.size());
+        assertRow(records.get(0), "id", "name", "amount", "born", "active", "note");
+        assertTypedRow(records.get(1));
+        assertRow(records.get(2), "2", "second", "", "", "false");
+    }
+
+    @Test
+    void readsTheCachedResultOfFormulas()
+            throws IOException
+    {
+        Path file = directory.resolve("formula.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Row row = workbook.createSheet().createRow(0);
+            row.createCell(0).setCellValue(21);
+            row.createCell(1).setCellFormula("A1*2");
+            row.createCell(2).setCellFormula("\"x\"&A1");
+            workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            try (OutputStream out = Files.newOutputStream(file)) {
+                workbook.write(out);
+            }
+        }
+
+        List<Record> records = readAll(file);
+        assertRow(records.get(0), "21", "42", "x21");
+        assertEquals(Column.Type.LONG, records.get(0).getColumn(1).getType());
+    }
+
+    @Test
+    void readsTheDatesOf1904Workbooks()
+            throws IOException
+    {
+        Path file = directory.resolve("date1904.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            workbook.getCTWorkbook().getWorkbookPr().setDate1904(true);
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+            Cell cell = workbook.createSheet().createRow(0).createCell(0);
+            cell.setCellValue(DATE);
+            cell.setCellStyle(dateStyle);
+            try (OutputStream out = Files.newOutputStream(file)) {
+                workbook.write(out);
+            }
+        }
+
+        Record record = readAll(file).get(0);
+        assertEquals(Column.Type.DATE, record.getColumn(0).getType());
+        assertEquals(DATE, record.getColumn(0).asDate());
+    }
+
+    @Test
+    void helperSkipsTheHeaderAndTheLeadingRows()
+            throws IOException
+    {
+        Path file = write(new XSSFWorkbook(), "skip.xlsx");
+
+        ExcelHelper helper = new ExcelHelper(true, 1);
+        helper.open(file.toString());
+        try {
+            Record record = helper.readLine(new DefaultRecord());
+            assertRow(record, "2", "second", "", "", "false");
+            assertNull(helper.readLine(new DefaultRecord()));
+        }
+        finally {
+            helper.close();
+        }
+    }
+
+    /*
+     * A header row, a row of every type, and a row with a blank styled cell, an empty string
+     * and a missing cell
+     */
+    private Path write(Workbook workbook, String name)
+            throws IOException
+    {
+        Path file = directory.resolve(name);
+        try (workbook) {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+            Sheet sheet = workbook.createSheet("data");
+
+            Row header = sheet.createRow(0);
+            String[] names = {"id", "name", "amount", "born", "active", "note"};
+            for (int i = 0; i < names.length; i++) {
+                header.createCell(i).setCellValue(names[i]);
+            }
+
+            Row row = sheet.createRow(1);
+            row.createCell(0).setCellValue(1);
+            row.createCell(1).setCellValue("  first  ");
+            row.createCell(2).setCellValue(12.5);
+            Cell born = row.createCell(3);
+            born.setCellValue(DATE);
+            born.setCellStyle(dateStyle);
+            row.createCell(4).setCellValue(true);
+            row.createCell(5).setCellValue("多字节");
+
+            row = sheet.createRow(2);
+            row.createCell(0).setCellValue(2);
+            row.createCell(1).setCellValue("second");
+            // blank, but styled
+            row.createCell(2).setCellStyle(dateStyle);
+            row.createCell(3).setCellValue("");
+            row.createCell(4).setCellValue(false);
+            // the note is missing
+
+            try (OutputStream out = Files.newOutputStream(file)) {
+                workbook.write(out);
+            }
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+        }
+        return file;
+    }
+
+    private static void assertTypedRow(Record record)
+    {
+        assertRow(record, "1", "first", "12.5", null, "true", "多字节");
+        assertEquals(Column.Type.LONG, record.getColumn(0).getType());
+        assertEquals(Column.Type.STRING, record.getColumn(1).getType());
+        assertEquals(Column.Type.DOUBLE, record.getColumn(2).getType());
+        assertEquals(Column.Type.DATE, record.getColumn(3).getType());
+        assertEquals(DATE, record.getColumn(3).asDate());
+        assertEquals(Column.Type.BOOL, record.getColumn(4).getType());
+    }
+
+    /*
+     * The values of the cells as strings, a null expected value is not compared
+     */
+    private static void assertRow(Record record, String... values)
+    {
+        assertEquals(values.length, record.getColumnNumber());
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                assertEquals(values[i], record.getColumn(i).asString(), "column " + i);
+            }
+        }
+    }
+
+    private static List<Record> readAll(Path file)
+            throws IOException
+    {
+        List<Record> records = new ArrayList<>();
+        try (StreamingSheetReader reader = new StreamingSheetReader(file.toString())) {
+            Record record = new DefaultRecord();
+            while (reader.nextRow(record)) {
+                records.add(record);
+                record = new DefaultRecord();
+            }
+            assertFalse(reader.nextRow(record));
+        }
+        return records;
+    }
+
+    private static String sheetXml(Path file)
+            throws IOException
+    {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            return new String(zip.getInputStream(zip.getEntry("xl/worksheets/sheet1.xml")).readAllBytes(),
+                    StandardCharsets.UTF_8);
+        }
+    }
+}
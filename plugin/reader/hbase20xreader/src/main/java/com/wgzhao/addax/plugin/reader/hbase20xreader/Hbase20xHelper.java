@@ -29,15 +29,21 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.RegionMetrics;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.Size;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.Admin;
 import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.ConnectionFactory;
 import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
 import org.apache.hadoop.hbase.util.Bytes;
-import org.apache.hadoop.hbase.util.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,9 +51,13 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
+import static com.wgzhao.addax.core.base.Constant.LOAD_BALANCE_RESOURCE_MARK;
 import static com.wgzhao.addax.core.spi.ErrorCode.EXECUTE_FAIL;
 import static com.wgzhao.addax.core.spi.ErrorCode.ILLEGAL_VALUE;
 import static com.wgzhao.addax.core.spi.ErrorCode.IO_ERROR;
@@ -340,7 +350,7 @@ public class Hbase20xHelper
         return familyQualifierMap;
     }
 
-    public static List<Configuration> split(Configuration configuration)
+    public static List<Configuration> split(Configuration configuration, int adviceNumber)
     {
         byte[] startRowkeyByte = Hbase20xHelper.convertUserStartRowkey(configuration);
         byte[] endRowkeyByte = Hbase20xHelper.convertUserEndRowkey(configuration);
@@ -351,14 +361,15 @@ public class Hbase20xHelper
             throw AddaxException.asAddaxException(ILLEGAL_VALUE, "the number of startRowkey must less than endRowkey.");
         }
         RegionLocator regionLocator = Hbase20xHelper.getRegionLocator(configuration);
-        List<Configuration> resultConfigurations;
+        Admin admin = null;
+        Table table = null;
         try {
-            Pair<byte[][], byte[][]> regionRanges = regionLocator.getStartEndKeys();
-            if (null == regionRanges) {
-                throw AddaxException.asAddaxException(EXECUTE_FAIL, "failed to get the range of rowkey");
-            }
-            resultConfigurations = Hbase20xHelper.doSplit(configuration, startRowkeyByte, endRowkeyByte,
-                    regionRanges);
+            admin = Hbase20xHelper.getHbaseConnection(configuration.getString(HBaseKey.HBASE_CONFIG)).getAdmin();
+            Map<byte[], Long> regionSizes = Hbase20xHelper.getRegionSizes(admin, regionLocator.getName(),
+                    regionLocator.getAllRegionLocations());
+            table = Hbase20xHelper.getTable(configuration);
+            List<Configuration> resultConfigurations = Hbase20xHelper.split(configuration, regionLocator, regionSizes,
+                    new TableRowKeyProbe(table), adviceNumber);
 
             LOG.info("HBaseReader split job into {} tasks.", resultConfigurations.size());
             return resultConfigurations;
@@ -367,20 +378,80 @@ public class Hbase20xHelper
             throw AddaxException.asAddaxException(EXECUTE_FAIL, "failed to split table", e);
         }
         finally {
+            Hbase20xHelper.closeTable(table);
+            Hbase20xHelper.closeAdmin(admin);
             Hbase20xHelper.closeRegionLocator(regionLocator);
         }
     }
 
-    private static List<Configuration> doSplit(Configuration config, byte[] startRowkeyByte,
-            byte[] endRowkeyByte, Pair<byte[][], byte[][]> regionRanges)
+    /**
+     * Split the regions of a table into row key ranges.
+     *
+     * @param configuration the job configuration
+     * @param regionLocator the locator of the regions of the table
+     * @param regionSizes the size of the regions by region name, empty if unknown
+     * @param probe finds the first and the last row of the first and the last region
+     * @param adviceNumber the expected number of tasks
+     * @return the configuration of every task
+     * @throws IOException if the regions can not be located
+     */
+    static List<Configuration> split(Configuration configuration, RegionLocator regionLocator,
+            Map<byte[], Long> regionSizes, RowKeyProbe probe, int adviceNumber)
+            throws IOException
     {
+        List<HRegionLocation> regionLocations = regionLocator.getAllRegionLocations();
+        if (null == regionLocations || regionLocations.isEmpty()) {
+            throw AddaxException.asAddaxException(EXECUTE_FAIL, "failed to get the range of rowkey");
+        }
+        return Hbase20xHelper.doSplit(configuration, Hbase20xHelper.convertUserStartRowkey(configuration),
+                Hbase20xHelper.convertUserEndRowkey(configuration), regionLocations, regionSizes, probe, adviceNumber);
+    }
 
-        List<Configuration> configurations = new ArrayList<Configuration>();
+    /**
+     * Collect the on-disk size (store files plus memstore) of every region of the table, keyed by region name.
+     * The metrics are only used as a hint for splitting, so any failure just results in an empty map
+     * and every region is read by a single task as before.
+     *
+     * @param admin the hbase admin
+     * @param tableName the table to be read
+     * @param regionLocations the locations of all regions of the table
+     * @return map of region name and its size in bytes
+     */
+    private static Map<byte[], Long> getRegionSizes(Admin admin, TableName tableName, List<HRegionLocation> regionLocations)
+    {
+        Map<byte[], Long> regionSizes = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        Set<ServerName> serverNames = new HashSet<>();
+        for (HRegionLocation location : regionLocations) {
+            if (location.getServerName() != null) {
+                serverNames.add(location.getServerName());
+            }
+        }
+        try {
+            for (ServerName serverName : serverNames) {
+                for (RegionMetrics metrics : admin.getRegionMetrics(serverName, tableName)) {
+                    long size = (long) (metrics.getStoreFileSize().get(Size.Unit.BYTE)
+                            + metrics.getMemStoreSize().get(Size.Unit.BYTE));
+                    regionSizes.put(metrics.getRegionName(), size);
+                }
+            }
+        }
+        catch (IOException e) {
+            LOG.warn("Failed to get the region metrics of table {}, each region will be read by one task: {}",
+                    tableName, e.getMessage());
+            regionSizes.clear();
+        }
+        return regionSizes;
+    }
 
-        for (int i = 0; i < regionRanges.getFirst().length; i++) {
+    private static List<Configuration> doSplit(Configuration config, byte[] startRowkeyByte, byte[] endRowkeyByte,
+            List<HRegionLocation> regionLocations, Map<byte[], Long> regionSizes, RowKeyProbe probe, int adviceNumber)
+    {
+        List<HRegionLocation> selectedLocations = new ArrayList<>();
+        long totalSize = 0;
+        for (HRegionLocation location : regionLocations) {
 
-            byte[] regionStartKey = regionRanges.getFirst()[i];
-            byte[] regionEndKey = regionRanges.getSecond()[i];
+            byte[] regionStartKey = location.getRegion().getStartKey();
+            byte[] regionEndKey = location.getRegion().getEndKey();
 
             if (Bytes.compareTo(regionEndKey, HConstants.EMPTY_BYTE_ARRAY) == 0
                     && (endRowkeyByte.length != 0 && (Bytes.compareTo(
@@ -397,25 +468,190 @@ public class Hbase20xHelper
                     && (Bytes.compareTo(endRowkeyByte, regionStartKey) <= 0)) {
                 continue;
             }
+            selectedLocations.add(location);
+            totalSize += regionSizes.getOrDefault(location.getRegion().getRegionName(), 0L);
+        }
+
+        // the expected size of each task, regions larger than it are divided into several row key ranges
+        long minSplitSize = config.getLong(HBaseKey.MIN_SPLIT_SIZE, HBaseConstant.DEFAULT_MIN_SPLIT_SIZE);
+        long splitSize = Math.max(minSplitSize, totalSize / Math.max(adviceNumber, 1));
+
+        List<Configuration> configurations = new ArrayList<>();
+        for (HRegionLocation location : selectedLocations) {
+            byte[] thisStartKey = getStartKey(startRowkeyByte, location.getRegion().getStartKey());
+            byte[] thisEndKey = getEndKey(endRowkeyByte, location.getRegion().getEndKey());
+
+            long regionSize = regionSizes.getOrDefault(location.getRegion().getRegionName(), 0L);
+            int splitNum = (int) Math.min(Math.max(adviceNumber, 1), (regionSize + splitSize - 1) / splitSize);
+            byte[][] rangeKeys = splitNum > 1 ? splitRegion(thisStartKey, thisEndKey, splitNum, probe)
+                    : new byte[][] {thisStartKey, thisEndKey};
+
+            // tasks of the same region server share the resource mark, so that the job scheduler
+            // interleaves them across task groups instead of scanning one server at a time
+            String resourceMark = location.getServerName() == null ? location.getHostname()
+                    : location.getServerName().getHostname();
+
+            for (int i = 0; i < rangeKeys.length - 1; i++) {
+                Configuration p = config.clone();
+                p.set(HBaseKey.START_ROW_KEY, Bytes.toStringBinary(rangeKeys[i]));
+                p.set(HBaseKey.END_ROW_KEY, Bytes.toStringBinary(rangeKeys[i + 1]));
+                if (resourceMark != null) {
+                    p.set(LOAD_BALANCE_RESOURCE_MARK, resourceMark);
+                }
+
+                LOG.debug("startRowkey:[{}], endRowkey:[{}] .", p.getString(HBaseKey.START_ROW_KEY), p.getString(HBaseKey.END_ROW_KEY));
+
+                configurations.add(p);
+            }
+        }
+
+        return configurations;
+    }
+
+    /*
+     * The first and the last region are unbounded at one side, their rows may be anywhere beyond
+     * their other key. Bound them by their real first or last row key before dividing them, and
+     * read them whole if the rows can not be found.
+     */
+    private static byte[][] splitRegion(byte[] startKey, byte[] endKey, int splitNum, RowKeyProbe probe)
+    {
+        byte[][] whole = new byte[][] {startKey, endKey};
+        byte[] lower = startKey;
+        byte[] upper = endKey;
+        try {
+            if (startKey.length == 0) {
+                lower = probe.firstRow(endKey);
+            }
+            if (lower != null && endKey.length == 0) {
+                byte[] lastRow = probe.lastRow(lower);
+                // the bound is exclusive, the key right after the last row
+                upper = lastRow == null ? null : Bytes.add(lastRow, new byte[] {0x00});
+            }
+        }
+        catch (IOException e) {
+            LOG.warn("Failed to find the rows of the range [{}, {}), it is read by one task: {}",
+                    Bytes.toStringBinary(startKey), Bytes.toStringBinary(endKey), e.getMessage());
+            return whole;
+        }
+        if (lower == null || upper == null) {
+            // no rows
+            return whole;
+        }
+        byte[][] rangeKeys = splitRange(lower, upper, splitNum);
+        // keep the region unbounded, rows may be written beyond the keys found meanwhile
+        rangeKeys[0] = startKey;
+        rangeKeys[rangeKeys.length - 1] = endKey;
+        return rangeKeys;
+    }
 
-            Configuration p = config.clone();
+    /**
+     * divide the row key range [startKey, endKey) into splitNum sub-ranges.
+     * A range unbounded at either side can not be divided, it is returned whole.
+     *
+     * @param startKey the start row key (inclusive)
+     * @param endKey the end row key (exclusive)
+     * @param splitNum the expected number of sub-ranges
+     * @return the boundaries of the sub-ranges, its length is the number of sub-ranges plus one
+     */
+    static byte[][] splitRange(byte[] startKey, byte[] endKey, int splitNum)
+    {
+        byte[][] whole = new byte[][] {startKey, endKey};
+        if (splitNum <= 1 || startKey.length == 0 || endKey.length == 0) {
+            return whole;
+        }
+        byte[][] splitKeys;
+        try {
+            splitKeys = Bytes.split(startKey, endKey, splitNum - 1);
+        }
+        catch (IllegalArgumentException e) {
+            // the range is too narrow to be divided
+            return whole;
+        }
+        if (splitKeys == null) {
+            return whole;
+        }
+        List<byte[]> boundaries = new ArrayList<>();
+        boundaries.add(startKey);
+        for (int i = 1; i < splitKeys.length - 1; i++) {
+            byte[] previous = boundaries.get(boundaries.size() - 1);
+            if (Bytes.compareTo(splitKeys[i], previous) > 0 && Bytes.compareTo(splitKeys[i], endKey) < 0) {
+                boundaries.add(splitKeys[i]);
+            }
+        }
+        boundaries.add(endKey);
+        return boundaries.toArray(new byte[0][]);
+    }
 
-            String thisStartKey = getStartKey(startRowkeyByte, regionStartKey);
+    /**
+     * Finds the real first and last row keys of the regions unbounded at one side.
+     */
+    interface RowKeyProbe
+    {
+        /**
+         * @param stopRow the exclusive upper bound, empty for none
+         * @return the first row key before stopRow, null if there is none
+         * @throws IOException if the table can not be scanned
+         */
+        byte[] firstRow(byte[] stopRow)
+                throws IOException;
+
+        /**
+         * @param startRow the inclusive lower bound, empty for none
+         * @return the last row key from startRow, null if there is none
+         * @throws IOException if the table can not be scanned
+         */
+        byte[] lastRow(byte[] startRow)
+                throws IOException;
+    }
 
-            String thisEndKey = getEndKey(endRowkeyByte, regionEndKey);
+    /*
+     * Reads a single row key from either end of the table
+     */
+    private static final class TableRowKeyProbe
+            implements RowKeyProbe
+    {
+        private final Table table;
 
-            p.set(HBaseKey.START_ROW_KEY, thisStartKey);
-            p.set(HBaseKey.END_ROW_KEY, thisEndKey);
+        TableRowKeyProbe(Table table)
+        {
+            this.table = table;
+        }
 
-            LOG.debug("startRowkey:[{}], endRowkey:[{}] .", thisStartKey, thisEndKey);
+        @Override
+        public byte[] firstRow(byte[] stopRow)
+                throws IOException
+        {
+            Scan scan = new Scan();
+            if (stopRow.length != 0) {
+                scan.withStopRow(stopRow);
+            }
+            return firstKey(scan);
+        }
 
-            configurations.add(p);
+        @Override
+        public byte[] lastRow(byte[] startRow)
+                throws IOException
+        {
+            // a reversed scan goes from its start row down to its stop row
+            Scan scan = new Scan().setReversed(true);
+            if (startRow.length != 0) {
+                scan.withStopRow(startRow, true);
+            }
+            return firstKey(scan);
         }
 
-        return configurations;
+        private byte[] firstKey(Scan scan)
+                throws IOException
+        {
+            scan.setFilter(new FirstKeyOnlyFilter()).setLimit(1).setCaching(1);
+            try (ResultScanner scanner = table.getScanner(scan)) {
+                Result result = scanner.next();
+                return result == null ? null : result.getRow();
+            }
+        }
     }
 
-    private static String getEndKey(byte[] endRowkeyByte, byte[] regionEndKey)
+    private static byte[] getEndKey(byte[] endRowkeyByte, byte[] regionEndKey)
     {
         if (endRowkeyByte == null) {
             throw new IllegalArgumentException("userEndKey should not be null!");
@@ -438,10 +674,10 @@ public class Hbase20xHelper
             }
         }
 
-        return Bytes.toStringBinary(tempEndRowkeyByte);
+        return tempEndRowkeyByte;
     }
 
-    private static String getStartKey(byte[] startRowkeyByte, byte[] regionStarKey)
+    private static byte[] getStartKey(byte[] startRowkeyByte, byte[] regionStarKey)
     {
         if (startRowkeyByte == null) {
             throw new IllegalArgumentException(
@@ -456,7 +692,7 @@ public class Hbase20xHelper
         else {
             tempStartRowkeyByte = startRowkeyByte;
         }
-        return Bytes.toStringBinary(tempStartRowkeyByte);
+        return tempStartRowkeyByte;
     }
 
     public static void validateParameter(Configuration originalConfig)
@@ -485,12 +721,26 @@ public class Hbase20xHelper
         Boolean isBinaryRowkey = originalConfig.getBool(HBaseConstant.RANGE + "." + HBaseKey.IS_BINARY_ROW_KEY, false);
         originalConfig.set(HBaseKey.IS_BINARY_ROW_KEY, isBinaryRowkey);
 
-        //scan cache
-        int scanCacheSize = originalConfig.getInt(HBaseKey.SCAN_CACHE_SIZE, HBaseConstant.DEFAULT_SCAN_CACHE_SIZE);
-        originalConfig.set(HBaseKey.SCAN_CACHE_SIZE, scanCacheSize);
-
-        int scanBatchSize = originalConfig.getInt(HBaseKey.SCAN_BATCH_SIZE, HBaseConstant.DEFAULT_SCAN_BATCH_SIZE);
+        // scan batch and cache, derived from the number of columns when they are not configured
+        int columnCount = originalConfig.getList(HBaseKey.COLUMN, Map.class).size();
+        boolean isNormalMode = ModeType.getByTypeName(originalConfig.getString(HBaseKey.MODE)) == ModeType.NORMAL;
+        // in normal mode a row must not be divided into several results, so the batch should hold all the columns
+        int defaultBatchSize = isNormalMode ? Math.max(HBaseConstant.DEFAULT_SCAN_BATCH_SIZE, columnCount)
+                : HBaseConstant.DEFAULT_SCAN_BATCH_SIZE;
+        int scanBatchSize = originalConfig.getInt(HBaseKey.SCAN_BATCH_SIZE, defaultBatchSize);
         originalConfig.set(HBaseKey.SCAN_BATCH_SIZE, scanBatchSize);
+
+        int cellsPerRow = columnCount;
+        if (!isNormalMode) {
+            int maxVersion = originalConfig.getInt(HBaseKey.MAX_VERSION, -1);
+            cellsPerRow = maxVersion > 0 ? columnCount * maxVersion : scanBatchSize;
+        }
+        cellsPerRow = Math.max(1, Math.min(cellsPerRow, scanBatchSize));
+        int defaultCacheSize = Math.max(1, Math.min(HBaseConstant.MAX_SCAN_CACHE_SIZE,
+                HBaseConstant.DEFAULT_SCAN_CELLS_PER_RPC / cellsPerRow));
+        int scanCacheSize = originalConfig.getInt(HBaseKey.SCAN_CACHE_SIZE, defaultCacheSize);
+        originalConfig.set(HBaseKey.SCAN_CACHE_SIZE, scanCacheSize);
+        LOG.info("The scanner uses scanCacheSize={} and scanBatchSize={}.", scanCacheSize, scanBatchSize);
     }
 
     private static void validateMode(Configuration originalConfig)
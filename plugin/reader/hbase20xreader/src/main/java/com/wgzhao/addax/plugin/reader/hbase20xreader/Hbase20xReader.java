@@ -55,7 +55,7 @@ public class Hbase20xReader
         @Override
         public List<Configuration> split(int adviceNumber)
         {
-            return Hbase20xHelper.split(this.originConfig);
+            return Hbase20xHelper.split(this.originConfig, adviceNumber);
         }
 
         @Override
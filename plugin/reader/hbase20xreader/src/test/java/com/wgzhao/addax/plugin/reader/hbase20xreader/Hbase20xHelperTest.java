@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.plugin.reader.hbase20xreader;
+
+import com.wgzhao.addax.core.base.HBaseKey;
+import com.wgzhao.addax.core.util.Configuration;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.RegionInfo;
+import org.apache.hadoop.hbase.client.RegionInfoBuilder;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.wgzhao.addax.core.base.Constant.LOAD_BALANCE_RESOURCE_MARK;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Hbase20xHelperTest
+{
+    private static final TableName TABLE = TableName.valueOf("t1");
+    private static final long GB = 1024L * 1024 * 1024;
+
+    @Test
+    void splitRangeCoversTheRangeInOrder()
+    {
+        byte[] start = Bytes.toBytes("a");
+        byte[] end = Bytes.toBytes("z");
+        byte[][] keys = Hbase20xHelper.splitRange(start, end, 4);
+
+        assertEquals(5, keys.length);
+        assertArrayEquals(start, keys[0]);
+        assertArrayEquals(end, keys[keys.length - 1]);
+        for (int i = 1; i < keys.length; i++) {
+            assertTrue(Bytes.compareTo(keys[i - 1], keys[i]) < 0);
+        }
+    }
+
+    @Test
+    void splitRangeKeepsUnboundedRangesWhole()
+    {
+        byte[] key = Bytes.toBytes("m");
+        assertEquals(2, Hbase20xHelper.splitRange(new byte[0], key, 4).length);
+        assertEquals(2, Hbase20xHelper.splitRange(key, new byte[0], 4).length);
+        assertEquals(2, Hbase20xHelper.splitRange(key, Bytes.toBytes("n"), 1).length);
+    }
+
+    @Test
+    void lastRegionIsSplitWithinItsRows()
+            throws IOException
+    {
+        HRegionLocation first = location("", "m", "rs1");
+        HRegionLocation last = location("m", "", "rs2");
+        Map<byte[], Long> sizes = sizes(first, 100L, last, 4 * GB);
+
+        List<Configuration> tasks = Hbase20xHelper.split(config(), locator(first, last), sizes,
+                probe(Bytes.toBytes("a"), Bytes.toBytes("t")), 4);
+
+        // one task for the small first region, the rest for the last one
+        assertEquals(5, tasks.size());
+        assertEquals("", tasks.get(0).getString(HBaseKey.START_ROW_KEY));
+        assertEquals("m", tasks.get(0).getString(HBaseKey.END_ROW_KEY));
+        assertEquals("rs1", tasks.get(0).getString(LOAD_BALANCE_RESOURCE_MARK));
+
+        List<Configuration> lastTasks = tasks.subList(1, tasks.size());
+        assertEquals("m", lastTasks.get(0).getString(HBaseKey.START_ROW_KEY));
+        assertEquals("", lastTasks.get(lastTasks.size() - 1).getString(HBaseKey.END_ROW_KEY));
+        for (int i = 0; i < lastTasks.size(); i++) {
+            Configuration task = lastTasks.get(i);
+            assertEquals("rs2", task.getString(LOAD_BALANCE_RESOURCE_MARK));
+            if (i > 0) {
+                byte[] key = Bytes.toBytesBinary(task.getString(HBaseKey.START_ROW_KEY));
+                // the ranges are contiguous, and the boundaries fall between the first and last rows
+                assertEquals(lastTasks.get(i - 1).getString(HBaseKey.END_ROW_KEY), task.getString(HBaseKey.START_ROW_KEY));
+                assertTrue(Bytes.compareTo(key, Bytes.toBytes("m")) > 0);
+                assertTrue(Bytes.compareTo(key, Bytes.toBytes("t")) <= 0);
+            }
+        }
+    }
+
+    @Test
+    void firstRegionIsSplitFromItsFirstRow()
+            throws IOException
+    {
+        HRegionLocation first = location("", "m", "rs1");
+        HRegionLocation last = location("m", "", "rs2");
+        Map<byte[], Long> sizes = sizes(first, 4 * GB, last, 100L);
+
+        List<Configuration> tasks = Hbase20xHelper.split(config(), locator(first, last), sizes,
+                probe(Bytes.toBytes("k"), Bytes.toBytes("t")), 4);
+
+        assertEquals(5, tasks.size());
+        assertEquals("", tasks.get(0).getString(HBaseKey.START_ROW_KEY));
+        byte[] second = Bytes.toBytesBinary(tasks.get(1).getString(HBaseKey.START_ROW_KEY));
+        assertTrue(Bytes.compareTo(second, Bytes.toBytes("k")) > 0);
+        assertEquals("m", tasks.get(3).getString(HBaseKey.END_ROW_KEY));
+        assertEquals("", tasks.get(4).getString(HBaseKey.END_ROW_KEY));
+    }
+
+    @Test
+    void regionWithoutRowsIsNotSplit()
+            throws IOException
+    {
+        HRegionLocation only = location("", "", "rs1");
+        Map<byte[], Long> sizes = sizes(only, 4 * GB, null, 0L);
+
+        List<Configuration> tasks = Hbase20xHelper.split(config(), locator(only), sizes, probe(null, null), 4);
+
+        assertEquals(1, tasks.size());
+        assertEquals("", tasks.get(0).getString(HBaseKey.START_ROW_KEY));
+        assertEquals("", tasks.get(0).getString(HBaseKey.END_ROW_KEY));
+    }
+
+    @Test
+    void regionIsNotSplitWhenItsRowsCanNotBeFound()
+            throws IOException
+    {
+        HRegionLocation only = location("", "", "rs1");
+        Map<byte[], Long> sizes = sizes(only, 4 * GB, null, 0L);
+        Hbase20xHelper.RowKeyProbe failing = new Hbase20xHelper.RowKeyProbe()
+        {
+            @Override
+            public byte[] firstRow(byte[] stopRow)
+                    throws IOException
+            {
+                throw new IOException("scan failed");
+            }
+
+            @Override
+            public byte[] lastRow(byte[] startRow)
+                    throws IOException
+            {
+                throw new IOException("scan failed");
+            }
+        };
+
+        assertEquals(1, Hbase20xHelper.split(config(), locator(only), sizes, failing, 4).size());
+    }
+
+    private static Configuration config()
+    {
+        Configuration configuration = Configuration.newDefault();
+        configuration.set(HBaseKey.MIN_SPLIT_SIZE, GB);
+        return configuration;
+    }
+
+    private static HRegionLocation location(String startKey, String endKey, String host)
+    {
+        RegionInfo region = RegionInfoBuilder.newBuilder(TABLE)
+                .setStartKey(Bytes.toBytes(startKey))
+                .setEndKey(Bytes.toBytes(endKey))
+                .build();
+        return new HRegionLocation(region, ServerName.valueOf(host, 16020, 1L));
+    }
+
+    private static Map<byte[], Long> sizes(HRegionLocation a, long aSize, HRegionLocation b, long bSize)
+    {
+        Map<byte[], Long> sizes = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        sizes.put(a.getRegion().getRegionName(), aSize);
+        if (b != null) {
+            sizes.put(b.getRegion().getRegionName(), bSize);
+        }
+        return sizes;
+    }
+
+    private static RegionLocator locator(HRegionLocation... locations)
+    {
+        List<HRegionLocation> all = new ArrayList<>(List.of(locations));
+        return (RegionLocator) Proxy.newProxyInstance(RegionLocator.class.getClassLoader(),
+                new Class<?>[] {RegionLocator.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getAllRegionLocations":
+                            return all;
+                        case "getName":
+                            return TABLE;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static Hbase20xHelper.RowKeyProbe probe(byte[] firstRow, byte[] lastRow)
+    {
+        return new Hbase20xHelper.RowKeyProbe()
+        {
+            @Override
+            public byte[] firstRow(byte[] stopRow)
+            {
+                return firstRow;
+            }
+
+            @Override
+            public byte[] lastRow(byte[] startRow)
+            {
+                return lastRow;
+            }
+        };
+    }
+}
@@ -59,4 +59,10 @@ public final class HttpKey
     public static final String PAGE_PARAMS = "pageParams";
     public static final String PAGE_SIZE = "pageSize";
     public static final String PAGE_INDEX = "pageIndex";
+    // the number of page requests in flight at the same time
+    public static final String PREFETCH = "prefetch";
+    // the total number of records, if known, the pages are partitioned across tasks
+    public static final String TOTAL_COUNT = "totalCount";
+    // internal key, the number of pages read by a task
+    public static final String PAGE_COUNT = "pageCount";
 }
@@ -47,12 +47,16 @@ import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.X509Certificate;
 import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
@@ -78,6 +82,26 @@ public class HttpReader
             return new PageConfig(HttpKey.PAGE_SIZE, HttpKey.PAGE_INDEX,
                     Task.DEFAULT_PAGE_SIZE, Task.DEFAULT_PAGE_INDEX);
         }
+
+        static PageConfig of(Configuration readerConfig)
+        {
+            var pageParams = readerConfig.getConfiguration(HttpKey.PAGE_PARAMS);
+            if (pageParams == null) {
+                return defaultConfig();
+            }
+
+            var indexConfig = pageParams.getString(HttpKey.PAGE_INDEX) != null ?
+                    pageParams.getMap(HttpKey.PAGE_INDEX) : Map.of();
+            var sizeConfig = pageParams.getString(HttpKey.PAGE_SIZE) != null ?
+                    pageParams.getMap(HttpKey.PAGE_SIZE) : Map.of();
+
+            return new PageConfig(
+                    (String) sizeConfig.getOrDefault("key", HttpKey.PAGE_SIZE),
+                    (String) indexConfig.getOrDefault("key", HttpKey.PAGE_INDEX),
+                    Integer.parseInt(sizeConfig.getOrDefault("value", Task.DEFAULT_PAGE_SIZE).toString()),
+                    Integer.parseInt(indexConfig.getOrDefault("value", Task.DEFAULT_PAGE_INDEX).toString())
+            );
+        }
     }
 
     // Auth endpoint configuration used to fetch token before reading business data.
@@ -90,6 +114,7 @@ public class HttpReader
     public static class Job
             extends Reader.Job
     {
+        private static final Logger LOG = LoggerFactory.getLogger(Job.class);
         private Configuration originConfig = null;
 
         @Override
@@ -108,7 +133,29 @@ public class HttpReader
         public List<Configuration> split(int adviceNumber)
         {
             List<Configuration> result = new ArrayList<>();
-            result.add(this.originConfig);
+            long totalCount = originConfig.getLong(HttpKey.TOTAL_COUNT, -1L);
+            if (!originConfig.getBool(HttpKey.IS_PAGE, false) || totalCount < 0) {
+                result.add(this.originConfig);
+                return result;
+            }
+
+            // the total count is known up front, so partition the page range across tasks
+            var pageConfig = PageConfig.of(originConfig);
+            long pageNum = Math.max(1, (totalCount + pageConfig.initialSize() - 1) / pageConfig.initialSize());
+            int taskNum = (int) Math.min(Math.max(adviceNumber, 1), pageNum);
+            long pagesPerTask = pageNum / taskNum;
+            long remainder = pageNum % taskNum;
+            long pageIndex = pageConfig.initialIndex();
+            for (int i = 0; i < taskNum; i++) {
+                long pageCount = pagesPerTask + (i < remainder ? 1 : 0);
+                Configuration slice = originConfig.clone();
+                slice.set(HttpKey.PAGE_PARAMS + "." + HttpKey.PAGE_INDEX + ".key", pageConfig.indexKey());
+                slice.set(HttpKey.PAGE_PARAMS + "." + HttpKey.PAGE_INDEX + ".value", pageIndex);
+                slice.set(HttpKey.PAGE_COUNT, pageCount);
+                result.add(slice);
+                pageIndex += pageCount;
+            }
+            LOG.info("Split {} pages into {} tasks.", pageNum, result.size());
             return result;
         }
     }
@@ -120,6 +167,7 @@ public class HttpReader
         private static final int DEFAULT_PAGE_INDEX = 1;
         private static final int DEFAULT_PAGE_SIZE = 20;
         private static final int DEFAULT_TIMEOUT_SEC = 60;
+        private static final int DEFAULT_PREFETCH = 1;
         private static final String DEFAULT_TOKEN_HEADER = "Authorization";
         private static final String DEFAULT_TOKEN_PREFIX = "Bearer ";
 
@@ -307,41 +355,46 @@ public class HttpReader
             }
         }
 
+        /**
+         * Read pages with up to {@code prefetch} requests in flight.
+         * The responses are consumed in page order, once a short page is received,
+         * the requests of the following pages are cancelled.
+         *
+         * @param recordSender the record sender
+         */
         private void processPagedRequest(RecordSender recordSender)
         {
-            var pageConfig = getPageConfig();
+            var pageConfig = PageConfig.of(readerSliceConfig);
             var pageSize = pageConfig.initialSize();
-            var pageIndex = pageConfig.initialIndex();
+            var prefetch = Math.max(1, readerSliceConfig.getInt(HttpKey.PREFETCH, DEFAULT_PREFETCH));
+            // the page after the last one this task reads, unbounded unless the job split the pages
+            long endPageIndex = pageConfig.initialIndex() + readerSliceConfig.getLong(HttpKey.PAGE_COUNT, Integer.MAX_VALUE);
+            long pageIndex = pageConfig.initialIndex();
 
             queryParams.put(pageConfig.sizeKey(), String.valueOf(pageSize));
-            while (true) {
-                queryParams.put(pageConfig.indexKey(), String.valueOf(pageIndex));
-                var realPageSize = getRecords(recordSender);
-                if (realPageSize < pageSize) {
-                    break;
+            // the futures of sendAsync itself, cancelling them aborts the exchanges
+            Deque<CompletableFuture<HttpResponse<String>>> inFlight = new ArrayDeque<>(prefetch);
+            try {
+                while (true) {
+                    while (inFlight.size() < prefetch && pageIndex < endPageIndex) {
+                        Map<String, String> pageParams = new HashMap<>(queryParams);
+                        pageParams.put(pageConfig.indexKey(), String.valueOf(pageIndex));
+                        LOG.info("Requesting: {}", buildUri(baseUri, method, pageParams));
+                        inFlight.add(executeRequestAsync(pageParams));
+                        pageIndex++;
+                    }
+                    if (inFlight.isEmpty()) {
+                        break;
+                    }
+                    var realPageSize = processResponse(awaitResponse(inFlight.poll()), recordSender);
+                    if (realPageSize < pageSize) {
+                        break;
+                    }
                 }
-                pageIndex++;
             }
-        }
-
-        private PageConfig getPageConfig()
-        {
-            var pageParams = readerSliceConfig.getConfiguration(HttpKey.PAGE_PARAMS);
-            if (pageParams == null) {
-                return PageConfig.defaultConfig();
+            finally {
+                inFlight.forEach(future -> future.cancel(true));
             }
-
-            var indexConfig = pageParams.getString(HttpKey.PAGE_INDEX) != null ?
-                    pageParams.getMap(HttpKey.PAGE_INDEX) : Map.of();
-            var sizeConfig = pageParams.getString(HttpKey.PAGE_SIZE) != null ?
-                    pageParams.getMap(HttpKey.PAGE_SIZE) : Map.of();
-
-            return new PageConfig(
-                    (String) sizeConfig.getOrDefault("key", HttpKey.PAGE_SIZE),
-                    (String) indexConfig.getOrDefault("key", HttpKey.PAGE_INDEX),
-                    Integer.parseInt(sizeConfig.getOrDefault("value", DEFAULT_PAGE_SIZE).toString()),
-                    Integer.parseInt(indexConfig.getOrDefault("value", DEFAULT_PAGE_INDEX).toString())
-            );
         }
 
         private String fetchTokenFromAuthConfig()
@@ -381,7 +434,61 @@ public class HttpReader
         private String executeRequest(URI targetUri, String requestMethod, Map<String, String> requestParams,
                 Map<String, Object> headers, boolean withAuth)
         {
-            var charset = Charset.forName(readerSliceConfig.getString(HttpKey.ENCODING, StandardCharsets.UTF_8.name()));
+            HttpRequest request = buildRequest(targetUri, requestMethod, requestParams, headers, withAuth);
+            try {
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString(getCharset()));
+                return checkResponse(response);
+            }
+            catch (InterruptedException e) {
+                throw AddaxException.asAddaxException(RUNTIME_ERROR, "HTTP request was interrupted: %s".formatted(e.getMessage()));
+            }
+            catch (IOException e) {
+                throw AddaxException.asAddaxException(RUNTIME_ERROR, "HTTP request failed: %s".formatted(e.getMessage()));
+            }
+        }
+
+        private CompletableFuture<HttpResponse<String>> executeRequestAsync(Map<String, String> requestParams)
+        {
+            HttpRequest request = buildRequest(baseUri, method, requestParams,
+                    readerSliceConfig.getMap(HttpKey.HEADERS, new HashMap<>()), true);
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(getCharset()));
+        }
+
+        private String awaitResponse(CompletableFuture<HttpResponse<String>> future)
+        {
+            try {
+                return checkResponse(future.get());
+            }
+            catch (IOException e) {
+                throw AddaxException.asAddaxException(RUNTIME_ERROR, "HTTP request failed: %s".formatted(e.getMessage()));
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw AddaxException.asAddaxException(RUNTIME_ERROR, "HTTP request was interrupted: %s".formatted(e.getMessage()));
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                throw AddaxException.asAddaxException(RUNTIME_ERROR, "HTTP request failed: %s".formatted(cause.getMessage()));
+            }
+        }
+
+        private static String checkResponse(HttpResponse<String> response)
+                throws IOException
+        {
+            if (response.statusCode() >= 400) {
+                throw new IOException("HTTP request failed with status code: " + response.statusCode());
+            }
+            return response.body();
+        }
+
+        private Charset getCharset()
+        {
+            return Charset.forName(readerSliceConfig.getString(HttpKey.ENCODING, StandardCharsets.UTF_8.name()));
+        }
+
+        private HttpRequest buildRequest(URI targetUri, String requestMethod, Map<String, String> requestParams,
+                Map<String, Object> headers, boolean withAuth)
+        {
             URI requestUri = buildUri(targetUri, requestMethod, requestParams);
             HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
                     .uri(requestUri)
@@ -419,27 +526,17 @@ public class HttpReader
             else {
                 throw new IllegalArgumentException("Unsupported HTTP method: " + requestMethod);
             }
-
-            try {
-                HttpResponse<String> response = httpClient.send(requestBuilder.build(),
-                        HttpResponse.BodyHandlers.ofString(charset));
-                if (response.statusCode() >= 400) {
-                    throw new IOException("HTTP request failed with status code: " + response.statusCode());
-                }
-                return response.body();
-            }
-            catch (InterruptedException e) {
-                throw AddaxException.asAddaxException(RUNTIME_ERROR, "HTTP request was interrupted: %s".formatted(e.getMessage()));
-            }
-            catch (IOException e) {
-                throw AddaxException.asAddaxException(RUNTIME_ERROR, "HTTP request failed: %s".formatted(e.getMessage()));
-            }
+            return requestBuilder.build();
         }
 
         private int getRecords(RecordSender recordSender)
         {
             LOG.info("Requesting: {}", buildUri());
-            String body = executeRequest();
+            return processResponse(executeRequest(), recordSender);
+        }
+
+        private int processResponse(String body, RecordSender recordSender)
+        {
             var resultKey = readerSliceConfig.getString(HttpKey.RESULT_KEY, "");
             var jsonData = resultKey.isEmpty() ?
                     JSON.parse(body) :
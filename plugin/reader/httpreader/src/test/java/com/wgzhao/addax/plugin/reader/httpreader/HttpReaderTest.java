@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.plugin.reader.httpreader;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.plugin.RecordSender;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import com.wgzhao.addax.core.util.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpReaderTest
+{
+    private static final int PAGE_SIZE = 2;
+    private static final int LAST_PAGE = 3;
+
+    private HttpServer server;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void startServer()
+            throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/items", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer()
+    {
+        release.countDown();
+        server.stop(0);
+    }
+
+    /*
+     * Pages 1 and 2 are full, page 3 is short, the pages after it only answer once released
+     */
+    private void handle(HttpExchange exchange)
+            throws IOException
+    {
+        String query = exchange.getRequestURI().getQuery();
+        int page = Integer.parseInt(query.replaceAll(".*pageIndex=(\\d+).*", "$1"));
+        if (page > LAST_PAGE) {
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        int rows = page < LAST_PAGE ? PAGE_SIZE : (page == LAST_PAGE ? 1 : 0);
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < rows; i++) {
+            body.append(i == 0 ? "" : ",").append("{\"id\":").append(page * 10 + i).append('}');
+        }
+        byte[] bytes = body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Test
+    void pagesAreReadInOrderAndStopAtTheShortPage()
+    {
+        Configuration conf = Configuration.from("""
+                {
+                  "connection": {"url": "http://127.0.0.1:%d/items"},
+                  "isPage": true,
+                  "prefetch": 4,
+                  "pageParams": {"pageSize": {"key": "pageSize", "value": %d}, "pageIndex": {"key": "pageIndex", "value": 1}},
+                  "column": ["id"]
+                }
+                """.formatted(server.getAddress().getPort(), PAGE_SIZE));
+        HttpReader.Task task = new HttpReader.Task();
+        task.setPluginJobConf(conf);
+        task.init();
+
+        CollectingSender sender = new CollectingSender();
+        long start = System.nanoTime();
+        task.startRead(sender);
+        long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+
+        List<String> ids = new ArrayList<>();
+        sender.records.forEach(r -> ids.add(r.getColumn(0).asString()));
+        assertEquals(List.of("10", "11", "20", "21", "30"), ids);
+        // the prefetched pages after the short one are cancelled, not waited for
+        assertTrue(elapsed < 10, "took " + elapsed + "s");
+    }
+
+    private static final class CollectingSender
+            implements RecordSender
+    {
+        private final List<Record> records = new ArrayList<>();
+
+        @Override
+        public Record createRecord()
+        {
+            return new DefaultRecord();
+        }
+
+        @Override
+        public void sendToWriter(Record record)
+        {
+            records.add(record);
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void terminate() {}
+
+        @Override
+        public void shutdown() {}
+    }
+}
@@ -30,4 +30,5 @@ public final class InfluxDB2Key
     public static final String TOKEN = "token";
     public static final String RANGE = "range";
     public static final String LIMIT = "limit";
+    public static final String SPLIT_INTERVAL = "splitInterval";
 }
@@ -19,12 +19,13 @@
 
 package com.wgzhao.addax.plugin.reader.influxdb2reader;
 
+import com.influxdb.Cancellable;
 import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.InfluxDBClientFactory;
 import com.influxdb.client.QueryApi;
 import com.influxdb.query.FluxColumn;
-import com.influxdb.query.FluxRecord;
 import com.influxdb.query.FluxTable;
+import com.wgzhao.addax.core.element.Column;
 import com.wgzhao.addax.core.element.DoubleColumn;
 import com.wgzhao.addax.core.element.LongColumn;
 import com.wgzhao.addax.core.element.Record;
@@ -36,25 +37,43 @@ import com.wgzhao.addax.core.util.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static com.wgzhao.addax.core.base.Key.COLUMN;
 import static com.wgzhao.addax.core.base.Key.CONNECTION;
 import static com.wgzhao.addax.core.base.Key.ENDPOINT;
 import static com.wgzhao.addax.core.base.Key.QUERY_SQL;
 import static com.wgzhao.addax.core.base.Key.TABLE;
+import static com.wgzhao.addax.core.spi.ErrorCode.ILLEGAL_VALUE;
 import static com.wgzhao.addax.core.spi.ErrorCode.REQUIRED_VALUE;
+import static com.wgzhao.addax.core.spi.ErrorCode.RUNTIME_ERROR;
 
 public class InfluxDB2Reader
         extends Reader
 {
 
+    // a flux duration, such as -1h or -1d12h30m
+    private static final Pattern DURATION = Pattern.compile("(\\d+)(ns|us|\u00b5s|ms|mo|s|m|h|d|w|y)");
+
     public static class Job
             extends Reader.Job
     {
+        private static final Logger LOG = LoggerFactory.getLogger(Job.class);
+
         private Configuration originalConfig = null;
         private String endpoint;
         private List<String> tables;
@@ -93,7 +112,7 @@ public class InfluxDB2Reader
                 columns.clear();
             }
 
-            String querySql = generalQueryQL();
+            String querySql = generalQueryQL(rangeAt(0), rangeAt(1));
             // write query sql
             conf.set(QUERY_SQL, querySql);
 
@@ -144,17 +163,15 @@ public class InfluxDB2Reader
             return conf;
         }
 
-        private String generalQueryQL()
+        private String rangeAt(int index)
+        {
+            return range.size() > index ? range.get(index) : null;
+        }
+
+        private String generalQueryQL(String startTime, String endTime)
         {
             Configuration connConf = originalConfig.getConfiguration(CONNECTION);
             String bucket = connConf.getString(InfluxDB2Key.BUCKET);
-            String startTime = null, endTime = null;
-            if (!range.isEmpty()) {
-                startTime = range.get(0);
-                if (range.size() == 2) {
-                    endTime = range.get(1);
-                }
-            }
 
             StringBuilder queryBuilder = new StringBuilder();
 
@@ -206,12 +223,109 @@ public class InfluxDB2Reader
         @Override
         public List<Configuration> split(int adviceNumber)
         {
-            Configuration readerSliceConfig = super.getPluginJobConf();
             List<Configuration> splitConfigs = new ArrayList<>();
-            splitConfigs.add(readerSliceConfig);
+            String splitInterval = originalConfig.getString(InfluxDB2Key.SPLIT_INTERVAL);
+            // a limit samples the whole range, it can not be spread over windows
+            if (originalConfig.getInt(InfluxDB2Key.LIMIT) != null || (adviceNumber <= 1 && splitInterval == null)) {
+                splitConfigs.add(originalConfig);
+                return splitConfigs;
+            }
+
+            // resolve the relative times once, so that the windows of all the tasks line up
+            Instant now = Instant.now();
+            Instant start = toInstant(rangeAt(0), now);
+            Instant stop = rangeAt(1) == null ? now : toInstant(rangeAt(1), now);
+            if (start == null || stop == null || !start.isBefore(stop)) {
+                LOG.info("The range {} can not be split into time windows, read it with one task", range);
+                splitConfigs.add(originalConfig);
+                return splitConfigs;
+            }
+
+            Duration window;
+            if (splitInterval != null) {
+                window = parseSplitInterval(splitInterval);
+            }
+            else {
+                long millis = Duration.between(start, stop).toMillis();
+                window = Duration.ofMillis(Math.max(1, (millis + adviceNumber - 1) / adviceNumber));
+            }
+            // flux ranges include the start and exclude the stop, so adjacent windows do not overlap
+            for (Instant ts = start; ts.isBefore(stop); ts = ts.plus(window)) {
+                Instant end = ts.plus(window).isBefore(stop) ? ts.plus(window) : stop;
+                Configuration clone = originalConfig.clone();
+                clone.set(QUERY_SQL, generalQueryQL(ts.toString(), end.toString()));
+                splitConfigs.add(clone);
+            }
+            LOG.info("Split the range [{}, {}) into {} windows of {}", start, stop, splitConfigs.size(), window);
             return splitConfigs;
         }
 
+        /**
+         * Resolve a flux range bound, a duration relative to now, a RFC3339 time, a date or unix seconds.
+         *
+         * @param value the range bound
+         * @param now the time relative durations refer to
+         * @return the instant, or null if the bound is an expression which can not be resolved here
+         */
+        private static Instant toInstant(String value, Instant now)
+        {
+            String v = value.trim();
+            if ("now()".equals(v)) {
+                return now;
+            }
+            if (v.matches("-?\\d+")) {
+                return Instant.ofEpochSecond(Long.parseLong(v));
+            }
+            if (v.matches("-?(\\d+(ns|us|\u00b5s|ms|mo|s|m|h|d|w|y))+")) {
+                boolean negative = v.startsWith("-");
+                ZonedDateTime time = now.atZone(ZoneOffset.UTC);
+                Matcher matcher = DURATION.matcher(v);
+                while (matcher.find()) {
+                    long amount = Long.parseLong(matcher.group(1)) * (negative ? -1 : 1);
+                    time = switch (matcher.group(2)) {
+                        case "ns" -> time.plusNanos(amount);
+                        case "us", "\u00b5s" -> time.plusNanos(amount * 1000);
+                        case "ms" -> time.plusNanos(amount * 1_000_000);
+                        case "s" -> time.plusSeconds(amount);
+                        case "m" -> time.plusMinutes(amount);
+                        case "h" -> time.plusHours(amount);
+                        case "d" -> time.plusDays(amount);
+                        case "w" -> time.plusWeeks(amount);
+                        case "mo" -> time.plusMonths(amount);
+                        default -> time.plusYears(amount);
+                    };
+                }
+                return time.toInstant();
+            }
+            try {
+                return OffsetDateTime.parse(v).toInstant();
+            }
+            catch (DateTimeParseException e) {
+                try {
+                    return LocalDate.parse(v).atStartOfDay(ZoneOffset.UTC).toInstant();
+                }
+                catch (DateTimeParseException ignored) {
+                    return null;
+                }
+            }
+        }
+
+        private static Duration parseSplitInterval(String splitInterval)
+        {
+            Matcher matcher = Pattern.compile("^(\\d+)([dhms])$").matcher(splitInterval.trim());
+            if (!matcher.find() || Long.parseLong(matcher.group(1)) == 0) {
+                throw AddaxException.asAddaxException(ILLEGAL_VALUE, "The parameter [" + InfluxDB2Key.SPLIT_INTERVAL +
+                        "] should be like: \"123d|h|m|s\", but got " + splitInterval);
+            }
+            long value = Long.parseLong(matcher.group(1));
+            return switch (matcher.group(2).charAt(0)) {
+                case 'd' -> Duration.ofDays(value);
+                case 'm' -> Duration.ofMinutes(value);
+                case 's' -> Duration.ofSeconds(value);
+                default -> Duration.ofHours(value);
+            };
+        }
+
         @Override
         public void post()
         {
@@ -261,45 +375,59 @@ public class InfluxDB2Reader
 
             QueryApi queryApi = influxDBClient.getQueryApi();
 
-            List<FluxTable> tables = queryApi.query(queryQL);
-            if (tables.isEmpty()) {
-                influxDBClient.close();
-                return;
-            }
-
-            for (FluxTable fluxTable : tables) {
-                List<FluxRecord> records = fluxTable.getRecords();
-                for (FluxRecord fluxRecord : records) {
-                    Record record = recordSender.createRecord();
-
-                    for (Map<String, String> column : columns) {
-                        Object v = fluxRecord.getValueByKey(column.get("name"));
-                        if (v == null) {
-                            record.addColumn(new StringColumn());
-                            continue;
-                        }
-
-                        switch (column.get("type")) {
-                            case "long":
-                            case "int":
-                                record.addColumn(new LongColumn((long) v));
-                                break;
-
-                            case "double":
-                            case "float":
-                                record.addColumn(new DoubleColumn((double) v));
-                                break;
-
-                            case "string":
-                            default:
-                                record.addColumn(new StringColumn(v.toString()));
-                                break;
+            // records are parsed from the response as it streams in and sent from the callback of the client,
+            // the result is never held as a whole; this thread waits for the query to end
+            CountDownLatch done = new CountDownLatch(1);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            AtomicReference<Cancellable> running = new AtomicReference<>();
+            try {
+                queryApi.query(queryQL, (cancellable, fluxRecord) -> {
+                    running.set(cancellable);
+                    try {
+                        Record record = recordSender.createRecord();
+
+                        for (Map<String, String> column : columns) {
+                            record.addColumn(toColumn(column.get("type"), fluxRecord.getValueByKey(column.get("name"))));
                         }
+                        recordSender.sendToWriter(record);
+                    }
+                    catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                        cancellable.cancel();
+                        done.countDown();
                     }
-                    recordSender.sendToWriter(record);
+                }, e -> {
+                    failure.compareAndSet(null, e);
+                    done.countDown();
+                }, done::countDown);
+                done.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (running.get() != null) {
+                    running.get().cancel();
                 }
+                throw AddaxException.asAddaxException(RUNTIME_ERROR, "Interrupted while reading from InfluxDB", e);
+            }
+            finally {
+                influxDBClient.close();
+            }
+            if (failure.get() != null) {
+                throw AddaxException.asAddaxException(RUNTIME_ERROR, "Failed to read from InfluxDB: " + failure.get().getMessage(),
+                        failure.get());
+            }
+        }
+
+        private static Column toColumn(String type, Object v)
+        {
+            if (v == null) {
+                return new StringColumn();
             }
-            influxDBClient.close();
+            return switch (type) {
+                case "long", "int" -> new LongColumn((long) v);
+                case "double", "float" -> new DoubleColumn((double) v);
+                default -> new StringColumn(v.toString());
+            };
         }
 
         @Override
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.plugin.reader.influxdb2reader;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.exception.AddaxException;
+import com.wgzhao.addax.core.plugin.RecordSender;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import com.wgzhao.addax.core.util.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.wgzhao.addax.core.base.Key.QUERY_SQL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the reader against a local HTTP server standing in for the query API of InfluxDB 2.
+ */
+class InfluxDB2ReaderTest
+{
+    private static final String CSV = """
+            #datatype,string,long,dateTime:RFC3339,string,double,long
+            #group,false,false,false,true,false,false
+            #default,_result,,,,,
+            ,result,table,_time,_measurement,temp,hum
+            ,,0,2024-01-01T00:00:00Z,m,1.5,10
+            ,,0,2024-01-01T01:00:00Z,m,2.5,20
+            ,,0,2024-01-01T02:00:00Z,m,3.5,30
+
+            """;
+
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private volatile int status = 200;
+
+    @BeforeEach
+    void setUp()
+            throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v2/query", this::serve);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        server.stop(0);
+    }
+
+    private void serve(HttpExchange exchange)
+            throws IOException
+    {
+        queries.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        byte[] body = (status == 200 ? CSV : "{\"code\":\"invalid\",\"message\":\"bad query\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", status == 200 ? "text/csv; charset=utf-8" : "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Test
+    void rangeIsSplitIntoWindowsReadAsTheyStream()
+    {
+        InfluxDB2Reader.Job job = new InfluxDB2Reader.Job();
+        job.setPluginJobConf(jobConf("[\"2024-01-01T00:00:00Z\", \"2024-01-01T04:00:00Z\"]"));
+        job.init();
+        job.prepare();
+        List<Configuration> splits = job.split(4);
+
+        assertEquals(4, splits.size());
+        assertTrue(splits.get(0).getString(QUERY_SQL).contains("range(start: 2024-01-01T00:00:00Z, stop: 2024-01-01T01:00:00Z)"));
+        assertTrue(splits.get(3).getString(QUERY_SQL).contains("range(start: 2024-01-01T03:00:00Z, stop: 2024-01-01T04:00:00Z)"));
+
+        queries.clear();
+        List<Record> records = new ArrayList<>();
+        for (Configuration split : splits) {
+            read(split, records);
+        }
+        assertEquals(4, queries.size());
+        assertTrue(queries.get(1).contains("start: 2024-01-01T01:00:00Z"));
+        assertEquals(12, records.size());
+        // the columns are those of the schema, without the internal ones
+        Record first = records.get(0);
+        assertEquals(3, first.getColumnNumber());
+        assertEquals("2024-01-01T00:00:00Z", first.getColumn(0).asString());
+        assertEquals(1.5, first.getColumn(1).asDouble());
+        assertEquals(10L, first.getColumn(2).asLong());
+    }
+
+    @Test
+    void failedQueryFailsTheTask()
+    {
+        InfluxDB2Reader.Job job = new InfluxDB2Reader.Job();
+        job.setPluginJobConf(jobConf("[\"2024-01-01T00:00:00Z\", \"2024-01-01T04:00:00Z\"]"));
+        job.init();
+        job.prepare();
+        Configuration split = job.split(1).get(0);
+
+        status = 400;
+        assertThrows(AddaxException.class, () -> read(split, new ArrayList<>()));
+    }
+
+    private Configuration jobConf(String range)
+    {
+        return Configuration.from("{"
+                + "\"connection\": {\"endpoint\": \"http://127.0.0.1:" + server.getAddress().getPort() + "\","
+                + " \"bucket\": \"b\", \"org\": \"o\", \"table\": [\"m\"]},"
+                + "\"token\": \"t\", \"column\": [\"*\"], \"range\": " + range + "}");
+    }
+
+    private static void read(Configuration split, List<Record> records)
+    {
+        InfluxDB2Reader.Task task = new InfluxDB2Reader.Task();
+        task.setPluginJobConf(split);
+        task.init();
+        task.startRead(new RecordSender()
+        {
+            @Override
+            public Record createRecord()
+            {
+                return new DefaultRecord();
+            }
+
+            @Override
+            public void sendToWriter(Record record)
+            {
+                records.add(record);
+            }
+
+            @Override
+            public void flush()
+            {
+            }
+
+            @Override
+            public void terminate()
+            {
+            }
+
+            @Override
+            public void shutdown()
+            {
+            }
+        });
+    }
+}
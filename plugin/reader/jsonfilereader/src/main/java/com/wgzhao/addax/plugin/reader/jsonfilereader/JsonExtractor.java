@@ -0,0 +1,373 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.reader.jsonfilereader;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Extract the values of a set of simple JsonPath expressions from a token stream.
+ * <p>
+ * All the paths are compiled once into a single tree, each document is then scanned only once
+ * with a pull parser, the branches which no path refers to are skipped without being materialized.
+ * Only the definite paths consist of field names and array indexes are supported, like
+ * {@code $.a.b}, {@code $['a'].b[0]}. In array mode, every path must share the same prefix ending with
+ * {@code [*]}, like {@code $[*].id} or {@code $.data[*].id}, the elements of that array are treated as documents.
+ */
+public final class JsonExtractor
+{
+    private static final Object WILDCARD = new Object();
+
+    private final Node root = new Node();
+    private final List<Object> arrayPrefix;
+    private final String[] values;
+    private final JsonFactory jsonFactory;
+
+    private JsonExtractor(List<Object> arrayPrefix, int valueNum, JsonFactory jsonFactory)
+    {
+        this.arrayPrefix = arrayPrefix;
+        this.values = new String[valueNum];
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * compile paths which are evaluated against each top level document
+     *
+     * @param paths the paths of the columns
+     * @param jsonFactory the factory used to serialize object or array values
+     * @return the extractor, or null if any path is not supported
+     */
+    public static JsonExtractor compile(List<String> paths, JsonFactory jsonFactory)
+    {
+        JsonExtractor extractor = new JsonExtractor(null, paths.size(), jsonFactory);
+        for (int i = 0; i < paths.size(); i++) {
+            List<Object> steps = parsePath(paths.get(i));
+            if (steps == null || steps.contains(WILDCARD)) {
+                return null;
+            }
+            extractor.root.add(steps, 0, i);
+        }
+        return extractor;
+    }
+
+    /**
+     * compile paths which are evaluated against each element of one array, like {@code $.data[*].id}
+     *
+     * @param paths the paths of the columns
+     * @param jsonFactory the factory used to serialize object or array values
+     * @return the extractor, or null if any path is not supported or the paths do not share the same array
+     */
+    public static JsonExtractor compileArrayElements(List<String> paths, JsonFactory jsonFactory)
+    {
+        List<Object> prefix = null;
+        List<List<Object>> elementPaths = new ArrayList<>();
+        for (String path : paths) {
+            List<Object> steps = parsePath(path);
+            if (steps == null) {
+                return null;
+            }
+            int wildcard = steps.indexOf(WILDCARD);
+            if (wildcard < 0 || steps.lastIndexOf(WILDCARD) != wildcard) {
+                return null;
+            }
+            List<Object> thisPrefix = steps.subList(0, wildcard);
+            if (prefix == null) {
+                prefix = thisPrefix;
+            }
+            else if (!prefix.equals(thisPrefix)) {
+                return null;
+            }
+            elementPaths.add(steps.subList(wildcard + 1, steps.size()));
+        }
+        if (prefix == null) {
+            return null;
+        }
+        JsonExtractor extractor = new JsonExtractor(new ArrayList<>(prefix), paths.size(), jsonFactory);
+        for (int i = 0; i < elementPaths.size(); i++) {
+            extractor.root.add(elementPaths.get(i), 0, i);
+        }
+        return extractor;
+    }
+
+    /**
+     * Read all the top level values (an NDJSON file or concatenated documents) from the parser,
+     * the values of the paths of each document are passed to the consumer in the order of the paths.
+     * The array is reused between documents.
+     *
+     * @param parser the parser
+     * @param consumer the consumer of the extracted values
+     * @throws IOException if failed to read the stream
+     */
+    public void readDocuments(JsonParser parser, Consumer<String[]> consumer)
+            throws IOException
+    {
+        if (arrayPrefix != null) {
+            readArrayElements(parser, consumer);
+            return;
+        }
+        while (parser.nextToken() != null) {
+            Arrays.fill(values, null);
+            extract(parser, root);
+            consumer.accept(values);
+        }
+    }
+
+    private void readArrayElements(JsonParser parser, Consumer<String[]> consumer)
+            throws IOException
+    {
+        if (parser.nextToken() == null || !moveTo(parser, 0)) {
+            return;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            Arrays.fill(values, null);
+            extract(parser, root);
+            consumer.accept(values);
+        }
+    }
+
+    // move the parser to the value of the array prefix, return false if it does not exist
+    private boolean moveTo(JsonParser parser, int step)
+            throws IOException
+    {
+        if (step == arrayPrefix.size()) {
+            return true;
+        }
+        Object expected = arrayPrefix.get(step);
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT && expected instanceof String) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                if (expected.equals(name)) {
+                    return moveTo(parser, step + 1);
+                }
+                parser.skipChildren();
+            }
+            return false;
+        }
+        if (token == JsonToken.START_ARRAY && expected instanceof Integer) {
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (index++ == (Integer) expected) {
+                    return moveTo(parser, step + 1);
+                }
+                parser.skipChildren();
+            }
+            return false;
+        }
+        return false;
+    }
+
+    private void extract(JsonParser parser, Node node)
+            throws IOException
+    {
+        JsonToken token = parser.currentToken();
+        if (node.slots != null) {
+            String value = readValue(parser, token);
+            for (int slot : node.slots) {
+                values[slot] = value;
+            }
+            if (node.hasChildren() && token.isStructStart()) {
+                // the value is both selected and navigated into, parse the serialized form again
+                try (JsonParser subParser = jsonFactory.createParser(value)) {
+                    subParser.nextToken();
+                    extractChildren(subParser, node);
+                }
+            }
+            return;
+        }
+        extractChildren(parser, node);
+    }
+
+    private void extractChildren(JsonParser parser, Node node)
+            throws IOException
+    {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            if (node.fields == null) {
+                parser.skipChildren();
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                Node child = node.fields.get(parser.currentName());
+                parser.nextToken();
+                if (child == null) {
+                    parser.skipChildren();
+                }
+                else {
+                    extract(parser, child);
+                }
+            }
+        }
+        else if (token == JsonToken.START_ARRAY) {
+            if (node.indexes == null) {
+                parser.skipChildren();
+                return;
+            }
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                Node child = node.indexes.get(index++);
+                if (child == null) {
+                    parser.skipChildren();
+                }
+                else {
+                    extract(parser, child);
+                }
+            }
+        }
+    }
+
+    private String readValue(JsonParser parser, JsonToken token)
+            throws IOException
+    {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isStructStart()) {
+            return parser.getText();
+        }
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            generator.copyCurrentStructure(parser);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * split a definite JsonPath into field names, array indexes and wildcards
+     *
+     * @param path the JsonPath expression
+     * @return the steps, or null if the expression is not supported
+     */
+    static List<Object> parsePath(String path)
+    {
+        if (path == null) {
+            return null;
+        }
+        String p = path.trim();
+        if (!p.startsWith("$")) {
+            return null;
+        }
+        List<Object> steps = new ArrayList<>();
+        int i = 1;
+        while (i < p.length()) {
+            char c = p.charAt(i);
+            if (c == '.') {
+                int start = ++i;
+                while (i < p.length() && p.charAt(i) != '.' && p.charAt(i) != '[') {
+                    i++;
+                }
+                String name = p.substring(start, i);
+                // deep scan, wildcard and functions are not supported
+                if (name.isEmpty() || name.equals("*") || name.contains("(")) {
+                    return null;
+                }
+                steps.add(name);
+            }
+            else if (c == '[') {
+                int end = p.indexOf(']', i);
+                if (end < 0) {
+                    return null;
+                }
+                String content = p.substring(i + 1, end).trim();
+                if (content.equals("*")) {
+                    steps.add(WILDCARD);
+                }
+                else if (content.length() >= 2 && (content.charAt(0) == '\'' || content.charAt(0) == '"')
+                        && content.charAt(content.length() - 1) == content.charAt(0)) {
+                    String name = content.substring(1, content.length() - 1);
+                    if (name.indexOf('\'') >= 0 || name.indexOf('"') >= 0) {
+                        return null;
+                    }
+                    steps.add(name);
+                }
+                else if (!content.isEmpty() && content.chars().allMatch(Character::isDigit)) {
+                    steps.add(Integer.parseInt(content));
+                }
+                else {
+                    return null;
+                }
+                i = end + 1;
+            }
+            else {
+                return null;
+            }
+        }
+        return steps;
+    }
+
+    private static final class Node
+    {
+        private Map<String, Node> fields;
+        private Map<Integer, Node> indexes;
+        private int[] slots;
+
+        private void add(List<Object> steps, int pos, int slot)
+        {
+            if (pos == steps.size()) {
+                slots = slots == null ? new int[] {slot} : appendSlot(slots, slot);
+                return;
+            }
+            Object step = steps.get(pos);
+            Node child;
+            if (step instanceof Integer) {
+                if (indexes == null) {
+                    indexes = new HashMap<>();
+                }
+                child = indexes.computeIfAbsent((Integer) step, k -> new Node());
+            }
+            else {
+                if (fields == null) {
+                    fields = new HashMap<>();
+                }
+                child = fields.computeIfAbsent((String) step, k -> new Node());
+            }
+            child.add(steps, pos + 1, slot);
+        }
+
+        private boolean hasChildren()
+        {
+            return fields != null || indexes != null;
+        }
+
+        private static int[] appendSlot(int[] slots, int slot)
+        {
+            int[] result = Arrays.copyOf(slots, slots.length + 1);
+            result[slots.length] = slot;
+            return result;
+        }
+    }
+}
@@ -19,6 +19,8 @@
 
 package com.wgzhao.addax.plugin.reader.jsonfilereader;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
@@ -206,6 +208,9 @@ public class JsonReader
 
         private ParseContext parse;
         private boolean multiline;
+        private List<ColumnConfig> columnConfigs;
+        private JsonExtractor extractor;
+        private final JsonFactory jsonFactory = new JsonFactory();
 
         @Override
         public void init()
@@ -217,9 +222,41 @@ public class JsonReader
             this.encoding = readerSliceConfig.getString(Key.ENCODING, "utf-8");
             this.multiline = readerSliceConfig.getBool("singleLine", true);
             // return null for missing leafs.
-            com.jayway.jsonpath.Configuration jsonConf = com.jayway.jsonpath.Configuration.defaultConfiguration();
-            jsonConf.addOptions(Option.DEFAULT_PATH_LEAF_TO_NULL);
+            com.jayway.jsonpath.Configuration jsonConf = com.jayway.jsonpath.Configuration.defaultConfiguration()
+                    .addOptions(Option.DEFAULT_PATH_LEAF_TO_NULL);
             this.parse = JsonPath.using(jsonConf);
+
+            this.columnConfigs = new ArrayList<>();
+            List<String> paths = new ArrayList<>();
+            for (Configuration col : columns) {
+                ColumnConfig columnConfig = new ColumnConfig(col.getString(Key.TYPE).toLowerCase(), col.getString(Key.VALUE),
+                        col.getString(Key.INDEX), col.getString(Key.FORMAT));
+                if (columnConfig.value() == null) {
+                    paths.add(columnConfig.index());
+                }
+                columnConfigs.add(columnConfig);
+            }
+            // compile all paths into one extraction tree, fall back to JsonPath for the expressions it does not support
+            this.extractor = multiline ? JsonExtractor.compile(paths, jsonFactory)
+                    : JsonExtractor.compileArrayElements(paths, jsonFactory);
+            if (extractor == null) {
+                LOG.info("The column paths can not be evaluated while streaming, use JsonPath to parse the whole document instead.");
+            }
+        }
+
+        private List<Column> buildColumns(String[] values)
+        {
+            List<Column> sourceLine = new ArrayList<>(columnConfigs.size());
+            int slot = 0;
+            for (ColumnConfig columnConfig : columnConfigs) {
+                if (columnConfig.value() != null) {
+                    sourceLine.add(getColumn(columnConfig.type(), columnConfig.value(), columnConfig.format()));
+                }
+                else {
+                    sourceLine.add(getColumn(columnConfig.type(), values[slot++], columnConfig.format()));
+                }
+            }
+            return sourceLine;
         }
 
         private List<Column> parseFromJson(String json)
@@ -358,16 +395,37 @@ public class JsonReader
                 catch (CompressorException | UnsupportedEncodingException e) {
                     throw AddaxException.asAddaxException(IO_ERROR, e);
                 }
-                if (multiline) {
+                if (extractor != null) {
+                    streamingJsonParse(reader, recordSender);
+                }
+                else if (multiline) {
                     multilineJsonParse(reader, recordSender);
                 } else {
                     singleJsonParse(reader, recordSender);
                 }
                 IOUtils.closeQuietly(reader, null);
             }
+            recordSender.flush();
             LOG.debug("end reading source files...");
         }
 
+        /**
+         * parse the file with a pull parser, either a sequence of documents (JSON Lines)
+         * or one array whose elements are the documents, only the configured paths are materialized
+         *
+         * @param reader {@link BufferedReader}
+         * @param recordSender {@link RecordSender}
+         */
+        private void streamingJsonParse(BufferedReader reader, RecordSender recordSender)
+        {
+            try (JsonParser parser = jsonFactory.createParser(reader)) {
+                extractor.readDocuments(parser, values -> transportOneRecord(recordSender, buildColumns(values)));
+            }
+            catch (IOException e) {
+                throw AddaxException.asAddaxException(IO_ERROR, e);
+            }
+        }
+
         /**
          * parse JSON Lines file
          * each line is a json object
@@ -384,7 +442,6 @@ public class JsonReader
                 while (jsonLine != null) {
                     List<Column> sourceLine = parseFromJson(jsonLine);
                     transportOneRecord(recordSender, sourceLine);
-                    recordSender.flush();
                     jsonLine = reader.readLine();
                 }
             }
@@ -436,7 +493,6 @@ public class JsonReader
                     }
                 }
                 transportOneRecord(recordSender, sourceLine);
-                recordSender.flush();
                 sourceLine.clear();
             }
         }
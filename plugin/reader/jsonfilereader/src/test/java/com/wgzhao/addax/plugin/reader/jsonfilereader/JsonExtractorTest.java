@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.reader.jsonfilereader;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.ParseContext;
+import com.jayway.jsonpath.PathNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Compares the values of the streaming extractor with those JsonPath reads, as configured by the reader.
+ */
+class JsonExtractorTest
+{
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ParseContext JSON_PATH = JsonPath.using(Configuration.defaultConfiguration()
+            .addOptions(Option.DEFAULT_PATH_LEAF_TO_NULL));
+
+    private static final String DOCUMENT = "{\"id\": 7, \"name\": \"say \\\"hi\\\"\", \"ok\": true, \"none\": null,"
+            + " \"big\": 12345678901234567890, \"ratio\": 1.50, \"exp\": 1e3,"
+            + " \"user\": {\"address\": {\"city\": \"Paris\", \"zip\": \"75001\"}, \"tags\": [\"a\", \"b\"]},"
+            + " \"items\": [{\"sku\": \"x1\", \"qty\": 2}, {\"sku\": \"x2\"}], \"matrix\": [[1, 2], [3, 4]]}";
+
+    private static List<String[]> extract(JsonExtractor extractor, String json)
+            throws IOException
+    {
+        List<String[]> documents = new ArrayList<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            extractor.readDocuments(parser, values -> documents.add(values.clone()));
+        }
+        return documents;
+    }
+
+    private static String[] extractOne(String json, List<String> paths)
+            throws IOException
+    {
+        JsonExtractor extractor = JsonExtractor.compile(paths, JSON_FACTORY);
+        assertNotNull(extractor, paths.toString());
+        List<String[]> documents = extract(extractor, json);
+        assertEquals(1, documents.size());
+        return documents.get(0);
+    }
+
+    private static void assertSameAsJsonPath(String json, List<String> paths)
+            throws IOException
+    {
+        String[] values = extractOne(json, paths);
+        for (int i = 0; i < paths.size(); i++) {
+            assertEquals(JSON_PATH.parse(json).read(paths.get(i), String.class), values[i], paths.get(i));
+        }
+    }
+
+    @Test
+    void nestedPathsAreTheSameAsJsonPath()
+            throws IOException
+    {
+        assertSameAsJsonPath(DOCUMENT, List.of("$.id", "$.name", "$.ok", "$.big", "$.user.address.city",
+                "$['user']['address'].zip", "$[\"user\"].tags[1]", "$.items[0].sku", "$.items[0].qty", "$.matrix[1][0]"));
+    }
+
+    @Test
+    void nullsAndMissingLeavesAreTheSameAsJsonPath()
+            throws IOException
+    {
+        assertSameAsJsonPath(DOCUMENT, List.of("$.none", "$.missing", "$.user.address.missing", "$.items[1].qty"));
+        assertArrayEquals(new String[] {null, null}, extractOne(DOCUMENT, List.of("$.none", "$.items[1].qty")));
+    }
+
+    @Test
+    void pathSelectedAndNavigatedIntoTogether()
+            throws IOException
+    {
+        String[] values = extractOne(DOCUMENT, List.of("$.user.tags", "$.user.tags[0]", "$.id"));
+
+        assertEquals("[\"a\",\"b\"]", values[0]);
+        assertEquals("a", values[1]);
+        assertEquals("7", values[2]);
+    }
+
+    /*
+     * Where JsonPath differs, the extractor keeps the text of the document or returns null
+     */
+    @Test
+    void differencesFromJsonPath()
+            throws IOException
+    {
+        String[] values = extractOne(DOCUMENT, List.of("$.ratio", "$.exp", "$.user.address", "$.nothing.below", "$.items[5]", "$.none.below"));
+
+        // a number keeps its text, JsonPath formats it as a double, the value is the same
+        assertEquals("1.50", values[0]);
+        assertEquals("1.5", JSON_PATH.parse(DOCUMENT).read("$.ratio", String.class));
+        assertEquals("1e3", values[1]);
+        assertEquals("1000.0", JSON_PATH.parse(DOCUMENT).read("$.exp", String.class));
+        assertEquals(Double.parseDouble(values[1]), Double.parseDouble(JSON_PATH.parse(DOCUMENT).read("$.exp", String.class)));
+
+        // an object is serialized, JsonPath can not read it as a string
+        assertEquals("{\"city\":\"Paris\",\"zip\":\"75001\"}", values[2]);
+        assertNull(JSON_PATH.parse(DOCUMENT).read("$.user.address", String.class));
+
+        // a missing or null parent or a missing index is null, JsonPath fails the record
+        assertNull(values[3]);
+        assertThrows(PathNotFoundException.class, () -> JSON_PATH.parse(DOCUMENT).read("$.nothing.below", String.class));
+        assertNull(values[4]);
+        assertThrows(PathNotFoundException.class, () -> JSON_PATH.parse(DOCUMENT).read("$.items[5]", String.class));
+        assertNull(values[5]);
+        assertThrows(PathNotFoundException.class, () -> JSON_PATH.parse(DOCUMENT).read("$.none.below", String.class));
+    }
+
+    @Test
+    void everyDocumentOfJsonLinesIsTheSameAsJsonPath()
+            throws IOException
+    {
+        List<String> lines = List.of("{\"id\": 1, \"v\": {\"k\": \"a\"}}", "{\"id\": 2, \"v\": {}}", "{\"v\": {\"k\": \"c\"}, \"id\": 3}");
+        List<String> paths = List.of("$.id", "$.v.k");
+
+        List<String[]> documents = extract(JsonExtractor.compile(paths, JSON_FACTORY), String.join("\n", lines));
+
+        assertEquals(lines.size(), documents.size());
+        for (int i = 0; i < lines.size(); i++) {
+            for (int j = 0; j < paths.size(); j++) {
+                assertEquals(JSON_PATH.parse(lines.get(i)).read(paths.get(j), String.class), documents.get(i)[j]);
+            }
+        }
+    }
+
+    @Test
+    void arrayElementsAreTheSameAsJsonPath()
+            throws IOException
+    {
+        String json = "{\"meta\": {\"n\": 3}, \"data\": [{\"id\": 1, \"tags\": [\"x\"]}, {\"tags\": []}, {\"id\": 3, \"tags\": [\"z\", \"w\"]}]}";
+        List<String> paths = List.of("$.data[*].id", "$.data[*].tags[0]");
+
+        List<String[]> documents = extract(JsonExtractor.compileArrayElements(paths, JSON_FACTORY), json);
+
+        assertEquals(3, documents.size());
+        List<String> ids = new ArrayList<>();
+        documents.forEach(values -> ids.add(values[0]));
+        List<Object> expected = JSON_PATH.parse(json).read("$.data[*].id");
+        assertEquals(expected.stream().map(v -> Objects.toString(v, null)).toList(), ids);
+        assertArrayEquals(new String[] {"1", "x"}, documents.get(0));
+        assertArrayEquals(new String[] {null, null}, documents.get(1));
+        assertArrayEquals(new String[] {"3", "z"}, documents.get(2));
+    }
+
+    @Test
+    void unsupportedPathsAreLeftToJsonPath()
+    {
+        for (String path : List.of("$..id", "$.items[*].sku", "$.user.*", "$.items.length()", "$.items[0,1]", "$.items[?(@.qty)]", "id")) {
+            assertNull(JsonExtractor.compile(List.of(path), JSON_FACTORY), path);
+        }
+        assertNull(JsonExtractor.compileArrayElements(List.of("$.a[*].id", "$.b[*].id"), JSON_FACTORY));
+        assertNull(JsonExtractor.compileArrayElements(List.of("$.a[*].id", "$.a[*].b[*].id"), JSON_FACTORY));
+        assertNull(JsonExtractor.compileArrayElements(List.of("$.a.id"), JSON_FACTORY));
+    }
+}
@@ -46,6 +46,12 @@ public final class KuduKey
 
     public static final String SCAN_REQUEST_TIMEOUT = "scanTimeout";
 
+    // the size a tablet is cut at when it is split into scan tokens, tablet aligned if not set
+    public static final String SPLIT_SIZE_BYTES = "splitSizeBytes";
+
+    // the serialized scan tokens a task reads, set by the job
+    public static final String SCAN_TOKENS = "scanTokens";
+
     public static final Map<String, KuduPredicate.ComparisonOp> KUDU_OPERATORS = ImmutableMap.of(
             "=", KuduPredicate.ComparisonOp.EQUAL,
             ">", KuduPredicate.ComparisonOp.GREATER,
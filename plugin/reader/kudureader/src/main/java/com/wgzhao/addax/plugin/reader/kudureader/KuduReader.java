@@ -37,10 +37,14 @@ import org.apache.kudu.Type;
 import org.apache.kudu.client.KuduClient;
 import org.apache.kudu.client.KuduException;
 import org.apache.kudu.client.KuduPredicate;
+import org.apache.kudu.client.KuduScanToken;
 import org.apache.kudu.client.KuduScanner;
 import org.apache.kudu.client.KuduTable;
+import org.apache.kudu.client.LocatedTablet;
 import org.apache.kudu.client.RowResult;
 import org.apache.kudu.client.RowResultIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -51,8 +55,14 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -74,10 +84,104 @@ import static com.wgzhao.addax.plugin.reader.kudureader.KuduKey.KUDU_OPERATORS;
 public class KuduReader
         extends Reader
 {
+    private static KuduClient createClient(Configuration conf)
+    {
+        String masterAddresses = conf.getString(KuduKey.KUDU_MASTER_ADDRESSES);
+        long socketReadTimeoutMs = conf.getLong(KuduKey.SOCKET_READ_TIMEOUT, 10) * 1000L;
+
+        if (!conf.getBool(HAVE_KERBEROS, false)) {
+            return new KuduClient.KuduClientBuilder(masterAddresses)
+                    .defaultOperationTimeoutMs(socketReadTimeoutMs)
+                    .build();
+        }
+        org.apache.hadoop.conf.Configuration configuration = new org.apache.hadoop.conf.Configuration();
+        UserGroupInformation.setConfiguration(configuration);
+
+        String kerberosKeytabFilePath = conf.getString(KERBEROS_KEYTAB_FILE_PATH);
+        String kerberosPrincipal = conf.getString(KERBEROS_PRINCIPAL);
+        try {
+            UserGroupInformation.loginUserFromKeytab(kerberosPrincipal, kerberosKeytabFilePath);
+            return UserGroupInformation.getLoginUser().doAs(
+                    (PrivilegedExceptionAction<KuduClient>) () ->
+                            new KuduClient.KuduClientBuilder(masterAddresses).defaultOperationTimeoutMs(socketReadTimeoutMs).build());
+        }
+        catch (IOException | InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static boolean isWildcardColumn(String column)
+    {
+        return "*".equals(column) || "\"*\"".equals(column);
+    }
+
+    private static void validateColumns(List<String> columns, Schema schema, String tableName)
+    {
+        for (String column : columns) {
+            if (!schema.hasColumn(column)) {
+                throw AddaxException.asAddaxException(
+                        ILLEGAL_VALUE,
+                        "Column '%s' does not exist in table '%s'".formatted(column, tableName)
+                );
+            }
+        }
+    }
+
+    private static List<KuduPredicate> processWhere(List<Configuration> where, Schema schema, String tableName)
+    {
+        List<KuduPredicate> predicates = new ArrayList<>();
+
+        for (Configuration conf : where) {
+            String field = conf.getString("field");
+            if (!schema.hasColumn(field)) {
+                throw AddaxException.asAddaxException(
+                        ILLEGAL_VALUE,
+                        "Column '%s' in where clause does not exist in table '%s'".formatted(field, tableName)
+                );
+            }
+
+            KuduPredicate.ComparisonOp op = KUDU_OPERATORS.get(conf.getString("op"));
+            ColumnSchema column = schema.getColumn(field);
+            String value = conf.getString("value");
+
+            predicates.add(createPredicate(column, op, value));
+        }
+
+        return predicates;
+    }
+
+    private static KuduPredicate createPredicate(ColumnSchema column, KuduPredicate.ComparisonOp op, String value)
+    {
+        return switch (column.getType()) {
+            case INT8, INT16, INT32, INT64 -> KuduPredicate.newComparisonPredicate(column, op, Long.parseLong(value));
+            case BOOL -> KuduPredicate.newComparisonPredicate(column, op, Boolean.parseBoolean(value));
+            case STRING, VARCHAR -> KuduPredicate.newComparisonPredicate(column, op, value);
+            case DATE -> KuduPredicate.newComparisonPredicate(column, op, Date.valueOf(value));
+            case FLOAT -> KuduPredicate.newComparisonPredicate(column, op, Float.parseFloat(value));
+            case DOUBLE -> KuduPredicate.newComparisonPredicate(column, op, Double.parseDouble(value));
+            case DECIMAL -> KuduPredicate.newComparisonPredicate(column, op, new BigDecimal(value));
+            case BINARY -> KuduPredicate.newComparisonPredicate(column, op, value.getBytes(StandardCharsets.UTF_8));
+            case UNIXTIME_MICROS -> {
+                SimpleDateFormat sdf = new SimpleDateFormat(DEFAULT_DATE_FORMAT);
+                try {
+                    java.util.Date date = sdf.parse(value);
+                    int offsetSecs = ZonedDateTime.now(ZoneId.systemDefault()).getOffset().getTotalSeconds();
+                    long ts = date.getTime() * 1_000L + offsetSecs * 1_000_000L;
+                    yield KuduPredicate.newComparisonPredicate(column, op, ts);
+                }
+                catch (ParseException e) {
+                    throw AddaxException.asAddaxException(CONFIG_ERROR, "Cannot parse date: " + value);
+                }
+            }
+            default -> throw new IllegalStateException("Unexpected type: " + column.getType());
+        };
+    }
 
     public static class Job
             extends Reader.Job
     {
+        private static final Logger LOG = LoggerFactory.getLogger(Job.class);
+
         private record WhereClause(String field, String operator, String value) {}
 
         private Configuration originalConfig = null;
@@ -128,15 +232,111 @@ public class KuduReader
                 }
             }
             else {
-                Configuration conf = this.originalConfig.clone();
-                conf.set(KuduKey.SPLIT_LOWER_BOUND, "min");
-                conf.set(KuduKey.SPLIT_UPPER_BOUND, "max");
-                confList.add(conf);
+                confList.addAll(splitByScanTokens(adviceNumber));
             }
 
             return confList;
         }
 
+        /*
+         * Without a split key range, the table is split along its tablets with scan tokens, which carry
+         * the projection and the predicates. The tokens are interleaved by the tablet server of their
+         * leader and dealt to the tasks in turn, so that a task groups several small tablets and the
+         * tasks running at the same time scan different servers.
+         * The client does not tell the size of a token, so the tokens are dealt by count: with tablets
+         * of uneven size, splitSizeBytes cuts them into tokens of about the same size first.
+         */
+        private List<Configuration> splitByScanTokens(int adviceNumber)
+        {
+            String tableName = this.originalConfig.getString(KuduKey.TABLE);
+            List<KuduScanToken> tokens;
+            try (KuduClient client = createClient(this.originalConfig)) {
+                KuduTable table = client.openTable(tableName);
+                Schema schema = table.getSchema();
+                KuduScanToken.KuduScanTokenBuilder builder = client.newScanTokenBuilder(table)
+                        .scanRequestTimeout(this.originalConfig.getLong(KuduKey.SCAN_REQUEST_TIMEOUT, 20L) * 1000L);
+
+                List<String> columns = this.originalConfig.getList(COLUMN, String.class);
+                if (columns != null && !columns.isEmpty() && !isWildcardColumn(columns.get(0))) {
+                    validateColumns(columns, schema, tableName);
+                    builder.setProjectedColumnNames(columns);
+                }
+                List<Configuration> where = this.originalConfig.getListConfiguration(WHERE);
+                if (where != null && !where.isEmpty()) {
+                    processWhere(where, schema, tableName).forEach(builder::addPredicate);
+                }
+                Long splitSizeBytes = this.originalConfig.getLong(KuduKey.SPLIT_SIZE_BYTES);
+                if (splitSizeBytes != null && splitSizeBytes > 0) {
+                    builder.setSplitSizeBytes(splitSizeBytes);
+                }
+                tokens = builder.build();
+            }
+            catch (KuduException ex) {
+                throw AddaxException.asAddaxException(RUNTIME_ERROR, ex.getMessage());
+            }
+
+            List<List<KuduScanToken>> groups = groupByServer(tokens, Job::serverOf, adviceNumber);
+            LOG.info("Split table {} into {} tasks from {} scan tokens over {} tablet servers",
+                    tableName, groups.size(), tokens.size(), tokens.stream().map(Job::serverOf).distinct().count());
+
+            List<Configuration> confList = new ArrayList<>(groups.size());
+            try {
+                for (List<KuduScanToken> group : groups) {
+                    List<String> serialized = new ArrayList<>(group.size());
+                    for (KuduScanToken token : group) {
+                        serialized.add(Base64.getEncoder().encodeToString(token.serialize()));
+                    }
+                    Configuration conf = this.originalConfig.clone();
+                    conf.set(KuduKey.SCAN_TOKENS, serialized);
+                    confList.add(conf);
+                }
+            }
+            catch (IOException ex) {
+                throw AddaxException.asAddaxException(RUNTIME_ERROR, ex.getMessage());
+            }
+            return confList;
+        }
+
+        /*
+         * Interleaves the tokens by server, one of each server in turn, and deals them to at most
+         * taskNumber groups in turn. A server keeps the order of its tokens.
+         */
+        static <T> List<List<T>> groupByServer(List<T> tokens, Function<T, String> serverOf, int taskNumber)
+        {
+            Map<String, Deque<T>> byServer = new LinkedHashMap<>();
+            for (T token : tokens) {
+                byServer.computeIfAbsent(serverOf.apply(token), k -> new ArrayDeque<>()).add(token);
+            }
+            List<T> ordered = new ArrayList<>(tokens.size());
+            while (ordered.size() < tokens.size()) {
+                for (Deque<T> queue : byServer.values()) {
+                    if (!queue.isEmpty()) {
+                        ordered.add(queue.poll());
+                    }
+                }
+            }
+
+            int groupNumber = Math.max(1, Math.min(taskNumber, ordered.size()));
+            List<List<T>> groups = new ArrayList<>(groupNumber);
+            for (int i = 0; i < groupNumber; i++) {
+                groups.add(new ArrayList<>());
+            }
+            for (int i = 0; i < ordered.size(); i++) {
+                groups.get(i % groupNumber).add(ordered.get(i));
+            }
+            return groups;
+        }
+
+        private static String serverOf(KuduScanToken token)
+        {
+            LocatedTablet tablet = token.getTablet();
+            LocatedTablet.Replica replica = tablet.getLeaderReplica();
+            if (replica == null && !tablet.getReplicas().isEmpty()) {
+                replica = tablet.getReplicas().get(0);
+            }
+            return replica == null ? "" : replica.getRpcHost() + ":" + replica.getRpcPort();
+        }
+
         private boolean shouldSplit()
         {
             return (this.splitKey != null) && (!"min".equals(this.lowerBound)) && (!"max".equals(this.upperBound));
@@ -205,41 +405,16 @@ public class KuduReader
         private Long scanRequestTimeout;
         private List<String> columns;
         private boolean specifyColumn = false;
-        private List<KuduPredicate> customPredicate;
         private List<Configuration> where;
+        private List<String> scanTokens;
 
         @Override
         public void init()
         {
             Configuration readerSliceConfig = super.getPluginJobConf();
-            String masterAddresses = readerSliceConfig.getString(KuduKey.KUDU_MASTER_ADDRESSES);
             this.tableName = readerSliceConfig.getString(KuduKey.TABLE);
-            long socketReadTimeoutMs = readerSliceConfig.getLong(KuduKey.SOCKET_READ_TIMEOUT, 10) * 1000L;
             this.scanRequestTimeout = readerSliceConfig.getLong(KuduKey.SCAN_REQUEST_TIMEOUT, 20L) * 1000L;
-
-            boolean haveKerberos = readerSliceConfig.getBool(HAVE_KERBEROS, false);
-
-            if (!haveKerberos) {
-                this.kuduClient = new KuduClient.KuduClientBuilder(masterAddresses)
-                        .defaultOperationTimeoutMs(socketReadTimeoutMs)
-                        .build();
-            }
-            else {
-                org.apache.hadoop.conf.Configuration configuration = new org.apache.hadoop.conf.Configuration();
-                UserGroupInformation.setConfiguration(configuration);
-
-                String kerberosKeytabFilePath = readerSliceConfig.getString(KERBEROS_KEYTAB_FILE_PATH);
-                String kerberosPrincipal = readerSliceConfig.getString(KERBEROS_PRINCIPAL);
-                try {
-                    UserGroupInformation.loginUserFromKeytab(kerberosPrincipal, kerberosKeytabFilePath);
-                    this.kuduClient = UserGroupInformation.getLoginUser().doAs(
-                            (PrivilegedExceptionAction<KuduClient>) () ->
-                                    new KuduClient.KuduClientBuilder(masterAddresses).defaultOperationTimeoutMs(socketReadTimeoutMs).build());
-                }
-                catch (IOException | InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
-            }
+            this.kuduClient = createClient(readerSliceConfig);
 
             this.lowerBound = readerSliceConfig.getString(KuduKey.SPLIT_LOWER_BOUND);
             this.upperBound = readerSliceConfig.getString(KuduKey.SPLIT_UPPER_BOUND);
@@ -251,16 +426,16 @@ public class KuduReader
             }
 
             this.where = readerSliceConfig.getListConfiguration(WHERE);
-        }
-
-        private boolean isWildcardColumn(String column)
-        {
-            return "*".equals(column) || "\"*\"".equals(column);
+            this.scanTokens = readerSliceConfig.getList(KuduKey.SCAN_TOKENS, String.class);
         }
 
         @Override
         public void startRead(RecordSender recordSender)
         {
+            if (this.scanTokens != null) {
+                readScanTokens(recordSender);
+                return;
+            }
             KuduTable kuduTable;
             try {
                 kuduTable = this.kuduClient.openTable(this.tableName);
@@ -273,6 +448,25 @@ public class KuduReader
             }
         }
 
+        private void readScanTokens(RecordSender recordSender)
+        {
+            // the projection, the predicates and the timeout were put into the tokens by the job
+            for (String token : this.scanTokens) {
+                try {
+                    KuduScanner scanner = KuduScanToken.deserializeIntoScanner(Base64.getDecoder().decode(token), this.kuduClient);
+                    try {
+                        processRows(scanner, recordSender);
+                    }
+                    finally {
+                        scanner.close();
+                    }
+                }
+                catch (IOException ex) {
+                    throw AddaxException.asAddaxException(RUNTIME_ERROR, ex.getMessage());
+                }
+            }
+        }
+
         private KuduScanner buildScanner(KuduTable kuduTable, Schema schema)
         {
             KuduScanner.KuduScannerBuilder builder = this.kuduClient.newScannerBuilder(kuduTable);
@@ -286,7 +480,7 @@ public class KuduReader
             }
 
             if (!this.where.isEmpty()) {
-                List<KuduPredicate> predicates = processWhere(this.where, schema);
+                List<KuduPredicate> predicates = processWhere(this.where, schema, this.tableName);
                 predicates.forEach(builder::addPredicate);
             }
 
@@ -316,14 +510,7 @@ public class KuduReader
 
         private void validateAndSetProjectedColumns(KuduScanner.KuduScannerBuilder builder, Schema schema)
         {
-            for (String column : this.columns) {
-                if (!schema.hasColumn(column)) {
-                    throw AddaxException.asAddaxException(
-                            ILLEGAL_VALUE,
-                            "Column '%s' does not exist in table '%s'".formatted(column, this.tableName)
-                    );
-                }
-            }
+            validateColumns(this.columns, schema, this.tableName);
             builder.setProjectedColumnNames(this.columns);
         }
 
@@ -392,56 +579,6 @@ public class KuduReader
             }
         }
 
-        private List<KuduPredicate> processWhere(List<Configuration> where, Schema schema)
-        {
-            List<KuduPredicate> predicates = new ArrayList<>();
-
-            for (Configuration conf : where) {
-                String field = conf.getString("field");
-                if (!schema.hasColumn(field)) {
-                    throw AddaxException.asAddaxException(
-                            ILLEGAL_VALUE,
-                            "Column '%s' in where clause does not exist in table '%s'".formatted(field, this.tableName)
-                    );
-                }
-
-                KuduPredicate.ComparisonOp op = KUDU_OPERATORS.get(conf.getString("op"));
-                ColumnSchema column = schema.getColumn(field);
-                String value = conf.getString("value");
-
-                predicates.add(createPredicate(column, op, value));
-            }
-
-            return predicates;
-        }
-
-        private KuduPredicate createPredicate(ColumnSchema column, KuduPredicate.ComparisonOp op, String value)
-        {
-            return switch (column.getType()) {
-                case INT8, INT16, INT32, INT64 -> KuduPredicate.newComparisonPredicate(column, op, Long.parseLong(value));
-                case BOOL -> KuduPredicate.newComparisonPredicate(column, op, Boolean.parseBoolean(value));
-                case STRING, VARCHAR -> KuduPredicate.newComparisonPredicate(column, op, value);
-                case DATE -> KuduPredicate.newComparisonPredicate(column, op, Date.valueOf(value));
-                case FLOAT -> KuduPredicate.newComparisonPredicate(column, op, Float.parseFloat(value));
-                case DOUBLE -> KuduPredicate.newComparisonPredicate(column, op, Double.parseDouble(value));
-                case DECIMAL -> KuduPredicate.newComparisonPredicate(column, op, new BigDecimal(value));
-                case BINARY -> KuduPredicate.newComparisonPredicate(column, op, value.getBytes(StandardCharsets.UTF_8));
-                case UNIXTIME_MICROS -> {
-                    SimpleDateFormat sdf = new SimpleDateFormat(DEFAULT_DATE_FORMAT);
-                    try {
-                        java.util.Date date = sdf.parse(value);
-                        int offsetSecs = ZonedDateTime.now(ZoneId.systemDefault()).getOffset().getTotalSeconds();
-                        long ts = date.getTime() * 1_000L + offsetSecs * 1_000_000L;
-                        yield KuduPredicate.newComparisonPredicate(column, op, ts);
-                    }
-                    catch (ParseException e) {
-                        throw AddaxException.asAddaxException(CONFIG_ERROR, "Cannot parse date: " + value);
-                    }
-                }
-                default -> throw new IllegalStateException("Unexpected type: " + column.getType());
-            };
-        }
-
         @Override
         public void destroy()
         {
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.reader.kudureader;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Groups scan tokens, named after their tablet server, into tasks.
+ */
+class KuduReaderTest
+{
+    private static List<List<String>> group(List<String> tokens, int taskNumber)
+    {
+        // a token is named server/tablet
+        return KuduReader.Job.groupByServer(tokens, token -> token.split("/")[0], taskNumber);
+    }
+
+    @Test
+    void tasksRunningTogetherScanDifferentServers()
+    {
+        List<String> tokens = List.of("a/1", "a/2", "a/3", "b/1", "b/2", "b/3", "c/1", "c/2", "c/3");
+
+        assertEquals(List.of(
+                        List.of("a/1", "a/2", "a/3"),
+                        List.of("b/1", "b/2", "b/3"),
+                        List.of("c/1", "c/2", "c/3")),
+                group(tokens, 3).stream().map(g -> g.stream().sorted().toList()).toList());
+        assertEquals(List.of(
+                        List.of("a/1", "c/1", "b/2", "a/3", "c/3"),
+                        List.of("b/1", "a/2", "c/2", "b/3")),
+                group(tokens, 2));
+    }
+
+    @Test
+    void unevenServersAreInterleavedUntilEmpty()
+    {
+        List<String> tokens = List.of("a/1", "a/2", "a/3", "a/4", "b/1");
+
+        assertEquals(List.of(
+                        List.of("a/1", "a/2", "a/4"),
+                        List.of("b/1", "a/3")),
+                group(tokens, 2));
+    }
+
+    @Test
+    void taskNumberIsBoundByTheTokens()
+    {
+        assertEquals(List.of(List.of("a/1"), List.of("b/1")), group(List.of("a/1", "b/1"), 8));
+        assertEquals(List.of(List.of("a/1", "b/1")), group(List.of("a/1", "b/1"), 0));
+        assertEquals(List.of(List.of()), group(List.of(), 4));
+    }
+}
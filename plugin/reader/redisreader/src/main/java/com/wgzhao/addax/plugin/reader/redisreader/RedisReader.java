@@ -23,10 +23,7 @@ import com.moilioncircle.redis.replicator.FileType;
 import com.moilioncircle.redis.replicator.RedisReplicator;
 import com.moilioncircle.redis.replicator.Replicator;
 import com.moilioncircle.redis.replicator.event.PostRdbSyncEvent;
-import com.moilioncircle.redis.replicator.event.PreRdbSyncEvent;
-import com.moilioncircle.redis.replicator.io.RawByteListener;
 import com.moilioncircle.redis.replicator.rdb.datatype.KeyStringValueString;
-import com.moilioncircle.redis.replicator.rdb.skip.SkipRdbVisitor;
 import com.wgzhao.addax.core.element.BytesColumn;
 import com.wgzhao.addax.core.element.LongColumn;
 import com.wgzhao.addax.core.element.Record;
@@ -34,30 +31,29 @@ import com.wgzhao.addax.core.exception.AddaxException;
 import com.wgzhao.addax.core.plugin.RecordSender;
 import com.wgzhao.addax.core.spi.Reader;
 import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.plugin.reader.redisreader.impl.KeyFilterRdbVisitor;
 import com.wgzhao.addax.plugin.reader.redisreader.impl.SentinelReplicator;
+import org.apache.hc.client5.http.HttpResponseException;
 import org.apache.hc.client5.http.fluent.Request;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.UUID;
 import java.util.regex.Pattern;
 
 import static com.moilioncircle.redis.replicator.Constants.RDB_TYPE_HASH;
@@ -75,15 +71,33 @@ import static com.moilioncircle.redis.replicator.Constants.RDB_TYPE_STRING;
 import static com.moilioncircle.redis.replicator.Constants.RDB_TYPE_ZSET;
 import static com.moilioncircle.redis.replicator.Constants.RDB_TYPE_ZSET_2;
 import static com.moilioncircle.redis.replicator.Constants.RDB_TYPE_ZSET_ZIPLIST;
+import static com.wgzhao.addax.core.spi.ErrorCode.CONNECT_ERROR;
 import static com.wgzhao.addax.core.spi.ErrorCode.ILLEGAL_VALUE;
 import static com.wgzhao.addax.core.spi.ErrorCode.REQUIRED_VALUE;
 
 public class RedisReader
         extends Reader
 {
+    private static List<HostAndPort> uriToHosts(String uris)
+    {
+        List<HostAndPort> result = new ArrayList<>();
+        try {
+            for (String uri : uris.split(",")) {
+                URI u = new URI(uri);
+                result.add(new HostAndPort(u.getHost(), u.getPort()));
+            }
+        }
+        catch (URISyntaxException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+        return result;
+    }
+
     public static class Job
             extends Reader.Job
     {
+        private static final Logger LOG = LoggerFactory.getLogger(Job.class);
+
         private Configuration conf;
         private List<String> uris;
 
@@ -122,25 +136,63 @@ public class RedisReader
         @Override
         public List<Configuration> split(int adviceNumber)
         {
-            // ignore adviceNumber
-            if (adviceNumber != uris.size() ) {
-                throw AddaxException.asAddaxException(ILLEGAL_VALUE, "adviceNumber is not equal to uri size");
-            }
-            if (adviceNumber == 1) {
-                conf.set(String.format("%s.%s", RedisKey.CONNECTION, RedisKey.URI), uris.get(0));
-                return Collections.singletonList(conf);
+            // one task per rdb, a cluster is read master by master, so adviceNumber is ignored
+            String mode = conf.getString(RedisKey.CONNECTION + "." + RedisKey.MODE, "standalone");
+            Set<String> sources = new LinkedHashSet<>();
+            for (String uri : uris) {
+                if ("cluster".equalsIgnoreCase(mode) && uri.startsWith("tcp")) {
+                    sources.addAll(clusterMasters(uriToHosts(uri).get(0)));
+                }
+                else {
+                    sources.add(uri);
+                }
             }
 
             List<Configuration> configurations = new ArrayList<>();
-            for (String uri : uris) {
+            for (String uri : sources) {
                 Configuration clone = conf.clone();
-                Configuration conConf = clone.getConfiguration(RedisKey.CONNECTION);
-                conConf.set(RedisKey.URI, uri);
-                clone.set(RedisKey.CONNECTION, conConf);
+                clone.set(RedisKey.CONNECTION + "." + RedisKey.URI, uri);
                 configurations.add(clone);
             }
             return configurations;
         }
+
+        private List<String> clusterMasters(HostAndPort seed)
+        {
+            List<String> masters = new ArrayList<>();
+            try (Jedis jedis = new Jedis(seed.getHost(), seed.getPort())) {
+                String auth = conf.getString(RedisKey.CONNECTION + "." + RedisKey.AUTH, null);
+                if (auth != null && !auth.isEmpty()) {
+                    if (auth.contains(":")) {
+                        String[] auths = auth.split(":", 2);
+                        jedis.auth(auths[0], auths[1]);
+                    }
+                    else {
+                        jedis.auth(auth);
+                    }
+                }
+                // <id> <ip:port@cport[,hostname]> <flags> <master> ...
+                for (String line : jedis.clusterNodes().split("\n")) {
+                    String[] fields = line.trim().split(" ");
+                    if (fields.length < 3) {
+                        continue;
+                    }
+                    Set<String> flags = Set.of(fields[2].split(","));
+                    if (flags.contains("master") && !flags.contains("fail") && !flags.contains("noaddr")) {
+                        masters.add("tcp://" + fields[1].split("[@,]")[0]);
+                    }
+                }
+            }
+            catch (Exception e) {
+                throw AddaxException.asAddaxException(CONNECT_ERROR,
+                        "Failed to discover the masters of the cluster via " + seed, e);
+            }
+            if (masters.isEmpty()) {
+                throw AddaxException.asAddaxException(CONNECT_ERROR, "No master found in the cluster via " + seed);
+            }
+            LOG.info("Read the cluster from {} masters: {}", masters.size(), masters);
+            return masters;
+        }
     }
 
     public static class Task
@@ -170,56 +222,74 @@ public class RedisReader
                 String uri = connection.getString(RedisKey.URI);
                 String mode = connection.getString(RedisKey.MODE, "standalone");
                 String masterName = connection.getString(RedisKey.MASTER_NAME, null);
-                File file = new File(UUID.randomUUID() + ".rdb");
+                // the rdb is parsed as it streams in, nothing is saved to the local disk
                 if (uri.startsWith("http") || uri.startsWith("https")) {
-                    Request.get(uri).execute().saveContent(file);
+                    Request.get(uri).execute().handleResponse(response -> {
+                        if (response.getCode() >= 300) {
+                            throw new HttpResponseException(response.getCode(), response.getReasonPhrase());
+                        }
+                        try (InputStream in = response.getEntity().getContent()) {
+                            replicate(new RedisReplicator(in, FileType.RDB, replicatorConf(null)), recordSender);
+                        }
+                        return null;
+                    });
                 }
                 else if (uri.startsWith("tcp")) {
-                    this.dump(uriToHosts(uri), mode, connection.getString(RedisKey.AUTH), masterName, file);
+                    replicate(connect(uriToHosts(uri), mode, connection.getString(RedisKey.AUTH), masterName), recordSender);
                 }
                 else {
-                    Files.copy(Paths.get(new URI(uri)), file.toPath());
+                    replicate(new RedisReplicator(new File(new URI(uri)), FileType.RDB, replicatorConf(null)), recordSender);
                 }
-
-                LOG.info("loading {} ", file.getAbsolutePath());
-                RedisReplicator r = new RedisReplicator(file, FileType.RDB, com.moilioncircle.redis.replicator.Configuration.defaultSetting());
-                r.addEventListener((replicator, event) -> {
-                    if (event instanceof KeyStringValueString) {
-                        KeyStringValueString dkv = (KeyStringValueString) event;
-                        long dbNumber = dkv.getDb().getDbNumber();
-                        int rdbType = dkv.getValueRdbType();
-                        byte[] key = dkv.getKey();
-                        byte[] value = dkv.getValue();
-                        long expire = dkv.getExpiredMs() == null ? 0 : dkv.getExpiredMs();
-
-                        recordBigKey(dbNumber, rdbType, key, value);
-
-                        collectType(rdbType);
-
-                        if (Task.this.matchDB((int) dbNumber) && Task.this.matchKey(key)) {
-                            Record record = recordSender.createRecord();
-                            record.addColumn(new LongColumn(dbNumber));
-                            record.addColumn(new LongColumn(rdbType));
-                            record.addColumn(new LongColumn(expire));
-                            record.addColumn(new BytesColumn(key));
-                            record.addColumn(new BytesColumn(value));
-                            recordSender.sendToWriter(record);
-                        }
-                    }
-                    else {
-                        LOG.warn("The type is unsupported yet");
-                    }
-                });
-                r.open();
-                r.close();
-                // delete temporary local file
-                Files.deleteIfExists(Paths.get(file.getAbsolutePath()));
             }
             catch (Exception e) {
                 throw new RuntimeException(e.getMessage(), e);
             }
         }
 
+        private void replicate(Replicator replicator, RecordSender recordSender)
+                throws IOException
+        {
+            // the db and the key are matched before a value is decoded, unwanted values are skipped in the stream
+            // the strings skipped are counted in the statistics all the same
+            replicator.setRdbVisitor(new KeyFilterRdbVisitor(replicator, (db, key) -> matchDB(db) && matchKey(key),
+                    (db, key, valueLength) -> {
+                        recordBigKey((long) db, key, valueLength);
+                        collectType(RDB_TYPE_STRING);
+                    }));
+            replicator.addEventListener((r, event) -> {
+                if (event instanceof KeyStringValueString dkv) {
+                    long dbNumber = dkv.getDb().getDbNumber();
+                    int rdbType = dkv.getValueRdbType();
+                    byte[] key = dkv.getKey();
+                    byte[] value = dkv.getValue();
+                    long expire = dkv.getExpiredMs() == null ? 0 : dkv.getExpiredMs();
+
+                    recordBigKey(dbNumber, key, value.length);
+
+                    collectType(rdbType);
+
+                    Record record = recordSender.createRecord();
+                    record.addColumn(new LongColumn(dbNumber));
+                    record.addColumn(new LongColumn(rdbType));
+                    record.addColumn(new LongColumn(expire));
+                    record.addColumn(new BytesColumn(key));
+                    record.addColumn(new BytesColumn(value));
+                    recordSender.sendToWriter(record);
+                }
+                else if (event instanceof PostRdbSyncEvent) {
+                    // a socket replicator would go on with the command stream, stop at the end of the rdb
+                    try {
+                        r.close();
+                    }
+                    catch (IOException e) {
+                        LOG.warn(e.getMessage(), e);
+                    }
+                }
+            });
+            replicator.open();
+            replicator.close();
+        }
+
         @Override
         public void init()
         {
@@ -249,10 +319,10 @@ public class RedisReader
             }
         }
 
-        private void recordBigKey(Long db, int type, byte[] key, byte[] value)
+        private void recordBigKey(Long db, byte[] key, long valueLength)
         {
-            if (value.length > keyThresholdLength) {
-                bigKey.put(db + "\t" + new String(key, StandardCharsets.UTF_8), value.length);
+            if (valueLength > keyThresholdLength) {
+                bigKey.put(db + "\t" + new String(key, StandardCharsets.UTF_8), (int) valueLength);
             }
         }
 
@@ -291,33 +361,12 @@ public class RedisReader
             return this.includeDB.isEmpty() || this.includeDB.contains(db);
         }
 
-        /**
-         * download remote db via rsync
-         *
-         * @param hosts list of {@link HostAndPort}
-         * @param mode redis running mode, cluster, master/slave, sentinel or cluster
-         * @param auth auth password
-         * @param masterName master name for sentinel mode
-         * @param outFile file which dump to
-         * @throws IOException file not found
-         */
-        private void dump(List<HostAndPort> hosts, String mode, String auth, String masterName, File outFile)
-                throws IOException
+        private static com.moilioncircle.redis.replicator.Configuration replicatorConf(String auth)
         {
-            LOG.info("mode = {}", mode);
-            OutputStream out = new BufferedOutputStream(Files.newOutputStream(outFile.toPath()));
-            RawByteListener rawByteListener = rawBytes -> {
-                try {
-                    out.write(rawBytes);
-                }
-                catch (IOException e) {
-                    throw new RuntimeException(e.getMessage(), e);
-                }
-            };
             com.moilioncircle.redis.replicator.Configuration conf = com.moilioncircle.redis.replicator.Configuration.defaultSetting();
             if (null != auth && !auth.isEmpty()) {
                 if (auth.contains(":")) {
-                    String[] auths = auth.split(":");
+                    String[] auths = auth.split(":", 2);
                     conf.setAuthUser(auths[0]);
                     conf.setAuthPassword(auths[1]);
                 }
@@ -325,49 +374,31 @@ public class RedisReader
                     conf.setAuthPassword(auth);
                 }
             }
-            Replicator replicator;
-            if ("sentinel".equalsIgnoreCase(mode)) {
-                // convert uri to hosts
-                replicator = new SentinelReplicator(hosts, masterName, conf);
-            }
-            else {
-                // defaults to standalone
-                replicator = new RedisReplicator(hosts.get(0).getHost(), hosts.get(0).getPort(), conf);
-            }
-            replicator.setRdbVisitor(new SkipRdbVisitor(replicator));
-            replicator.addEventListener((replicator1, event) -> {
-                if (event instanceof PreRdbSyncEvent) {
-                    replicator1.addRawByteListener(rawByteListener);
-                }
-
-                if (event instanceof PostRdbSyncEvent) {
-                    replicator1.removeRawByteListener(rawByteListener);
-
-                    try {
-                        out.close();
-                        replicator1.close();
-                    }
-                    catch (IOException e) {
-                        LOG.warn(e.getMessage(), e);
-                    }
-                }
-            });
-            replicator.open();
+            return conf;
         }
 
-        private List<HostAndPort> uriToHosts(String uris)
+        /**
+         * connect to the server as a replica, the rdb of the full sync is parsed from the socket.
+         * The replicator does not reconnect, a sentinel still follows a switch of its master.
+         *
+         * @param hosts list of {@link HostAndPort}
+         * @param mode redis running mode, standalone, master/slave, sentinel or cluster
+         * @param auth auth password
+         * @param masterName master name for sentinel mode
+         * @return the replicator to open
+         */
+        private Replicator connect(List<HostAndPort> hosts, String mode, String auth, String masterName)
         {
-            List<HostAndPort> result = new ArrayList<>();
-            try {
-                for (String uri : uris.split(",")) {
-                    URI u = new URI(uri);
-                    result.add(new HostAndPort(u.getHost(), u.getPort()));
-                }
-            }
-            catch (URISyntaxException e) {
-                throw new RuntimeException(e.getMessage(), e);
+            LOG.info("mode = {}", mode);
+            com.moilioncircle.redis.replicator.Configuration conf = replicatorConf(auth);
+            if ("sentinel".equalsIgnoreCase(mode)) {
+                return new SentinelReplicator(hosts, masterName, conf);
             }
-            return result;
+            // a reconnect would run the full sync again and send the keys read so far twice,
+            // so a dropped sync fails the task and the job retries it as a whole
+            conf.setRetries(0);
+            // a cluster has been split into its masters by the job, all the others read the first host
+            return new RedisReplicator(hosts.get(0).getHost(), hosts.get(0).getPort(), conf);
         }
 
         private void collectType(int type)
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wgzhao.addax.plugin.reader.redisreader.impl;
+
+import com.moilioncircle.redis.replicator.Replicator;
+import com.moilioncircle.redis.replicator.event.Event;
+import com.moilioncircle.redis.replicator.io.RedisInputStream;
+import com.moilioncircle.redis.replicator.rdb.BaseRdbParser;
+import com.moilioncircle.redis.replicator.rdb.DefaultRdbVisitor;
+import com.moilioncircle.redis.replicator.rdb.datatype.ContextKeyValuePair;
+import com.moilioncircle.redis.replicator.rdb.datatype.DB;
+import com.moilioncircle.redis.replicator.rdb.datatype.KeyStringValueString;
+import com.moilioncircle.redis.replicator.rdb.skip.SkipRdbParser;
+import com.moilioncircle.redis.replicator.rdb.skip.SkipRdbVisitor;
+
+import java.io.IOException;
+import java.util.function.BiPredicate;
+
+import static com.moilioncircle.redis.replicator.Constants.RDB_ENC_INT16;
+import static com.moilioncircle.redis.replicator.Constants.RDB_ENC_INT32;
+import static com.moilioncircle.redis.replicator.Constants.RDB_ENC_INT8;
+import static com.moilioncircle.redis.replicator.Constants.RDB_ENC_LZF;
+import static com.moilioncircle.redis.replicator.Constants.RDB_TYPE_STRING;
+
+/**
+ * A rdb visitor which reads the key of a string first and only decodes its value when the db
+ * and the key are wanted, the others are skipped over in the stream.
+ * <p>
+ * The reader only emits strings, so the values of the other types are skipped without being
+ * decoded at all. The strings skipped are still reported with the length of their value, so that
+ * the statistics of the reader cover every string of the rdb.
+ */
+public class KeyFilterRdbVisitor
+        extends DefaultRdbVisitor
+{
+    private final SkipRdbVisitor skip;
+    private final BiPredicate<Integer, byte[]> filter;
+    private final SkippedStringListener skipped;
+
+    /**
+     * Told about the strings whose value is skipped.
+     */
+    @FunctionalInterface
+    public interface SkippedStringListener
+    {
+        void skipped(int db, byte[] key, long valueLength);
+    }
+
+    public KeyFilterRdbVisitor(Replicator replicator, BiPredicate<Integer, byte[]> filter, SkippedStringListener skipped)
+    {
+        super(replicator);
+        this.skip = new SkipRdbVisitor(replicator);
+        this.filter = filter;
+        this.skipped = skipped;
+    }
+
+    @Override
+    public Event applyString(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        byte[] key = new BaseRdbParser(in).rdbLoadEncodedStringObject().first();
+        DB db = context.getDb();
+        int dbNumber = db == null ? 0 : (int) db.getDbNumber();
+        if (!filter.test(dbNumber, key)) {
+            skipped.skipped(dbNumber, key, skipStringObject(in));
+            // the parser submits no event for a null
+            return null;
+        }
+        KeyStringValueString kv = new KeyStringValueString();
+        kv.setValueRdbType(RDB_TYPE_STRING);
+        kv.setKey(key);
+        kv.setValue(new BaseRdbParser(in).rdbLoadEncodedStringObject().first());
+        return context.valueOf(kv);
+    }
+
+    /*
+     * Skip an encoded string, the length of its value is known without decompressing it
+     */
+    private static long skipStringObject(RedisInputStream in)
+            throws IOException
+    {
+        BaseRdbParser parser = new BaseRdbParser(in);
+        BaseRdbParser.Len len = parser.rdbLoadLen();
+        if (!len.encoded) {
+            in.skip(len.len);
+            return len.len;
+        }
+        switch ((int) len.len) {
+            case RDB_ENC_INT8:
+                in.skip(1);
+                return 0;
+            case RDB_ENC_INT16:
+                in.skip(2);
+                return 0;
+            case RDB_ENC_INT32:
+                in.skip(4);
+                return 0;
+            case RDB_ENC_LZF:
+                long compressed = parser.rdbLoadLen().len;
+                long length = parser.rdbLoadLen().len;
+                in.skip(compressed);
+                return length;
+            default:
+                throw new IOException("Unknown string encoding " + len.len + " in the rdb");
+        }
+    }
+
+    @Override
+    public Event applyList(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyList(in, version, context);
+    }
+
+    @Override
+    public Event applySet(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applySet(in, version, context);
+    }
+
+    @Override
+    public Event applyZSet(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyZSet(in, version, context);
+    }
+
+    @Override
+    public Event applyZSet2(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyZSet2(in, version, context);
+    }
+
+    @Override
+    public Event applyHash(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyHash(in, version, context);
+    }
+
+    @Override
+    public Event applyHashZipMap(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyHashZipMap(in, version, context);
+    }
+
+    @Override
+    public Event applyListZipList(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyListZipList(in, version, context);
+    }
+
+    @Override
+    public Event applySetIntSet(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applySetIntSet(in, version, context);
+    }
+
+    @Override
+    public Event applyZSetZipList(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyZSetZipList(in, version, context);
+    }
+
+    @Override
+    public Event applyHashZipList(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyHashZipList(in, version, context);
+    }
+
+    @Override
+    public Event applyListQuickList(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyListQuickList(in, version, context);
+    }
+
+    @Override
+    public Event applyModule(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyModule(in, version, context);
+    }
+
+    @Override
+    public Event applyModule2(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyModule2(in, version, context);
+    }
+
+    @Override
+    public Event applyStreamListPacks(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyStreamListPacks(in, version, context);
+    }
+
+    @Override
+    public Event applySetListPack(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applySetListPack(in, version, context);
+    }
+
+    @Override
+    public Event applyZSetListPack(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyZSetListPack(in, version, context);
+    }
+
+    @Override
+    public Event applyHashListPack(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyHashListPack(in, version, context);
+    }
+
+    @Override
+    public Event applyListQuickList2(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyListQuickList2(in, version, context);
+    }
+
+    @Override
+    public Event applyStreamListPacks2(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyStreamListPacks2(in, version, context);
+    }
+
+    @Override
+    public Event applyStreamListPacks3(RedisInputStream in, int version, ContextKeyValuePair context)
+            throws IOException
+    {
+        return skip.applyStreamListPacks3(in, version, context);
+    }
+}
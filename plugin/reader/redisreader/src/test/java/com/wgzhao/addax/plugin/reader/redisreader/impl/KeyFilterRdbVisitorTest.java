@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.plugin.reader.redisreader.impl;
+
+import com.moilioncircle.redis.replicator.Configuration;
+import com.moilioncircle.redis.replicator.FileType;
+import com.moilioncircle.redis.replicator.RedisReplicator;
+import com.moilioncircle.redis.replicator.rdb.datatype.KeyStringValueString;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeyFilterRdbVisitorTest
+{
+    @Test
+    void onlyTheWantedStringsAreDecoded()
+            throws IOException
+    {
+        Rdb rdb = new Rdb();
+        rdb.selectDb(0);
+        rdb.string("keep:plain", "value");
+        rdb.string("drop:plain", "x".repeat(100));
+        rdb.intString("drop:int", 42);
+        rdb.lzfString("drop:lzf", "y".repeat(20));
+        rdb.list("keep:list", "a", "b");
+        rdb.lzfString("keep:lzf", "z".repeat(30));
+        rdb.selectDb(1);
+        rdb.string("keep:other-db", "value");
+
+        Map<String, String> read = new LinkedHashMap<>();
+        Map<String, Long> skipped = new LinkedHashMap<>();
+        RedisReplicator replicator = new RedisReplicator(new ByteArrayInputStream(rdb.bytes()), FileType.RDB, Configuration.defaultSetting());
+        replicator.setRdbVisitor(new KeyFilterRdbVisitor(replicator,
+                (db, key) -> db == 0 && new String(key, StandardCharsets.UTF_8).startsWith("keep"),
+                (db, key, valueLength) -> skipped.put(db + "/" + new String(key, StandardCharsets.UTF_8), valueLength)));
+        replicator.addEventListener((r, event) -> {
+            if (event instanceof KeyStringValueString kv) {
+                read.put(new String(kv.getKey(), StandardCharsets.UTF_8), new String(kv.getValue(), StandardCharsets.UTF_8));
+            }
+        });
+        replicator.open();
+        replicator.close();
+
+        // the list is skipped as it is not a string, the string of db 1 by the filter
+        assertEquals(Map.of("keep:plain", "value", "keep:lzf", "z".repeat(30)), read);
+        assertEquals(Map.of("0/drop:plain", 100L, "0/drop:int", 0L, "0/drop:lzf", 20L, "1/keep:other-db", 5L), skipped);
+    }
+
+    /*
+     * Writes an rdb of version 9 with the encodings of the strings and lists
+     */
+    private static final class Rdb
+    {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Rdb()
+        {
+            out.writeBytes("REDIS0009".getBytes(StandardCharsets.US_ASCII));
+        }
+
+        void selectDb(int db)
+        {
+            out.write(0xFE);
+            length(db);
+        }
+
+        void string(String key, String value)
+        {
+            out.write(0);
+            plain(key);
+            plain(value);
+        }
+
+        void intString(String key, int value)
+        {
+            out.write(0);
+            plain(key);
+            // RDB_ENC_INT8
+            out.write(0xC0);
+            out.write(value);
+        }
+
+        void lzfString(String key, String value)
+        {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.write(0);
+            plain(key);
+            // RDB_ENC_LZF, made of a single run of literals
+            out.write(0xC3);
+            length(bytes.length + 1);
+            length(bytes.length);
+            out.write(bytes.length - 1);
+            out.writeBytes(bytes);
+        }
+
+        void list(String key, String... values)
+        {
+            out.write(1);
+            plain(key);
+            length(values.length);
+            for (String value : values) {
+                plain(value);
+            }
+        }
+
+        byte[] bytes()
+        {
+            out.write(0xFF);
+            // a zero checksum is not checked
+            out.writeBytes(new byte[8]);
+            return out.toByteArray();
+        }
+
+        private void plain(String value)
+        {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            length(bytes.length);
+            out.writeBytes(bytes);
+        }
+
+        private void length(int length)
+        {
+            if (length < 64) {
+                out.write(length);
+            }
+            else {
+                out.write(0x40 | (length >> 8));
+                out.write(length & 0xFF);
+            }
+        }
+    }
+}
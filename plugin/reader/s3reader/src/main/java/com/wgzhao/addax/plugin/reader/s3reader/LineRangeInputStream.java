@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.reader.s3reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Limits a stream to the lines that start inside a split, the same rule Hadoop uses for text splits.
+ * <p>
+ * A split that does not start the object is opened one byte before its start and drops everything up
+ * to the first line feed, that line belongs to the previous split. The last line is read to its end
+ * even past the split end, so every line is read by exactly one split.
+ */
+public class LineRangeInputStream
+        extends InputStream
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    // the position, relative to the stream start, where the lines of the next split begin
+    private final long end;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private boolean skipFirstLine;
+    private int bufferPos = 0;
+    private int bufferLen = 0;
+    // the position of buffer[bufferPos] relative to the stream start
+    private long pos = 0;
+    private boolean done;
+
+    /**
+     * @param in the stream, opened at the split start, or one byte before it when {@code skipFirstLine}
+     * @param end the split end relative to the stream start
+     * @param skipFirstLine whether the split starts after the beginning of the object
+     */
+    public LineRangeInputStream(InputStream in, long end, boolean skipFirstLine)
+    {
+        this.in = in;
+        this.end = end;
+        this.skipFirstLine = skipFirstLine;
+        // an empty split owns no line
+        this.done = end <= 0;
+    }
+
+    @Override
+    public int read()
+            throws IOException
+    {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len)
+            throws IOException
+    {
+        if (len == 0) {
+            return 0;
+        }
+        if (skipFirstLine) {
+            skipFirstLine = false;
+            skipLine();
+            // the first line owned by this split would start at or past its end
+            done = done || pos >= end;
+        }
+        if (done || !fill()) {
+            done = true;
+            return -1;
+        }
+        int n = Math.min(len, bufferLen - bufferPos);
+        // the split stops after the line feed that ends the line holding position end - 1
+        int from = (int) Math.max(0, Math.min(n, end - 1 - pos));
+        for (int i = from; i < n; i++) {
+            if (buffer[bufferPos + i] == '\n') {
+                n = i + 1;
+                done = true;
+                break;
+            }
+        }
+        System.arraycopy(buffer, bufferPos, b, off, n);
+        bufferPos += n;
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        in.close();
+    }
+
+    private void skipLine()
+            throws IOException
+    {
+        while (fill()) {
+            for (int i = bufferPos; i < bufferLen; i++) {
+                if (buffer[i] == '\n') {
+                    pos += i + 1 - bufferPos;
+                    bufferPos = i + 1;
+                    return;
+                }
+            }
+            pos += bufferLen - bufferPos;
+            bufferPos = bufferLen;
+        }
+        done = true;
+    }
+
+    private boolean fill()
+            throws IOException
+    {
+        if (bufferPos < bufferLen) {
+            return true;
+        }
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        bufferPos = 0;
+        bufferLen = n;
+        return true;
+    }
+}
@@ -36,4 +36,17 @@ public class S3Key extends Key
     public static final String OBJECT = "object";
 
     public static final String PATH_STYLE_ACCESS_ENABLED = "pathStyleAccessEnabled";
+
+    // unit: MB, larger uncompressed objects are split into line aligned ranges, 0 (the default) disables the splitting.
+    // The ranges are cut at line feeds, so only enable it when no record spans lines, e.g. no quoted field holds a line feed
+    public static final String SPLIT_SIZE = "splitSize";
+
+    // unit: MB, the size of each ranged GET
+    public static final String RANGE_SIZE = "rangeSize";
+
+    // the number of ranged GETs in flight for a task
+    public static final String READ_AHEAD = "readAhead";
+
+    // internal, the objects and byte ranges of a split
+    public static final String OBJECT_RANGES = "objectRanges";
 }
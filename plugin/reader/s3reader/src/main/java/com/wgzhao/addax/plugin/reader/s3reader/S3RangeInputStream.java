@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.reader.s3reader;
+
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * An input stream over a byte range of an object that keeps several {@code Range} GETs in flight.
+ * <p>
+ * The range is fetched in chunks of {@code chunkSize} bytes and at most {@code readAhead} chunks are
+ * requested ahead of the reader, so the memory held is bounded by {@code readAhead * chunkSize}.
+ * Reading may go on past {@code softEnd} up to the end of the object, for the line that crosses the end
+ * of a split; beyond it only one small chunk is fetched at a time.
+ */
+public class S3RangeInputStream
+        extends InputStream
+{
+    // the chunk size past the soft end, a line rarely needs more
+    private static final int TAIL_CHUNK_SIZE = 64 * 1024;
+
+    private final S3AsyncClient client;
+    private final String bucket;
+    private final String object;
+    private final long objectSize;
+    private final long softEnd;
+    private final int chunkSize;
+    private final int readAhead;
+    // the futures of the SDK itself, so that cancelling them aborts the requests
+    private final Deque<CompletableFuture<ResponseBytes<GetObjectResponse>>> pending = new ArrayDeque<>();
+
+    private long nextFetch;
+    private byte[] current = new byte[0];
+    private int currentPos = 0;
+    private boolean closed = false;
+
+    /**
+     * @param client the asynchronous S3 client, it is not closed by this stream
+     * @param bucket the bucket name
+     * @param object the object key
+     * @param start the first byte to read
+     * @param softEnd the position up to which chunks are read ahead
+     * @param objectSize the size of the object, reading stops there
+     * @param chunkSize the size of each ranged GET
+     * @param readAhead the number of ranged GETs in flight
+     */
+    public S3RangeInputStream(S3AsyncClient client, String bucket, String object, long start, long softEnd,
+            long objectSize, int chunkSize, int readAhead)
+    {
+        this.client = client;
+        this.bucket = bucket;
+        this.object = object;
+        this.nextFetch = start;
+        this.softEnd = Math.min(softEnd, objectSize);
+        this.objectSize = objectSize;
+        this.chunkSize = chunkSize;
+        this.readAhead = Math.max(1, readAhead);
+    }
+
+    @Override
+    public int read()
+            throws IOException
+    {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return current[currentPos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len)
+            throws IOException
+    {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - currentPos);
+        System.arraycopy(current, currentPos, b, off, n);
+        currentPos += n;
+        return n;
+    }
+
+    @Override
+    public int available()
+    {
+        return current.length - currentPos;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        pending.forEach(f -> f.cancel(true));
+        pending.clear();
+        current = new byte[0];
+        currentPos = 0;
+    }
+
+    private boolean ensureAvailable()
+            throws IOException
+    {
+        if (closed) {
+            throw new IOException("The stream of " + bucket + "/" + object + " is closed");
+        }
+        while (currentPos >= current.length) {
+            schedule();
+            CompletableFuture<ResponseBytes<GetObjectResponse>> next = pending.poll();
+            if (next == null) {
+                return false;
+            }
+            try {
+                current = next.get().asByteArrayUnsafe();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading " + bucket + "/" + object);
+            }
+            catch (ExecutionException e) {
+                throw new IOException("Failed to read a range of " + bucket + "/" + object, e.getCause());
+            }
+            currentPos = 0;
+            // keep the window full while the parser consumes this chunk
+            schedule();
+        }
+        return true;
+    }
+
+    private void schedule()
+    {
+        while (pending.size() < readAhead && nextFetch < objectSize) {
+            long size;
+            if (nextFetch < softEnd) {
+                size = Math.min(chunkSize, softEnd - nextFetch);
+            }
+            else if (pending.isEmpty() && currentPos >= current.length) {
+                // past the soft end, fetch only on demand
+                size = Math.min(TAIL_CHUNK_SIZE, objectSize - nextFetch);
+            }
+            else {
+                return;
+            }
+            long last = Math.min(objectSize, nextFetch + size) - 1;
+            GetObjectRequest request = GetObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(object)
+                    .range("bytes=" + nextFetch + "-" + last)
+                    .build();
+            pending.add(client.getObject(request, AsyncResponseTransformer.toBytes()));
+            nextFetch = last + 1;
+        }
+    }
+}
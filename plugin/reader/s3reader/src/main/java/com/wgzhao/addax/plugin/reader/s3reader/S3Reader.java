@@ -28,8 +28,10 @@ import com.wgzhao.addax.storage.reader.StorageReaderUtil;
 import org.apache.commons.io.Charsets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
@@ -38,7 +40,11 @@ import software.amazon.awssdk.services.s3.model.S3Object;
 import java.io.InputStream;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.regex.Pattern;
 
 import static com.wgzhao.addax.core.spi.ErrorCode.CONFIG_ERROR;
@@ -49,16 +55,24 @@ import static com.wgzhao.addax.core.spi.ErrorCode.RUNTIME_ERROR;
 public class S3Reader
         extends Reader
 {
+    private static final String RANGE_START = "start";
+    private static final String RANGE_END = "end";
+    private static final String RANGE_OBJECT_SIZE = "size";
+
     public static class Job
             extends Reader.Job
     {
         private static final Logger LOG = LoggerFactory.getLogger(S3Reader.Job.class);
+        // splitting objects is opt-in, a quoted field may hold a line feed where a range would be cut
+        private static final long DEFAULT_SPLIT_SIZE = 0;
 
         private Configuration readerOriginConfig = null;
 
         private String bucket;
         private S3Client client = null;
 
+        private record ObjectGroup(List<Map<String, Object>> ranges, long size) {}
+
         @Override
         public void init()
         {
@@ -140,8 +154,7 @@ public class S3Reader
             LOG.debug("split() begin...");
             List<Configuration> readerSplitConfigs = new ArrayList<>();
 
-            // 将每个单独的 object 作为一个 slice
-            List<String> objects = parseOriginObjects(readerOriginConfig.getList(S3Key.OBJECT, String.class));
+            List<S3Object> objects = parseOriginObjects(readerOriginConfig.getList(S3Key.OBJECT, String.class));
             if (objects.isEmpty()) {
                 throw AddaxException.asAddaxException(
                         RUNTIME_ERROR,
@@ -151,32 +164,108 @@ public class S3Reader
                                 this.readerOriginConfig.get(S3Key.BUCKET)));
             }
 
-            for (String object : objects) {
-                Configuration splitConfig = this.readerOriginConfig.clone();
-                splitConfig.set(S3Key.OBJECT, object);
-                readerSplitConfigs.add(splitConfig);
-                LOG.info("S3 object to be read {}", object);
+            long splitSize = readerOriginConfig.getLong(S3Key.SPLIT_SIZE, DEFAULT_SPLIT_SIZE) * 1024 * 1024;
+            boolean splittable = splitSize > 0 && isLineSplittable();
+
+            // a large object is read by several tasks, each one owns the lines starting in its byte range
+            List<S3Object> wholeObjects = new ArrayList<>();
+            long wholeSize = 0;
+            for (S3Object object : objects) {
+                if (splittable && object.size() > splitSize) {
+                    int pieces = (int) ((object.size() + splitSize - 1) / splitSize);
+                    long step = (object.size() + pieces - 1) / pieces;
+                    for (long start = 0; start < object.size(); start += step) {
+                        long end = Math.min(object.size(), start + step);
+                        readerSplitConfigs.add(createSplitConfig(List.of(toRange(object, start, end))));
+                    }
+                    LOG.info("S3 object {} of {} bytes to be read in {} ranges", object.key(), object.size(), pieces);
+                }
+                else {
+                    wholeObjects.add(object);
+                    wholeSize += object.size();
+                }
+            }
+
+            // the other objects are packed into groups of about the same size, the largest first
+            if (!wholeObjects.isEmpty()) {
+                long groupNumber = Math.max(adviceNumber, splitSize > 0 ? (wholeSize + splitSize - 1) / splitSize : 0);
+                groupNumber = Math.max(1, Math.min(groupNumber, wholeObjects.size()));
+                wholeObjects.sort(Comparator.comparingLong(S3Object::size).reversed());
+                PriorityQueue<ObjectGroup> groups = new PriorityQueue<>(Comparator.comparingLong(ObjectGroup::size));
+                for (int i = 0; i < groupNumber; i++) {
+                    groups.add(new ObjectGroup(new ArrayList<>(), 0));
+                }
+                for (S3Object object : wholeObjects) {
+                    ObjectGroup group = groups.poll();
+                    group.ranges().add(toRange(object, 0, object.size()));
+                    groups.add(new ObjectGroup(group.ranges(), group.size() + object.size()));
+                    LOG.info("S3 object to be read {}", object.key());
+                }
+                for (ObjectGroup group : groups) {
+                    readerSplitConfigs.add(createSplitConfig(group.ranges()));
+                }
             }
+            LOG.info("{} object(s) are split into {} slice(s)", objects.size(), readerSplitConfigs.size());
             LOG.debug("split() ok and end...");
             return readerSplitConfigs;
         }
 
-        private List<String> parseOriginObjects(List<String> originObjects)
+        private Configuration createSplitConfig(List<Map<String, Object>> ranges)
+        {
+            Configuration splitConfig = this.readerOriginConfig.clone();
+            splitConfig.set(S3Key.OBJECT_RANGES, ranges);
+            return splitConfig;
+        }
+
+        private static Map<String, Object> toRange(S3Object object, long start, long end)
         {
-            List<String> parsedObjects = new ArrayList<>();
+            Map<String, Object> range = new LinkedHashMap<>();
+            range.put(S3Key.OBJECT, object.key());
+            range.put(RANGE_START, start);
+            range.put(RANGE_END, end);
+            range.put(RANGE_OBJECT_SIZE, object.size());
+            return range;
+        }
+
+        /*
+         * ranges are cut on line feeds, which only works on uncompressed objects
+         * in an encoding where a line feed is a single byte
+         */
+        private boolean isLineSplittable()
+        {
+            String compress = readerOriginConfig.getString(S3Key.COMPRESS);
+            if (compress != null && !compress.isBlank() && !"none".equalsIgnoreCase(compress)) {
+                return false;
+            }
+            String encoding = readerOriginConfig.getString(S3Key.ENCODING, Constant.DEFAULT_ENCODING);
+            return "\n".getBytes(Charsets.toCharset(encoding)).length == 1;
+        }
+
+        private List<S3Object> parseOriginObjects(List<String> originObjects)
+        {
+            List<S3Object> parsedObjects = new ArrayList<>();
             for (String object : originObjects) {
                 if (object.indexOf('*') > -1 || object.indexOf('?') > -1) {
-                    List<String> remoteObjects = listObjectsWithPattern(object);
+                    List<S3Object> remoteObjects = listObjectsWithPattern(object);
                     parsedObjects.addAll(remoteObjects);
                 }
                 else {
-                    parsedObjects.add(object);
+                    try {
+                        HeadObjectResponse head = client.headObject(HeadObjectRequest.builder()
+                                .bucket(bucket)
+                                .key(object)
+                                .build());
+                        parsedObjects.add(S3Object.builder().key(object).size(head.contentLength()).build());
+                    }
+                    catch (NoSuchKeyException e) {
+                        LOG.warn("The object {} does not exists", object);
+                    }
                 }
             }
             return parsedObjects;
         }
 
-        private List<String> listObjectsWithPattern(String pattern)
+        private List<S3Object> listObjectsWithPattern(String pattern)
         {
             // Extract the prefix from the pattern up to the first wildcard character
             int firstWildcardIndex = Math.min(
@@ -194,13 +283,13 @@ public class S3Reader
                     .build();
 
             ListObjectsV2Response listObjectsV2Response;
-            List<String> remoteObjects = new ArrayList<>();
+            List<S3Object> remoteObjects = new ArrayList<>();
             do {
                 listObjectsV2Response = client.listObjectsV2(listObjectsV2Request);
 
                 for (S3Object s3Object : listObjectsV2Response.contents()) {
                     if (compiledPattern.matcher(s3Object.key()).matches()) {
-                        remoteObjects.add(s3Object.key());
+                        remoteObjects.add(s3Object);
                     }
                 }
 
@@ -218,41 +307,62 @@ public class S3Reader
             extends Reader.Task
     {
         private static final Logger LOG = LoggerFactory.getLogger(Task.class);
+        private static final int DEFAULT_RANGE_SIZE = 8;
+        private static final int DEFAULT_READ_AHEAD = 4;
 
         private Configuration readerSliceConfig;
+        private S3AsyncClient client;
+        private int rangeSize;
+        private int readAhead;
 
         @Override
         public void startRead(RecordSender recordSender)
         {
             LOG.debug("Begin to start reading");
-            String object = readerSliceConfig.getString(S3Key.OBJECT);
-
-            GetObjectRequest s3Object = GetObjectRequest.builder()
-                    .bucket(readerSliceConfig.getString(S3Key.BUCKET))
-                    .key(object)
-                    .build();
-            try (S3Client client = S3Util.initS3Client(readerSliceConfig)) {
-                InputStream objectStream = client.getObject(s3Object);
-                StorageReaderUtil.readFromStream(objectStream, object,
-                        this.readerSliceConfig, recordSender,
-                        this.getTaskPluginCollector());
-                recordSender.flush();
-            }
-            catch (NoSuchKeyException e) {
-                LOG.warn("The object {} does not exists", object);
+            String bucket = readerSliceConfig.getString(S3Key.BUCKET);
+            for (Configuration range : readerSliceConfig.getListConfiguration(S3Key.OBJECT_RANGES)) {
+                String object = range.getString(S3Key.OBJECT);
+                long start = range.getLong(RANGE_START);
+                long end = range.getLong(RANGE_END);
+                long size = range.getLong(RANGE_OBJECT_SIZE);
+                InputStream objectStream;
+                Configuration config = readerSliceConfig;
+                if (start == 0 && end == size) {
+                    LOG.info("Reading S3 object {}", object);
+                    objectStream = new S3RangeInputStream(client, bucket, object, 0, size, size, rangeSize, readAhead);
+                }
+                else {
+                    LOG.info("Reading S3 object {} from byte {} to {}", object, start, end);
+                    // open one byte early to tell whether the split starts on a line boundary
+                    long from = start == 0 ? 0 : start - 1;
+                    objectStream = new LineRangeInputStream(
+                            new S3RangeInputStream(client, bucket, object, from, end, size, rangeSize, readAhead),
+                            end - from, start > 0);
+                    if (start > 0) {
+                        config = readerSliceConfig.clone();
+                        config.set(S3Key.SKIP_HEADER, false);
+                    }
+                }
+                StorageReaderUtil.readFromStream(objectStream, object, config, recordSender, this.getTaskPluginCollector());
             }
+            recordSender.flush();
         }
 
         @Override
         public void init()
         {
             this.readerSliceConfig = this.getPluginJobConf();
+            this.rangeSize = readerSliceConfig.getInt(S3Key.RANGE_SIZE, DEFAULT_RANGE_SIZE) * 1024 * 1024;
+            this.readAhead = readerSliceConfig.getInt(S3Key.READ_AHEAD, DEFAULT_READ_AHEAD);
+            this.client = S3Util.initS3AsyncClient(readerSliceConfig);
         }
 
         @Override
         public void destroy()
         {
-
+            if (null != this.client) {
+                this.client.close();
+            }
         }
     }
 }
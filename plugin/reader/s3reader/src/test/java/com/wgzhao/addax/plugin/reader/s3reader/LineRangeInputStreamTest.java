@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.plugin.reader.s3reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LineRangeInputStreamTest
+{
+    @Test
+    void splitsOwnTheLinesStartingInThem()
+            throws IOException
+    {
+        byte[] data = "a\nbb\nccc\n\ndddd\neeeee\n".getBytes(StandardCharsets.UTF_8);
+
+        // the first split ends on the line feed of "bb", the second starts on "ccc"
+        assertEquals("a\nbb\n", new String(readSplit(data, 0, 5), StandardCharsets.UTF_8));
+        assertEquals("ccc\n\ndddd\neeeee\n", new String(readSplit(data, 5, data.length), StandardCharsets.UTF_8));
+        // a split starting inside a line leaves it to the previous one and reads past its end
+        assertEquals("a\nbb\nccc\n", new String(readSplit(data, 0, 6), StandardCharsets.UTF_8));
+        assertEquals("\ndddd\n", new String(readSplit(data, 6, 12), StandardCharsets.UTF_8));
+        // a split holding no line start is empty
+        assertEquals("", new String(readSplit(data, 6, 8), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void everyCutReadsEachLineOnce()
+            throws IOException
+    {
+        byte[] data = "first\nsecond\n\nthird line\nno line feed at the end".getBytes(StandardCharsets.UTF_8);
+        for (int cut = 0; cut <= data.length; cut++) {
+            ByteArrayOutputStream all = new ByteArrayOutputStream();
+            all.writeBytes(readSplit(data, 0, cut));
+            all.writeBytes(readSplit(data, cut, data.length));
+            assertArrayEquals(data, all.toByteArray(), "cut at " + cut);
+        }
+    }
+
+    @Test
+    void randomSplitsOfLongLinesReadEachLineOnce()
+            throws IOException
+    {
+        Random random = new Random(42);
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        for (int i = 0; i < 300; i++) {
+            // some lines are longer than the buffer of the stream
+            byte[] line = new byte[random.nextInt(10) == 0 ? 70_000 + random.nextInt(70_000) : random.nextInt(200)];
+            Arrays.fill(line, (byte) ('a' + i % 26));
+            text.writeBytes(line);
+            text.write('\n');
+        }
+        byte[] data = text.toByteArray();
+        for (int splits : new int[] {1, 2, 7, 64, 1000}) {
+            ByteArrayOutputStream all = new ByteArrayOutputStream();
+            long step = (data.length + splits - 1) / splits;
+            for (long start = 0; start < data.length; start += step) {
+                all.writeBytes(readSplit(data, (int) start, (int) Math.min(data.length, start + step)));
+            }
+            assertArrayEquals(data, all.toByteArray(), splits + " splits");
+        }
+    }
+
+    @Test
+    void singleByteReadsStopAtTheSameLine()
+            throws IOException
+    {
+        byte[] data = "one\ntwo\nthree\n".getBytes(StandardCharsets.UTF_8);
+        try (InputStream in = open(data, 4, 6)) {
+            StringBuilder read = new StringBuilder();
+            int b;
+            while ((b = in.read()) != -1) {
+                read.append((char) b);
+            }
+            assertEquals("two\n", read.toString());
+        }
+    }
+
+    // the way S3Reader opens a split: one byte early unless it starts the object
+    private static InputStream open(byte[] data, int start, int end)
+    {
+        int from = start == 0 ? 0 : start - 1;
+        return new LineRangeInputStream(new ByteArrayInputStream(data, from, data.length - from), end - from, start > 0);
+    }
+
+    private static byte[] readSplit(byte[] data, int start, int end)
+            throws IOException
+    {
+        try (InputStream in = open(data, start, end)) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.plugin.reader.s3reader;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.wgzhao.addax.core.util.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reads through the asynchronous S3 client from a local HTTP server standing in for S3,
+ * which answers the ranged GETs of a single object.
+ */
+class S3RangeInputStreamTest
+{
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private byte[] object;
+    private HttpServer server;
+    private S3AsyncClient client;
+
+    @BeforeEach
+    void setUp()
+            throws IOException
+    {
+        StringBuilder text = new StringBuilder();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            text.append(i).append(',').append("x".repeat(random.nextInt(40))).append('\n');
+        }
+        object = text.toString().getBytes();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/bucket/data.csv", this::serve);
+        server.start();
+        client = S3Util.initS3AsyncClient(Configuration.from("{"
+                + "\"region\": \"us-east-1\", \"accessId\": \"id\", \"accessKey\": \"key\", \"pathStyleAccessEnabled\": true,"
+                + "\"endpoint\": \"http://127.0.0.1:" + server.getAddress().getPort() + "\"}"));
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        client.close();
+        server.stop(0);
+    }
+
+    private void serve(HttpExchange exchange)
+            throws IOException
+    {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        ranges.add(range);
+        Matcher m = RANGE.matcher(range == null ? "" : range);
+        if (!m.matches()) {
+            exchange.sendResponseHeaders(400, -1);
+            exchange.close();
+            return;
+        }
+        int first = Integer.parseInt(m.group(1));
+        int last = Math.min(object.length - 1, Integer.parseInt(m.group(2)));
+        exchange.getResponseHeaders().add("Content-Range", "bytes " + first + "-" + last + "/" + object.length);
+        exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(206, last - first + 1L);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(object, first, last - first + 1);
+        }
+    }
+
+    @Test
+    void readsTheWholeObjectInRangedGets()
+            throws IOException
+    {
+        try (InputStream in = new S3RangeInputStream(client, "bucket", "data.csv", 0, object.length, object.length, 10_000, 3)) {
+            assertArrayEquals(object, in.readAllBytes());
+        }
+        assertEquals((object.length + 9_999) / 10_000, ranges.size());
+        // the GETs in flight may reach the server in any order
+        assertTrue(ranges.contains("bytes=0-9999"));
+    }
+
+    @Test
+    void splitsReadEachLineOnce()
+            throws IOException
+    {
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        int splits = 5;
+        long step = (object.length + splits - 1) / splits;
+        for (long start = 0; start < object.length; start += step) {
+            long end = Math.min(object.length, start + step);
+            long from = start == 0 ? 0 : start - 1;
+            try (InputStream in = new LineRangeInputStream(
+                    new S3RangeInputStream(client, "bucket", "data.csv", from, end, object.length, 4096, 2), end - from, start > 0)) {
+                all.writeBytes(in.readAllBytes());
+            }
+        }
+        assertArrayEquals(object, all.toByteArray());
+        // past the end of a split the rest of its last line is fetched in a small chunk, not up to the end of the object
+        long fetched = ranges.stream().mapToLong(S3RangeInputStreamTest::length).sum();
+        assertTrue(fetched < object.length + splits * 64L * 1024, "fetched " + fetched);
+    }
+
+    @Test
+    void readingAfterCloseFails()
+            throws IOException
+    {
+        InputStream in = new S3RangeInputStream(client, "bucket", "data.csv", 0, object.length, object.length, 1024, 4);
+        assertEquals(object[0], (byte) in.read());
+        // the GETs read ahead are cancelled
+        in.close();
+        assertThrows(IOException.class, in::read);
+    }
+
+    private static long length(String range)
+    {
+        Matcher m = RANGE.matcher(range);
+        return m.matches() ? Long.parseLong(m.group(2)) - Long.parseLong(m.group(1)) + 1 : 0;
+    }
+}
@@ -106,7 +106,7 @@ public class AccessWriter
         @Override
         public void prepare()
         {
-            this.commonRdbmsWriterJob.prepare(this.originalConfig);
+            this.commonRdbmsWriterJob.prepare(this.originalConfig, isResuming());
         }
 
         @Override
@@ -126,6 +126,12 @@ public class AccessWriter
         {
             return this.commonRdbmsWriterJob.split(this.originalConfig, mandatoryNumber);
         }
+
+        @Override
+        public boolean supportResume()
+        {
+            return this.commonRdbmsWriterJob.supportResume(this.originalConfig);
+        }
     }
 
     public static class Task
@@ -36,4 +36,9 @@ public final class CassandraKey extends Key
     public final static String CONSISTENCY_LEVEL = "consistencyLevel";
     public final static String CONNECTIONS_PER_HOST = "connectionsPerHost";
     public final static String MAX_PENDING_CONNECTION = "maxPendingPerConnection";
+    // the max number of statements (or batches) in flight per task
+    public final static String MAX_IN_FLIGHT = "maxInFlight";
+    public final static String MAX_RETRIES = "maxRetries";
+    // the initial retry interval in milliseconds, doubled on each retry
+    public final static String RETRY_INTERVAL = "retryInterval";
 }
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.writer.cassandrawriter;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.exceptions.QueryValidationException;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.plugin.TaskPluginCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous write engine with a fixed concurrency window.
+ * <p>
+ * At most {@code maxInFlight} statements are executed at the same time, the writer thread only blocks
+ * when the window is full instead of waiting for a whole batch of writes to complete.
+ * A failed statement is retried with exponential backoff, a batch which still fails is written
+ * statement by statement, and a statement which still fails is collected as a dirty record.
+ */
+public class CassandraWriteEngine
+        implements AutoCloseable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CassandraWriteEngine.class);
+    private static final long MAX_RETRY_INTERVAL_MS = 10_000L;
+
+    private final Session session;
+    private final TaskPluginCollector taskPluginCollector;
+    private final int maxInFlight;
+    private final Semaphore window;
+    private final int maxRetries;
+    private final long retryInterval;
+    private final ScheduledExecutorService retryExecutor;
+    // the failures are handled by the writer thread, the callbacks run in the driver's I/O threads
+    private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+
+    private record Failure(Statement statement, List<Record> records, Throwable cause) {}
+
+    public CassandraWriteEngine(Session session, TaskPluginCollector taskPluginCollector, int maxInFlight,
+            int maxRetries, long retryInterval)
+    {
+        this.session = session;
+        this.taskPluginCollector = taskPluginCollector;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.window = new Semaphore(this.maxInFlight);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryInterval = Math.max(1L, retryInterval);
+        this.retryExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cassandra-write-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * submit a statement, block only if the concurrency window is full
+     *
+     * @param statement the statement, either a bound statement or an unlogged batch
+     * @param records the records the statement is built from, in the order of the batch
+     */
+    public void submit(Statement statement, List<Record> records)
+    {
+        handleFailures();
+        window.acquireUninterruptibly();
+        execute(statement, records, 0);
+    }
+
+    /**
+     * wait until all the submitted statements are completed, including their retries
+     */
+    public void flush()
+    {
+        do {
+            window.acquireUninterruptibly(maxInFlight);
+            window.release(maxInFlight);
+        }
+        while (handleFailures());
+    }
+
+    @Override
+    public void close()
+    {
+        retryExecutor.shutdownNow();
+    }
+
+    private void execute(Statement statement, List<Record> records, int attempt)
+    {
+        ResultSetFuture future;
+        try {
+            future = session.executeAsync(statement);
+        }
+        catch (Exception e) {
+            onFailure(statement, records, attempt, e);
+            return;
+        }
+        future.addListener(() -> {
+            try {
+                future.getUninterruptibly();
+                window.release();
+            }
+            catch (Exception e) {
+                onFailure(statement, records, attempt, e);
+            }
+        }, Runnable::run);
+    }
+
+    private void onFailure(Statement statement, List<Record> records, int attempt, Throwable cause)
+    {
+        if (attempt < maxRetries && !(cause instanceof QueryValidationException)) {
+            long delay = Math.min(MAX_RETRY_INTERVAL_MS, retryInterval << attempt);
+            LOG.warn("Failed to write to cassandra, retry {}/{} after {}ms: {}", attempt + 1, maxRetries, delay, cause.getMessage());
+            try {
+                retryExecutor.schedule(() -> execute(statement, records, attempt + 1), delay, TimeUnit.MILLISECONDS);
+                return;
+            }
+            catch (Exception e) {
+                // the engine is closed, give up
+                LOG.debug("Failed to schedule the retry", e);
+            }
+        }
+        failures.add(new Failure(statement, records, cause));
+        window.release();
+    }
+
+    // return true if any statement is resubmitted
+    private boolean handleFailures()
+    {
+        boolean resubmitted = false;
+        Failure failure;
+        while ((failure = failures.poll()) != null) {
+            if (failure.statement() instanceof BatchStatement batch && failure.records().size() > 1) {
+                LOG.error("Failed to write in batch, try to write one by one", failure.cause());
+                List<Statement> statements = new ArrayList<>(batch.getStatements());
+                for (int i = 0; i < statements.size(); i++) {
+                    window.acquireUninterruptibly();
+                    execute(statements.get(i), List.of(failure.records().get(i)), 0);
+                }
+                resubmitted = true;
+            }
+            else {
+                for (Record record : failure.records()) {
+                    taskPluginCollector.collectDirtyRecord(record, failure.cause());
+                }
+            }
+        }
+        return resubmitted;
+    }
+}
@@ -25,17 +25,16 @@ import com.wgzhao.addax.core.exception.AddaxException;
 import com.wgzhao.addax.core.plugin.RecordReceiver;
 import com.wgzhao.addax.core.spi.Writer;
 import com.wgzhao.addax.core.util.Configuration;
-import com.datastax.driver.core.BatchStatement;
-import com.datastax.driver.core.BatchStatement.Type;
 import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.CodecRegistry;
 import com.datastax.driver.core.ColumnMetadata;
 import com.datastax.driver.core.ConsistencyLevel;
 import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.HostDistance;
 import com.datastax.driver.core.PoolingOptions;
 import com.datastax.driver.core.PreparedStatement;
-import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.ProtocolVersion;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.TableMetadata;
 import com.datastax.driver.core.querybuilder.Insert;
@@ -45,7 +44,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 import static com.datastax.driver.core.querybuilder.QueryBuilder.timestamp;
 import static com.wgzhao.addax.core.spi.ErrorCode.CONFIG_ERROR;
@@ -98,8 +96,11 @@ public class CassandraWriter
         private int writeTimeCol = -1;
         private boolean asyncWrite = false;
         private long batchSize = 1;
-        private List<ResultSetFuture> unConfirmedWrite;
-        private List<BoundStatement> bufferedWrite;
+        private ProtocolVersion protocolVersion;
+        private CodecRegistry codecRegistry;
+        private CassandraWriteEngine writeEngine;
+        // the statements of batch mode, grouped by partition
+        private PartitionBatcher partitionBatcher;
 
         @Override
         public void startWrite(RecordReceiver lineReceiver)
@@ -133,46 +134,18 @@ public class CassandraWriter
                     if (batchSize <= 1) {
                         session.execute(boundStmt);
                     }
+                    else if (asyncWrite) {
+                        writeEngine.submit(boundStmt, List.of(record));
+                    }
                     else {
-                        if (asyncWrite) {
-                            unConfirmedWrite.add(session.executeAsync(boundStmt));
-                            if (unConfirmedWrite.size() >= batchSize) {
-                                for (ResultSetFuture write : unConfirmedWrite) {
-                                    write.getUninterruptibly(10000, TimeUnit.MILLISECONDS);
-                                }
-                                unConfirmedWrite.clear();
-                            }
-                        }
-                        else {
-                            bufferedWrite.add(boundStmt);
-                            if (bufferedWrite.size() >= batchSize) {
-                                BatchStatement batchStatement = new BatchStatement(Type.UNLOGGED);
-                                batchStatement.addAll(bufferedWrite);
-                                try {
-                                    session.execute(batchStatement);
-                                }
-                                catch (Exception e) {
-                                    LOG.error("failed to write in batch, try to write one by one", e);
-                                    for (BoundStatement stmt : bufferedWrite) {
-                                        session.execute(stmt);
-                                    }
-                                }
-                                bufferedWrite.clear();
-                            }
-                        }
+                        partitionBatcher.add(boundStmt, boundStmt.getRoutingKey(protocolVersion, codecRegistry), record);
                     }
                 }
-                if (unConfirmedWrite != null && !unConfirmedWrite.isEmpty()) {
-                    for (ResultSetFuture write : unConfirmedWrite) {
-                        write.getUninterruptibly(10000, TimeUnit.MILLISECONDS);
+                if (writeEngine != null) {
+                    if (partitionBatcher != null) {
+                        partitionBatcher.flush();
                     }
-                    unConfirmedWrite.clear();
-                }
-                if (bufferedWrite != null && !bufferedWrite.isEmpty()) {
-                    BatchStatement batchStatement = new BatchStatement(Type.UNLOGGED);
-                    batchStatement.addAll(bufferedWrite);
-                    session.execute(batchStatement);
-                    bufferedWrite.clear();
+                    writeEngine.flush();
                 }
             }
             catch (Exception e) {
@@ -252,13 +225,18 @@ public class CassandraWriter
             }
 
             statement = session.prepare(insertStmt);
+            protocolVersion = cluster.getConfiguration().getProtocolOptions().getProtocolVersion();
+            codecRegistry = cluster.getConfiguration().getCodecRegistry();
 
             if (batchSize > 1) {
-                if (asyncWrite) {
-                    unConfirmedWrite = new ArrayList<>();
-                }
-                else {
-                    bufferedWrite = new ArrayList<>();
+                // in async mode, batchSize used to be the number of writes waited for together, keep it as the default window
+                int maxInFlight = taskConfig.getInt(CassandraKey.MAX_IN_FLIGHT, asyncWrite ? (int) batchSize : connectionsPerHost);
+                int maxRetries = taskConfig.getInt(CassandraKey.MAX_RETRIES, 3);
+                long retryInterval = taskConfig.getLong(CassandraKey.RETRY_INTERVAL, 100L);
+                writeEngine = new CassandraWriteEngine(session, getTaskPluginCollector(), maxInFlight, maxRetries, retryInterval);
+                LOG.info("Write with batchSize={}, asyncWrite={}, maxInFlight={}, maxRetries={}", batchSize, asyncWrite, maxInFlight, maxRetries);
+                if (!asyncWrite) {
+                    partitionBatcher = new PartitionBatcher(writeEngine, batchSize);
                 }
             }
         }
@@ -266,7 +244,12 @@ public class CassandraWriter
         @Override
         public void destroy()
         {
-
+            if (writeEngine != null) {
+                writeEngine.close();
+            }
+            if (session != null) {
+                session.getCluster().close();
+            }
         }
     }
 }
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.plugin.writer.cassandrawriter;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.Statement;
+import com.wgzhao.addax.core.element.Record;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buffer the statements of batch mode by partition and submit them to the write engine.
+ * <p>
+ * Statements of the same partition are written in one unlogged batch, so the coordinator,
+ * chosen by the token aware policy from the routing key of the batch, is a replica of all of them.
+ * Statements of different partitions are never mixed in one batch.
+ */
+class PartitionBatcher
+{
+    private final CassandraWriteEngine writeEngine;
+    private final long batchSize;
+    // the buffered statements, grouped by partition key
+    private final Map<ByteBuffer, List<PendingWrite>> partitionBuffer = new LinkedHashMap<>();
+    private int bufferedCount = 0;
+
+    private record PendingWrite(Statement statement, Record record) {}
+
+    PartitionBatcher(CassandraWriteEngine writeEngine, long batchSize)
+    {
+        this.writeEngine = writeEngine;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * buffer a statement, a partition is submitted once it holds batchSize statements,
+     * all of them once batchSize statements are buffered
+     *
+     * @param statement the statement
+     * @param routingKey the partition key of the statement
+     * @param record the record the statement is built from
+     */
+    void add(Statement statement, ByteBuffer routingKey, Record record)
+    {
+        List<PendingWrite> partition = partitionBuffer.computeIfAbsent(routingKey, k -> new ArrayList<>());
+        partition.add(new PendingWrite(statement, record));
+        bufferedCount++;
+        if (partition.size() >= batchSize) {
+            partitionBuffer.remove(routingKey);
+            bufferedCount -= partition.size();
+            submitPartition(partition);
+        }
+        else if (bufferedCount >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * submit all the buffered statements
+     */
+    void flush()
+    {
+        partitionBuffer.values().forEach(this::submitPartition);
+        partitionBuffer.clear();
+        bufferedCount = 0;
+    }
+
+    private void submitPartition(List<PendingWrite> partition)
+    {
+        if (partition.size() == 1) {
+            writeEngine.submit(partition.get(0).statement(), List.of(partition.get(0).record()));
+            return;
+        }
+        BatchStatement batchStatement = new BatchStatement(BatchStatement.Type.UNLOGGED);
+        List<Record> records = new ArrayList<>(partition.size());
+        for (PendingWrite write : partition) {
+            batchStatement.add(write.statement());
+            records.add(write.record());
+        }
+        writeEngine.submit(batchStatement, records);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.writer.cassandrawriter;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.exceptions.InvalidQueryException;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.element.StringColumn;
+import com.wgzhao.addax.core.plugin.TaskPluginCollector;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes through a stubbed session whose futures are completed by the test.
+ */
+class CassandraWriteEngineTest
+{
+    private final DirtyCollector collector = new DirtyCollector();
+
+    @Test
+    void windowBoundsTheStatementsInFlight()
+            throws Exception
+    {
+        BlockingQueue<StubSession.StubFuture> running = new LinkedBlockingQueue<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        StubSession stub = new StubSession(statement -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            StubSession.StubFuture future = new StubSession.StubFuture();
+            running.add(future);
+            return future;
+        });
+
+        try (CassandraWriteEngine engine = new CassandraWriteEngine(stub.session, collector, 3, 0, 1)) {
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 10; i++) {
+                    engine.submit(statement("r" + i), List.of(record("r" + i)));
+                }
+                engine.flush();
+            });
+            writer.start();
+
+            for (int completed = 0; completed < 10; completed++) {
+                // the writer fills the window, then blocks until a statement completes
+                int expected = Math.min(10, 3 + completed);
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (stub.executed.size() < expected) {
+                    assertTrue(System.currentTimeMillis() < deadline, "the window was not filled");
+                    Thread.onSpinWait();
+                }
+                Thread.sleep(50);
+                assertEquals(expected, stub.executed.size());
+
+                StubSession.StubFuture future = running.poll();
+                assertNotNull(future);
+                inFlight.decrementAndGet();
+                future.succeed();
+            }
+            writer.join(10_000);
+            assertFalse(writer.isAlive(), "flush did not return");
+        }
+        assertEquals(10, stub.executed.size());
+        assertEquals(3, maxInFlight.get());
+        assertTrue(collector.dirty.isEmpty());
+    }
+
+    @Test
+    void failedStatementIsRetriedThenCollected()
+    {
+        StubSession stub = new StubSession(statement -> StubSession.failed(new IllegalStateException("timed out")));
+
+        try (CassandraWriteEngine engine = new CassandraWriteEngine(stub.session, collector, 2, 2, 1)) {
+            engine.submit(statement("a"), List.of(record("a")));
+            engine.flush();
+        }
+
+        // the first attempt and 2 retries
+        assertEquals(3, stub.executed.size());
+        assertEquals(List.of("a"), collector.keys());
+    }
+
+    @Test
+    void invalidStatementIsNotRetried()
+    {
+        StubSession stub = new StubSession(statement -> StubSession.failed(new InvalidQueryException("unknown column")));
+
+        try (CassandraWriteEngine engine = new CassandraWriteEngine(stub.session, collector, 2, 2, 1)) {
+            engine.submit(statement("a"), List.of(record("a")));
+            engine.flush();
+        }
+
+        assertEquals(1, stub.executed.size());
+        assertEquals(List.of("a"), collector.keys());
+    }
+
+    @Test
+    void failedBatchIsWrittenOneByOne()
+    {
+        // the batch is rejected, then only the statement of b
+        StubSession stub = new StubSession(statement -> {
+            if (statement instanceof BatchStatement || "b".equals(key(statement))) {
+                return StubSession.failed(new InvalidQueryException("rejected"));
+            }
+            return StubSession.succeeded();
+        });
+        BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+        batch.add(statement("a"));
+        batch.add(statement("b"));
+        batch.add(statement("c"));
+
+        try (CassandraWriteEngine engine = new CassandraWriteEngine(stub.session, collector, 2, 0, 1)) {
+            engine.submit(batch, List.of(record("a"), record("b"), record("c")));
+            engine.flush();
+        }
+
+        assertEquals(4, stub.executed.size());
+        assertEquals(List.of("b"), collector.keys());
+    }
+
+    static SimpleStatement statement(String key)
+    {
+        return new SimpleStatement("INSERT INTO t (k) VALUES (?)", key);
+    }
+
+    static String key(Statement statement)
+    {
+        return (String) ((SimpleStatement) statement).getObject(0);
+    }
+
+    static Record record(String key)
+    {
+        Record record = new DefaultRecord();
+        record.addColumn(new StringColumn(key));
+        return record;
+    }
+
+    static final class DirtyCollector
+            extends TaskPluginCollector
+    {
+        final List<Record> dirty = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void collectDirtyRecord(Record dirtyRecord, Throwable t, String errorMessage)
+        {
+            dirty.add(dirtyRecord);
+        }
+
+        @Override
+        public void collectMessage(String key, String value)
+        {
+        }
+
+        List<String> keys()
+        {
+            return dirty.stream().map(r -> r.getColumn(0).asString()).toList();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.writer.cassandrawriter;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.exceptions.InvalidQueryException;
+import com.wgzhao.addax.core.element.Record;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.wgzhao.addax.plugin.writer.cassandrawriter.CassandraWriteEngineTest.key;
+import static com.wgzhao.addax.plugin.writer.cassandrawriter.CassandraWriteEngineTest.record;
+import static com.wgzhao.addax.plugin.writer.cassandrawriter.CassandraWriteEngineTest.statement;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Groups statements, keyed by the partition in the first letter of their key, into batches.
+ */
+class PartitionBatcherTest
+{
+    private final StubSession stub = new StubSession(statement -> StubSession.succeeded());
+    private final CassandraWriteEngineTest.DirtyCollector collector = new CassandraWriteEngineTest.DirtyCollector();
+
+    private static void add(PartitionBatcher batcher, String key)
+    {
+        Record record = record(key);
+        batcher.add(statement(key), ByteBuffer.wrap(key.substring(0, 1).getBytes(StandardCharsets.UTF_8)), record);
+    }
+
+    // the keys of each statement executed, a batch lists the keys of its statements
+    private List<List<String>> executed()
+    {
+        List<List<String>> result = new ArrayList<>();
+        for (Statement statement : stub.executed) {
+            if (statement instanceof BatchStatement batch) {
+                result.add(batch.getStatements().stream().map(CassandraWriteEngineTest::key).toList());
+            }
+            else {
+                result.add(List.of(key(statement)));
+            }
+        }
+        return result;
+    }
+
+    @Test
+    void partitionsAreNeverMixedInABatch()
+    {
+        try (CassandraWriteEngine engine = new CassandraWriteEngine(stub.session, collector, 4, 0, 1)) {
+            PartitionBatcher batcher = new PartitionBatcher(engine, 3);
+            // a full partition is written at once
+            add(batcher, "a1");
+            add(batcher, "a2");
+            add(batcher, "a3");
+            assertEquals(List.of(List.of("a1", "a2", "a3")), executed());
+
+            // batchSize statements buffered over several partitions, each one in its own batch
+            add(batcher, "b1");
+            add(batcher, "c1");
+            assertEquals(1, executed().size());
+            add(batcher, "b2");
+            assertEquals(List.of(List.of("a1", "a2", "a3"), List.of("b1", "b2"), List.of("c1")), executed());
+
+            add(batcher, "d1");
+            batcher.flush();
+            engine.flush();
+        }
+
+        assertEquals(List.of(List.of("a1", "a2", "a3"), List.of("b1", "b2"), List.of("c1"), List.of("d1")), executed());
+        assertEquals(BatchStatement.class, stub.executed.get(0).getClass());
+        assertEquals(0, collector.dirty.size());
+    }
+
+    @Test
+    void recordsOfAFailedBatchFollowItsStatements()
+    {
+        StubSession failing = new StubSession(statement -> "b2".equals(key(statement)) || statement instanceof BatchStatement
+                ? StubSession.failed(new InvalidQueryException("rejected"))
+                : StubSession.succeeded());
+        try (CassandraWriteEngine engine = new CassandraWriteEngine(failing.session, collector, 4, 0, 1)) {
+            PartitionBatcher batcher = new PartitionBatcher(engine, 3);
+            add(batcher, "b1");
+            add(batcher, "a1");
+            add(batcher, "b2");
+            engine.flush();
+        }
+
+        assertEquals(List.of("b2"), collector.keys());
+    }
+}
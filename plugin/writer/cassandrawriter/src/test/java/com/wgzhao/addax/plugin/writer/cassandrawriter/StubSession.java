@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.writer.cassandrawriter;
+
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A session which keeps the statements executed and answers them with the futures of a function.
+ */
+final class StubSession
+{
+    final List<Statement> executed = new CopyOnWriteArrayList<>();
+    final Session session;
+
+    StubSession(Function<Statement, StubFuture> executor)
+    {
+        this.session = (Session) Proxy.newProxyInstance(StubSession.class.getClassLoader(), new Class<?>[] {Session.class},
+                (proxy, method, args) -> {
+                    if ("executeAsync".equals(method.getName()) && args[0] instanceof Statement statement) {
+                        executed.add(statement);
+                        return executor.apply(statement);
+                    }
+                    if ("toString".equals(method.getName())) {
+                        return "stub session";
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static StubFuture succeeded()
+    {
+        StubFuture future = new StubFuture();
+        future.succeed();
+        return future;
+    }
+
+    static StubFuture failed(Throwable cause)
+    {
+        StubFuture future = new StubFuture();
+        future.fail(cause);
+        return future;
+    }
+
+    static final class StubFuture
+            extends AbstractFuture<ResultSet>
+            implements ResultSetFuture
+    {
+        void succeed()
+        {
+            set(null);
+        }
+
+        void fail(Throwable cause)
+        {
+            setException(cause);
+        }
+
+        @Override
+        public ResultSet getUninterruptibly()
+        {
+            try {
+                return Uninterruptibles.getUninterruptibly(this);
+            }
+            catch (ExecutionException e) {
+                // the driver throws its own exceptions unwrapped
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        @Override
+        public ResultSet getUninterruptibly(long timeout, TimeUnit unit)
+        {
+            return getUninterruptibly();
+        }
+    }
+}
@@ -56,7 +56,7 @@ public class ClickHouseWriter
         @Override
         public void prepare()
         {
-            this.commonRdbmsWriterMaster.prepare(this.originalConfig);
+            this.commonRdbmsWriterMaster.prepare(this.originalConfig, isResuming());
         }
 
         @Override
@@ -65,6 +65,12 @@ public class ClickHouseWriter
             return this.commonRdbmsWriterMaster.split(this.originalConfig, mandatoryNumber);
         }
 
+        @Override
+        public boolean supportResume()
+        {
+            return this.commonRdbmsWriterMaster.supportResume(this.originalConfig);
+        }
+
         @Override
         public void post()
         {
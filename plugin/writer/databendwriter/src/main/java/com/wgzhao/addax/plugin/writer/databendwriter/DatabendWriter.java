@@ -57,7 +57,7 @@ public class DatabendWriter extends Writer {
 
         @Override
         public void prepare() {
-            this.commonRdbmsWriterMaster.prepare(this.originalConfig);
+            this.commonRdbmsWriterMaster.prepare(this.originalConfig, isResuming());
         }
 
         @Override
@@ -65,6 +65,12 @@ public class DatabendWriter extends Writer {
             return this.commonRdbmsWriterMaster.split(this.originalConfig, mandatoryNumber);
         }
 
+        @Override
+        public boolean supportResume()
+        {
+            return this.commonRdbmsWriterMaster.supportResume(this.originalConfig);
+        }
+
         @Override
         public void post() {
             this.commonRdbmsWriterMaster.post(this.originalConfig);
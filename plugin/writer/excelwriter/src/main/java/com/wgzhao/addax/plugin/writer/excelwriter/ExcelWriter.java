@@ -25,30 +25,21 @@ import com.wgzhao.addax.core.exception.AddaxException;
 import com.wgzhao.addax.core.plugin.RecordReceiver;
 import com.wgzhao.addax.core.spi.Writer;
 import com.wgzhao.addax.core.util.Configuration;
-import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
-import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
-import org.apache.commons.compress.archivers.zip.ZipFile;
-import org.apache.poi.openxml4j.opc.internal.ZipHelper;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CreationHelper;
-import org.apache.poi.util.LocaleUtil;
-import org.apache.poi.util.TempFile;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
-import java.util.Calendar;
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.List;
 
 import static com.wgzhao.addax.core.base.Constant.DEFAULT_DATE_FORMAT;
@@ -127,175 +118,174 @@ public class ExcelWriter
     public static class Task
             extends Writer.Task
     {
+        // the rows kept in memory, older ones are flushed to a compressed temp file
+        private static final String ROW_WINDOW = "rowWindow";
+        // where to continue once a sheet is full, "sheet" or "file"
+        private static final String ROLL_TO = "rollTo";
+        private static final int DEFAULT_ROW_WINDOW = 100;
+        private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+        private static final int MAX_TEXT_LENGTH = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
 
-        private String filePath;
+        // the rows of a sheet, lowered by the tests
+        int maxRows = MAX_ROWS;
+
+        private String path;
+        private String fileName;
         private List<String> header;
-        private XSSFWorkbook workbook;
+        private int rowWindow;
+        private boolean rollToFile;
+
+        private SXSSFWorkbook workbook;
+        private String currentFile;
+        private int fileIndex;
+        private CellStyle dateStyle;
+        private SXSSFSheet sheet;
+        private int rowNum;
+        private boolean truncateWarned;
 
         @Override
         public void init()
         {
             Configuration conf = this.getPluginJobConf();
-            this.filePath = conf.get(PATH) + "/" + conf.get(FILE_NAME);
+            this.path = conf.getString(PATH);
+            this.fileName = conf.getString(FILE_NAME);
             this.header = conf.getList(HEADER, String.class);
+            this.rowWindow = conf.getInt(ROW_WINDOW, DEFAULT_ROW_WINDOW);
+            if (this.rowWindow <= 0) {
+                throw AddaxException.asAddaxException(ILLEGAL_VALUE, "The rowWindow must be greater than 0");
+            }
+            String rollTo = conf.getString(ROLL_TO, "sheet");
+            if (!"sheet".equalsIgnoreCase(rollTo) && !"file".equalsIgnoreCase(rollTo)) {
+                throw AddaxException.asAddaxException(ILLEGAL_VALUE,
+                        "The rollTo only supports 'sheet' or 'file', but got '" + rollTo + "'");
+            }
+            this.rollToFile = "file".equalsIgnoreCase(rollTo);
         }
 
         @Override
         public void destroy()
         {
-
+            if (this.workbook != null) {
+                this.workbook.dispose();
+            }
         }
 
         @Override
         public void startWrite(RecordReceiver lineReceiver)
         {
-            this.workbook = new XSSFWorkbook();
-            XSSFSheet sheet = workbook.createSheet();
-            //name of the zip entry holding sheet data, e.g. /xl/worksheets/sheet1.xml
-            String sheetRef = sheet.getPackagePart().getPartName().getName();
-
-            // save the template
-            File fTemplate;
             try {
-                fTemplate = TempFile.createTempFile("template", ".xlsx");
-                FileOutputStream fileOutputStream = new FileOutputStream(fTemplate);
-                workbook.write(fileOutputStream);
-                fileOutputStream.close();
+                openWorkbook();
+                Record record;
+                while ((record = lineReceiver.getFromReader()) != null) {
+                    if (rowNum == maxRows) {
+                        roll();
+                    }
+                    writeRecord(sheet.createRow(rowNum++), record);
+                }
+                closeWorkbook();
             }
             catch (IOException e) {
-                throw new RuntimeException(e);
+                throw AddaxException.asAddaxException(IO_ERROR, "IOException occurred while writing to " + currentFile, e);
             }
+        }
 
-            File tmp = null;
-            try {
-                //Step 2. Generate XML file.
-                tmp = TempFile.createTempFile("sheet", ".xml");
-                log.info("temp file for sheet data: {}", tmp.getAbsolutePath());
-                FileOutputStream stream = new FileOutputStream(tmp);
-                java.io.Writer fw = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
-                fillData(fw, lineReceiver);
-                fw.close();
-                stream.close();
+        /*
+         * A sheet holds at most 1,048,576 rows, continue with a new sheet of the same workbook,
+         * or a new file named with a sequence suffix, and repeat the header there.
+         */
+        private void roll()
+                throws IOException
+        {
+            if (rollToFile) {
+                closeWorkbook();
+                fileIndex++;
+                openWorkbook();
+            }
+            else {
+                createSheet();
+            }
+            log.info("The sheet is full with {} rows, continue with sheet {} of {}",
+                    maxRows, workbook.getNumberOfSheets(), currentFile);
+        }
 
-                //Step 3. Substitute the template entry with the generated data
-                FileOutputStream out = new FileOutputStream(this.filePath);
-                substitute(fTemplate, tmp, sheetRef.substring(1), out);
-                out.close();
+        private void openWorkbook()
+        {
+            // inline strings, so that no shared string table grows in memory
+            this.workbook = new SXSSFWorkbook(null, rowWindow, true, false);
+            this.currentFile = path + "/" + rolledFileName();
+            CreationHelper createHelper = workbook.getCreationHelper();
+            this.dateStyle = workbook.createCellStyle();
+            this.dateStyle.setDataFormat(createHelper.createDataFormat().getFormat(DEFAULT_DATE_FORMAT));
+            createSheet();
+        }
 
-                workbook.close();
-            }
-            catch (IOException e) {
-                throw AddaxException.asAddaxException(IO_ERROR, "IOException occurred while writing to " + filePath);
+        private String rolledFileName()
+        {
+            if (fileIndex == 0) {
+                return fileName;
             }
-            finally {
-                // delete the temp file
-                if (tmp != null && tmp.exists()) {
-                    if (!tmp.delete()) {
-                        log.warn("temp file {} delete failed.", tmp.getAbsolutePath());
-                    }
-                }
-                if (fTemplate.exists()) {
-                    if (!fTemplate.delete()) {
-                        log.warn("temp file {} delete failed.", fTemplate.getAbsolutePath());
-                    }
+            int dot = fileName.lastIndexOf('.');
+            return fileName.substring(0, dot) + "_" + fileIndex + fileName.substring(dot);
+        }
+
+        private void createSheet()
+        {
+            this.sheet = workbook.createSheet();
+            this.rowNum = 0;
+            if (header != null && !header.isEmpty()) {
+                SXSSFRow row = sheet.createRow(rowNum++);
+                for (int i = 0; i < header.size(); i++) {
+                    row.createCell(i).setCellValue(header.get(i));
                 }
             }
         }
 
-        private void fillData(java.io.Writer writer, RecordReceiver lineReceiver)
+        private void closeWorkbook()
                 throws IOException
         {
-            int rowNum = 0;
-            SpreadsheetWriter sw = new SpreadsheetWriter(writer);
-            sw.beginSheet();
-            // set header ?
-            if (!header.isEmpty()) {
-                sw.insertRow(0);
-                for (int i = 0; i < header.size(); i++) {
-                    sw.createCell(i, header.get(i));
-                }
-                sw.endRow();
+            try (OutputStream out = new FileOutputStream(currentFile)) {
+                workbook.write(out);
             }
-            // set date format
-            CellStyle dateStyle = workbook.createCellStyle();
-            CreationHelper createHelper = workbook.getCreationHelper();
-            dateStyle.setDataFormat(createHelper.createDataFormat().getFormat(DEFAULT_DATE_FORMAT));
-            Record record;
-            while ((record = lineReceiver.getFromReader()) != null) {
-                int recordLength = record.getColumnNumber();
-                sw.insertRow(rowNum++);
-                Column column;
-                for (int i = 0; i < recordLength; i++) {
-                    column = record.getColumn(i);
-                    if (column == null || column.getRawData() == null) {
-                        sw.createCell(i, "");
-                        continue;
-                    }
-                    switch (column.getType()) {
-                        case INT:
-                        case LONG:
-                            sw.createCell(i, column.asLong());
-                            break;
-                        case BOOL:
-                            sw.createCell(i, column.asBoolean().toString());
-                            break;
-                        case DATE:
-                            Calendar calendar = LocaleUtil.getLocaleCalendar();
-                            calendar.setTime(column.asDate());
-                            sw.createCell(i, calendar, dateStyle.getIndex());
-                            break;
-                        case NULL:
-                            sw.createCell(i, "");
-                            break;
-                        default:
-                            sw.createCell(i, column.asString());
-                    }
-                }
-                sw.endRow();
+            finally {
+                workbook.dispose();
+                workbook.close();
+                workbook = null;
             }
-            sw.endSheet();
         }
 
-        /**
-         *
-         * @param zipfile the template file
-         * @param tmpfile the XML file with the sheet data
-         * @param entry the name of the sheet entry to substitute, e.g. xl/worksheets/sheet1.xml
-         * @param out the stream to write the result to
-         */
-        private void substitute(File zipfile, File tmpfile, String entry, OutputStream out)
-                throws IOException
+        private void writeRecord(SXSSFRow row, Record record)
         {
-            try (ZipFile zip = ZipHelper.openZipFile(zipfile)) {
-                try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(out)) {
-                    Enumeration<? extends ZipArchiveEntry> en = zip.getEntries();
-                    while (en.hasMoreElements()) {
-                        ZipArchiveEntry ze = en.nextElement();
-                        if (!ze.getName().equals(entry)) {
-                            zos.putArchiveEntry(new ZipArchiveEntry(ze.getName()));
-                            try (InputStream is = zip.getInputStream(ze)) {
-                                copyStream(is, zos);
-                            }
-                            zos.closeArchiveEntry();
-                        }
-                    }
-                    zos.putArchiveEntry(new ZipArchiveEntry(entry));
-                    try (InputStream is = new FileInputStream(tmpfile)) {
-                        copyStream(is, zos);
+            int recordLength = record.getColumnNumber();
+            for (int i = 0; i < recordLength; i++) {
+                Column column = record.getColumn(i);
+                Cell cell = row.createCell(i);
+                if (column == null || column.getRawData() == null) {
+                    cell.setCellValue("");
+                    continue;
+                }
+                switch (column.getType()) {
+                    case INT, LONG -> cell.setCellValue(column.asLong());
+                    case BOOL -> cell.setCellValue(column.asBoolean().toString());
+                    case DATE -> {
+                        cell.setCellValue(column.asDate());
+                        cell.setCellStyle(dateStyle);
                     }
-                    zos.closeArchiveEntry();
+                    case NULL -> cell.setCellValue("");
+                    default -> cell.setCellValue(truncate(column.asString()));
                 }
             }
         }
 
-        private void copyStream(InputStream in, OutputStream out)
-                throws IOException
+        private String truncate(String value)
         {
-            byte[] chunk = new byte[1024];
-            int count;
-            while ((count = in.read(chunk)) >= 0) {
-                out.write(chunk, 0, count);
+            if (value.length() <= MAX_TEXT_LENGTH) {
+                return value;
+            }
+            if (!truncateWarned) {
+                log.warn("The text longer than {} characters is truncated, as an excel cell can not hold it", MAX_TEXT_LENGTH);
+                truncateWarned = true;
             }
+            return value.substring(0, MAX_TEXT_LENGTH);
         }
     }
 }
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.writer.excelwriter;
+
+import com.wgzhao.addax.core.element.BoolColumn;
+import com.wgzhao.addax.core.element.DateColumn;
+import com.wgzhao.addax.core.element.LongColumn;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.element.StringColumn;
+import com.wgzhao.addax.core.plugin.RecordReceiver;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import com.wgzhao.addax.core.util.Configuration;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes records with the task and reads the xlsx files back with POI.
+ */
+class ExcelWriterTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesTheHeaderAndTheTypedCells()
+            throws IOException
+    {
+        Date date = new Date(1700000000000L);
+        Record record = new DefaultRecord();
+        record.addColumn(new LongColumn(42));
+        record.addColumn(new StringColumn("text"));
+        record.addColumn(new DateColumn(date));
+        record.addColumn(new BoolColumn(true));
+        record.addColumn(new StringColumn());
+
+        runTask("sheet", Integer.MAX_VALUE, List.of(record));
+
+        try (XSSFWorkbook workbook = open("out.xlsx")) {
+            assertEquals(1, workbook.getNumberOfSheets());
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals("id", sheet.getRow(0).getCell(0).getStringCellValue());
+            Row row = sheet.getRow(1);
+            assertEquals(42, row.getCell(0).getNumericCellValue());
+            assertEquals("text", row.getCell(1).getStringCellValue());
+            Cell dateCell = row.getCell(2);
+            assertTrue(DateUtil.isCellDateFormatted(dateCell));
+            assertEquals(date, dateCell.getDateCellValue());
+            assertEquals("true", row.getCell(3).getStringCellValue());
+            assertEquals(CellType.STRING, row.getCell(4).getCellType());
+            assertEquals("", row.getCell(4).getStringCellValue());
+        }
+    }
+
+    @Test
+    void rollsToANewSheetOnceTheSheetIsFull()
+            throws IOException
+    {
+        runTask("sheet", 3, records(7));
+
+        try (XSSFWorkbook workbook = open("out.xlsx")) {
+            assertEquals(4, workbook.getNumberOfSheets());
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+                ids.addAll(ids(workbook.getSheetAt(i), i < 3 ? 3 : 2));
+            }
+            assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L, 6L), ids);
+        }
+        assertFalse(Files.exists(directory.resolve("out_1.xlsx")));
+    }
+
+    @Test
+    void rollsToANewFileOnceTheSheetIsFull()
+            throws IOException
+    {
+        runTask("file", 3, records(5));
+
+        List<Long> ids = new ArrayList<>();
+        for (String name : List.of("out.xlsx", "out_1.xlsx", "out_2.xlsx")) {
+            try (XSSFWorkbook workbook = open(name)) {
+                assertEquals(1, workbook.getNumberOfSheets());
+                ids.addAll(ids(workbook.getSheetAt(0), name.equals("out_2.xlsx") ? 2 : 3));
+            }
+        }
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), ids);
+        assertFalse(Files.exists(directory.resolve("out_3.xlsx")));
+    }
+
+    /*
+     * The ids of a sheet holding the given rows, the header first
+     */
+    private static List<Long> ids(Sheet sheet, int rows)
+    {
+        assertEquals(rows - 1, sheet.getLastRowNum());
+        assertEquals("id", sheet.getRow(0).getCell(0).getStringCellValue());
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i < rows; i++) {
+            ids.add((long) sheet.getRow(i).getCell(0).getNumericCellValue());
+        }
+        return ids;
+    }
+
+    private static List<Record> records(int count)
+    {
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Record record = new DefaultRecord();
+            record.addColumn(new LongColumn(i));
+            records.add(record);
+        }
+        return records;
+    }
+
+    private XSSFWorkbook open(String name)
+            throws IOException
+    {
+        try (InputStream in = Files.newInputStream(directory.resolve(name))) {
+            return new XSSFWorkbook(in);
+        }
+    }
+
+    private void runTask(String rollTo, int maxRows, List<Record> records)
+    {
+        Configuration conf = Configuration.newDefault();
+        conf.set("path", directory.toString());
+        conf.set("fileName", "out.xlsx");
+        conf.set("header", List.of("id"));
+        conf.set("rollTo", rollTo);
+        // a small window, so that rows are flushed to the temp file before the sheet rolls
+        conf.set("rowWindow", 2);
+
+        ExcelWriter.Task task = new ExcelWriter.Task();
+        task.setPluginJobConf(conf);
+        task.init();
+        task.maxRows = maxRows;
+        Iterator<Record> iterator = records.iterator();
+        try {
+            task.startWrite(new RecordReceiver()
+            {
+                @Override
+                public Record getFromReader()
+                {
+                    return iterator.hasNext() ? iterator.next() : null;
+                }
+
+                @Override
+                public void shutdown()
+                {
+                }
+            });
+        }
+        finally {
+            task.destroy();
+        }
+    }
+}
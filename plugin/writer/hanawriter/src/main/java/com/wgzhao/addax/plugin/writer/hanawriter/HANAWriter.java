@@ -56,7 +56,7 @@ public class HANAWriter
         @Override
         public void prepare()
         {
-            this.commonRdbmsWriterJob.prepare(this.originalConfig);
+            this.commonRdbmsWriterJob.prepare(this.originalConfig, isResuming());
         }
 
         @Override
@@ -65,6 +65,12 @@ public class HANAWriter
             return this.commonRdbmsWriterJob.split(this.originalConfig, mandatoryNumber);
         }
 
+        @Override
+        public boolean supportResume()
+        {
+            return this.commonRdbmsWriterJob.supportResume(this.originalConfig);
+        }
+
         @Override
         public void post()
         {
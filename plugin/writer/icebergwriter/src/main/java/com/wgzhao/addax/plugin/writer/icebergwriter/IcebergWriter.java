@@ -20,18 +20,19 @@
 package com.wgzhao.addax.plugin.writer.icebergwriter;
 
 import com.alibaba.fastjson2.JSON;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
 import com.wgzhao.addax.core.element.Column;
 import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.exception.AddaxException;
 import com.wgzhao.addax.core.plugin.RecordReceiver;
 import com.wgzhao.addax.core.spi.Writer;
 import com.wgzhao.addax.core.util.Configuration;
 import org.apache.iceberg.AppendFiles;
 import org.apache.iceberg.DataFile;
 import org.apache.iceberg.FileFormat;
+import org.apache.iceberg.OverwriteFiles;
 import org.apache.iceberg.PartitionKey;
 import org.apache.iceberg.Table;
 import org.apache.iceberg.TableProperties;
@@ -39,36 +40,46 @@ import org.apache.iceberg.catalog.Catalog;
 import org.apache.iceberg.catalog.TableIdentifier;
 import org.apache.iceberg.data.GenericAppenderFactory;
 import org.apache.iceberg.data.GenericRecord;
-import org.apache.iceberg.data.orc.GenericOrcWriter;
-import org.apache.iceberg.data.parquet.GenericParquetWriter;
+import org.apache.iceberg.expressions.Expressions;
 import org.apache.iceberg.hadoop.HadoopCatalog;
 import org.apache.iceberg.hive.HiveCatalog;
-import org.apache.iceberg.io.DataWriter;
 import org.apache.iceberg.io.FileAppenderFactory;
-import org.apache.iceberg.io.OutputFile;
 import org.apache.iceberg.io.OutputFileFactory;
 import org.apache.iceberg.io.PartitionedFanoutWriter;
-import org.apache.iceberg.io.WriteResult;
-import org.apache.iceberg.orc.ORC;
-import org.apache.iceberg.parquet.Parquet;
+import org.apache.iceberg.io.TaskWriter;
+import org.apache.iceberg.io.UnpartitionedWriter;
 import org.apache.iceberg.types.TypeUtil;
 import org.apache.iceberg.types.Types;
 import org.apache.iceberg.util.PropertyUtil;
+import org.apache.iceberg.util.SerializationUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
 
+import static com.wgzhao.addax.core.spi.ErrorCode.CONFIG_ERROR;
+import static com.wgzhao.addax.core.spi.ErrorCode.IO_ERROR;
+
+/**
+ * Every task streams its records into rolling data files of {@code targetFileSize} and hands them
+ * to the job, which publishes the files of all the tasks in one snapshot in {@link Job#post()}.
+ */
 public class IcebergWriter
         extends Writer
 {
+    // the task message carrying a data file written by the task, serialized in base64
+    private static final String DATA_FILE_MESSAGE = "icebergDataFile";
+
+    private static Table loadTable(Catalog catalog, String tableName)
+    {
+        return catalog.loadTable(TableIdentifier.of(tableName.split("\\.")));
+    }
+
     public static class Job
             extends Writer.Job
     {
@@ -76,6 +87,9 @@ public class IcebergWriter
         private Configuration conf = null;
         private Catalog catalog = null;
         private String tableName = null;
+        private boolean committed = false;
+        // a commit may fail after its snapshot became current, its files must then be kept
+        private boolean commitAttempted = false;
 
         @Override
         public void init()
@@ -109,15 +123,58 @@ public class IcebergWriter
         {
             String writeMode = this.conf.getString("writeMode");
             if ("truncate".equalsIgnoreCase(writeMode)) {
-                Table table = catalog.loadTable(TableIdentifier.of(tableName.split("\\.")));
-                table.newDelete().deleteFromRowFilter(org.apache.iceberg.expressions.Expressions.alwaysTrue()).commit();
+                // replaced in the same snapshot as the new files are added, readers never see the table empty
+                LOG.info("The rows of [{}] are replaced when the job commits.", tableName);
             }
         }
 
+        @Override
+        public void post()
+        {
+            List<DataFile> dataFiles = getDataFiles();
+            Table table = loadTable(catalog, tableName);
+            if ("truncate".equalsIgnoreCase(this.conf.getString("writeMode"))) {
+                OverwriteFiles overwrite = table.newOverwrite().overwriteByRowFilter(Expressions.alwaysTrue());
+                dataFiles.forEach(overwrite::addFile);
+                commitAttempted = true;
+                overwrite.commit();
+            }
+            else if (!dataFiles.isEmpty()) {
+                AppendFiles append = table.newAppend();
+                dataFiles.forEach(append::appendFile);
+                commitAttempted = true;
+                append.commit();
+            }
+            committed = true;
+            LOG.info("Committed [{}] data files with [{}] records to [{}].", dataFiles.size(),
+                    dataFiles.stream().mapToLong(DataFile::recordCount).sum(), tableName);
+        }
+
+        private List<DataFile> getDataFiles()
+        {
+            List<String> encoded = getJobPluginCollector().getMessage(DATA_FILE_MESSAGE);
+            if (encoded == null) {
+                return List.of();
+            }
+            List<DataFile> dataFiles = new ArrayList<>(encoded.size());
+            for (String dataFile : encoded) {
+                dataFiles.add(SerializationUtil.deserializeFromBase64(dataFile));
+            }
+            return dataFiles;
+        }
+
         @Override
         public void destroy()
         {
             if (this.catalog != null) {
+                // the files of the finished tasks are not part of any snapshot when the job failed before the commit
+                if (!commitAttempted) {
+                    deleteUncommittedFiles();
+                }
+                else if (!committed) {
+                    LOG.warn("The commit to [{}] failed, its data files are kept since a snapshot may refer to them,"
+                            + " remove the orphan files of the table to clean them up.", tableName);
+                }
                 try {
                     if (this.catalog instanceof HiveCatalog) {
                         ((HiveCatalog) this.catalog).close();
@@ -131,6 +188,22 @@ public class IcebergWriter
                 }
             }
         }
+
+        private void deleteUncommittedFiles()
+        {
+            try {
+                List<DataFile> dataFiles = getDataFiles();
+                if (dataFiles.isEmpty()) {
+                    return;
+                }
+                Table table = loadTable(catalog, tableName);
+                dataFiles.forEach(dataFile -> table.io().deleteFile(dataFile.location()));
+                LOG.info("Deleted [{}] data files which the job did not commit.", dataFiles.size());
+            }
+            catch (RuntimeException e) {
+                LOG.warn("Failed to delete the data files which the job did not commit: {}", e.getMessage());
+            }
+        }
     }
 
     public static class Task
@@ -139,30 +212,38 @@ public class IcebergWriter
 
         private static final Logger log = LoggerFactory.getLogger(Task.class);
         private Catalog catalog = null;
-        private Integer batchSize = 1000;
         private Table table = null;
         private org.apache.iceberg.Schema schema = null;
         private String fileFormat = "parquet";
         private List<org.apache.iceberg.types.Types.NestedField> columnList = null;
+        private TaskWriter<org.apache.iceberg.data.Record> taskWriter = null;
 
         @Override
         public void startWrite(RecordReceiver recordReceiver)
         {
-
-            List<Record> writerBuffer = new ArrayList<>(this.batchSize);
             Record record;
             long total = 0;
-            while ((record = recordReceiver.getFromReader()) != null) {
-                writerBuffer.add(record);
-                if (writerBuffer.size() >= this.batchSize) {
-                    total += doBatchInsert(writerBuffer);
-                    writerBuffer.clear();
+            try {
+                while ((record = recordReceiver.getFromReader()) != null) {
+                    GenericRecord data = convert(record);
+                    if (data != null) {
+                        taskWriter.write(data);
+                        total++;
+                    }
+                }
+                DataFile[] dataFiles = taskWriter.dataFiles();
+                for (DataFile dataFile : dataFiles) {
+                    getTaskPluginCollector().collectMessage(DATA_FILE_MESSAGE, SerializationUtil.serializeToBase64(dataFile));
                 }
+                log.info("Wrote [{}] data files, they are committed by the job.", dataFiles.length);
             }
-
-            if (!writerBuffer.isEmpty()) {
-                total += doBatchInsert(writerBuffer);
-                writerBuffer.clear();
+            catch (IOException e) {
+                abort();
+                throw AddaxException.asAddaxException(IO_ERROR, "Failed to write the data files of " + table.name(), e);
+            }
+            catch (RuntimeException e) {
+                abort();
+                throw e;
             }
 
             String msg = String.format("task end, write size :%d", total);
@@ -175,8 +256,6 @@ public class IcebergWriter
         {
             Configuration conf = super.getPluginJobConf();
 
-            batchSize = conf.getInt("batchSize", 1000);
-
             try {
                 this.catalog = IcebergHelper.getCatalog(conf);
             }
@@ -189,7 +268,7 @@ public class IcebergWriter
                 throw new RuntimeException("tableName is not set");
             }
 
-            table = catalog.loadTable(TableIdentifier.of(tableName.split("\\.")));
+            table = loadTable(catalog, tableName);
             schema = table.schema();
 
             fileFormat = table.properties().get("write.format.default");
@@ -199,11 +278,83 @@ public class IcebergWriter
             }
 
             columnList = schema.columns();
+
+            Map<String, String> tableProps = Maps.newHashMap(table.properties());
+            long targetFileSize = conf.getLong("targetFileSize", PropertyUtil.propertyAsLong(tableProps,
+                    TableProperties.WRITE_TARGET_FILE_SIZE_BYTES, TableProperties.WRITE_TARGET_FILE_SIZE_BYTES_DEFAULT));
+            taskWriter = createTaskWriter(tableProps, targetFileSize);
+        }
+
+        /*
+         * The writer rolls to a new file once the current one reaches the target size, the partitioned
+         * one keeps a file open per partition.
+         */
+        private TaskWriter<org.apache.iceberg.data.Record> createTaskWriter(Map<String, String> tableProps, long targetFileSize)
+        {
+            FileFormat format;
+            try {
+                format = FileFormat.fromString(fileFormat);
+            }
+            catch (IllegalArgumentException e) {
+                throw AddaxException.asAddaxException(CONFIG_ERROR, "not supported file format:" + fileFormat);
+            }
+            Set<Integer> identifierFieldIds = table.schema().identifierFieldIds();
+            FileAppenderFactory<org.apache.iceberg.data.Record> appenderFactory;
+            if (identifierFieldIds == null || identifierFieldIds.isEmpty()) {
+                appenderFactory =
+                        new GenericAppenderFactory(table.schema(), table.spec(), null, null, null)
+                                .setAll(tableProps);
+            }
+            else {
+                appenderFactory =
+                        new GenericAppenderFactory(
+                                table.schema(),
+                                table.spec(),
+                                Ints.toArray(identifierFieldIds),
+                                TypeUtil.select(table.schema(), Sets.newHashSet(identifierFieldIds)),
+                                null)
+                                .setAll(tableProps);
+            }
+            OutputFileFactory outputFileFactory = OutputFileFactory.builderFor(table, getTaskGroupId(), getTaskId())
+                    .format(format).build();
+
+            if (table.spec().isUnpartitioned()) {
+                return new UnpartitionedWriter<>(table.spec(), format, appenderFactory, outputFileFactory, table.io(), targetFileSize);
+            }
+            final PartitionKey partitionKey = new PartitionKey(table.spec(), table.spec().schema());
+            // partitionedFanoutWriter will auto partitioned record and create the partitioned writer
+            return new PartitionedFanoutWriter<>(table.spec(), format, appenderFactory, outputFileFactory, table.io(), targetFileSize)
+            {
+                @Override
+                protected PartitionKey partition(org.apache.iceberg.data.Record record)
+                {
+                    partitionKey.partition(record);
+                    return partitionKey;
+                }
+            };
+        }
+
+        private void abort()
+        {
+            try {
+                taskWriter.abort();
+            }
+            catch (IOException e) {
+                log.warn("Failed to delete the data files of the failed task: {}", e.getMessage());
+            }
         }
 
         @Override
         public void destroy()
         {
+            if (taskWriter != null) {
+                try {
+                    taskWriter.close();
+                }
+                catch (IOException e) {
+                    log.warn("Failed to close the task writer: {}", e.getMessage());
+                }
+            }
             if (this.catalog != null) {
                 try {
                     if (this.catalog instanceof HiveCatalog) {
@@ -219,224 +370,111 @@ public class IcebergWriter
             }
         }
 
-        private long doBatchInsert(final List<Record> writerBuffer)
+        // the record converted to the table schema, or null if it is dirty
+        private GenericRecord convert(Record record)
         {
-            ImmutableList.Builder<GenericRecord> builder = ImmutableList.builder();
-
-            for (Record record : writerBuffer) {
-                GenericRecord data = GenericRecord.create(schema);
-                for (int i = 0; i < record.getColumnNumber(); i++) {
-                    Column column = record.getColumn(i);
-                    if (column == null) {
-                        continue;
-                    }
-                    if (i >= columnList.size()) {
-                        throw new RuntimeException("columnList size is " + columnList.size() + ", but record column number is " + record.getColumnNumber());
-                    }
-                    Types.NestedField field = columnList.get(i);
-                    org.apache.iceberg.types.Type columnType = field.type();
-                    //如果是数组类型，那它传入的必是字符串类型
-                    if (columnType.isListType()) {
-                        if (null == column.asString()) {
-                            data.setField(field.name(), null);
-                        }
-                        else {
-                            String[] dataList = column.asString().split(",");
-                            data.setField(field.name(), Arrays.asList(dataList));
-                        }
+            GenericRecord data = GenericRecord.create(schema);
+            for (int i = 0; i < record.getColumnNumber(); i++) {
+                Column column = record.getColumn(i);
+                if (column == null) {
+                    continue;
+                }
+                if (i >= columnList.size()) {
+                    throw AddaxException.asAddaxException(CONFIG_ERROR,
+                            "columnList size is " + columnList.size() + ", but record column number is " + record.getColumnNumber());
+                }
+                Types.NestedField field = columnList.get(i);
+                org.apache.iceberg.types.Type columnType = field.type();
+                //如果是数组类型，那它传入的必是字符串类型
+                if (columnType.isListType()) {
+                    if (null == column.asString()) {
+                        data.setField(field.name(), null);
                     }
                     else {
-                        switch (columnType.typeId()) {
-
-                            case DATE:
-                                try {
-                                    if (column.asLong() != null) {
-                                        data.setField(field.name(), column.asTimestamp().toLocalDateTime().toLocalDate());
-                                    }
-                                    else {
-                                        data.setField(field.name(), null);
-                                    }
-                                }
-                                catch (Exception e) {
-                                    getTaskPluginCollector().collectDirtyRecord(record, String.format("日期类型解析失败 [%s:%s] exception: %s", field.name(), column, e));
-                                }
-                                break;
-                            case TIME:
-                            case TIMESTAMP:
-                            case TIMESTAMP_NANO:
-                                try {
-                                    if (column.asLong() != null) {
-                                        data.setField(field.name(), column.asTimestamp().toLocalDateTime());
-                                    }
-                                    else {
-                                        data.setField(field.name(), null);
-                                    }
-                                }
-                                catch (Exception e) {
-                                    getTaskPluginCollector().collectDirtyRecord(record, String.format("时间类型解析失败 [%s:%s] exception: %s", field.name(), column, e));
-                                }
-                                break;
-                            case STRING:
-                                data.setField(field.name(), column.asString());
-                                break;
-                            case BOOLEAN:
-                                data.setField(field.name(), column.asBoolean());
-                                break;
-                            case FIXED:
-                            case BINARY:
-                                data.setField(field.name(), column.asBytes());
-                                break;
-                            case LONG:
-                                data.setField(field.name(), column.asLong());
-                                break;
-                            case INTEGER:
-                                data.setField(field.name(), column.asBigInteger() == null ? null : column.asBigInteger().intValue());
-                                break;
-                            case FLOAT:
-                                data.setField(field.name(), column.asDouble().floatValue());
-                                break;
-                            case DOUBLE:
-
-                                data.setField(field.name(), column.asDouble());
-                                break;
-                            case DECIMAL:
-                                if (column.asBigDecimal() != null) {
-                                    data.setField(field.name(), column.asBigDecimal());
+                        String[] dataList = column.asString().split(",");
+                        data.setField(field.name(), Arrays.asList(dataList));
+                    }
+                }
+                else {
+                    switch (columnType.typeId()) {
+
+                        case DATE:
+                            try {
+                                if (column.asLong() != null) {
+                                    data.setField(field.name(), column.asTimestamp().toLocalDateTime().toLocalDate());
                                 }
                                 else {
                                     data.setField(field.name(), null);
                                 }
-                                break;
-                            case MAP:
-                                try {
-                                    data.setField(field.name(), JSON.parseObject(column.asString(), Map.class));
+                            }
+                            catch (Exception e) {
+                                getTaskPluginCollector().collectDirtyRecord(record, String.format("日期类型解析失败 [%s:%s] exception: %s", field.name(), column, e));
+                                return null;
+                            }
+                            break;
+                        case TIME:
+                        case TIMESTAMP:
+                        case TIMESTAMP_NANO:
+                            try {
+                                if (column.asLong() != null) {
+                                    data.setField(field.name(), column.asTimestamp().toLocalDateTime());
                                 }
-                                catch (Exception e) {
-                                    getTaskPluginCollector().collectDirtyRecord(record, String.format("MAP类型解析失败 [%s:%s] exception: %s", field.name(), column, e));
+                                else {
+                                    data.setField(field.name(), null);
                                 }
-                                break;
-                            default:
-                                getTaskPluginCollector().collectDirtyRecord(record, "类型错误:不支持的类型:" + columnType + " " + field.name());
-                        }
-                    }
-                }
-
-                builder.add(data);
-            }
-            ImmutableList<GenericRecord> rows = builder.build();
-
-            String filepath = table.location() + "/" + UUID.randomUUID();
-            OutputFile file = table.io().newOutputFile(filepath);
-
-            if (table.spec() == null) {
-                DataWriter<GenericRecord> dataWriter = null;
-
-                if ("parquet".equals(fileFormat)) {
-                    try {
-                        dataWriter = Parquet.writeData(file).overwrite().forTable(table).createWriterFunc(GenericParquetWriter::buildWriter).build();
-                    }
-                    catch (IOException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-                else if ("orc".equals(fileFormat)) {
-
-                    try {
-                        dataWriter = ORC.writeData(file).overwrite().forTable(table).createWriterFunc(GenericOrcWriter::buildWriter).build();
-                    }
-                    catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-                else {
-                    throw new RuntimeException("not supported file format:" + fileFormat);
-                }
-
-                if (dataWriter != null) {
-                    dataWriter.write(rows);
-                }
-
-                if (dataWriter != null) {
-                    try {
-                        dataWriter.close();
-                    }
-                    catch (IOException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-                DataFile dataFile = dataWriter.toDataFile();
-                table.newAppend().appendFile(dataFile).commit();
-            }
-            else {
-                Map<String, String> tableProps = Maps.newHashMap(table.properties());
-                long targetFileSize =
-                        PropertyUtil.propertyAsLong(
-                                tableProps,
-                                TableProperties.WRITE_TARGET_FILE_SIZE_BYTES,
-                                TableProperties.WRITE_TARGET_FILE_SIZE_BYTES_DEFAULT);
-
-                int partitionId = 1, taskId = 1;
-                FileFormat fileFormatIntance = FileFormat.PARQUET;
-                if ("orc".equals(fileFormat)) {
-                    fileFormatIntance = FileFormat.ORC;
-                }
-                Set<Integer> identifierFieldIds = table.schema().identifierFieldIds();
-                FileAppenderFactory<org.apache.iceberg.data.Record> appenderFactory;
-                if (identifierFieldIds == null || identifierFieldIds.isEmpty()) {
-                    appenderFactory =
-                            new GenericAppenderFactory(table.schema(), table.spec(), null, null, null)
-                                    .setAll(tableProps);
-                }
-                else {
-                    appenderFactory =
-                            new GenericAppenderFactory(
-                                    table.schema(),
-                                    table.spec(),
-                                    Ints.toArray(identifierFieldIds),
-                                    TypeUtil.select(table.schema(), Sets.newHashSet(identifierFieldIds)),
-                                    null)
-                                    .setAll(tableProps);
-                }
-                OutputFileFactory outputFileFactory = OutputFileFactory.builderFor(table, partitionId, taskId).format(fileFormatIntance).build();
-                final PartitionKey partitionKey = new PartitionKey(table.spec(), table.spec().schema());
-                // partitionedFanoutWriter will auto partitioned record and create the partitioned writer
-                PartitionedFanoutWriter<org.apache.iceberg.data.Record> partitionedFanoutWriter = new PartitionedFanoutWriter<org.apache.iceberg.data.Record>(table.spec(), fileFormatIntance, appenderFactory, outputFileFactory, table.io(), targetFileSize)
-                {
-                    @Override
-                    protected PartitionKey partition(org.apache.iceberg.data.Record record)
-                    {
-                        partitionKey.partition(record);
-                        return partitionKey;
-                    }
-                };
-
-                rows.forEach(
-                        row -> {
+                            }
+                            catch (Exception e) {
+                                getTaskPluginCollector().collectDirtyRecord(record, String.format("时间类型解析失败 [%s:%s] exception: %s", field.name(), column, e));
+                                return null;
+                            }
+                            break;
+                        case STRING:
+                            data.setField(field.name(), column.asString());
+                            break;
+                        case BOOLEAN:
+                            data.setField(field.name(), column.asBoolean());
+                            break;
+                        case FIXED:
+                        case BINARY:
+                            data.setField(field.name(), column.asBytes());
+                            break;
+                        case LONG:
+                            data.setField(field.name(), column.asLong());
+                            break;
+                        case INTEGER:
+                            data.setField(field.name(), column.asBigInteger() == null ? null : column.asBigInteger().intValue());
+                            break;
+                        case FLOAT:
+                            data.setField(field.name(), column.asDouble().floatValue());
+                            break;
+                        case DOUBLE:
+
+                            data.setField(field.name(), column.asDouble());
+                            break;
+                        case DECIMAL:
+                            if (column.asBigDecimal() != null) {
+                                data.setField(field.name(), column.asBigDecimal());
+                            }
+                            else {
+                                data.setField(field.name(), null);
+                            }
+                            break;
+                        case MAP:
                             try {
-                                partitionedFanoutWriter.write(row);
+                                data.setField(field.name(), JSON.parseObject(column.asString(), Map.class));
                             }
-                            catch (IOException e) {
-                                throw new UncheckedIOException(e);
+                            catch (Exception e) {
+                                getTaskPluginCollector().collectDirtyRecord(record, String.format("MAP类型解析失败 [%s:%s] exception: %s", field.name(), column, e));
+                                return null;
                             }
-                        });
-                try {
-                    WriteResult writeResult = partitionedFanoutWriter.complete();
-
-                    AppendFiles appends = table.newAppend();
-                    Arrays.stream(writeResult.dataFiles()).forEach(appends::appendFile);
-                    appends.commit();
-                }
-                catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-                try {
-                    partitionedFanoutWriter.close();
-                }
-                catch (IOException e) {
-                    throw new RuntimeException(e);
+                            break;
+                        default:
+                            getTaskPluginCollector().collectDirtyRecord(record, "类型错误:不支持的类型:" + columnType + " " + field.name());
+                            return null;
+                    }
                 }
             }
-            return rows.size();
+            return data;
         }
     }
 }
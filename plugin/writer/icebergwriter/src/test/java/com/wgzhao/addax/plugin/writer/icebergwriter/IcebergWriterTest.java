@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.writer.icebergwriter;
+
+import com.wgzhao.addax.core.element.LongColumn;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.element.StringColumn;
+import com.wgzhao.addax.core.plugin.JobPluginCollector;
+import com.wgzhao.addax.core.plugin.RecordReceiver;
+import com.wgzhao.addax.core.plugin.TaskPluginCollector;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import com.wgzhao.addax.core.util.Configuration;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.iceberg.PartitionSpec;
+import org.apache.iceberg.Schema;
+import org.apache.iceberg.Table;
+import org.apache.iceberg.catalog.TableIdentifier;
+import org.apache.iceberg.data.IcebergGenerics;
+import org.apache.iceberg.hadoop.HadoopCatalog;
+import org.apache.iceberg.io.CloseableIterable;
+import org.apache.iceberg.types.Types;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Writes a table of a local hadoop catalog through the job and its tasks, and checks which data
+ * files are left once the job is destroyed.
+ */
+class IcebergWriterTest
+{
+    @TempDir
+    Path warehouse;
+
+    private final Map<String, List<String>> messages = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void createTable()
+            throws IOException
+    {
+        Schema schema = new Schema(
+                Types.NestedField.required(1, "id", Types.LongType.get()),
+                Types.NestedField.optional(2, "name", Types.StringType.get()));
+        try (HadoopCatalog catalog = catalog()) {
+            // a failed commit is not retried, so that the test does not wait for the backoff
+            catalog.createTable(TableIdentifier.of("db", "t"), schema, PartitionSpec.unpartitioned(),
+                    Map.of("commit.retry.num-retries", "0"));
+        }
+    }
+
+    @AfterEach
+    void resetFileSystem()
+    {
+        FailingFileSystem.failMetadataRename = false;
+    }
+
+    @Test
+    void committedJobKeepsItsDataFiles()
+            throws IOException
+    {
+        IcebergWriter.Job job = newJob();
+        List<Configuration> tasks = job.split(2);
+        runTask(tasks.get(0), 0, 5);
+        runTask(tasks.get(1), 1, 3);
+        job.post();
+        job.destroy();
+
+        assertEquals(2, countDataFiles());
+        assertEquals(8, countRows());
+    }
+
+    @Test
+    void jobFailingBeforeTheCommitDeletesItsDataFiles()
+            throws IOException
+    {
+        IcebergWriter.Job job = newJob();
+        List<Configuration> tasks = job.split(2);
+        runTask(tasks.get(0), 0, 5);
+        runTask(tasks.get(1), 1, 3);
+        assertEquals(2, countDataFiles());
+        // the job never reaches post()
+        job.destroy();
+
+        assertEquals(0, countDataFiles());
+        assertEquals(0, countRows());
+    }
+
+    @Test
+    void failedCommitKeepsItsDataFiles()
+            throws IOException
+    {
+        IcebergWriter.Job job = newJob();
+        List<Configuration> tasks = job.split(1);
+        runTask(tasks.get(0), 0, 5);
+        FailingFileSystem.failMetadataRename = true;
+        assertThrows(RuntimeException.class, job::post);
+        job.destroy();
+        FailingFileSystem.failMetadataRename = false;
+
+        // a snapshot may refer to them when the outcome of the commit is unknown
+        assertEquals(1, countDataFiles());
+    }
+
+    private Map<String, String> hadoopConfig()
+    {
+        return Map.of("fs.file.impl", FailingFileSystem.class.getName(), "fs.file.impl.disable.cache", "true");
+    }
+
+    private HadoopCatalog catalog()
+    {
+        org.apache.hadoop.conf.Configuration hadoopConf = new org.apache.hadoop.conf.Configuration();
+        hadoopConfig().forEach(hadoopConf::set);
+        return new HadoopCatalog(hadoopConf, warehouse.toUri().toString());
+    }
+
+    private Configuration conf()
+    {
+        Configuration conf = Configuration.from("{\"catalogType\": \"hadoop\", \"tableName\": \"db.t\"}");
+        conf.set("warehouse", warehouse.toUri().toString());
+        conf.set("hadoopConfig", hadoopConfig());
+        return conf;
+    }
+
+    private IcebergWriter.Job newJob()
+    {
+        IcebergWriter.Job job = new IcebergWriter.Job();
+        job.setPluginJobConf(conf());
+        job.setJobPluginCollector(new JobPluginCollector()
+        {
+            @Override
+            public Map<String, List<String>> getMessage()
+            {
+                return messages;
+            }
+
+            @Override
+            public List<String> getMessage(String key)
+            {
+                return messages.get(key);
+            }
+        });
+        job.init();
+        job.prepare();
+        return job;
+    }
+
+    /*
+     * Write the ids 0 to count - 1 as the task given
+     */
+    private void runTask(Configuration taskConf, int taskId, int count)
+    {
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Record record = new DefaultRecord();
+            record.addColumn(new LongColumn(i));
+            record.addColumn(new StringColumn("name" + i));
+            records.add(record);
+        }
+        Iterator<Record> iterator = records.iterator();
+
+        IcebergWriter.Task task = new IcebergWriter.Task();
+        task.setPluginJobConf(taskConf);
+        task.setTaskGroupId(0);
+        task.setTaskId(taskId);
+        task.setTaskPluginCollector(new TaskPluginCollector()
+        {
+            @Override
+            public void collectDirtyRecord(Record dirtyRecord, Throwable t, String errorMessage)
+            {
+                throw new AssertionError(errorMessage);
+            }
+
+            @Override
+            public void collectMessage(String key, String value)
+            {
+                messages.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(value);
+            }
+        });
+        task.init();
+        try {
+            task.startWrite(new RecordReceiver()
+            {
+                @Override
+                public Record getFromReader()
+                {
+                    return iterator.hasNext() ? iterator.next() : null;
+                }
+
+                @Override
+                public void shutdown()
+                {
+                }
+            });
+        }
+        finally {
+            task.destroy();
+        }
+    }
+
+    private long countDataFiles()
+            throws IOException
+    {
+        try (Stream<Path> files = Files.walk(warehouse.resolve("db").resolve("t").resolve("data"))) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".parquet")).count();
+        }
+        catch (java.nio.file.NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private long countRows()
+            throws IOException
+    {
+        try (HadoopCatalog catalog = catalog()) {
+            Table table = catalog.loadTable(TableIdentifier.of("db", "t"));
+            long rows = 0;
+            try (CloseableIterable<org.apache.iceberg.data.Record> records = IcebergGenerics.read(table).build()) {
+                for (org.apache.iceberg.data.Record ignored : records) {
+                    rows++;
+                }
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * The local file system, failing to rename the metadata files of a commit on demand.
+     */
+    public static class FailingFileSystem
+            extends LocalFileSystem
+    {
+        static volatile boolean failMetadataRename = false;
+
+        @Override
+        public boolean rename(org.apache.hadoop.fs.Path src, org.apache.hadoop.fs.Path dst)
+                throws IOException
+        {
+            if (failMetadataRename && dst.getName().endsWith(".metadata.json")) {
+                throw new IOException("Failed to rename " + src + " to " + dst);
+            }
+            return super.rename(src, dst);
+        }
+    }
+}
@@ -29,4 +29,9 @@ public final class InfluxDB2Key
     public static final String TOKEN = "token";
     public static final String TAG = "tag";
     public static final String INTERVAL = "interval";
+    public static final String MAX_IN_FLIGHT = "maxInFlight";
+    public static final String MAX_RETRIES = "maxRetries";
+    public static final String RETRY_INTERVAL = "retryInterval";
+    public static final String JITTER_INTERVAL = "jitterInterval";
+    public static final String EXPONENTIAL_BASE = "exponentialBase";
 }
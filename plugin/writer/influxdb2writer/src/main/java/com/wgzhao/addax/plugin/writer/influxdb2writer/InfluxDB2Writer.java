@@ -22,26 +22,42 @@ package com.wgzhao.addax.plugin.writer.influxdb2writer;
 import com.influxdb.client.InfluxDBClient;
 import com.influxdb.client.InfluxDBClientFactory;
 import com.influxdb.client.WriteApi;
+import com.influxdb.client.WriteOptions;
 import com.influxdb.client.domain.WritePrecision;
-import com.influxdb.client.write.Point;
+import com.influxdb.client.write.events.BackpressureEvent;
+import com.influxdb.client.write.events.WriteErrorEvent;
+import com.influxdb.client.write.events.WriteRetriableErrorEvent;
+import com.influxdb.client.write.events.WriteSuccessEvent;
 import com.wgzhao.addax.core.element.Column;
 import com.wgzhao.addax.core.element.Record;
 import com.wgzhao.addax.core.exception.AddaxException;
 import com.wgzhao.addax.core.plugin.RecordReceiver;
 import com.wgzhao.addax.core.spi.Writer;
 import com.wgzhao.addax.core.util.Configuration;
+import io.reactivex.rxjava3.core.BackpressureOverflowStrategy;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.wgzhao.addax.core.base.Constant.DEFAULT_BATCH_SIZE;
 import static com.wgzhao.addax.core.base.Key.BATCH_SIZE;
 import static com.wgzhao.addax.core.base.Key.COLUMN;
+import static com.wgzhao.addax.core.base.Key.COMPRESS;
 import static com.wgzhao.addax.core.base.Key.CONNECTION;
 import static com.wgzhao.addax.core.base.Key.ENDPOINT;
 import static com.wgzhao.addax.core.base.Key.TABLE;
+import static com.wgzhao.addax.core.spi.ErrorCode.CONFIG_ERROR;
+import static com.wgzhao.addax.core.spi.ErrorCode.IO_ERROR;
 import static com.wgzhao.addax.core.spi.ErrorCode.REQUIRED_VALUE;
 
 public class InfluxDB2Writer
@@ -68,13 +84,21 @@ public class InfluxDB2Writer
                 throw AddaxException.asAddaxException(REQUIRED_VALUE,
                         "The column must be configured and '*' is not supported yet");
             }
+            String precision = originalConfig.getString(InfluxDB2Key.INTERVAL, "ms").toLowerCase();
+            if (!List.of("s", "ms", "us", "ns").contains(precision)) {
+                throw AddaxException.asAddaxException(CONFIG_ERROR,
+                        "The interval must be one of s, ms, us and ns, but got " + precision);
+            }
         }
 
         @Override
-        public List<Configuration> split(int adviceNumber)
+        public List<Configuration> split(int mandatoryNumber)
         {
-            List<Configuration> splitConfigs = new ArrayList<>();
-            splitConfigs.add(originalConfig);
+            // points are written independently, so every task can take a share of the reader
+            List<Configuration> splitConfigs = new ArrayList<>(mandatoryNumber);
+            for (int i = 0; i < mandatoryNumber; i++) {
+                splitConfigs.add(originalConfig.clone());
+            }
             return splitConfigs;
         }
 
@@ -88,106 +112,300 @@ public class InfluxDB2Writer
     public static class Task
             extends Writer.Task
     {
+        private static final Logger LOG = LoggerFactory.getLogger(Task.class);
+
+        private static final int DEFAULT_MAX_IN_FLIGHT = 2;
+        private static final int DEFAULT_MAX_RETRIES = 5;
+        private static final int DEFAULT_RETRY_INTERVAL = 1000;
+        // a batch and a retry wait a random time up to the jitter, so the tasks running together do not write at once
+        private static final int DEFAULT_JITTER_INTERVAL = 200;
+        private static final int DEFAULT_EXPONENTIAL_BASE = 2;
+        // the batches are full well before, the interval only flushes the last one of a slow reader
+        private static final int FLUSH_INTERVAL = 1000;
+
         private String endpoint;
         private String token;
         private String org;
         private String bucket;
-        private String table;
 
-        private List<String> columns;
-        private List<Map> tags;
-        private WritePrecision wp;
+        private WritePrecision precision;
         private int batchSize;
+        private boolean gzip;
+        private int maxInFlight;
+        private int maxRetries;
+        private int retryInterval;
+        private int jitterInterval;
+        private int exponentialBase;
+
+        // the escaped measurement with the sorted tags, the same for every point
+        private String seriesKey;
+        // the escaped field names, each one followed by '='
+        private String[] fieldKeys;
+        private final StringBuilder line = new StringBuilder(256);
 
         @Override
         public void init()
         {
-            Configuration readerSliceConfig = super.getPluginJobConf();
+            Configuration writerSliceConfig = super.getPluginJobConf();
             // get connection information
-            Configuration connConf = readerSliceConfig.getConfiguration(CONNECTION);
+            Configuration connConf = writerSliceConfig.getConfiguration(CONNECTION);
             this.endpoint = connConf.getString(ENDPOINT);
             this.org = connConf.getString(InfluxDB2Key.ORG);
             this.bucket = connConf.getString(InfluxDB2Key.BUCKET);
-            this.table = connConf.getString(TABLE);
+            String table = connConf.getString(TABLE);
+
+            this.token = writerSliceConfig.getString(InfluxDB2Key.TOKEN);
+            List<String> columns = writerSliceConfig.getList(COLUMN, String.class);
+            List<Map> tags = writerSliceConfig.getList(InfluxDB2Key.TAG, Map.class);
+            this.precision = WritePrecision.valueOf(writerSliceConfig.getString(InfluxDB2Key.INTERVAL, "ms").toUpperCase());
+            this.batchSize = writerSliceConfig.getInt(BATCH_SIZE, DEFAULT_BATCH_SIZE);
+            this.gzip = !"none".equalsIgnoreCase(writerSliceConfig.getString(COMPRESS, "gzip"));
+            this.maxInFlight = Math.max(1, writerSliceConfig.getInt(InfluxDB2Key.MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT));
+            this.maxRetries = Math.max(0, writerSliceConfig.getInt(InfluxDB2Key.MAX_RETRIES, DEFAULT_MAX_RETRIES));
+            this.retryInterval = Math.max(1, writerSliceConfig.getInt(InfluxDB2Key.RETRY_INTERVAL, DEFAULT_RETRY_INTERVAL));
+            this.jitterInterval = Math.max(0, writerSliceConfig.getInt(InfluxDB2Key.JITTER_INTERVAL, DEFAULT_JITTER_INTERVAL));
+            this.exponentialBase = Math.max(2, writerSliceConfig.getInt(InfluxDB2Key.EXPONENTIAL_BASE, DEFAULT_EXPONENTIAL_BASE));
 
-            this.token = readerSliceConfig.getString(InfluxDB2Key.TOKEN);
-            this.columns = readerSliceConfig.getList(COLUMN, String.class);
-            this.tags = readerSliceConfig.getList(InfluxDB2Key.TAG, Map.class);
-            this.wp = WritePrecision.valueOf(readerSliceConfig.getString(InfluxDB2Key.INTERVAL, "ms").toUpperCase());
-            this.batchSize = readerSliceConfig.getInt(BATCH_SIZE, DEFAULT_BATCH_SIZE);
+            // the server sorts the tags of every point unless they come sorted
+            Map<String, String> sortedTags = new TreeMap<>();
+            if (tags != null) {
+                tags.forEach(tag -> tag.forEach((k, v) -> sortedTags.put(String.valueOf(k), String.valueOf(v))));
+            }
+            StringBuilder sb = new StringBuilder();
+            escape(sb, table, false);
+            sortedTags.forEach((k, v) -> {
+                sb.append(',');
+                escape(sb, k, true);
+                sb.append('=');
+                escape(sb, v, true);
+            });
+            this.seriesKey = sb.toString();
+
+            this.fieldKeys = new String[columns.size()];
+            for (int i = 0; i < columns.size(); i++) {
+                sb.setLength(0);
+                escape(sb, columns.get(i), true);
+                fieldKeys[i] = sb.append('=').toString();
+            }
         }
 
+        /*
+         * The write api of the client batches, compresses and retries the points in the background: a 429
+         * or 503 is retried after its Retry-After, other retriable errors with an exponential backoff. The
+         * points handed over and not yet written are bounded to maxInFlight batches, so that a slow server
+         * blocks this task instead of overflowing the buffer of the client, which would drop points.
+         */
         @Override
         public void startWrite(RecordReceiver lineReceiver)
         {
-            Record record;
-            Column column;
+            InFlight inFlight = new InFlight(maxInFlight * batchSize);
+            InfluxDBClient client = InfluxDBClientFactory.create(endpoint, token.toCharArray(), org, bucket);
+            try {
+                if (gzip) {
+                    client.enableGzip();
+                }
+                WriteApi writeApi = client.makeWriteApi(WriteOptions.builder()
+                        .batchSize(batchSize)
+                        .flushInterval(FLUSH_INTERVAL)
+                        // room for one more batch than the task lets in, it never overflows
+                        .bufferLimit((maxInFlight + 1) * batchSize)
+                        .backpressureStrategy(BackpressureOverflowStrategy.ERROR)
+                        .maxRetries(maxRetries)
+                        .retryInterval(retryInterval)
+                        .jitterInterval(jitterInterval)
+                        .exponentialBase(exponentialBase)
+                        // the workers of the default new thread scheduler interrupt their thread when disposed,
+                        // which aborts the request of a retry
+                        .writeScheduler(Schedulers.io())
+                        .build());
+                writeApi.listenEvents(WriteSuccessEvent.class, event -> inFlight.written(lines(event.getLineProtocol())));
+                writeApi.listenEvents(WriteRetriableErrorEvent.class, event ->
+                        LOG.warn("Failed to write a batch, retry in {} ms: {}", event.getRetryInterval(), event.getThrowable().getMessage()));
+                writeApi.listenEvents(BackpressureEvent.class, event -> LOG.warn("The write buffer is full: {}", event.getReason()));
+                writeApi.listenEvents(WriteErrorEvent.class, event -> inFlight.fail(event.getThrowable()));
+
+                List<String> batch = new ArrayList<>(batchSize);
+                Record record;
+                while ((record = lineReceiver.getFromReader()) != null) {
+                    String point = toLine(record);
+                    if (point != null) {
+                        batch.add(point);
+                    }
+                    if (batch.size() >= batchSize) {
+                        inFlight.acquire(batch.size());
+                        writeApi.writeRecords(bucket, org, precision, batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                // write remain points if present
+                if (!batch.isEmpty()) {
+                    inFlight.acquire(batch.size());
+                    writeApi.writeRecords(bucket, org, precision, batch);
+                }
+                writeApi.flush();
+                inFlight.awaitWritten();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw AddaxException.asAddaxException(IO_ERROR, "Interrupted while writing the points", e);
+            }
+            finally {
+                // closing writes the batches still buffered, the points handed over and not written are lost
+                client.close();
+                long written = inFlight.written.get();
+                long rejected = inFlight.handed - written;
+                LOG.info("{} points written", written);
+                getTaskPluginCollector().collectMessage("writeSize", String.valueOf(written));
+                if (rejected > 0) {
+                    LOG.error("{} points were rejected or not written", rejected);
+                    getTaskPluginCollector().collectMessage("rejectSize", String.valueOf(rejected));
+                }
+            }
+        }
+
+        /*
+         * The points handed over to the write api and not written yet
+         */
+        private static final class InFlight
+        {
+            private final int limit;
+            private final Semaphore permits;
+            private final AtomicLong written = new AtomicLong();
+            private final AtomicReference<Throwable> failure = new AtomicReference<>();
+            // the points handed over by the task
+            private long handed;
+
+            InFlight(int limit)
+            {
+                this.limit = limit;
+                this.permits = new Semaphore(limit);
+            }
+
+            void acquire(int points)
+                    throws InterruptedException
+            {
+                await(points);
+                handed += points;
+            }
+
+            void written(int points)
+            {
+                written.addAndGet(points);
+                permits.release(points);
+            }
 
-            InfluxDBClient influxDBClient = InfluxDBClientFactory.create(endpoint, token.toCharArray(), org, bucket);
-            WriteApi writeApi = influxDBClient.makeWriteApi();
-            List<Point> points = new ArrayList<>(batchSize);
+            // the error event does not tell the points of the batch, the task fails as they are lost
+            void fail(Throwable e)
+            {
+                failure.compareAndSet(null, e);
+                permits.release(limit);
+            }
 
-            while ((record = lineReceiver.getFromReader()) != null) {
-                Point point = Point.measurement(table);
-                if (!tags.isEmpty()) {
-                    tags.forEach(point::addTags);
+            void awaitWritten()
+                    throws InterruptedException
+            {
+                await(limit);
+            }
+
+            private void await(int points)
+                    throws InterruptedException
+            {
+                while (!permits.tryAcquire(points, 200, TimeUnit.MILLISECONDS)) {
+                    check();
                 }
+                check();
+            }
 
-                // The first column must be time stamp
-                column = record.getColumn(0);
-                final Instant instant = column.asTimestamp().toInstant();
-                point.time(processTimeUnit(instant), wp);
-                for (int i = 0; i < columns.size(); i++) {
-                    String name = columns.get(i);
-                    column = record.getColumn(i + 1); // the first field has processed above
-
-                    switch (column.getType()) {
-                        case LONG:
-                            point.addField(name, column.asLong());
-                            break;
-                        case DOUBLE:
-                            point.addField(name, column.asDouble());
-                            break;
-                        case BOOL:
-                            point.addField(name, column.asBoolean());
-                            break;
-                        case DATE:
-                        default:
-                            point.addField(name, column.asString());
-                            break;
-                    }
+            private void check()
+            {
+                Throwable e = failure.get();
+                if (e != null) {
+                    throw AddaxException.asAddaxException(IO_ERROR, "Failed to write a batch of points: " + e.getMessage(), e);
                 }
-                points.add(point);
-                if (points.size() == batchSize) {
-                    writeApi.writePoints(points);
-                    points.clear();
+            }
+        }
+
+        private static int lines(String lineProtocol)
+        {
+            int n = 1;
+            for (int i = 0; i < lineProtocol.length(); i++) {
+                if (lineProtocol.charAt(i) == '\n') {
+                    n++;
                 }
             }
-            // write remain points if present
-            if (!points.isEmpty()) {
-                writeApi.writePoints(points);
+            return n;
+        }
+
+        /*
+         * measurement,tag1=v1,tag2=v2 field1=1i,field2="s" timestamp
+         * null if the record has no field to write and was collected as dirty
+         */
+        private String toLine(Record record)
+        {
+            line.setLength(0);
+            line.append(seriesKey);
+            char separator = ' ';
+            // The first column must be time stamp, the fields follow
+            for (int i = 0; i < fieldKeys.length; i++) {
+                Column column = record.getColumn(i + 1);
+                if (column == null || column.getRawData() == null) {
+                    continue;
+                }
+                line.append(separator).append(fieldKeys[i]);
+                separator = ',';
+                switch (column.getType()) {
+                    case INT, LONG -> line.append(column.asLong()).append('i');
+                    case DOUBLE -> {
+                        double value = column.asDouble();
+                        if (Double.isNaN(value) || Double.isInfinite(value)) {
+                            getTaskPluginCollector().collectDirtyRecord(record, "InfluxDB does not take the value " + value);
+                            return null;
+                        }
+                        line.append(value);
+                    }
+                    case BOOL -> line.append(column.asBoolean());
+                    default -> {
+                        line.append('"');
+                        String value = column.asString();
+                        for (int j = 0; j < value.length(); j++) {
+                            char c = value.charAt(j);
+                            if (c == '"' || c == '\\') {
+                                line.append('\\');
+                            }
+                            line.append(c);
+                        }
+                        line.append('"');
+                    }
+                }
             }
-            influxDBClient.close();
+            Column time = record.getColumn(0);
+            if (separator == ' ' || time == null || time.getRawData() == null) {
+                getTaskPluginCollector().collectDirtyRecord(record, "The point has no time or no field with a value");
+                return null;
+            }
+            return line.append(' ').append(timestamp(time.asTimestamp().toInstant())).toString();
+        }
+
+        private long timestamp(Instant instant)
+        {
+            return switch (precision) {
+                case S -> instant.getEpochSecond();
+                case US -> instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+                case NS -> instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+                default -> instant.toEpochMilli();
+            };
         }
 
-        private long processTimeUnit(Instant instant)
+        // commas and spaces are escaped everywhere, equal signs in tags and field names as well
+        private static void escape(StringBuilder sb, String value, boolean escapeEquals)
         {
-            long ts;
-            switch (wp) {
-                case S:
-                    ts = instant.getEpochSecond();
-                    break;
-                case US:
-                    ts = instant.getNano() / 1000;
-                    break;
-                case NS:
-                    ts = instant.getNano();
-                    break;
-                default:
-                    ts = instant.toEpochMilli();
-                    break;
-            }
-            return ts;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == ' ' || (escapeEquals && c == '=')) {
+                    sb.append('\\');
+                }
+                sb.append(c);
+            }
         }
 
         @Override
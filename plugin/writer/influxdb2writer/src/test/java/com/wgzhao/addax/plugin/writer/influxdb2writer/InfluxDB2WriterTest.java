@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.writer.influxdb2writer;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.wgzhao.addax.core.element.DateColumn;
+import com.wgzhao.addax.core.element.DoubleColumn;
+import com.wgzhao.addax.core.element.LongColumn;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.element.StringColumn;
+import com.wgzhao.addax.core.exception.AddaxException;
+import com.wgzhao.addax.core.plugin.RecordReceiver;
+import com.wgzhao.addax.core.plugin.TaskPluginCollector;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import com.wgzhao.addax.core.util.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the writer against a local HTTP server standing in for the write API of InfluxDB 2.
+ */
+class InfluxDB2WriterTest
+{
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    // the statuses answered in turn, 204 once they are used up
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp()
+            throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v2/write", this::serve);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        server.stop(0);
+    }
+
+    private void serve(HttpExchange exchange)
+            throws IOException
+    {
+        InputStream in = exchange.getRequestBody();
+        if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            in = new GZIPInputStream(in);
+        }
+        bodies.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        Integer status = statuses.poll();
+        if (status == null || status == 204) {
+            exchange.sendResponseHeaders(204, -1);
+        }
+        else {
+            byte[] body = ("{\"code\":\"" + status + "\",\"message\":\"scripted\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+        }
+        exchange.close();
+    }
+
+    @Test
+    void throttledBatchIsRetried()
+    {
+        statuses.add(429);
+        Map<String, String> messages = new ConcurrentHashMap<>();
+
+        write(5, messages);
+
+        List<String> lines = lines();
+        // the first batch is sent twice, the others once
+        assertEquals(bodies.get(0), bodies.get(1));
+        assertEquals(7, lines.size());
+        assertEquals(5, lines.stream().distinct().count());
+        assertEquals("5", messages.get("writeSize"));
+    }
+
+    @Test
+    void rejectedBatchFailsTheTask()
+    {
+        statuses.add(400);
+        Map<String, String> messages = new ConcurrentHashMap<>();
+
+        assertThrows(AddaxException.class, () -> write(5, messages));
+        // the first batch is rejected, the task stops before handing over the next one
+        assertEquals("0", messages.get("writeSize"));
+        assertEquals("2", messages.get("rejectSize"));
+    }
+
+    @Test
+    void namesTagsAndStringsAreEscaped()
+    {
+        write(1, new ConcurrentHashMap<>());
+
+        assertEquals(List.of("my\\ m\\,1,a\\ tag=x\\=1\\,y,z=2 c\\ long=0i,c\\=str=\"say \\\"hi\\\" \\\\o/\",c_double=0.5 1700000000000"),
+                lines());
+    }
+
+    private List<String> lines()
+    {
+        List<String> lines = new ArrayList<>();
+        bodies.forEach(body -> lines.addAll(List.of(body.split("\n"))));
+        return lines;
+    }
+
+    private void write(int count, Map<String, String> messages)
+    {
+        Configuration conf = Configuration.from("{"
+                + "\"connection\": {\"endpoint\": \"http://127.0.0.1:" + server.getAddress().getPort() + "\","
+                + " \"bucket\": \"b\", \"org\": \"o\", \"table\": \"my m,1\"},"
+                + "\"token\": \"t\", \"column\": [\"c long\", \"c=str\", \"c_double\"],"
+                + "\"tag\": [{\"z\": \"2\"}, {\"a tag\": \"x=1,y\"}],"
+                + "\"batchSize\": 2, \"maxInFlight\": 1, \"maxRetries\": 3, \"retryInterval\": 10, \"jitterInterval\": 0}");
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Record record = new DefaultRecord();
+            record.addColumn(new DateColumn(1_700_000_000_000L + i));
+            record.addColumn(new LongColumn(i));
+            record.addColumn(new StringColumn("say \"hi\" \\o/"));
+            record.addColumn(new DoubleColumn(0.5 + i));
+            records.add(record);
+        }
+        Iterator<Record> iterator = records.iterator();
+
+        InfluxDB2Writer.Task task = new InfluxDB2Writer.Task();
+        task.setPluginJobConf(conf);
+        task.setTaskPluginCollector(new TaskPluginCollector()
+        {
+            @Override
+            public void collectDirtyRecord(Record dirtyRecord, Throwable t, String errorMessage)
+            {
+                throw new AssertionError(errorMessage);
+            }
+
+            @Override
+            public void collectMessage(String key, String value)
+            {
+                messages.put(key, value);
+            }
+        });
+        task.init();
+        task.startWrite(new RecordReceiver()
+        {
+            @Override
+            public Record getFromReader()
+            {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+            @Override
+            public void shutdown()
+            {
+            }
+        });
+        assertTrue(bodies.size() > 0);
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.kudu.ColumnSchema;
 import org.apache.kudu.Schema;
 import org.apache.kudu.client.KuduClient;
 import org.apache.kudu.client.KuduException;
+import org.apache.kudu.client.KuduPartitioner;
 import org.apache.kudu.client.KuduSession;
 import org.apache.kudu.client.KuduTable;
 import org.slf4j.Logger;
@@ -136,6 +137,16 @@ public class KuduHelper
         return columns;
     }
 
+    public KuduPartitioner getPartitioner(KuduTable table)
+    {
+        try {
+            return new KuduPartitioner.KuduPartitionerBuilder(table).build();
+        }
+        catch (KuduException e) {
+            throw AddaxException.asAddaxException(RUNTIME_ERROR, e);
+        }
+    }
+
     public KuduSession getSession()
     {
         return kuduClient.newSession();
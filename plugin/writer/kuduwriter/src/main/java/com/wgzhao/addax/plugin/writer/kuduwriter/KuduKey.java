@@ -28,4 +28,10 @@ public class KuduKey extends Key
 
     public static final String MUTATION_BUFFER_SPACE = "bufferSize";
     public static final String SKIP_FAIL = "skipFail";
+    // manual or background
+    public static final String FLUSH_MODE = "flushMode";
+    // the interval a background session flushes at, in milliseconds
+    public static final String FLUSH_INTERVAL = "flushInterval";
+    // the number of sessions a task writes through, rows are sharded by partition
+    public static final String SESSION_NUMBER = "sessions";
 }
@@ -134,7 +134,6 @@ public class KuduWriter
     public static class Task
             extends Writer.Task
     {
-        private static final Logger LOG = LoggerFactory.getLogger(Job.class);
         private KuduWriterTask kuduTaskProxy;
 
         @Override
@@ -153,14 +152,6 @@ public class KuduWriter
         @Override
         public void destroy()
         {
-            try {
-                if (kuduTaskProxy.session != null) {
-                    kuduTaskProxy.session.close();
-                }
-            }
-            catch (Exception e) {
-                LOG.warn("The kudu session was not closed gracefully !");
-            }
             kuduTaskProxy.close();
         }
     }
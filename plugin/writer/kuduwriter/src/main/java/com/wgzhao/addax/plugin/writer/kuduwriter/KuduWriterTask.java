@@ -28,44 +28,70 @@ import com.wgzhao.addax.core.spi.Writer;
 import com.wgzhao.addax.core.util.Configuration;
 import org.apache.kudu.Schema;
 import org.apache.kudu.Type;
-import org.apache.kudu.client.Insert;
 import org.apache.kudu.client.KuduException;
+import org.apache.kudu.client.KuduPartitioner;
 import org.apache.kudu.client.KuduSession;
 import org.apache.kudu.client.KuduTable;
+import org.apache.kudu.client.NonCoveredRangeException;
+import org.apache.kudu.client.Operation;
 import org.apache.kudu.client.OperationResponse;
 import org.apache.kudu.client.PartialRow;
+import org.apache.kudu.client.RowError;
+import org.apache.kudu.client.RowErrorsAndOverflowStatus;
 import org.apache.kudu.client.SessionConfiguration;
-import org.apache.kudu.client.Upsert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static com.wgzhao.addax.core.base.Constant.DEFAULT_BATCH_SIZE;
 import static com.wgzhao.addax.core.spi.ErrorCode.CONFIG_ERROR;
 import static com.wgzhao.addax.core.spi.ErrorCode.NOT_SUPPORT_TYPE;
 import static com.wgzhao.addax.core.spi.ErrorCode.RUNTIME_ERROR;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class KuduWriterTask
         extends Writer
 {
     private static final Logger LOG = LoggerFactory.getLogger(KuduWriterTask.class);
+    // the interval of taking the row errors from the sessions in background mode, unless flushInterval is set
+    private static final int DEFAULT_DRAIN_INTERVAL = 1000;
     private final Double batchSize;
     private final List<String> columns;
     private final Boolean isUpsert;
     private final Boolean isSkipFail;
     private final KuduTable table;
     private final KuduHelper kuduHelper;
-    public KuduSession session;
+    private final boolean background;
+    private final List<KuduSession> sessions = new ArrayList<>();
+    private final KuduPartitioner partitioner;
+    // the record of each operation kudu still holds, so that a row error can be told as a dirty record
+    private final Map<Operation, Record> pending = new WeakHashMap<>();
+    // the row errors taken from the sessions in background mode, they are told by the writer thread
+    private final Queue<RowError> rowErrors = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService errorDrainer;
+    private volatile boolean errorsOverflowed;
+    private TaskPluginCollector taskPluginCollector;
 
     public KuduWriterTask(Configuration configuration)
     {
+        this(configuration, new KuduHelper(configuration.getString(KuduKey.KUDU_MASTER_ADDRESSES),
+                configuration.getLong(KuduKey.KUDU_TIMEOUT), configuration));
+    }
 
-        String masterAddress = configuration.getString(KuduKey.KUDU_MASTER_ADDRESSES);
-        this.kuduHelper = new KuduHelper(masterAddress, configuration.getLong(KuduKey.KUDU_TIMEOUT), configuration);
+    KuduWriterTask(Configuration configuration, KuduHelper kuduHelper)
+    {
+        this.kuduHelper = kuduHelper;
         this.columns = configuration.getList(KuduKey.COLUMN, String.class);
         this.batchSize = configuration.getDouble(KuduKey.BATCH_SIZE, DEFAULT_BATCH_SIZE);
         this.isUpsert = !"insert".equalsIgnoreCase(configuration.getString(KuduKey.WRITE_MODE));
@@ -73,14 +99,46 @@ public class KuduWriterTask
         long mutationBufferSpace = configuration.getLong(KuduKey.MUTATION_BUFFER_SPACE);
         this.table = kuduHelper.getKuduTable(configuration.getString(KuduKey.TABLE));
 
-        this.session = kuduHelper.getSession();
-        session.setFlushMode(SessionConfiguration.FlushMode.MANUAL_FLUSH);
-        session.setMutationBufferSpace((int) mutationBufferSpace);
+        // background flushing lets the writer go on while the buffered operations are sent
+        this.background = "background".equalsIgnoreCase(configuration.getString(KuduKey.FLUSH_MODE, "background"));
+        Integer flushInterval = configuration.getInt(KuduKey.FLUSH_INTERVAL);
+        int sessionNumber = Math.max(1, configuration.getInt(KuduKey.SESSION_NUMBER, 1));
+        for (int i = 0; i < sessionNumber; i++) {
+            KuduSession session = kuduHelper.getSession();
+            if (background) {
+                session.setFlushMode(SessionConfiguration.FlushMode.AUTO_FLUSH_BACKGROUND);
+                if (flushInterval != null) {
+                    session.setFlushInterval(flushInterval);
+                }
+            }
+            else {
+                session.setFlushMode(SessionConfiguration.FlushMode.MANUAL_FLUSH);
+            }
+            session.setMutationBufferSpace((int) mutationBufferSpace);
+            sessions.add(session);
+        }
+        // with several sessions, a row goes to the session of its partition, so each one buffers fewer tablets
+        this.partitioner = sessionNumber > 1 ? kuduHelper.getPartitioner(table) : null;
+        if (background) {
+            // the error collector of a session is bounded, so it is emptied while the rows are written
+            int drainInterval = flushInterval != null ? flushInterval : DEFAULT_DRAIN_INTERVAL;
+            this.errorDrainer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "kudu-error-drainer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            errorDrainer.scheduleWithFixedDelay(this::drainErrors, drainInterval, drainInterval, MILLISECONDS);
+        }
+        else {
+            this.errorDrainer = null;
+        }
+        LOG.info("Write with {} session(s) in {} flush mode", sessionNumber, background ? "background" : "manual");
     }
 
     public void startWriter(RecordReceiver lineReceiver, TaskPluginCollector taskPluginCollector)
     {
         LOG.info("Begin to write");
+        this.taskPluginCollector = taskPluginCollector;
         Record record;
         Record lastRecord = null;
         int commit = 0;
@@ -92,17 +150,9 @@ public class KuduWriterTask
                         "The number of record fields (" + record.getColumnNumber()
                                 + ") is different from the number of configuration fields (" + columns.size() + ")");
             }
-            Upsert upsert = table.newUpsert();
-            Insert insert = table.newInsert();
-            PartialRow row;
-            if (isUpsert) {
-                //override update
-                row = upsert.getRow();
-            }
-            else {
-                //incremental update
-                row = insert.getRow();
-            }
+            // upsert overrides the existing row, insert is an incremental update
+            Operation operation = isUpsert ? table.newUpsert() : table.newInsert();
+            PartialRow row = operation.getRow();
             for (int i = 0; i < record.getColumnNumber(); i++) {
                 Column column = record.getColumn(i);
                 String name = columns.get(i);
@@ -129,24 +179,18 @@ public class KuduWriterTask
                 }
             } // end a row
             try {
-                if (isUpsert) {
-                    session.apply(upsert);
-                }
-                else {
-                    session.apply(insert);
-                }
+                pending.put(operation, record);
+                sessionOf(row).apply(operation);
                 commit++;
-                if (commit % batchSize == 0) {
-                    // flush
-                    List<OperationResponse> operationResponseList = session.flush();
-                    for (OperationResponse operationResponse : operationResponseList) {
-                        if (operationResponse.hasRowError()) {
-                            throw AddaxException.asAddaxException(RUNTIME_ERROR, operationResponse.getRowError().getErrorStatus().toString());
-                        }
-                    }
+                if (background) {
+                    reportErrors();
+                }
+                else if (commit % batchSize == 0) {
+                    flush();
                 }
             }
             catch (KuduException e) {
+                pending.remove(operation);
                 LOG.error("Failed to write a record: ", e);
                 if (isSkipFail) {
                     taskPluginCollector.collectDirtyRecord(record, e.getMessage());
@@ -160,11 +204,11 @@ public class KuduWriterTask
 
         try {
             // try to flush last upsert/insert
-            List<OperationResponse> operationResponseList = session.flush();
-            for (OperationResponse operationResponse : operationResponseList) {
-                if (operationResponse.hasRowError()) {
-                    throw AddaxException.asAddaxException(RUNTIME_ERROR, operationResponse.getRowError().getErrorStatus().toString());
-                }
+            flush();
+            if (background) {
+                stopErrorDrainer();
+                drainErrors();
+                reportErrors();
             }
         }
         catch (KuduException e) {
@@ -180,8 +224,110 @@ public class KuduWriterTask
         }
     }
 
+    private KuduSession sessionOf(PartialRow row)
+    {
+        if (partitioner == null) {
+            return sessions.get(0);
+        }
+        try {
+            return sessions.get(partitioner.partitionRow(row) % sessions.size());
+        }
+        catch (NonCoveredRangeException e) {
+            // let kudu reject the row
+            return sessions.get(0);
+        }
+    }
+
+    private void flush()
+            throws KuduException
+    {
+        for (KuduSession session : sessions) {
+            List<OperationResponse> operationResponseList = session.flush();
+            // in background mode the row errors go to the error collector instead
+            if (!background) {
+                for (OperationResponse operationResponse : operationResponseList) {
+                    if (operationResponse.hasRowError()) {
+                        handleRowError(operationResponse.getRowError());
+                    }
+                }
+            }
+        }
+    }
+
+    // runs on the error drainer, the collector is only called by the writer thread
+    private synchronized void drainErrors()
+    {
+        try {
+            for (KuduSession session : sessions) {
+                if (session.countPendingErrors() == 0) {
+                    continue;
+                }
+                RowErrorsAndOverflowStatus errors = session.getPendingErrors();
+                rowErrors.addAll(List.of(errors.getRowErrors()));
+                if (errors.isOverflowed()) {
+                    errorsOverflowed = true;
+                }
+            }
+        }
+        catch (RuntimeException e) {
+            LOG.warn("Failed to take the row errors of the kudu sessions: {}", e.getMessage());
+        }
+    }
+
+    private void reportErrors()
+    {
+        RowError rowError;
+        while ((rowError = rowErrors.poll()) != null) {
+            handleRowError(rowError);
+        }
+        if (errorsOverflowed) {
+            if (!isSkipFail) {
+                throw AddaxException.asAddaxException(RUNTIME_ERROR,
+                        "Too many row errors, the error collector of the kudu session overflowed");
+            }
+            errorsOverflowed = false;
+            LOG.warn("The error collector of the kudu session overflowed, some failed rows are not counted as dirty records");
+        }
+    }
+
+    private void stopErrorDrainer()
+    {
+        if (errorDrainer != null) {
+            errorDrainer.shutdown();
+            try {
+                errorDrainer.awaitTermination(DEFAULT_DRAIN_INTERVAL, MILLISECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void handleRowError(RowError rowError)
+    {
+        Record record = pending.remove(rowError.getOperation());
+        if (!isSkipFail) {
+            throw AddaxException.asAddaxException(RUNTIME_ERROR, rowError.getErrorStatus().toString());
+        }
+        if (record != null) {
+            taskPluginCollector.collectDirtyRecord(record, rowError.getErrorStatus().toString());
+        }
+        else {
+            LOG.warn("Failed to write the row {}: {}", rowError.getOperation().getRow(), rowError.getErrorStatus());
+        }
+    }
+
     public void close()
     {
+        stopErrorDrainer();
+        for (KuduSession session : sessions) {
+            try {
+                session.close();
+            }
+            catch (Exception e) {
+                LOG.warn("The kudu session was not closed gracefully !");
+            }
+        }
         kuduHelper.closeClient();
     }
 }
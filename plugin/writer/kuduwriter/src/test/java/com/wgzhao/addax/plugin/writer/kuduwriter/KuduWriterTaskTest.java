@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.writer.kuduwriter;
+
+import com.wgzhao.addax.core.element.LongColumn;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.element.StringColumn;
+import com.wgzhao.addax.core.exception.AddaxException;
+import com.wgzhao.addax.core.plugin.RecordReceiver;
+import com.wgzhao.addax.core.plugin.TaskPluginCollector;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import com.wgzhao.addax.core.util.Configuration;
+import org.apache.kudu.ColumnSchema;
+import org.apache.kudu.Schema;
+import org.apache.kudu.Type;
+import org.apache.kudu.client.KuduPartitioner;
+import org.apache.kudu.client.KuduSession;
+import org.apache.kudu.client.KuduStubs;
+import org.apache.kudu.client.KuduTable;
+import org.apache.kudu.client.Operation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes through stubbed kudu sessions, so that the routing of rows and the telling of row errors run without a cluster.
+ */
+class KuduWriterTaskTest
+{
+    private static final Schema SCHEMA = new Schema(List.of(
+            new ColumnSchema.ColumnSchemaBuilder("id", Type.INT64).key(true).build(),
+            new ColumnSchema.ColumnSchemaBuilder("name", Type.STRING).nullable(true).build()));
+
+    // the server rejects the rows whose id is a multiple of 3
+    private static final Predicate<Operation> FAILING = operation -> operation.getRow().getLong("id") % 3 == 0;
+
+    @Test
+    void rowsGoToTheSessionOfTheirPartition()
+    {
+        StubHelper helper = new StubHelper(3);
+        KuduWriterTask task = new KuduWriterTask(configuration("manual", 3, true), helper);
+        task.startWriter(receiver(12, null), new DirtyCollector());
+        task.close();
+
+        // the partition of a row is its id modulo 6, which is spread over the 3 sessions
+        for (int i = 0; i < 3; i++) {
+            List<Long> ids = new ArrayList<>();
+            for (Operation operation : helper.sessions.get(i).applied) {
+                ids.add(operation.getRow().getLong("id"));
+            }
+            assertEquals(List.of((long) i, i + 3L, i + 6L, i + 9L), ids);
+        }
+    }
+
+    @Test
+    void rowErrorsOfAFlushAreToldAsTheirRecords()
+    {
+        StubHelper helper = new StubHelper(2);
+        DirtyCollector collector = new DirtyCollector();
+        KuduWriterTask task = new KuduWriterTask(configuration("manual", 2, true), helper);
+        task.startWriter(receiver(10, null), collector);
+        task.close();
+
+        assertEquals(List.of(0L, 3L, 6L, 9L), collector.ids());
+    }
+
+    @Test
+    void rowErrorsAreDrainedWhileWriting()
+    {
+        StubHelper helper = new StubHelper(2);
+        DirtyCollector collector = new DirtyCollector();
+        KuduWriterTask task = new KuduWriterTask(configuration("background", 2, true), helper);
+        // the last record is read only once the errors of the others have been taken from the sessions
+        task.startWriter(receiver(10, () -> helper.sessions.stream().allMatch(s -> s.countPendingErrors() == 0)), collector);
+        task.close();
+
+        assertEquals(List.of(0L, 3L, 6L, 9L), collector.ids());
+    }
+
+    @Test
+    void rowErrorFailsTheTaskUnlessSkipped()
+    {
+        KuduWriterTask task = new KuduWriterTask(configuration("background", 1, false), new StubHelper(1));
+        assertThrows(AddaxException.class, () -> task.startWriter(receiver(4, null), new DirtyCollector()));
+        task.close();
+    }
+
+    private static Configuration configuration(String flushMode, int sessions, boolean skipFail)
+    {
+        Configuration configuration = Configuration.newDefault();
+        configuration.set(KuduKey.KUDU_MASTER_ADDRESSES, "127.0.0.1:7051");
+        configuration.set(KuduKey.KUDU_TIMEOUT, 1000);
+        configuration.set(KuduKey.TABLE, "users");
+        configuration.set(KuduKey.COLUMN, List.of("id", "name"));
+        configuration.set(KuduKey.WRITE_MODE, "upsert");
+        configuration.set(KuduKey.BATCH_SIZE, 4);
+        configuration.set(KuduKey.MUTATION_BUFFER_SPACE, 1024);
+        configuration.set(KuduKey.FLUSH_MODE, flushMode);
+        configuration.set(KuduKey.FLUSH_INTERVAL, 10);
+        configuration.set(KuduKey.SESSION_NUMBER, sessions);
+        configuration.set(KuduKey.SKIP_FAIL, skipFail);
+        return configuration;
+    }
+
+    private static RecordReceiver receiver(int count, BooleanSupplier beforeLast)
+    {
+        return new RecordReceiver()
+        {
+            private int id;
+
+            @Override
+            public Record getFromReader()
+            {
+                if (id == count) {
+                    return null;
+                }
+                if (id == count - 1 && beforeLast != null) {
+                    long deadline = System.currentTimeMillis() + 10_000;
+                    while (!beforeLast.getAsBoolean()) {
+                        assertTrue(System.currentTimeMillis() < deadline, "the row errors were not drained");
+                        Thread.onSpinWait();
+                    }
+                }
+                Record record = new DefaultRecord();
+                record.addColumn(new LongColumn(id));
+                record.addColumn(new StringColumn("user" + id));
+                id++;
+                return record;
+            }
+
+            @Override
+            public void shutdown()
+            {
+            }
+        };
+    }
+
+    private static class StubHelper
+            extends KuduHelper
+    {
+        final List<KuduStubs.StubSession> sessions = new ArrayList<>();
+        private final int partitions;
+
+        StubHelper(int partitions)
+        {
+            super("127.0.0.1:7051", 1000, Configuration.newDefault());
+            this.partitions = partitions;
+        }
+
+        @Override
+        public KuduTable getKuduTable(String tableName)
+        {
+            return KuduStubs.table(tableName, SCHEMA);
+        }
+
+        @Override
+        public KuduPartitioner getPartitioner(KuduTable table)
+        {
+            return new KuduStubs.StubPartitioner(row -> (int) (row.getLong("id") % 6));
+        }
+
+        @Override
+        public KuduSession getSession()
+        {
+            KuduStubs.StubSession session = new KuduStubs.StubSession(FAILING);
+            sessions.add(session);
+            return session;
+        }
+    }
+
+    private static class DirtyCollector
+            extends TaskPluginCollector
+    {
+        private final List<Record> records = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void collectDirtyRecord(Record dirtyRecord, Throwable t, String errorMessage)
+        {
+            records.add(dirtyRecord);
+        }
+
+        @Override
+        public void collectMessage(String key, String value)
+        {
+        }
+
+        List<Long> ids()
+        {
+            return records.stream().map(r -> r.getColumn(0).asLong()).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.kudu.client;
+
+import org.apache.kudu.Schema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Builds the kudu client objects whose constructors are package-private, so that a writer can run without a cluster.
+ */
+public final class KuduStubs
+{
+    private KuduStubs()
+    {
+    }
+
+    public static KuduTable table(String name, Schema schema)
+    {
+        return new KuduTable(null, name, name, schema, null, 1, Map.of(), null, null);
+    }
+
+    /**
+     * A session which keeps the operations applied, and fails those matching a predicate as the server would,
+     * on flush in manual mode and through the error collector in background mode.
+     */
+    public static class StubSession
+            extends KuduSession
+    {
+        public final List<Operation> applied = new ArrayList<>();
+        private final Predicate<Operation> failing;
+        private final List<Operation> unflushed = new ArrayList<>();
+        private final List<RowError> pendingErrors = new ArrayList<>();
+        private FlushMode flushMode = FlushMode.AUTO_FLUSH_SYNC;
+
+        public StubSession(Predicate<Operation> failing)
+        {
+            super(null);
+            this.failing = failing;
+        }
+
+        @Override
+        public synchronized OperationResponse apply(Operation operation)
+        {
+            applied.add(operation);
+            if (flushMode == FlushMode.AUTO_FLUSH_BACKGROUND) {
+                if (failing.test(operation)) {
+                    pendingErrors.add(new RowError(Status.AlreadyPresent("key already present"), operation));
+                }
+            }
+            else {
+                unflushed.add(operation);
+            }
+            return null;
+        }
+
+        @Override
+        public synchronized List<OperationResponse> flush()
+        {
+            List<OperationResponse> responses = new ArrayList<>();
+            for (Operation operation : unflushed) {
+                RowError rowError = failing.test(operation) ? new RowError(Status.AlreadyPresent("key already present"), operation) : null;
+                responses.add(new OperationResponse(0, "tablet", 0, operation, rowError));
+            }
+            unflushed.clear();
+            return responses;
+        }
+
+        @Override
+        public synchronized int countPendingErrors()
+        {
+            return pendingErrors.size();
+        }
+
+        @Override
+        public synchronized RowErrorsAndOverflowStatus getPendingErrors()
+        {
+            RowErrorsAndOverflowStatus errors = new RowErrorsAndOverflowStatus(pendingErrors.toArray(new RowError[0]), false);
+            pendingErrors.clear();
+            return errors;
+        }
+
+        @Override
+        public List<OperationResponse> close()
+        {
+            return List.of();
+        }
+
+        @Override
+        public void setFlushMode(FlushMode flushMode)
+        {
+            this.flushMode = flushMode;
+        }
+
+        @Override
+        public void setFlushInterval(int interval)
+        {
+        }
+
+        @Override
+        public void setMutationBufferSpace(int numOps)
+        {
+        }
+    }
+
+    /**
+     * A partitioner which tells the partition of a row by a function.
+     */
+    public static class StubPartitioner
+            extends KuduPartitioner
+    {
+        private final ToIntFunction<PartialRow> partition;
+
+        public StubPartitioner(ToIntFunction<PartialRow> partition)
+        {
+            super(null, Map.of());
+            this.partition = partition;
+        }
+
+        @Override
+        public int partitionRow(PartialRow row)
+        {
+            return partition.applyAsInt(row);
+        }
+    }
+}
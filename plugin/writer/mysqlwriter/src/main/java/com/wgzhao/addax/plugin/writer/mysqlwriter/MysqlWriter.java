@@ -71,7 +71,7 @@ public class MysqlWriter
         @Override
         public void prepare()
         {
-            this.commonRdbmsWriterJob.prepare(this.originalConfig);
+            this.commonRdbmsWriterJob.prepare(this.originalConfig, isResuming());
         }
 
         @Override
@@ -80,6 +80,12 @@ public class MysqlWriter
             return this.commonRdbmsWriterJob.split(this.originalConfig, mandatoryNumber);
         }
 
+        @Override
+        public boolean supportResume()
+        {
+            return this.commonRdbmsWriterJob.supportResume(this.originalConfig);
+        }
+
         @Override
         public void post()
         {
@@ -75,7 +75,7 @@ public class OracleWriter
         @Override
         public void prepare()
         {
-            commonRdbmsWriterJob.prepare(originalConfig);
+            commonRdbmsWriterJob.prepare(originalConfig, isResuming());
         }
 
         @Override
@@ -84,6 +84,12 @@ public class OracleWriter
             return commonRdbmsWriterJob.split(originalConfig, mandatoryNumber);
         }
 
+        @Override
+        public boolean supportResume()
+        {
+            return this.commonRdbmsWriterJob.supportResume(this.originalConfig);
+        }
+
         @Override
         public void post()
         {
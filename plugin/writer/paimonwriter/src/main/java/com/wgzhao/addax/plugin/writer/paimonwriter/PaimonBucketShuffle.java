@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.plugin.writer.paimonwriter;
+
+import org.apache.paimon.data.BinaryRow;
+import org.apache.paimon.index.BucketAssigner;
+import org.apache.paimon.index.HashBucketAssigner;
+import org.apache.paimon.table.BucketMode;
+import org.apache.paimon.table.FileStoreTable;
+import org.apache.paimon.table.sink.BatchTableWrite;
+import org.apache.paimon.table.sink.BatchWriteBuilder;
+import org.apache.paimon.table.sink.ChannelComputer;
+import org.apache.paimon.table.sink.CommitMessage;
+import org.apache.paimon.table.sink.RowKeyExtractor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Routes the rows of all the tasks of a job by bucket, so that every bucket is written by a single
+ * writer instead of by every task.
+ * <p>
+ * The tasks of a job run in the JVM of the job and share one shuffle, which has a lane per channel.
+ * A lane owns a disjoint set of buckets: for a fixed bucket table the buckets the channel computer
+ * of Paimon gives it, for a dynamic bucket table the keys it assigns buckets to with its own
+ * {@link HashBucketAssigner}. Tasks hand over their rows lane by lane in chunks, and the lane writes
+ * them under its lock.
+ * <p>
+ * The shuffle outlives its tasks: a task scheduled once the first ones have finished writes to the
+ * same lanes, whose assigners know the keys assigned so far but not committed yet. The job takes the
+ * commit messages of all the lanes with {@link #finish(String)}, or drops the lanes with
+ * {@link #discard(String)}.
+ */
+final class PaimonBucketShuffle
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PaimonBucketShuffle.class);
+
+    private static final Map<String, PaimonBucketShuffle> SHUFFLES = new ConcurrentHashMap<>();
+
+    private final FileStoreTable table;
+    private final boolean dynamicBucket;
+    private final List<Lane> lanes;
+    private volatile boolean failed = false;
+
+    private PaimonBucketShuffle(FileStoreTable table, BatchWriteBuilder writeBuilder, int laneNumber)
+    {
+        this.table = table;
+        this.dynamicBucket = isDynamicBucket(table);
+        this.lanes = new ArrayList<>(laneNumber);
+        String commitUser = UUID.randomUUID().toString();
+        for (int i = 0; i < laneNumber; i++) {
+            BucketAssigner assigner = null;
+            if (dynamicBucket) {
+                assigner = new HashBucketAssigner(table.snapshotManager(), commitUser, table.store().newIndexFileHandler(),
+                        laneNumber, laneNumber, i, table.coreOptions().dynamicBucketTargetRowNum(),
+                        maxBuckets(table.coreOptions().dynamicBucketMaxBuckets()));
+            }
+            lanes.add(new Lane(writeBuilder.newWrite(), table.createRowKeyExtractor(), assigner));
+        }
+        LOG.info("Route the rows of [{}] to {} bucket writers.", table.name(), laneNumber);
+    }
+
+    private static int maxBuckets(Integer maxBuckets)
+    {
+        return maxBuckets == null ? -1 : maxBuckets;
+    }
+
+    /**
+     * Join the shuffle of a job, creating it for the first task.
+     *
+     * @param id the id the job gave its tasks
+     * @param table the table written
+     * @param writeBuilder the builder of the writers of the lanes
+     * @param laneNumber the number of lanes, the number of channels of the job
+     * @return the shuffle
+     */
+    static PaimonBucketShuffle join(String id, FileStoreTable table, BatchWriteBuilder writeBuilder, int laneNumber)
+    {
+        return SHUFFLES.computeIfAbsent(id, k -> new PaimonBucketShuffle(table, writeBuilder, laneNumber));
+    }
+
+    /**
+     * Prepare the commit messages of all the lanes and close them, once every task has finished.
+     *
+     * @param id the id the job gave its tasks
+     * @return the commit messages, empty if no task joined the shuffle
+     * @throws Exception if a task failed or the commit messages can not be prepared
+     */
+    static List<CommitMessage> finish(String id)
+            throws Exception
+    {
+        PaimonBucketShuffle shuffle = SHUFFLES.remove(id);
+        if (shuffle == null) {
+            return List.of();
+        }
+        if (shuffle.failed) {
+            shuffle.closeLanes();
+            throw new IllegalStateException("A task failed to write the table " + shuffle.table.name());
+        }
+        List<CommitMessage> messages = new ArrayList<>();
+        try {
+            for (Lane lane : shuffle.lanes) {
+                messages.addAll(lane.prepareCommit());
+            }
+        }
+        finally {
+            shuffle.closeLanes();
+        }
+        return messages;
+    }
+
+    /**
+     * Close the lanes of a shuffle the job does not commit, if it is still open.
+     *
+     * @param id the id the job gave its tasks
+     */
+    static void discard(String id)
+    {
+        PaimonBucketShuffle shuffle = SHUFFLES.remove(id);
+        if (shuffle != null) {
+            shuffle.closeLanes();
+        }
+    }
+
+    static boolean isBucketed(FileStoreTable table)
+    {
+        return table.bucketMode() == BucketMode.HASH_FIXED || table.bucketMode() == BucketMode.HASH_DYNAMIC;
+    }
+
+    static boolean isDynamicBucket(FileStoreTable table)
+    {
+        return table.bucketMode() == BucketMode.HASH_DYNAMIC;
+    }
+
+    int laneNumber()
+    {
+        return lanes.size();
+    }
+
+    /**
+     * @param extractor the extractor of the calling task, holding the row
+     * @return the lane the row belongs to
+     */
+    int laneOf(RowKeyExtractor extractor)
+    {
+        BinaryRow partition = extractor.partition();
+        if (dynamicBucket) {
+            return BucketAssigner.computeAssigner(partition.hashCode(), extractor.trimmedPrimaryKey().hashCode(), lanes.size(), lanes.size());
+        }
+        return ChannelComputer.select(partition, extractor.bucket(), lanes.size());
+    }
+
+    /**
+     * Write a chunk of rows of a lane.
+     *
+     * @param lane the lane of the rows
+     * @param rows the rows, which must not be reused by the caller
+     * @throws Exception if the rows can not be written
+     */
+    void write(int lane, List<BinaryRow> rows)
+            throws Exception
+    {
+        if (failed) {
+            throw new IllegalStateException("Another task failed to write the table " + table.name());
+        }
+        lanes.get(lane).write(rows);
+    }
+
+    /**
+     * Tell the shuffle a task failed, the other tasks then stop writing.
+     */
+    void fail()
+    {
+        failed = true;
+    }
+
+    private void closeLanes()
+    {
+        for (Lane lane : lanes) {
+            lane.close();
+        }
+    }
+
+    private static final class Lane
+    {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final BatchTableWrite write;
+        private final RowKeyExtractor extractor;
+        private final BucketAssigner assigner;
+
+        Lane(BatchTableWrite write, RowKeyExtractor extractor, BucketAssigner assigner)
+        {
+            this.write = write;
+            this.extractor = extractor;
+            this.assigner = assigner;
+        }
+
+        void write(List<BinaryRow> rows)
+                throws Exception
+        {
+            lock.lock();
+            try {
+                for (BinaryRow row : rows) {
+                    if (assigner == null) {
+                        write.write(row);
+                    }
+                    else {
+                        extractor.setRecord(row);
+                        write.write(row, assigner.assign(extractor.partition(), extractor.trimmedPrimaryKey().hashCode()));
+                    }
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        List<CommitMessage> prepareCommit()
+                throws Exception
+        {
+            if (assigner != null) {
+                assigner.prepareCommit(BatchWriteBuilder.COMMIT_IDENTIFIER);
+            }
+            return write.prepareCommit();
+        }
+
+        void close()
+        {
+            try {
+                write.close();
+            }
+            catch (Exception e) {
+                LOG.warn("Failed to close the bucket writer: {}", e.getMessage());
+            }
+        }
+    }
+}
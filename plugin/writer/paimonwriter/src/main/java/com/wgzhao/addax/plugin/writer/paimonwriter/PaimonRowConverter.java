@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.plugin.writer.paimonwriter;
+
+import com.alibaba.fastjson2.JSON;
+import com.wgzhao.addax.core.element.Column;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.exception.AddaxException;
+import org.apache.paimon.data.BinaryString;
+import org.apache.paimon.data.Decimal;
+import org.apache.paimon.data.GenericArray;
+import org.apache.paimon.data.GenericMap;
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.data.Timestamp;
+import org.apache.paimon.memory.MemorySegment;
+import org.apache.paimon.types.DataField;
+import org.apache.paimon.types.DataType;
+import org.apache.paimon.types.DecimalType;
+import org.apache.paimon.types.RowType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static com.wgzhao.addax.core.spi.ErrorCode.CONFIG_ERROR;
+
+/**
+ * Convert records to the rows of a table, into the same {@link GenericRow} every time.
+ * <p>
+ * When the caller serializes the row before converting the next record, the strings are encoded
+ * into a {@link BinaryString} per column as well, which points to a buffer reused from row to row.
+ * Otherwise every string gets its own {@link BinaryString}, since a writer may keep referring to it.
+ */
+final class PaimonRowConverter
+{
+    private final List<DataField> fields;
+    private final GenericRow row;
+    private final Utf8Slot[] slots;
+
+    /**
+     * @param rowType the type of the rows of the table
+     * @param reuseStrings whether the string values may be overwritten by the next conversion
+     */
+    PaimonRowConverter(RowType rowType, boolean reuseStrings)
+    {
+        this.fields = rowType.getFields();
+        this.row = new GenericRow(fields.size());
+        this.slots = reuseStrings ? new Utf8Slot[fields.size()] : null;
+    }
+
+    /**
+     * @param record the record to convert
+     * @return the row of the record, valid until the next call
+     * @throws IllegalArgumentException if a column can not be converted
+     */
+    GenericRow convert(Record record)
+    {
+        if (record.getColumnNumber() > fields.size()) {
+            throw AddaxException.asAddaxException(CONFIG_ERROR,
+                    "The table has " + fields.size() + " columns, but the record has " + record.getColumnNumber());
+        }
+        for (int i = 0; i < fields.size(); i++) {
+            Column column = i < record.getColumnNumber() ? record.getColumn(i) : null;
+            if (column == null || column.getRawData() == null) {
+                row.setField(i, null);
+                continue;
+            }
+            try {
+                row.setField(i, convert(i, fields.get(i).type(), column));
+            }
+            catch (IllegalArgumentException e) {
+                throw e;
+            }
+            catch (Exception e) {
+                throw new IllegalArgumentException(String.format("Failed to convert the column [%s:%s]: %s",
+                        fields.get(i).name(), column.asString(), e), e);
+            }
+        }
+        return row;
+    }
+
+    private Object convert(int i, DataType type, Column column)
+    {
+        switch (type.getTypeRoot()) {
+            case ARRAY:
+                return new GenericArray(column.asString().split(","));
+            case DATE:
+                // the days since the epoch
+                return (int) LocalDate.ofInstant(Instant.ofEpochMilli(column.asDate().getTime()), ZoneId.systemDefault()).toEpochDay();
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+                return Timestamp.fromSQLTimestamp(column.asTimestamp());
+            case CHAR:
+            case VARCHAR:
+                return toBinaryString(i, column.asString());
+            case BOOLEAN:
+                return column.asBoolean();
+            case VARBINARY:
+            case BINARY:
+                return column.asBytes();
+            case BIGINT:
+                return column.asLong();
+            case INTEGER:
+                return column.asLong().intValue();
+            case SMALLINT:
+                return column.asLong().shortValue();
+            case TINYINT:
+                return column.asLong().byteValue();
+            case FLOAT:
+                return column.asDouble().floatValue();
+            case DOUBLE:
+                return column.asDouble();
+            case DECIMAL:
+                DecimalType decimalType = (DecimalType) type;
+                return Decimal.fromBigDecimal(column.asBigDecimal(), decimalType.getPrecision(), decimalType.getScale());
+            case MAP:
+                try {
+                    return new GenericMap(JSON.parseObject(column.asString(), Map.class));
+                }
+                catch (Exception e) {
+                    throw new IllegalArgumentException("failed to parse the '" + column.asString() + "' to map: " + e, e);
+                }
+            default:
+                throw new IllegalArgumentException("The column type is not supported: " + type.getTypeRoot());
+        }
+    }
+
+    private BinaryString toBinaryString(int i, String value)
+    {
+        if (slots == null) {
+            return BinaryString.fromString(value);
+        }
+        if (slots[i] == null) {
+            slots[i] = new Utf8Slot();
+        }
+        return slots[i].set(value);
+    }
+
+    /*
+     * A BinaryString of a column, its bytes encoded in place into a buffer which only grows
+     */
+    private static final class Utf8Slot
+    {
+        private byte[] buffer = new byte[64];
+        private MemorySegment segment = MemorySegment.wrap(buffer);
+        private final BinaryString value = BinaryString.fromBytes(buffer, 0, 0);
+
+        BinaryString set(String s)
+        {
+            int max = s.length() * 3;
+            if (max > buffer.length) {
+                buffer = new byte[Math.max(max, buffer.length * 2)];
+                segment = MemorySegment.wrap(buffer);
+            }
+            int pos = 0;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    buffer[pos++] = (byte) c;
+                }
+                else if (c < 0x800) {
+                    buffer[pos++] = (byte) (0xc0 | (c >> 6));
+                    buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+                }
+                else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buffer[pos++] = (byte) (0xf0 | (cp >> 18));
+                    buffer[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                    buffer[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                    buffer[pos++] = (byte) (0x80 | (cp & 0x3f));
+                }
+                else if (Character.isSurrogate(c)) {
+                    // a lone surrogate, encoded as '?' like String.getBytes does
+                    buffer[pos++] = '?';
+                }
+                else {
+                    buffer[pos++] = (byte) (0xe0 | (c >> 12));
+                    buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            value.pointTo(segment, 0, pos);
+            return value;
+        }
+    }
+}
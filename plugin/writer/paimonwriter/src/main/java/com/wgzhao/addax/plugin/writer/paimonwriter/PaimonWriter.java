@@ -19,93 +19,164 @@
 
 package com.wgzhao.addax.plugin.writer.paimonwriter;
 
-import com.alibaba.fastjson2.JSON;
-import com.wgzhao.addax.core.element.Column;
 import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.exception.AddaxException;
 import com.wgzhao.addax.core.plugin.RecordReceiver;
 import com.wgzhao.addax.core.spi.Writer;
 import com.wgzhao.addax.core.util.Configuration;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.paimon.CoreOptions;
 import org.apache.paimon.catalog.Catalog;
 import org.apache.paimon.catalog.CatalogContext;
 import org.apache.paimon.catalog.CatalogFactory;
 import org.apache.paimon.catalog.Identifier;
-import org.apache.paimon.data.*;
+import org.apache.paimon.data.BinaryRow;
+import org.apache.paimon.data.GenericRow;
+import org.apache.paimon.data.serializer.InternalRowSerializer;
 import org.apache.paimon.options.Options;
+import org.apache.paimon.table.BucketMode;
+import org.apache.paimon.table.FileStoreTable;
 import org.apache.paimon.table.Table;
 import org.apache.paimon.table.sink.BatchTableCommit;
 import org.apache.paimon.table.sink.BatchTableWrite;
 import org.apache.paimon.table.sink.BatchWriteBuilder;
 import org.apache.paimon.table.sink.CommitMessage;
-import org.apache.paimon.types.DataField;
-import org.apache.paimon.types.DataType;
-import org.apache.paimon.types.DataTypeRoot;
-import org.apache.paimon.types.DecimalType;
+import org.apache.paimon.table.sink.CommitMessageSerializer;
+import org.apache.paimon.table.sink.RowKeyExtractor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import static com.wgzhao.addax.core.base.Key.KERBEROS_KEYTAB_FILE_PATH;
 import static com.wgzhao.addax.core.base.Key.KERBEROS_PRINCIPAL;
-
+import static com.wgzhao.addax.core.spi.ErrorCode.CONFIG_ERROR;
+import static com.wgzhao.addax.core.spi.ErrorCode.IO_ERROR;
+
+/**
+ * Every task writes its records with a single writer and hands the commit messages to the job,
+ * which commits the files of all the tasks in one snapshot in {@link Job#post()}.
+ * <p>
+ * The rows of a fixed or dynamic bucket table are routed by bucket through a {@link PaimonBucketShuffle}
+ * shared by the tasks, so that a bucket gets the files of one writer rather than of every task. The
+ * job commits the files of the shuffle along with those of the tasks.
+ * <p>
+ * When the task groups run in worker JVMs, the tasks can not share a shuffle: every task then writes
+ * the buckets of its rows of a fixed bucket table by itself. A dynamic bucket table is refused, since
+ * the buckets the tasks would assign to the same new key on their own may differ.
+ */
 public class PaimonWriter
         extends Writer
 {
+    // the task message carrying a commit message of the task, serialized in base64
+    private static final String COMMIT_MESSAGE = "paimonCommitMessage";
+    // the internal keys the job gives its tasks to find their shuffle
+    private static final String SHUFFLE_ID = "shuffleId";
+    private static final String LANE_NUMBER = "laneNumber";
+
+    private static Table loadTable(Configuration conf, Logger log, boolean checkFileSystem)
+    {
+        Options options = PaimonHelper.getOptions(conf);
+        CatalogContext context = PaimonHelper.getCatalogContext(options);
+
+        if ("kerberos".equals(options.get("hadoop.security.authentication"))) {
+            String kerberosKeytabFilePath = options.get(KERBEROS_KEYTAB_FILE_PATH);
+            String kerberosPrincipal = options.get(KERBEROS_PRINCIPAL);
+            try {
+                PaimonHelper.kerberosAuthentication(context.hadoopConf(), kerberosPrincipal, kerberosKeytabFilePath);
+                log.info("kerberos Authentication success");
+
+                if (checkFileSystem) {
+                    FileSystem fs = FileSystem.get(context.hadoopConf());
+                    fs.getStatus().getCapacity();
+                }
+            }
+            catch (Exception e) {
+                log.error("kerberos Authentication error", e);
+                throw new RuntimeException(e);
+            }
+        }
+        try (Catalog catalog = CatalogFactory.createCatalog(context)) {
+            String dbName = conf.getString("dbName");
+            String tableName = conf.getString("tableName");
+            return catalog.getTable(Identifier.create(dbName, tableName));
+        }
+        catch (Exception e) {
+            log.error("init paimon error", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static boolean isTruncate(Configuration conf)
+    {
+        return "truncate".equalsIgnoreCase(conf.getString("writeMode"));
+    }
+
+    private static BatchWriteBuilder newWriteBuilder(Table table, boolean truncate)
+    {
+        if (!truncate) {
+            return table.newBatchWriteBuilder();
+        }
+        // replace every partition, not only the partitions written
+        return table.copy(Map.of(CoreOptions.DYNAMIC_PARTITION_OVERWRITE.key(), "false"))
+                .newBatchWriteBuilder()
+                .withOverwrite();
+    }
+
     public static class Job
             extends Writer.Job
     {
         private static final Logger LOG = LoggerFactory.getLogger(Job.class);
         private Configuration conf = null;
-        private BatchWriteBuilder writeBuilder = null;
+        private Table table = null;
+        private boolean committed = false;
+        // a commit may fail after its snapshot became current, its files must then be kept
+        private boolean commitAttempted = false;
+        // the id of the shuffle of the tasks, null if they write by themselves
+        private String shuffleId = null;
+        private List<CommitMessage> shuffleMessages = List.of();
 
         @Override
         public void init()
         {
             this.conf = this.getPluginJobConf();
+            this.table = loadTable(conf, LOG, true);
 
-            Options options = PaimonHelper.getOptions(this.conf);
-            CatalogContext context = PaimonHelper.getCatalogContext(options);
-
-            if ("kerberos".equals(options.get("hadoop.security.authentication"))) {
-                String kerberosKeytabFilePath = options.get(KERBEROS_KEYTAB_FILE_PATH);
-                String kerberosPrincipal = options.get(KERBEROS_PRINCIPAL);
-                try {
-                    PaimonHelper.kerberosAuthentication(context.hadoopConf(), kerberosPrincipal, kerberosKeytabFilePath);
-                    LOG.info("kerberos Authentication success");
-
-                    FileSystem fs = FileSystem.get(context.hadoopConf());
-                    fs.getStatus().getCapacity();
-                }
-                catch (Exception e) {
-                    LOG.error("kerberos Authentication error", e);
-                    throw new RuntimeException(e);
-                }
-            }
-            try (Catalog catalog = CatalogFactory.createCatalog(context)) {
-
-                String dbName = this.conf.getString("dbName");
-                String tableName = this.conf.getString("tableName");
-                Identifier identifier = Identifier.create(dbName, tableName);
-
-                Table table = catalog.getTable(identifier);
-
-                writeBuilder = table.newBatchWriteBuilder();
-            }
-            catch (Exception e) {
-                LOG.error("init paimon error", e);
-                throw new RuntimeException(e);
+            if (table instanceof FileStoreTable && ((FileStoreTable) table).bucketMode() == BucketMode.CROSS_PARTITION) {
+                throw AddaxException.asAddaxException(CONFIG_ERROR, "The primary key of [" + table.name()
+                        + "] does not contain all the partition fields, such cross partition upsert tables are not supported.");
             }
         }
 
         @Override
         public List<Configuration> split(int mandatoryNumber)
         {
+            if (table instanceof FileStoreTable && PaimonBucketShuffle.isBucketed((FileStoreTable) table)) {
+                if (!isDistributed()) {
+                    // the tasks of this job share a shuffle, tell them which one
+                    shuffleId = UUID.randomUUID().toString();
+                }
+                else if (PaimonBucketShuffle.isDynamicBucket((FileStoreTable) table)) {
+                    throw AddaxException.asAddaxException(CONFIG_ERROR, "The tasks of a distributed job can not share the bucket assigners of"
+                            + " the dynamic bucket table [" + table.name() + "], run the job in the standalone mode.");
+                }
+                else {
+                    LOG.info("The tasks run in worker JVMs, each one writes the buckets of its rows of [{}].", table.name());
+                }
+            }
             List<Configuration> configurations = new ArrayList<>(mandatoryNumber);
             for (int i = 0; i < mandatoryNumber; i++) {
-                configurations.add(conf);
+                Configuration taskConf = conf.clone();
+                if (shuffleId != null) {
+                    taskConf.set(SHUFFLE_ID, shuffleId);
+                    taskConf.set(LANE_NUMBER, getChannelNumber());
+                }
+                configurations.add(taskConf);
             }
             return configurations;
         }
@@ -113,26 +184,86 @@ public class PaimonWriter
         @Override
         public void prepare()
         {
-            String writeMode = this.conf.getString("writeMode");
-            if ("truncate".equalsIgnoreCase(writeMode)) {
-                if (writeBuilder != null) {
-                    LOG.info("You specify truncate writeMode, begin to clean history data.");
-                    BatchTableCommit commit = writeBuilder.newCommit();
-                    try {
-                        commit.truncateTable();
-                    }
-                    catch (Exception e) {
-                        LOG.error("Failed to truncate table ", e);
-                        throw new RuntimeException(e);
-                    }
+            if (isTruncate(conf)) {
+                // replaced in the same snapshot as the new files are added, readers never see the table empty
+                LOG.info("The rows of [{}] are replaced when the job commits.", table.name());
+            }
+        }
+
+        @Override
+        public void post()
+        {
+            List<CommitMessage> messages = new ArrayList<>(getCommitMessages());
+            if (shuffleId != null) {
+                try {
+                    shuffleMessages = PaimonBucketShuffle.finish(shuffleId);
+                }
+                catch (Exception e) {
+                    throw AddaxException.asAddaxException(IO_ERROR, "Failed to prepare the commit of the buckets of " + table.name(), e);
+                }
+                messages.addAll(shuffleMessages);
+            }
+            boolean truncate = isTruncate(conf);
+            try (BatchTableCommit commit = newWriteBuilder(table, truncate).newCommit()) {
+                if (truncate && messages.isEmpty()) {
+                    commitAttempted = true;
+                    commit.truncateTable();
+                }
+                else if (!messages.isEmpty()) {
+                    commitAttempted = true;
+                    commit.commit(messages);
+                }
+            }
+            catch (Exception e) {
+                throw AddaxException.asAddaxException(IO_ERROR, "Failed to commit the table " + table.name(), e);
+            }
+            committed = true;
+            LOG.info("Committed [{}] commit messages to [{}].", messages.size(), table.name());
+        }
+
+        private List<CommitMessage> getCommitMessages()
+        {
+            List<String> encoded = getJobPluginCollector().getMessage(COMMIT_MESSAGE);
+            if (encoded == null) {
+                return List.of();
+            }
+            CommitMessageSerializer serializer = new CommitMessageSerializer();
+            List<CommitMessage> messages = new ArrayList<>(encoded.size());
+            try {
+                for (String message : encoded) {
+                    messages.add(serializer.deserialize(serializer.getVersion(), Base64.getDecoder().decode(message)));
                 }
             }
+            catch (IOException e) {
+                throw AddaxException.asAddaxException(IO_ERROR, "Failed to read the commit messages of the tasks", e);
+            }
+            return messages;
         }
 
         @Override
         public void destroy()
         {
-
+            if (shuffleId != null) {
+                PaimonBucketShuffle.discard(shuffleId);
+            }
+            // the files of the finished tasks are not part of any snapshot when the job failed before the commit
+            if (table != null && commitAttempted && !committed) {
+                LOG.warn("The commit to [{}] failed, its data files are kept since a snapshot may refer to them,"
+                        + " remove the orphan files of the table to clean them up.", table.name());
+            }
+            else if (table != null && !committed) {
+                try (BatchTableCommit commit = table.newBatchWriteBuilder().newCommit()) {
+                    List<CommitMessage> messages = new ArrayList<>(getCommitMessages());
+                    messages.addAll(shuffleMessages);
+                    if (!messages.isEmpty()) {
+                        commit.abort(messages);
+                        LOG.info("Deleted the files of [{}] commit messages which the job did not commit.", messages.size());
+                    }
+                }
+                catch (Exception e) {
+                    LOG.warn("Failed to delete the files which the job did not commit: {}", e.getMessage());
+                }
+            }
         }
     }
 
@@ -141,31 +272,29 @@ public class PaimonWriter
     {
 
         private static final Logger log = LoggerFactory.getLogger(Task.class);
+        private Configuration conf = null;
+        private Table table = null;
         private BatchWriteBuilder writeBuilder = null;
         private Integer batchSize = 1000;
-        private List<DataField> columnList = new ArrayList<>();
-        private List<DataType> typeList = new ArrayList<>();
-        private boolean isDynamicBucketMode;
-        private int bucketNum = 0;
+        private BatchTableWrite write = null;
 
         @Override
         public void startWrite(RecordReceiver recordReceiver)
         {
-
-            List<Record> writerBuffer = new ArrayList<>(this.batchSize);
-            Record record;
-            long total = 0;
-            while ((record = recordReceiver.getFromReader()) != null) {
-                writerBuffer.add(record);
-                if (writerBuffer.size() >= this.batchSize) {
-                    total += doBatchInsert(writerBuffer);
-                    writerBuffer.clear();
+            long total;
+            try {
+                if (conf.getString(SHUFFLE_ID) != null) {
+                    total = writeByBucket(recordReceiver, (FileStoreTable) table);
+                }
+                else {
+                    total = writeDirectly(recordReceiver);
                 }
             }
-
-            if (!writerBuffer.isEmpty()) {
-                total += doBatchInsert(writerBuffer);
-                writerBuffer.clear();
+            catch (AddaxException e) {
+                throw e;
+            }
+            catch (Exception e) {
+                throw AddaxException.asAddaxException(IO_ERROR, "Failed to write the table " + table.name(), e);
             }
 
             String msg = String.format("task end, write size :%d", total);
@@ -173,182 +302,121 @@ public class PaimonWriter
             log.info(msg);
         }
 
-        @Override
-        public void init()
+        /*
+         * Write the rows of a table without buckets to the writer of the task
+         */
+        private long writeDirectly(RecordReceiver recordReceiver)
+                throws Exception
         {
-            Configuration conf = super.getPluginJobConf();
-
-            batchSize = conf.getInt("batchSize", 1000);
-
-            Options options = PaimonHelper.getOptions(conf);
-            CatalogContext context = PaimonHelper.getCatalogContext(options);
-
-            if ("kerberos".equals(options.get("hadoop.security.authentication"))) {
-                String kerberosKeytabFilePath = options.get(KERBEROS_KEYTAB_FILE_PATH);
-                String kerberosPrincipal = options.get(KERBEROS_PRINCIPAL);
-                try {
-                    PaimonHelper.kerberosAuthentication(context.hadoopConf(), kerberosPrincipal, kerberosKeytabFilePath);
-                    log.info("kerberos Authentication success");
-                }
-                catch (Exception e) {
-                    log.error("kerberos Authentication error", e);
-                    throw new RuntimeException(e);
+            // the writer copies the row, but may keep referring to its strings
+            PaimonRowConverter converter = new PaimonRowConverter(table.rowType(), false);
+            write = writeBuilder.newWrite();
+            long total = 0;
+            Record record;
+            while ((record = recordReceiver.getFromReader()) != null) {
+                GenericRow row = convert(converter, record);
+                if (row != null) {
+                    write.write(row);
+                    total++;
                 }
             }
+            collectCommitMessages(write.prepareCommit());
+            return total;
+        }
 
-            try (Catalog catalog = CatalogFactory.createCatalog(context)) {
-
-                String dbName = conf.getString("dbName");
-                String tableName = conf.getString("tableName");
-                Identifier identifier = Identifier.create(dbName, tableName);
-
-                Table table = catalog.getTable(identifier);
-
-                // check the table has dynamic bucket
-                Map<String, String> tableOptions = table.options();
-                String bucketMode = tableOptions.getOrDefault("bucket-mode", "dynamic");
-                this.isDynamicBucketMode = "dynamic".equalsIgnoreCase(bucketMode);
-                String bucketNumStr = tableOptions.getOrDefault("bucket", "32");
-                if (bucketNumStr != null && !bucketNumStr.isEmpty()) {
-                    try {
-                        this.bucketNum = Integer.parseInt(bucketNumStr);
-                    } catch (NumberFormatException e) {
-                        log.warn("Can not parse the bucket number: {}", bucketNumStr);
+        /*
+         * Route the rows to the writers of their buckets, in chunks of batchSize rows
+         */
+        private long writeByBucket(RecordReceiver recordReceiver, FileStoreTable fileStoreTable)
+                throws Exception
+        {
+            // the row is serialized at once, so its strings can be reused as well
+            PaimonRowConverter converter = new PaimonRowConverter(table.rowType(), true);
+            InternalRowSerializer serializer = new InternalRowSerializer(table.rowType());
+            RowKeyExtractor extractor = fileStoreTable.createRowKeyExtractor();
+            PaimonBucketShuffle shuffle = PaimonBucketShuffle.join(conf.getString(SHUFFLE_ID), fileStoreTable, writeBuilder,
+                    conf.getInt(LANE_NUMBER, 1));
+            List<List<BinaryRow>> chunks = new ArrayList<>(shuffle.laneNumber());
+            for (int i = 0; i < shuffle.laneNumber(); i++) {
+                chunks.add(new ArrayList<>(batchSize));
+            }
+            long total = 0;
+            try {
+                Record record;
+                while ((record = recordReceiver.getFromReader()) != null) {
+                    GenericRow row = convert(converter, record);
+                    if (row == null) {
+                        continue;
+                    }
+                    BinaryRow binaryRow = serializer.toBinaryRow(row).copy();
+                    extractor.setRecord(binaryRow);
+                    int lane = shuffle.laneOf(extractor);
+                    List<BinaryRow> chunk = chunks.get(lane);
+                    chunk.add(binaryRow);
+                    if (chunk.size() >= batchSize) {
+                        shuffle.write(lane, chunk);
+                        chunk.clear();
+                    }
+                    total++;
+                }
+                for (int i = 0; i < chunks.size(); i++) {
+                    if (!chunks.get(i).isEmpty()) {
+                        shuffle.write(i, chunks.get(i));
                     }
                 }
-
-                columnList = table.rowType().getFields();
-                typeList = table.rowType().getFieldTypes();
-                writeBuilder = table.newBatchWriteBuilder();
             }
             catch (Exception e) {
-                log.error("init paimon error", e);
-                throw new RuntimeException(e);
+                shuffle.fail();
+                throw e;
             }
+            // the job commits the files of the shuffle once all the tasks have finished
+            return total;
         }
 
-        @Override
-        public void destroy()
+        private GenericRow convert(PaimonRowConverter converter, Record record)
         {
-
+            try {
+                return converter.convert(record);
+            }
+            catch (IllegalArgumentException e) {
+                getTaskPluginCollector().collectDirtyRecord(record, e.getMessage());
+                return null;
+            }
         }
 
-        private long doBatchInsert(final List<Record> writerBuffer)
+        private void collectCommitMessages(List<CommitMessage> messages)
+                throws IOException
         {
-            BatchTableWrite write = writeBuilder.newWrite();
-            GenericRow data;
-            for (Record record : writerBuffer) {
-                data = new GenericRow(columnList.size());
-                StringBuilder id = new StringBuilder();
-                for (int i = 0; i < record.getColumnNumber(); i++) {
-                    Column column = record.getColumn(i);
-                    if (column == null) {
-                        continue;
-                    }
-                    if (i >= columnList.size()) {
-                        throw new RuntimeException("columnList size is " + columnList.size() + ", but record column number is " + record.getColumnNumber());
-                    }
-                    String columnName = columnList.get(i).name();
-                    DataType columnType = typeList.get(i);
-                    if (columnType.getTypeRoot().equals(DataTypeRoot.ARRAY)) {
-                        if (null == column.asString()) {
-                            data.setField(i, null);
-                        }
-                        else {
-                            String[] dataList = column.asString().split(",");
-                            data.setField(i, new GenericArray(dataList));
-                        }
-                    }
-                    else {
-                        switch (columnType.getTypeRoot()) {
+            CommitMessageSerializer serializer = new CommitMessageSerializer();
+            for (CommitMessage message : messages) {
+                getTaskPluginCollector().collectMessage(COMMIT_MESSAGE, Base64.getEncoder().encodeToString(serializer.serialize(message)));
+            }
+            if (!messages.isEmpty()) {
+                log.info("Prepared [{}] commit messages, they are committed by the job.", messages.size());
+            }
+        }
 
-                            case DATE:
-                            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
-                            case TIMESTAMP_WITHOUT_TIME_ZONE:
-                                try {
-                                    if (column.asLong() != null) {
-                                        data.setField(i, Timestamp.fromSQLTimestamp(column.asTimestamp()));
-                                    }
-                                    else {
-                                        data.setField(i, null);
-                                    }
-                                }
-                                catch (Exception e) {
-                                    getTaskPluginCollector().collectDirtyRecord(record, String.format("时间类型解析失败 [%s:%s] exception: %s", columnName, column.toString(), e));
-                                }
-                                break;
-                            case CHAR:
-                            case VARCHAR:
-                                data.setField(i, BinaryString.fromString(column.asString()));
-                                break;
-                            case BOOLEAN:
-                                data.setField(i, column.asBoolean());
-                                break;
-                            case VARBINARY:
-                            case BINARY:
-                                data.setField(i, column.asBytes());
-                                break;
-                            case BIGINT:
-                                data.setField(i, column.asLong());
-                                break;
-                            case INTEGER:
-                            case SMALLINT:
-                            case TINYINT:
-                                data.setField(i, column.asBigInteger() == null ? null : column.asBigInteger().intValue());
-                                break;
-                            case FLOAT:
-                            case DOUBLE:
+        @Override
+        public void init()
+        {
+            this.conf = super.getPluginJobConf();
 
-                                data.setField(i, column.asDouble());
-                                break;
-                            case DECIMAL:
-                                if (column.asBigDecimal() != null) {
-                                    data.setField(i, Decimal.fromBigDecimal(column.asBigDecimal(), ((DecimalType) columnType).getPrecision(), ((DecimalType) columnType).getScale()));
-                                }
-                                else {
-                                    data.setField(i, null);
-                                }
-                                break;
-                            case MAP:
-                                try {
-                                    data.setField(i, new GenericMap(JSON.parseObject(column.asString(), Map.class)));
-                                }
-                                catch (Exception e) {
-                                    getTaskPluginCollector().collectDirtyRecord(record, "failed to parse the '" + column.asString() + "' to map: " + e);
-                                }
-                                break;
-                            default:
-                                getTaskPluginCollector().collectDirtyRecord(record, "The column type is not supported: " + columnType.getTypeRoot());
-                        }
-                    }
-                }
+            batchSize = conf.getInt("batchSize", 1000);
+            table = loadTable(conf, log, false);
+            writeBuilder = newWriteBuilder(table, isTruncate(conf));
+        }
 
+        @Override
+        public void destroy()
+        {
+            if (write != null) {
                 try {
-                    if (isDynamicBucketMode) {
-                        int bucketId = Math.abs(data.hashCode() % bucketNum);
-                        write.write(data, bucketId);
-                    } else {
-                        write.write(data);
-                    }
+                    write.close();
                 }
                 catch (Exception e) {
-                    throw new RuntimeException(e);
+                    log.warn("Failed to close the table writer: {}", e.getMessage());
                 }
             }
-
-            List<CommitMessage> messages = null;
-            try {
-                messages = write.prepareCommit();
-                BatchTableCommit commit = writeBuilder.newCommit();
-                commit.commit(messages);
-
-                write.close();
-
-                return messages.size();
-            }
-            catch (Exception e) {
-                throw new RuntimeException(e);
-            }
         }
     }
 }
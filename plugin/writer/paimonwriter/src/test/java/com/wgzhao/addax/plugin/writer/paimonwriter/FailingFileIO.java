@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.writer.paimonwriter;
+
+import org.apache.paimon.fs.FileIO;
+import org.apache.paimon.fs.FileIOLoader;
+import org.apache.paimon.fs.Path;
+import org.apache.paimon.fs.local.LocalFileIO;
+
+import java.io.IOException;
+
+/**
+ * The local file system under the scheme {@code failing}, failing to publish the snapshots of
+ * the commits on demand.
+ */
+public class FailingFileIO
+        extends LocalFileIO
+{
+    static final String SCHEME = "failing";
+
+    static volatile boolean failSnapshotRename = false;
+
+    @Override
+    public boolean rename(Path src, Path dst)
+            throws IOException
+    {
+        if (failSnapshotRename && dst.getName().startsWith("snapshot-")) {
+            throw new IOException("Failed to rename " + src + " to " + dst);
+        }
+        return super.rename(src, dst);
+    }
+
+    public static class Loader
+            implements FileIOLoader
+    {
+        @Override
+        public String getScheme()
+        {
+            return SCHEME;
+        }
+
+        @Override
+        public FileIO load(Path path)
+        {
+            return new FailingFileIO();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.writer.paimonwriter;
+
+import com.wgzhao.addax.core.element.LongColumn;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.element.StringColumn;
+import com.wgzhao.addax.core.exception.AddaxException;
+import com.wgzhao.addax.core.plugin.JobPluginCollector;
+import com.wgzhao.addax.core.plugin.RecordReceiver;
+import com.wgzhao.addax.core.plugin.TaskPluginCollector;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import com.wgzhao.addax.core.util.Configuration;
+import org.apache.paimon.catalog.Catalog;
+import org.apache.paimon.catalog.CatalogContext;
+import org.apache.paimon.catalog.CatalogFactory;
+import org.apache.paimon.catalog.Identifier;
+import org.apache.paimon.data.InternalRow;
+import org.apache.paimon.options.Options;
+import org.apache.paimon.reader.RecordReader;
+import org.apache.paimon.schema.Schema;
+import org.apache.paimon.table.Table;
+import org.apache.paimon.table.source.ReadBuilder;
+import org.apache.paimon.types.DataTypes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes local primary key tables through the job and its tasks, the tasks one after the other.
+ */
+class PaimonWriterTest
+{
+    @TempDir
+    Path warehouse;
+
+    private final Map<String, List<String>> messages = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void resetFileIO()
+    {
+        FailingFileIO.failSnapshotRename = false;
+    }
+
+    @Test
+    void tasksAfterTheFirstChannelsShareTheBucketAssigners()
+            throws Exception
+    {
+        // small buckets, so that an assigner of its own would put a key again into another bucket
+        createTable("-1", Map.of("dynamic-bucket.target-row-num", "2"));
+        PaimonWriter.Job job = newJob(2, false);
+        List<Configuration> tasks = job.split(4);
+        // more tasks than channels, they run in turn
+        for (int i = 0; i < tasks.size(); i++) {
+            runTask(tasks.get(i), 10, "v" + i);
+        }
+        job.post();
+        job.destroy();
+
+        List<Integer> keys = new ArrayList<>();
+        Map<Integer, String> rows = readTable(keys);
+        // every key once, with the value of the last task
+        assertEquals(10, keys.size());
+        assertEquals(10, rows.size());
+        assertEquals("v3", rows.get(0));
+    }
+
+    @Test
+    void distributedJobRefusesDynamicBucketTable()
+            throws Exception
+    {
+        createTable("-1", Map.of());
+        PaimonWriter.Job job = newJob(2, true);
+
+        assertThrows(AddaxException.class, () -> job.split(2));
+        job.destroy();
+    }
+
+    @Test
+    void distributedTasksWriteFixedBucketsByThemselves()
+            throws Exception
+    {
+        createTable("4", Map.of());
+        PaimonWriter.Job job = newJob(2, true);
+        List<Configuration> tasks = job.split(2);
+        runTask(tasks.get(0), 6, "a");
+        runTask(tasks.get(1), 6, "b");
+        job.post();
+        job.destroy();
+
+        List<Integer> keys = new ArrayList<>();
+        readTable(keys);
+        // both tasks wrote every key, a fixed bucket holds each one once
+        assertEquals(6, keys.size());
+    }
+
+    @Test
+    void failedCommitKeepsItsDataFiles()
+            throws Exception
+    {
+        createTable("4", Map.of());
+        PaimonWriter.Job job = newJob(2, false);
+        List<Configuration> tasks = job.split(2);
+        runTask(tasks.get(0), 6, "a");
+        runTask(tasks.get(1), 6, "b");
+        // the shuffle flushes its files when the job commits
+        FailingFileIO.failSnapshotRename = true;
+        assertThrows(AddaxException.class, job::post);
+        job.destroy();
+        FailingFileIO.failSnapshotRename = false;
+
+        // a snapshot may refer to them when the outcome of the commit is unknown
+        assertTrue(countDataFiles() > 0);
+    }
+
+    @Test
+    void jobFailingBeforeTheCommitDeletesItsDataFiles()
+            throws Exception
+    {
+        createTable("4", Map.of());
+        PaimonWriter.Job job = newJob(2, true);
+        List<Configuration> tasks = job.split(2);
+        runTask(tasks.get(0), 6, "a");
+        runTask(tasks.get(1), 6, "b");
+        assertTrue(countDataFiles() > 0);
+        // the job never reaches post()
+        job.destroy();
+
+        assertEquals(0, countDataFiles());
+    }
+
+    /*
+     * The local warehouse, with the file system which fails the commits on demand
+     */
+    private String warehouseUri()
+    {
+        return FailingFileIO.SCHEME + "://" + warehouse.toAbsolutePath();
+    }
+
+    private long countDataFiles()
+            throws IOException
+    {
+        try (Stream<Path> files = Files.walk(warehouse)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("data-")).count();
+        }
+    }
+
+    private Configuration conf()
+    {
+        return Configuration.from("{\"paimonConfig\": {\"warehouse\": \"" + warehouseUri() + "\"},"
+                + " \"dbName\": \"db\", \"tableName\": \"t\", \"batchSize\": 3}");
+    }
+
+    private Catalog catalog()
+    {
+        Options options = new Options();
+        options.set("warehouse", warehouseUri());
+        return CatalogFactory.createCatalog(CatalogContext.create(options));
+    }
+
+    private void createTable(String bucket, Map<String, String> options)
+            throws Exception
+    {
+        try (Catalog catalog = catalog()) {
+            catalog.createDatabase("db", false);
+            Schema.Builder schema = Schema.newBuilder()
+                    .column("id", DataTypes.INT().notNull())
+                    .column("v", DataTypes.STRING())
+                    .primaryKey("id")
+                    .option("bucket", bucket);
+            options.forEach(schema::option);
+            catalog.createTable(Identifier.create("db", "t"), schema.build(), false);
+        }
+    }
+
+    private PaimonWriter.Job newJob(int channelNumber, boolean distributed)
+    {
+        PaimonWriter.Job job = new PaimonWriter.Job();
+        job.setPluginJobConf(conf());
+        job.setJobPluginCollector(new JobPluginCollector()
+        {
+            @Override
+            public Map<String, List<String>> getMessage()
+            {
+                return messages;
+            }
+
+            @Override
+            public List<String> getMessage(String key)
+            {
+                return messages.get(key);
+            }
+        });
+        job.init();
+        job.setChannelNumber(channelNumber);
+        job.setDistributed(distributed);
+        return job;
+    }
+
+    /*
+     * Write the keys 0 to count - 1, with the value given
+     */
+    private void runTask(Configuration taskConf, int count, String value)
+    {
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Record record = new DefaultRecord();
+            record.addColumn(new LongColumn(i));
+            record.addColumn(new StringColumn(value));
+            records.add(record);
+        }
+        Iterator<Record> iterator = records.iterator();
+
+        PaimonWriter.Task task = new PaimonWriter.Task();
+        task.setPluginJobConf(taskConf);
+        task.setTaskPluginCollector(new TaskPluginCollector()
+        {
+            @Override
+            public void collectDirtyRecord(Record dirtyRecord, Throwable t, String errorMessage)
+            {
+                throw new AssertionError(errorMessage);
+            }
+
+            @Override
+            public void collectMessage(String key, String value)
+            {
+                messages.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(value);
+            }
+        });
+        task.init();
+        try {
+            task.startWrite(new RecordReceiver()
+            {
+                @Override
+                public Record getFromReader()
+                {
+                    return iterator.hasNext() ? iterator.next() : null;
+                }
+
+                @Override
+                public void shutdown()
+                {
+                }
+            });
+        }
+        finally {
+            task.destroy();
+        }
+    }
+
+    /*
+     * The values of the rows of the table by key, the count of the rows apart
+     */
+    private Map<Integer, String> readTable(List<Integer> keys)
+            throws Exception
+    {
+        Map<Integer, String> rows = new ConcurrentHashMap<>();
+        try (Catalog catalog = catalog()) {
+            Table table = catalog.getTable(Identifier.create("db", "t"));
+            ReadBuilder readBuilder = table.newReadBuilder();
+            try (RecordReader<InternalRow> reader = readBuilder.newRead().createReader(readBuilder.newScan().plan())) {
+                reader.forEachRemaining(row -> {
+                    keys.add(row.getInt(0));
+                    rows.put(row.getInt(0), row.getString(1).toString());
+                });
+            }
+        }
+        return rows;
+    }
+}
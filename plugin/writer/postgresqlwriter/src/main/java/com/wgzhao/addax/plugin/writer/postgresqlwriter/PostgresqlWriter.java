@@ -77,7 +77,7 @@ public class PostgresqlWriter
         @Override
         public void prepare()
         {
-            this.commonRdbmsWriterMaster.prepare(this.originalConfig);
+            this.commonRdbmsWriterMaster.prepare(this.originalConfig, isResuming());
         }
 
         @Override
@@ -86,6 +86,12 @@ public class PostgresqlWriter
             return this.commonRdbmsWriterMaster.split(this.originalConfig, mandatoryNumber);
         }
 
+        @Override
+        public boolean supportResume()
+        {
+            return this.commonRdbmsWriterMaster.supportResume(this.originalConfig);
+        }
+
         @Override
         public void post()
         {
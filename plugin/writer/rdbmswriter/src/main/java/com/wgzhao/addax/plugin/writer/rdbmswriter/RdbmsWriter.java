@@ -71,7 +71,7 @@ public class RdbmsWriter
         @Override
         public void prepare()
         {
-            commonRdbmsWriterJob.prepare(originalConfig);
+            commonRdbmsWriterJob.prepare(originalConfig, isResuming());
         }
 
         @Override
@@ -80,6 +80,12 @@ public class RdbmsWriter
             return commonRdbmsWriterJob.split(originalConfig, mandatoryNumber);
         }
 
+        @Override
+        public boolean supportResume()
+        {
+            return this.commonRdbmsWriterJob.supportResume(this.originalConfig);
+        }
+
         @Override
         public void post()
         {
@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.plugin.writer.rediswriter;
+
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.exception.AddaxException;
+import com.wgzhao.addax.core.plugin.TaskPluginCollector;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.params.RestoreParams;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.wgzhao.addax.core.spi.ErrorCode.CONNECT_ERROR;
+import static com.wgzhao.addax.core.spi.ErrorCode.EXECUTE_FAIL;
+
+/**
+ * Pipelines the restores of a task to the nodes which own their keys.
+ * <p>
+ * Commands are grouped by node and sent as one pipeline per node. Once a node batch is full or the
+ * pending bytes reach their bound, the pipelines of all the nodes are flushed at the same time. A MOVED
+ * reply refreshes the slot map and sends the command to its new owner, an ASK reply sends it once to the
+ * importing node behind an ASKING. A standalone server is a single node owning every key.
+ */
+public class RedisWriteEngine
+        implements Closeable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(RedisWriteEngine.class);
+
+    private static final int SLOTS = 16384;
+    private static final int MAX_REDIRECTS = 5;
+
+    private final boolean cluster;
+    private final String auth;
+    private final int timeout;
+    private final long batchSize;
+    private final long maxInFlightBytes;
+    private final TaskPluginCollector collector;
+
+    private final Map<HostAndPort, Node> nodes = new HashMap<>();
+    private final HostAndPort[] slots = new HostAndPort[SLOTS];
+    private final ExecutorService executor;
+    private long inFlightBytes;
+
+    public RedisWriteEngine(HostAndPort seed, boolean cluster, String auth, int timeout, long batchSize,
+            long maxInFlightBytes, TaskPluginCollector collector)
+    {
+        this.cluster = cluster;
+        this.auth = auth;
+        this.timeout = timeout;
+        this.batchSize = batchSize;
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.collector = collector;
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "redis-pipeline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Node node = node(seed);
+        if (cluster) {
+            refreshSlots(node);
+        }
+    }
+
+    /**
+     * Queue the restore of a record, the record is flushed with the batch of its node.
+     *
+     * @param record the record the command comes from, told as dirty if the server rejects it
+     * @param db the db of the key, ignored by a cluster
+     * @param key the key
+     * @param value the serialized value, written to the socket as it is
+     * @param expire the absolute expire time in milliseconds, or 0 if the key does not expire
+     */
+    public void restore(Record record, int db, byte[] key, byte[] value, long expire)
+    {
+        route(new Op(record, db, key, value, expire, 0));
+    }
+
+    private void route(Op op)
+    {
+        Node node = queue(op);
+        if (node.ops.size() >= batchSize || inFlightBytes >= maxInFlightBytes) {
+            flush();
+        }
+    }
+
+    private Node queue(Op op)
+    {
+        Node node = nodeOf(op.key());
+        node.ops.add(op);
+        inFlightBytes += op.key().length + op.value().length;
+        return node;
+    }
+
+    /**
+     * Send the pending commands of all the nodes and wait for their replies. The commands redirected
+     * are sent again until no node has any left, every command is written or told as dirty on return.
+     */
+    public void flush()
+    {
+        // a command is redirected once per round at most, so the rounds are bounded like its redirects
+        for (int round = 0; round <= MAX_REDIRECTS; round++) {
+            List<Node> busy = nodes.values().stream().filter(n -> !n.ops.isEmpty()).toList();
+            if (busy.isEmpty()) {
+                return;
+            }
+            send(busy);
+        }
+        if (nodes.values().stream().anyMatch(n -> !n.ops.isEmpty())) {
+            throw AddaxException.asAddaxException(EXECUTE_FAIL, "The keys are still redirected after " + MAX_REDIRECTS + " tries");
+        }
+    }
+
+    private void send(List<Node> busy)
+    {
+        List<Reply> replies = new ArrayList<>();
+        if (busy.size() == 1) {
+            replies.addAll(busy.get(0).send());
+        }
+        else {
+            List<Future<List<Reply>>> futures = new ArrayList<>(busy.size());
+            for (Node node : busy) {
+                futures.add(executor.submit(node::send));
+            }
+            for (Future<List<Reply>> future : futures) {
+                try {
+                    replies.addAll(future.get());
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw AddaxException.asAddaxException(EXECUTE_FAIL, e);
+                }
+                catch (ExecutionException e) {
+                    throw AddaxException.asAddaxException(EXECUTE_FAIL, e.getCause());
+                }
+            }
+        }
+        inFlightBytes = 0;
+
+        boolean refreshed = false;
+        for (Reply reply : replies) {
+            Op op = reply.op();
+            if (!(reply.error() instanceof JedisRedirectionException redirection)) {
+                collector.collectDirtyRecord(op.record(), reply.error().getMessage());
+                continue;
+            }
+            if (op.redirects() >= MAX_REDIRECTS) {
+                throw AddaxException.asAddaxException(EXECUTE_FAIL,
+                        "The key is still redirected after " + MAX_REDIRECTS + " tries: " + redirection.getMessage());
+            }
+            if (redirection instanceof JedisAskDataException) {
+                ask(op.redirected(), redirection.getTargetNode());
+            }
+            else {
+                if (!refreshed) {
+                    LOG.info("The slot {} moved to {}, refresh the slot map", redirection.getSlot(), redirection.getTargetNode());
+                    refreshSlots(node(redirection.getTargetNode()));
+                    refreshed = true;
+                }
+                // sent by the next round of the flush
+                queue(op.redirected());
+            }
+        }
+    }
+
+    private void ask(Op op, HostAndPort target)
+    {
+        Client client = node(target).jedis.getClient();
+        client.asking();
+        op.send(client);
+        Object reply = client.getMany(2).get(1);
+        if (reply instanceof JedisMovedDataException moved) {
+            refreshSlots(node(moved.getTargetNode()));
+            queue(op.redirected());
+        }
+        else if (reply instanceof JedisAskDataException asked) {
+            if (op.redirects() >= MAX_REDIRECTS) {
+                throw AddaxException.asAddaxException(EXECUTE_FAIL,
+                        "The key is still redirected after " + MAX_REDIRECTS + " tries: " + asked.getMessage());
+            }
+            ask(op.redirected(), asked.getTargetNode());
+        }
+        else if (reply instanceof JedisDataException error) {
+            collector.collectDirtyRecord(op.record(), error.getMessage());
+        }
+    }
+
+    private Node nodeOf(byte[] key)
+    {
+        if (!cluster) {
+            return nodes.values().iterator().next();
+        }
+        int slot = JedisClusterCRC16.getSlot(key);
+        if (slots[slot] == null) {
+            refreshSlots(nodes.values().iterator().next());
+            if (slots[slot] == null) {
+                throw AddaxException.asAddaxException(EXECUTE_FAIL, "The slot " + slot + " is not served by any node");
+            }
+        }
+        return node(slots[slot]);
+    }
+
+    private Node node(HostAndPort hostAndPort)
+    {
+        return nodes.computeIfAbsent(hostAndPort, Node::new);
+    }
+
+    private void refreshSlots(Node from)
+    {
+        StringBuilder sb = new StringBuilder("\r\nRedis Cluster node assign\r\n");
+        List<Object> ranges;
+        try {
+            ranges = from.jedis.clusterSlots();
+        }
+        catch (Exception e) {
+            throw AddaxException.asAddaxException(CONNECT_ERROR, "Failed to get the slots of the cluster from " + from.hostAndPort, e);
+        }
+        for (Object range : ranges) {
+            List<Object> list = (List<Object>) range;
+            int start = ((Long) list.get(0)).intValue();
+            int end = ((Long) list.get(1)).intValue();
+            // the master of the range comes first
+            List<Object> hostInfo = (List<Object>) list.get(2);
+            HostAndPort master = new HostAndPort(new String((byte[]) hostInfo.get(0)), ((Long) hostInfo.get(1)).intValue());
+            for (int i = start; i <= end; i++) {
+                slots[i] = master;
+            }
+            sb.append(master).append("\tslot:").append(start).append("-").append(end).append("\r\n");
+        }
+        LOG.info(sb.toString());
+    }
+
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+        nodes.values().forEach(node -> node.jedis.close());
+        nodes.clear();
+    }
+
+    private record Op(Record record, int db, byte[] key, byte[] value, long expire, int redirects)
+    {
+        Op redirected()
+        {
+            return new Op(record, db, key, value, expire, redirects + 1);
+        }
+
+        void send(Client client)
+        {
+            // the payload goes to the socket from the column bytes, jedis does not copy large values into its buffer
+            if (expire > 0) {
+                client.restore(key, expire, value, RestoreParams.restoreParams().absTtl());
+            }
+            else {
+                client.restore(key, 0L, value);
+            }
+        }
+    }
+
+    private record Reply(Op op, JedisDataException error) {}
+
+    private class Node
+    {
+        private final HostAndPort hostAndPort;
+        private final Jedis jedis;
+        private final List<Op> ops = new ArrayList<>();
+        private int db = -1;
+
+        Node(HostAndPort hostAndPort)
+        {
+            this.hostAndPort = hostAndPort;
+            this.jedis = new Jedis(hostAndPort.getHost(), hostAndPort.getPort(), timeout, timeout);
+            if (StringUtils.isNotBlank(auth)) {
+                jedis.auth(auth);
+            }
+        }
+
+        /*
+         * Pipeline the pending commands and read all their replies, returning the failed ones.
+         */
+        List<Reply> send()
+        {
+            Client client = jedis.getClient();
+            // the ops in reply order, null for a select
+            List<Op> sent = new ArrayList<>(ops.size());
+            for (Op op : ops) {
+                if (!cluster && op.db() != db) {
+                    client.select(op.db());
+                    db = op.db();
+                    sent.add(null);
+                }
+                op.send(client);
+                sent.add(op);
+            }
+            ops.clear();
+
+            List<Object> replies = client.getMany(sent.size());
+            List<Reply> failed = new ArrayList<>();
+            for (int i = 0; i < sent.size(); i++) {
+                if (replies.get(i) instanceof JedisDataException error) {
+                    if (sent.get(i) == null) {
+                        throw error;
+                    }
+                    failed.add(new Reply(sent.get(i), error));
+                }
+            }
+            return failed;
+        }
+    }
+}
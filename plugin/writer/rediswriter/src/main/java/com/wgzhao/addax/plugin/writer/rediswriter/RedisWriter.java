@@ -19,7 +19,6 @@
 
 package com.wgzhao.addax.plugin.writer.rediswriter;
 
-import com.wgzhao.addax.core.element.Column;
 import com.wgzhao.addax.core.element.Record;
 import com.wgzhao.addax.core.plugin.RecordReceiver;
 import com.wgzhao.addax.core.spi.Writer;
@@ -27,246 +26,79 @@ import com.wgzhao.addax.core.util.Configuration;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import redis.clients.jedis.Client;
+import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
-import redis.clients.jedis.exceptions.JedisDataException;
-import redis.clients.jedis.util.JedisClusterCRC16;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.net.URI;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Set;
 
 import static com.wgzhao.addax.core.base.Key.CONNECTION;
 
 public class RedisWriter
         extends Writer
 {
-
-    public static class Task
-            extends Writer.Task
+    private static String connectionPath(Configuration conf)
     {
+        // the connection is an object, or a list of which the first item is used
+        return conf.get(CONNECTION) instanceof List ? CONNECTION + "[0]" : CONNECTION;
+    }
 
-        private static final Logger LOG = LoggerFactory.getLogger(Task.class);
-        private static final AtomicBoolean FLUSH_FLAG = new AtomicBoolean(false);
-
-        private final Map<Integer, Jedis> cluster = new HashMap<>();
-        private final Map<Jedis, AtomicLong> nodeCounterMap = new HashMap<>();
-
-        private Jedis jedis;
-
-        private long batchSize = 1000L;
-
-        @Override
-        public void startWrite(RecordReceiver lineReceiver)
-        {
-            Configuration pluginJobConf = this.getPluginJobConf();
+    private static HostAndPort seed(Configuration conf)
+    {
+        URI uri = URI.create(conf.getString(connectionPath(conf) + ".uri"));
+        return new HostAndPort(uri.getHost(), uri.getPort());
+    }
 
-            boolean isCluster = pluginJobConf.getBool("redisCluster", false);
-            if (isCluster) {
-                this.clusterWrite(lineReceiver);
-            }
-            else {
-                this.standaloneWrite(lineReceiver);
-            }
+    private static Jedis connect(HostAndPort hostAndPort, String auth, int timeout)
+    {
+        Jedis jedis = new Jedis(hostAndPort.getHost(), hostAndPort.getPort(), timeout, timeout);
+        if (StringUtils.isNotBlank(auth)) {
+            jedis.auth(auth);
         }
+        return jedis;
+    }
+
+    public static class Task
+            extends Writer.Task
+    {
+        private RedisWriteEngine engine;
 
         @Override
         public void init()
         {
             Configuration pluginJobConf = this.getPluginJobConf();
-            Configuration connection = pluginJobConf.getConfiguration(CONNECTION);
-            boolean isCluster = pluginJobConf.getBool("redisCluster", false);
-            int timeout = pluginJobConf.getInt("timeout", 60000);
-            this.batchSize = pluginJobConf.getLong("batchSize", 1000L);
-
-            URI uri = URI.create(connection.getString("uri"));
-            String host = uri.getHost();
-            int port = uri.getPort();
-            this.jedis = new Jedis(host, port, timeout, timeout);
-
-            if (isCluster) {
-                StringBuilder sb = new StringBuilder("\r\nRedis Cluster node assign\r\n");
-                List<Object> slots = this.jedis.clusterSlots();
-
-                for (Object slot : slots) {
-                    List<Object> list = (List<Object>) slot;
-                    //slot begin node
-                    Long start = (Long) list.get(0);
-                    //slot end node
-                    Long end = (Long) list.get(1);
-                    //slot node host
-                    List hostInfo = (List) list.get(2);
-
-                    String nodeHost = new String((byte[]) hostInfo.get(0));
-                    Long nodePort = (Long) hostInfo.get(1);
-                    Jedis node = new Jedis(nodeHost, nodePort.intValue(), timeout, timeout);
-                    for (int i = start.intValue(); i <= end.intValue(); i++) {
-                        this.cluster.put(i, node);
-                    }
-
-                    this.nodeCounterMap.put(node, new AtomicLong());
-                    sb.append(nodeHost)
-                            .append(":")
-                            .append(nodePort)
-                            .append("\t")
-                            .append("slot:")
-                            .append(start)
-                            .append("-").append(end)
-                            .append("\r\n");
-                }
-                LOG.info(sb.toString());
-            }
-            else {
-                String auth = connection.getString("auth");
-                if (StringUtils.isNotBlank(auth)) {
-                    this.jedis.auth(auth);
-                }
-            }
-
-            prepare();
+            this.engine = new RedisWriteEngine(
+                    seed(pluginJobConf),
+                    pluginJobConf.getBool("redisCluster", false),
+                    pluginJobConf.getString(connectionPath(pluginJobConf) + ".auth"),
+                    pluginJobConf.getInt("timeout", 60000),
+                    pluginJobConf.getLong("batchSize", 1000L),
+                    pluginJobConf.getLong("maxInFlightBytes", 64L * 1024 * 1024),
+                    getTaskPluginCollector());
         }
 
         @Override
-        public void prepare()
-        {
-            Boolean isFlushDB = getPluginJobConf().getBool("flushDB", false);
-            if (isFlushDB) {
-                flushDB();
-            }
-        }
-
-        public void destroy()
-        {
-            if (this.jedis != null) {
-                this.jedis.close();
-            }
-
-            this.nodeCounterMap.clear();
-            for (Jedis cJedis : new HashSet<>(this.cluster.values())) {
-                cJedis.close();
-            }
-
-            this.cluster.clear();
-        }
-
-        private void standaloneWrite(RecordReceiver lineReceiver)
+        public void startWrite(RecordReceiver lineReceiver)
         {
-            AtomicLong counter = new AtomicLong(0L);
-            Client client = this.jedis.getClient();
             Record fromReader;
             while ((fromReader = lineReceiver.getFromReader()) != null) {
                 int db = fromReader.getColumn(0).asLong().intValue();
                 long expire = fromReader.getColumn(2).asLong();
-                byte[] key = fromReader.getColumn(3).toString().getBytes();
-                byte[] value = string2byte(fromReader.getColumn(4).toString());
-                client.select(db);
-                restore(client, key, value, expire, counter);
-            }
-
-            if (counter.get() % this.batchSize != 0L) {
-                flushAndCheckReply(client);
-            }
-        }
-
-        private void clusterWrite(RecordReceiver lineReceiver)
-        {
-
-            Record fromReader;
-            while ((fromReader = lineReceiver.getFromReader()) != null) {
-                Column expireColumn = fromReader.getColumn(2);
-                Column keyColumn = fromReader.getColumn(3);
-                Column valueColumn = fromReader.getColumn(4);
-                Long expire = expireColumn.asLong();
-                byte[] key = keyColumn.asBytes();
-                byte[] value = valueColumn.asBytes();
-                int slot = JedisClusterCRC16.getSlot(key);
-                Jedis node = this.cluster.get(slot);
-                Client client = node.getClient();
-                AtomicLong nodeCounter = nodeCounterMap.get(node);
-                restore(client, key, value, expire, nodeCounter);
-            }
-
-            for (Entry<Jedis, AtomicLong> entry : nodeCounterMap.entrySet()) {
-                AtomicLong nodeCounter = entry.getValue();
-                Jedis node = entry.getKey();
-                if (nodeCounter.get() % this.batchSize != 0L) {
-                    Client client = node.getClient();
-                    flushAndCheckReply(client);
-                }
-            }
-        }
-
-        private byte[] string2byte(String str)
-        {
-            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-         try {
-             byteArrayOutputStream.write(str.getBytes());
-             return byteArrayOutputStream.toByteArray();
-         }
-         catch (IOException e) {
-             return str.getBytes();
-         }
-        }
-
-        private void restore(Client client, byte[] key, byte[] value, long expire, AtomicLong currentCounter)
-        {
-
-            client.restore(key, 0L, value);
-
-            if (expire > 0) {
-                client.expireAt(key, expire);
-            }
-
-            long count = currentCounter.incrementAndGet();
-
-            if (count % this.batchSize == 0L) {
-                flushAndCheckReply(client);
-            }
-        }
-
-        private void flushDB()
-        {
-            synchronized (FLUSH_FLAG) {
-                if (FLUSH_FLAG.get()) {
-                    return;
-                }
-
-                boolean isCluster = getPluginJobConf().getBool("redisCluster", false);
-                Client client = null;
-                if (isCluster) {
-                    for (Jedis cJedis : new HashSet<>(cluster.values())) {
-                        client = cJedis.getClient();
-                        jedis.flushAll();
-                    }
-                }
-                else {
-                    if (this.jedis != null) {
-                        client = jedis.getClient();
-                        jedis.flushAll();
-                    }
-                }
-                if (client != null ) {
-                    LOG.info("redis client: {}: {}", client.getHost(), client.getPort());
-                }
-                FLUSH_FLAG.set(true);
+                byte[] key = fromReader.getColumn(3).asBytes();
+                byte[] value = fromReader.getColumn(4).asBytes();
+                this.engine.restore(fromReader, db, key, value, expire);
             }
+            this.engine.flush();
         }
 
-        private void flushAndCheckReply(Client client)
+        @Override
+        public void destroy()
         {
-            List<Object> allReply = client.getObjectMultiBulkReply();
-            for (Object o : allReply) {
-                if (o instanceof JedisDataException) {
-                    throw (JedisDataException) o;
-                }
+            if (this.engine != null) {
+                this.engine.close();
             }
         }
     }
@@ -274,11 +106,16 @@ public class RedisWriter
     public static class Job
             extends Writer.Job
     {
+        private static final Logger LOG = LoggerFactory.getLogger(Job.class);
 
         @Override
         public List<Configuration> split(int mandatoryNumber)
         {
-            return Collections.singletonList(getPluginJobConf());
+            List<Configuration> configurations = new ArrayList<>(mandatoryNumber);
+            for (int i = 0; i < mandatoryNumber; i++) {
+                configurations.add(getPluginJobConf().clone());
+            }
+            return configurations;
         }
 
         @Override
@@ -287,10 +124,40 @@ public class RedisWriter
             //
         }
 
+        @Override
+        public void prepare()
+        {
+            // flush once for the job, before any task writes
+            Configuration conf = getPluginJobConf();
+            if (!conf.getBool("flushDB", false)) {
+                return;
+            }
+            String auth = conf.getString(connectionPath(conf) + ".auth");
+            int timeout = conf.getInt("timeout", 60000);
+            Set<HostAndPort> masters = new LinkedHashSet<>();
+            try (Jedis jedis = connect(seed(conf), auth, timeout)) {
+                if (conf.getBool("redisCluster", false)) {
+                    for (Object slot : jedis.clusterSlots()) {
+                        List<Object> hostInfo = (List<Object>) ((List<Object>) slot).get(2);
+                        masters.add(new HostAndPort(new String((byte[]) hostInfo.get(0)), ((Long) hostInfo.get(1)).intValue()));
+                    }
+                }
+                else {
+                    masters.add(seed(conf));
+                }
+            }
+            for (HostAndPort master : masters) {
+                try (Jedis jedis = connect(master, auth, timeout)) {
+                    jedis.flushAll();
+                    LOG.info("redis client: {}: {}", master.getHost(), master.getPort());
+                }
+            }
+        }
+
         @Override
         public void destroy()
         {
             //
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.plugin.writer.rediswriter;
+
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.exception.AddaxException;
+import com.wgzhao.addax.core.plugin.TaskPluginCollector;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes to two fake cluster nodes speaking RESP, whose slot maps and redirections are set by each test.
+ */
+class RedisWriteEngineTest
+{
+    private static final int HALF = 8192;
+
+    private final FakeNode a = new FakeNode();
+    private final FakeNode b = new FakeNode();
+    private final List<String> dirty = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown()
+    {
+        a.close();
+        b.close();
+    }
+
+    @Test
+    void movedAndAskedKeysAreWrittenByTheLastFlush()
+    {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            keys.add("key:" + i);
+        }
+        int askSlot = slot(keys.stream().filter(k -> slot(k) < HALF).findFirst().orElseThrow());
+        // the seed believes it owns every slot, the other node knows the upper half moved to it
+        a.slots = new int[][] {{0, 16383, a.port}};
+        b.slots = new int[][] {{0, HALF - 1, a.port}, {HALF, 16383, b.port}};
+        a.redirect = slot -> slot >= HALF ? "MOVED " + slot + " 127.0.0.1:" + b.port
+                : slot == askSlot ? "ASK " + slot + " 127.0.0.1:" + b.port : null;
+        b.redirect = slot -> slot < HALF ? "MOVED " + slot + " 127.0.0.1:" + a.port : null;
+
+        try (RedisWriteEngine engine = engine()) {
+            for (String key : keys) {
+                engine.restore(new DefaultRecord(), 0, key.getBytes(StandardCharsets.UTF_8), ("v-" + key).getBytes(StandardCharsets.UTF_8), 0);
+            }
+            // the batch is larger than the keys, this flush is the one a task makes before it ends
+            engine.flush();
+        }
+
+        for (String key : keys) {
+            boolean onB = slot(key) >= HALF || slot(key) == askSlot;
+            assertEquals("v-" + key, (onB ? b : a).value(key), key);
+            assertEquals(null, (onB ? a : b).value(key), key);
+        }
+        assertEquals(keys.size(), a.data.size() + b.data.size());
+        assertTrue(dirty.isEmpty(), dirty.toString());
+    }
+
+    @Test
+    void rejectedKeyIsDirty()
+    {
+        a.slots = new int[][] {{0, 16383, a.port}};
+        int busySlot = slot("busy");
+        a.redirect = slot -> slot == busySlot ? "BUSYKEY Target key name already exists." : null;
+
+        try (RedisWriteEngine engine = engine()) {
+            engine.restore(new DefaultRecord(), 0, "busy".getBytes(StandardCharsets.UTF_8), "v".getBytes(StandardCharsets.UTF_8), 0);
+            engine.restore(new DefaultRecord(), 0, "fine".getBytes(StandardCharsets.UTF_8), "v".getBytes(StandardCharsets.UTF_8), 0);
+            engine.flush();
+        }
+
+        assertEquals(List.of("BUSYKEY Target key name already exists."), dirty);
+        assertEquals("v", a.value("fine"));
+    }
+
+    @Test
+    void endlessRedirectionFails()
+    {
+        a.slots = new int[][] {{0, 16383, a.port}};
+        b.slots = a.slots;
+        a.redirect = slot -> "MOVED " + slot + " 127.0.0.1:" + b.port;
+        b.redirect = slot -> "MOVED " + slot + " 127.0.0.1:" + a.port;
+
+        try (RedisWriteEngine engine = engine()) {
+            engine.restore(new DefaultRecord(), 0, "loop".getBytes(StandardCharsets.UTF_8), "v".getBytes(StandardCharsets.UTF_8), 0);
+            assertThrows(AddaxException.class, engine::flush);
+        }
+    }
+
+    private RedisWriteEngine engine()
+    {
+        return new RedisWriteEngine(new HostAndPort("127.0.0.1", a.port), true, null, 5000, 1000, Long.MAX_VALUE,
+                new TaskPluginCollector()
+                {
+                    @Override
+                    public void collectDirtyRecord(Record dirtyRecord, Throwable t, String errorMessage)
+                    {
+                        dirty.add(errorMessage);
+                    }
+
+                    @Override
+                    public void collectMessage(String key, String value)
+                    {
+                    }
+                });
+    }
+
+    private static int slot(String key)
+    {
+        return JedisClusterCRC16.getSlot(key);
+    }
+
+    /*
+     * A node of a cluster, which answers CLUSTER SLOTS with its own view and RESTORE with a redirection when told to
+     */
+    private static final class FakeNode
+            implements Closeable
+    {
+        final Map<String, byte[]> data = new ConcurrentHashMap<>();
+        final ServerSocket server;
+        final int port;
+        volatile int[][] slots = new int[0][];
+        volatile IntFunction<String> redirect = slot -> null;
+
+        FakeNode()
+        {
+            try {
+                server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            }
+            catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            port = server.getLocalPort();
+            Thread acceptor = new Thread(this::accept, "fake-redis-" + port);
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        String value(String key)
+        {
+            byte[] value = data.get(key);
+            return value == null ? null : new String(value, StandardCharsets.UTF_8);
+        }
+
+        private void accept()
+        {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    Thread thread = new Thread(() -> serve(socket));
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+                catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket)
+        {
+            try (socket; InputStream in = new BufferedInputStream(socket.getInputStream()); OutputStream out = socket.getOutputStream()) {
+                boolean asking = false;
+                List<byte[]> command;
+                while ((command = readCommand(in)) != null) {
+                    String name = new String(command.get(0), StandardCharsets.UTF_8).toUpperCase();
+                    switch (name) {
+                        case "ASKING" -> {
+                            asking = true;
+                            write(out, "+OK\r\n");
+                            continue;
+                        }
+                        case "CLUSTER" -> write(out, slotsReply());
+                        case "RESTORE" -> {
+                            String key = new String(command.get(1), StandardCharsets.UTF_8);
+                            String error = asking ? null : redirect.apply(slot(key));
+                            if (error == null) {
+                                data.put(key, command.get(3));
+                                write(out, "+OK\r\n");
+                            }
+                            else {
+                                write(out, "-" + error + "\r\n");
+                            }
+                        }
+                        case "QUIT" -> {
+                            write(out, "+OK\r\n");
+                            return;
+                        }
+                        default -> write(out, "+OK\r\n");
+                    }
+                    asking = false;
+                }
+            }
+            catch (IOException e) {
+                // the client went away
+            }
+        }
+
+        private String slotsReply()
+        {
+            StringBuilder reply = new StringBuilder("*").append(slots.length).append("\r\n");
+            for (int[] range : slots) {
+                reply.append("*3\r\n:").append(range[0]).append("\r\n:").append(range[1]).append("\r\n")
+                        .append("*2\r\n$9\r\n127.0.0.1\r\n:").append(range[2]).append("\r\n");
+            }
+            return reply.toString();
+        }
+
+        private static void write(OutputStream out, String reply)
+                throws IOException
+        {
+            out.write(reply.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        private static List<byte[]> readCommand(InputStream in)
+                throws IOException
+        {
+            String header = readLine(in);
+            if (header == null) {
+                return null;
+            }
+            int count = Integer.parseInt(header.substring(1));
+            List<byte[]> args = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = Integer.parseInt(readLine(in).substring(1));
+                args.add(in.readNBytes(length));
+                in.readNBytes(2);
+            }
+            return args;
+        }
+
+        private static String readLine(InputStream in)
+                throws IOException
+        {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int c;
+            while ((c = in.read()) != '\r') {
+                if (c == -1) {
+                    return null;
+                }
+                line.write(c);
+            }
+            in.read();
+            return line.toString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close()
+        {
+            try {
+                server.close();
+            }
+            catch (IOException e) {
+                // ignored
+            }
+        }
+    }
+}
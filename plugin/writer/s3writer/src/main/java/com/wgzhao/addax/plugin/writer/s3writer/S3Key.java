@@ -35,9 +35,6 @@ public class S3Key extends Key
 
     public static final String OBJECT = "object";
 
-    // unit: MB
-    public static final String MAX_FILE_SIZE = "maxFileSize";
-
     public static final String DEFAULT_SUFFIX = "defaultSuffix";
 
     public static final String PATH_STYLE_ACCESS_ENABLED = "pathStyleAccessEnabled";
@@ -46,5 +43,11 @@ public class S3Key extends Key
 
     public static final String SSL_ENABLED = "sslEnabled";
 
+    // unit: MB
+    public static final String PART_SIZE = "partSize";
+
+    // the memory of the part buffers of a task, unit: MB
+    public static final String MAX_UPLOAD_MEMORY = "maxUploadMemory";
+
 
 }
@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.writer.s3writer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An output stream that uploads an object in parts through the asynchronous S3 client.
+ * <p>
+ * Bytes are written into direct buffers of {@code partSize} bytes taken from a pool. A full buffer is sent
+ * as one part while the caller keeps writing into the next one, so several parts can be in flight at once.
+ * A buffer goes back to the pool when its upload finishes, and the pool holds at most
+ * {@code maxMemory / partSize} buffers, so a slow bucket blocks the writer instead of growing the heap.
+ * The multipart upload is created with the first full part and completed on {@link #close()} once every
+ * part has finished; an object smaller than one part is sent with a single PUT instead.
+ * On any failure the multipart upload is aborted, so no partial object is left behind.
+ */
+public class S3MultipartOutputStream
+        extends OutputStream
+{
+    private static final Logger LOG = LoggerFactory.getLogger(S3MultipartOutputStream.class);
+
+    // S3 rejects parts smaller than 5 MB, except the last one
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3AsyncClient s3Client;
+    private final String bucket;
+    private final String object;
+    private final int partSize;
+    private final int maxBuffers;
+    private final BlockingQueue<ByteBuffer> freeBuffers;
+    private final List<CompletableFuture<?>> uploads = new ArrayList<>();
+    private final Map<Integer, CompletedPart> completedParts = new TreeMap<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private int allocatedBuffers = 0;
+    private ByteBuffer current;
+    private String uploadId;
+    private int partNumber = 0;
+    private long position = 0;
+    private boolean closed = false;
+
+    /**
+     * @param s3Client the asynchronous S3 client, it is not closed by this stream
+     * @param bucket the bucket name
+     * @param object the object key
+     * @param partSize the size of each part in bytes, at least {@link #MIN_PART_SIZE}
+     * @param maxMemory the memory budget of the part buffers in bytes, at least two parts are always allowed
+     */
+    public S3MultipartOutputStream(S3AsyncClient s3Client, String bucket, String object, int partSize, long maxMemory)
+    {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("The part size must be at least " + MIN_PART_SIZE + " bytes");
+        }
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.object = object;
+        this.partSize = partSize;
+        this.maxBuffers = (int) Math.max(2, Math.min(Integer.MAX_VALUE, maxMemory / partSize));
+        this.freeBuffers = new ArrayBlockingQueue<>(maxBuffers);
+    }
+
+    /**
+     * @return the number of bytes written so far
+     */
+    public long getPosition()
+    {
+        return position;
+    }
+
+    @Override
+    public void write(int b)
+            throws IOException
+    {
+        ensureWritable();
+        current.put((byte) b);
+        position++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len)
+            throws IOException
+    {
+        while (len > 0) {
+            ensureWritable();
+            int n = Math.min(len, current.remaining());
+            current.put(b, off, n);
+            off += n;
+            len -= n;
+            position += n;
+        }
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            checkFailure();
+            if (uploadId == null) {
+                putSingleObject();
+                return;
+            }
+            if (current != null && current.position() > 0) {
+                uploadPart(current);
+                current = null;
+            }
+            CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).join();
+            checkFailure();
+            List<CompletedPart> parts;
+            synchronized (completedParts) {
+                parts = new ArrayList<>(completedParts.values());
+            }
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(object)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build()).join();
+            LOG.info("Uploaded [{}] bytes in {} part(s) to [{}/{}]", position, parts.size(), bucket, object);
+        }
+        catch (CompletionException | IOException e) {
+            abort();
+            throw e instanceof IOException ioe ? ioe : new IOException("Failed to upload " + bucket + "/" + object, e.getCause());
+        }
+        finally {
+            current = null;
+            freeBuffers.clear();
+        }
+    }
+
+    /**
+     * Abort the upload and drop the buffered bytes, the stream can not be used afterward.
+     */
+    public void abort()
+    {
+        closed = true;
+        current = null;
+        if (uploadId == null) {
+            return;
+        }
+        // let the in-flight parts settle, otherwise S3 may keep them after the abort
+        CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(object)
+                    .uploadId(uploadId)
+                    .build()).join();
+            LOG.warn("Aborted the multipart upload of [{}/{}]", bucket, object);
+        }
+        catch (CompletionException e) {
+            LOG.warn("Failed to abort the multipart upload [{}] of [{}/{}]: {}", uploadId, bucket, object, e.getCause().getMessage());
+        }
+        uploadId = null;
+    }
+
+    private void ensureWritable()
+            throws IOException
+    {
+        if (closed) {
+            throw new IOException("The stream of " + bucket + "/" + object + " is closed");
+        }
+        if (current == null) {
+            current = acquireBuffer();
+        }
+        else if (!current.hasRemaining()) {
+            if (uploadId == null) {
+                createMultipartUpload();
+            }
+            uploadPart(current);
+            current = acquireBuffer();
+        }
+    }
+
+    private ByteBuffer acquireBuffer()
+            throws IOException
+    {
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        if (allocatedBuffers < maxBuffers) {
+            allocatedBuffers++;
+            return ByteBuffer.allocateDirect(partSize);
+        }
+        // the memory budget is used up, wait for an upload to hand its buffer back
+        try {
+            while ((buffer = freeBuffers.poll(200, TimeUnit.MILLISECONDS)) == null) {
+                checkFailure();
+            }
+            return buffer;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free part buffer");
+        }
+    }
+
+    private void createMultipartUpload()
+            throws IOException
+    {
+        try {
+            uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(object)
+                    .build()).join().uploadId();
+        }
+        catch (CompletionException e) {
+            throw new IOException("Failed to create the multipart upload of " + bucket + "/" + object, e.getCause());
+        }
+    }
+
+    private void uploadPart(ByteBuffer buffer)
+            throws IOException
+    {
+        checkFailure();
+        int number = ++partNumber;
+        buffer.flip();
+        UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(bucket)
+                .key(object)
+                .uploadId(uploadId)
+                .partNumber(number)
+                .contentLength((long) buffer.remaining())
+                .build();
+        // the buffer is not copied, it is only reused after the upload has finished with it
+        uploads.add(s3Client.uploadPart(request, AsyncRequestBody.fromRemainingByteBufferUnsafe(buffer))
+                .whenComplete((response, e) -> {
+                    if (e != null) {
+                        failure.compareAndSet(null, e);
+                    }
+                    else {
+                        synchronized (completedParts) {
+                            completedParts.put(number, CompletedPart.builder().partNumber(number).eTag(response.eTag()).build());
+                        }
+                    }
+                    buffer.clear();
+                    freeBuffers.offer(buffer);
+                }));
+    }
+
+    private void putSingleObject()
+            throws IOException
+    {
+        if (current == null || current.position() == 0) {
+            LOG.info("No content to write to [{}/{}]", bucket, object);
+            return;
+        }
+        current.flip();
+        try {
+            s3Client.putObject(PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(object)
+                    .contentLength((long) current.remaining())
+                    .build(), AsyncRequestBody.fromRemainingByteBufferUnsafe(current)).join();
+            LOG.info("Uploaded [{}] bytes to [{}/{}]", position, bucket, object);
+        }
+        catch (CompletionException e) {
+            throw new IOException("Failed to upload " + bucket + "/" + object, e.getCause());
+        }
+    }
+
+    private void checkFailure()
+            throws IOException
+    {
+        Throwable e = failure.get();
+        if (e != null) {
+            throw new IOException("Failed to upload a part of " + bucket + "/" + object,
+                    e instanceof CompletionException ? e.getCause() : e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.writer.s3writer;
+
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+
+import java.io.IOException;
+
+/**
+ * A Parquet {@link OutputFile} that writes through a {@link S3MultipartOutputStream}
+ * instead of the s3a file system.
+ */
+public class S3OutputFile
+        implements OutputFile
+{
+    private final S3MultipartOutputStream outputStream;
+    private final String path;
+
+    public S3OutputFile(S3MultipartOutputStream outputStream, String bucket, String object)
+    {
+        this.outputStream = outputStream;
+        this.path = "s3://" + bucket + "/" + object;
+    }
+
+    @Override
+    public PositionOutputStream create(long blockSizeHint)
+    {
+        return new PositionOutputStream()
+        {
+            @Override
+            public long getPos()
+            {
+                return outputStream.getPosition();
+            }
+
+            @Override
+            public void write(int b)
+                    throws IOException
+            {
+                outputStream.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len)
+                    throws IOException
+            {
+                outputStream.write(b, off, len);
+            }
+
+            @Override
+            public void close()
+                    throws IOException
+            {
+                outputStream.close();
+            }
+        };
+    }
+
+    @Override
+    public PositionOutputStream createOrOverwrite(long blockSizeHint)
+    {
+        return create(blockSizeHint);
+    }
+
+    @Override
+    public boolean supportsBlockSize()
+    {
+        return false;
+    }
+
+    @Override
+    public long defaultBlockSize()
+    {
+        return 0;
+    }
+
+    @Override
+    public String getPath()
+    {
+        return path;
+    }
+}
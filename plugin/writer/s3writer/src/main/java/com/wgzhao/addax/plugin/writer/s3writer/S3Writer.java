@@ -32,6 +32,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
@@ -207,8 +208,12 @@ public class S3Writer
             extends Writer.Task
     {
         private static final Logger LOG = LoggerFactory.getLogger(Task.class);
+        private static final int DEFAULT_PART_SIZE = 10;
+        // S3 allows at most 5 GB per part, but a part has to fit in one direct buffer
+        private static final int MAX_PART_SIZE = 1024;
+        private static final long DEFAULT_MAX_UPLOAD_MEMORY = 64;
 
-        private S3Client s3Client;
+        private S3AsyncClient s3Client;
         private String bucket;
         private String object;
         private String nullFormat;
@@ -216,15 +221,16 @@ public class S3Writer
         private char fieldDelimiter;
         private String dateFormat;
         private List<String> header;
-        private int maxFileSize;// MB
         private String fileType;
         private String sslEnabled;
+        private int partSize;
+        private long maxUploadMemory;
 
         @Override
         public void init()
         {
             Configuration writerSliceConfig = this.getPluginJobConf();
-            this.s3Client = S3Util.initS3Client(writerSliceConfig);
+            this.s3Client = S3Util.initS3AsyncClient(writerSliceConfig);
             this.bucket = writerSliceConfig.getString(S3Key.BUCKET);
             this.object = writerSliceConfig.getString(S3Key.OBJECT);
             this.nullFormat = writerSliceConfig.getString(S3Key.NULL_FORMAT, Constant.DEFAULT_NULL_FORMAT);
@@ -233,12 +239,17 @@ public class S3Writer
             this.encoding = writerSliceConfig.getString(S3Key.ENCODING, Constant.DEFAULT_ENCODING);
             this.fieldDelimiter = writerSliceConfig.getChar(S3Key.FIELD_DELIMITER, Constant.DEFAULT_FIELD_DELIMITER);
             this.header = writerSliceConfig.getList(S3Key.HEADER, null, String.class);
-            // unit MB
-            int DEFAULT_MAX_FILE_SIZE = 10 * 10000;
-            this.maxFileSize = writerSliceConfig.getInt(S3Key.MAX_FILE_SIZE, DEFAULT_MAX_FILE_SIZE);
-
             this.fileType = writerSliceConfig.getString(S3Key.FILE_TYPE, "text");
             this.sslEnabled = writerSliceConfig.getString(S3Key.SSL_ENABLED, "true");
+
+            // unit MB, the parts are uploaded in parallel as long as their buffers fit in maxUploadMemory
+            int partSizeMb = writerSliceConfig.getInt(S3Key.PART_SIZE, DEFAULT_PART_SIZE);
+            if (partSizeMb * 1024 * 1024L < S3MultipartOutputStream.MIN_PART_SIZE || partSizeMb > MAX_PART_SIZE) {
+                throw AddaxException.asAddaxException(ILLEGAL_VALUE,
+                        String.format("The partSize must be between 5 and %d MB, but got %d.", MAX_PART_SIZE, partSizeMb));
+            }
+            this.partSize = partSizeMb * 1024 * 1024;
+            this.maxUploadMemory = writerSliceConfig.getLong(S3Key.MAX_UPLOAD_MEMORY, DEFAULT_MAX_UPLOAD_MEMORY) * 1024 * 1024;
         }
 
         @Override
@@ -253,8 +264,9 @@ public class S3Writer
                         .setNullFormat(this.nullFormat)
                         .setObject(this.object)
                         .setS3Client(this.s3Client)
-                        .setFieldDelimiter(this.fieldDelimiter)
-                        .setMaxFileSize(this.maxFileSize);
+                        .setPartSize(this.partSize)
+                        .setMaxUploadMemory(this.maxUploadMemory)
+                        .setFieldDelimiter(this.fieldDelimiter);
                 textWriter.write(lineReceiver, this.getPluginJobConf(), this.getTaskPluginCollector());
             }
             else if ("orc".equals(this.fileType)) {
@@ -266,6 +278,8 @@ public class S3Writer
                         .setNullFormat(this.nullFormat)
                         .setObject(this.object)
                         .setS3Client(this.s3Client)
+                        .setPartSize(this.partSize)
+                        .setMaxUploadMemory(this.maxUploadMemory)
                         .setFieldDelimiter(this.fieldDelimiter)
                         .setSslEnabled(this.sslEnabled);
                 orcWriter.init(this.getPluginJobConf());
@@ -280,6 +294,8 @@ public class S3Writer
                         .setNullFormat(this.nullFormat)
                         .setObject(this.object)
                         .setS3Client(this.s3Client)
+                        .setPartSize(this.partSize)
+                        .setMaxUploadMemory(this.maxUploadMemory)
                         .setFieldDelimiter(this.fieldDelimiter)
                         .setSslEnabled(this.sslEnabled);
                 parquetWriter.init(this.getPluginJobConf());
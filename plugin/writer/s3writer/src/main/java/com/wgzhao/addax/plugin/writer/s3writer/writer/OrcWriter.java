@@ -28,7 +28,9 @@ import com.wgzhao.addax.core.exception.AddaxException;
 import com.wgzhao.addax.core.plugin.RecordReceiver;
 import com.wgzhao.addax.core.plugin.TaskPluginCollector;
 import com.wgzhao.addax.core.util.Configuration;
-import com.wgzhao.addax.plugin.writer.s3writer.S3Key;
+import com.wgzhao.addax.plugin.writer.s3writer.S3MultipartOutputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.common.type.HiveDecimal;
 import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
@@ -44,12 +46,11 @@ import org.apache.orc.CompressionKind;
 import org.apache.orc.OrcFile;
 import org.apache.orc.TypeDescription;
 import org.apache.orc.Writer;
+import org.apache.orc.impl.PhysicalFsWriter;
+import org.apache.orc.impl.writer.WriterEncryptionVariant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.Delete;
-import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
-import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -73,7 +74,9 @@ public class OrcWriter
     private String object;
     private List<String> header;
     private String sslEnabled;
-    private S3Client s3Client;
+    private int partSize;
+    private long maxUploadMemory;
+    private S3AsyncClient s3Client;
 
     private String fileName;
 
@@ -171,12 +174,34 @@ public class OrcWriter
         return this;
     }
 
-    public S3Client getS3Client()
+    public int getPartSize()
+    {
+        return partSize;
+    }
+
+    public OrcWriter setPartSize(int partSize)
+    {
+        this.partSize = partSize;
+        return this;
+    }
+
+    public long getMaxUploadMemory()
+    {
+        return maxUploadMemory;
+    }
+
+    public OrcWriter setMaxUploadMemory(long maxUploadMemory)
+    {
+        this.maxUploadMemory = maxUploadMemory;
+        return this;
+    }
+
+    public S3AsyncClient getS3Client()
     {
         return s3Client;
     }
 
-    public OrcWriter setS3Client(S3Client s3Client)
+    public OrcWriter setS3Client(S3AsyncClient s3Client)
     {
         this.s3Client = s3Client;
         return this;
@@ -294,14 +319,6 @@ public class OrcWriter
         hadoopConf = new org.apache.hadoop.conf.Configuration();
         DefaultMetricsSystem.initialize("null");
         DefaultMetricsSystem.shutdown();
-
-        hadoopConf.set("fs.s3a.access.key", config.getString(S3Key.ACCESS_ID));
-        hadoopConf.set("fs.s3a.secret.key", config.getString(S3Key.ACCESS_KEY));
-        hadoopConf.set("fs.s3a.endpoint", config.getString(S3Key.ENDPOINT));
-        hadoopConf.set("fs.s3a.ssl.enabled", config.getString(S3Key.SSL_ENABLED, "true"));
-        hadoopConf.set("fs.s3a.path.style.access", config.getString(S3Key.PATH_STYLE_ACCESS_ENABLED, "false"));
-        hadoopConf.set("fs.s3a.fast.upload", "true");
-        hadoopConf.set("fs.s3a.impl.disable.metrics", "true");
         hadoopConf.set("hadoop.metrics2.sink.file.enable", "false");
     }
 
@@ -323,10 +340,16 @@ public class OrcWriter
             }
         }
         TypeDescription schema = TypeDescription.fromString("struct<" + joiner + ">");
-        try (Writer writer = OrcFile.createWriter(new Path(fileName),
-                OrcFile.writerOptions(hadoopConf)
-                        .setSchema(schema)
-                        .compress(CompressionKind.valueOf(compress)))) {
+        S3MultipartOutputStream outputStream = new S3MultipartOutputStream(s3Client, bucket, object, partSize, maxUploadMemory);
+        Writer writer = null;
+        try {
+            OrcFile.WriterOptions options = OrcFile.writerOptions(hadoopConf)
+                    .setSchema(schema)
+                    .compress(CompressionKind.valueOf(compress));
+            // the file is written through the multipart upload stream, the file system is never touched
+            options.physicalWriter(new PhysicalFsWriter(new FSDataOutputStream(outputStream, null), options, new WriterEncryptionVariant[0]))
+                    .fileSystem(FileSystem.getLocal(hadoopConf));
+            writer = OrcFile.createWriter(new Path(fileName), options);
             Record record;
             VectorizedRowBatch batch = schema.createRowBatch(1024);
             while ((record = lineReceiver.getFromReader()) != null) {
@@ -341,15 +364,31 @@ public class OrcWriter
                 writer.addRowBatch(batch);
                 batch.reset();
             }
+            // closing completes the upload, so it is only reached once every record is written
+            writer.close();
         }
-        catch (IOException e) {
-            logger.error("IO exception occurred while writing file [{}}.", fileName);
-            DeleteObjectsRequest dor = DeleteObjectsRequest.builder()
-                    .bucket(bucket)
-                    .delete(Delete.builder().objects(ObjectIdentifier.builder().key(object).build()).build())
-                    .build();
-            s3Client.deleteObjects(dor);
+        catch (IOException | RuntimeException e) {
+            logger.error("Exception occurred while writing file [{}].", fileName);
+            outputStream.abort();
+            closeQuietly(writer);
+            if (e instanceof RuntimeException re) {
+                throw re;
+            }
             throw AddaxException.asAddaxException(IO_ERROR, e);
         }
     }
+
+    private void closeQuietly(Writer writer)
+    {
+        if (writer == null) {
+            return;
+        }
+        try {
+            // releases the writer, the aborted stream rejects the rest of the file
+            writer.close();
+        }
+        catch (IOException | RuntimeException ignored) {
+            // the upload is aborted already
+        }
+    }
 }
@@ -23,13 +23,14 @@ import com.wgzhao.addax.core.base.Constant;
 import com.wgzhao.addax.core.base.Key;
 import com.wgzhao.addax.core.element.Column;
 import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.exception.AddaxException;
 import com.wgzhao.addax.core.plugin.RecordReceiver;
 import com.wgzhao.addax.core.plugin.TaskPluginCollector;
 import com.wgzhao.addax.core.util.Configuration;
-import com.wgzhao.addax.plugin.writer.s3writer.S3Key;
+import com.wgzhao.addax.plugin.writer.s3writer.S3MultipartOutputStream;
+import com.wgzhao.addax.plugin.writer.s3writer.S3OutputFile;
 import org.apache.avro.Conversions;
 import org.apache.avro.generic.GenericData;
-import org.apache.hadoop.fs.Path;
 import org.apache.parquet.avro.AvroReadSupport;
 import org.apache.parquet.avro.AvroWriteSupport;
 import org.apache.parquet.column.ParquetProperties;
@@ -38,12 +39,11 @@ import org.apache.parquet.example.data.simple.SimpleGroupFactory;
 import org.apache.parquet.hadoop.example.ExampleParquetWriter;
 import org.apache.parquet.hadoop.example.GroupWriteSupport;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
-import org.apache.parquet.hadoop.util.HadoopOutputFile;
 import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.schema.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -56,6 +56,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static com.wgzhao.addax.core.spi.ErrorCode.IO_ERROR;
 import static org.apache.parquet.schema.LogicalTypeAnnotation.decimalType;
 
 public class ParquetWriter
@@ -70,7 +71,9 @@ public class ParquetWriter
     private String object;
     private List<String> header;
     private String sslEnabled;
-    private S3Client s3Client;
+    private int partSize;
+    private long maxUploadMemory;
+    private S3AsyncClient s3Client;
 
     private String fileName;
 
@@ -168,12 +171,34 @@ public class ParquetWriter
         return this;
     }
 
-    public S3Client getS3Client()
+    public int getPartSize()
+    {
+        return partSize;
+    }
+
+    public ParquetWriter setPartSize(int partSize)
+    {
+        this.partSize = partSize;
+        return this;
+    }
+
+    public long getMaxUploadMemory()
+    {
+        return maxUploadMemory;
+    }
+
+    public ParquetWriter setMaxUploadMemory(long maxUploadMemory)
+    {
+        this.maxUploadMemory = maxUploadMemory;
+        return this;
+    }
+
+    public S3AsyncClient getS3Client()
     {
         return s3Client;
     }
 
-    public ParquetWriter setS3Client(S3Client s3Client)
+    public ParquetWriter setS3Client(S3AsyncClient s3Client)
     {
         this.s3Client = s3Client;
         return this;
@@ -183,14 +208,9 @@ public class ParquetWriter
     public void init(Configuration config)
     {
 
-        this.fileName = "s3a://" + this.bucket + "/" + this.object;
+        this.fileName = "s3://" + this.bucket + "/" + this.object;
 
         hadoopConf = new org.apache.hadoop.conf.Configuration();
-        hadoopConf.set("fs.s3a.access.key", config.getString(S3Key.ACCESS_ID));
-        hadoopConf.set("fs.s3a.secret.key", config.getString(S3Key.ACCESS_KEY));
-        hadoopConf.set("fs.s3a.endpoint", config.getString(S3Key.ENDPOINT));
-        hadoopConf.set("fs.s3a.ssl.enabled", config.getString(S3Key.SSL_ENABLED, "true"));
-        hadoopConf.set("fs.s3a.path.style.access", config.getString(S3Key.PATH_STYLE_ACCESS_ENABLED, "false"));
     }
 
     /*
@@ -224,7 +244,6 @@ public class ParquetWriter
         CompressionCodecName codecName = CompressionCodecName.fromConf(compress);
         // construct parquet schema
         MessageType s = generateParquetSchema(columns);
-        Path path = new Path(fileName);
         logger.info("Begin to write parquet file [{}]", fileName);
 
         GenericData decimalSupport = new GenericData();
@@ -235,16 +254,19 @@ public class ParquetWriter
         Map<String, String> extraMeta = new HashMap<>();
         // hive need timezone info to handle timestamp
         extraMeta.put("writer.time.zone", ZoneId.systemDefault().toString());
-        try (org.apache.parquet.hadoop.ParquetWriter<Group> writer = ExampleParquetWriter.builder(HadoopOutputFile.fromPath(path, hadoopConf))
-                .withCompressionCodec(codecName)
-                .withConf(hadoopConf)
-                .enableDictionaryEncoding()
-                .withPageSize(1024)
-                .withDictionaryPageSize(512)
-                .withValidation(false)
-                .withWriterVersion(ParquetProperties.WriterVersion.PARQUET_1_0)
-                .withExtraMetaData(extraMeta)
-                .build()) {
+        S3MultipartOutputStream outputStream = new S3MultipartOutputStream(s3Client, bucket, object, partSize, maxUploadMemory);
+        org.apache.parquet.hadoop.ParquetWriter<Group> writer = null;
+        try {
+            writer = ExampleParquetWriter.builder(new S3OutputFile(outputStream, bucket, object))
+                    .withCompressionCodec(codecName)
+                    .withConf(hadoopConf)
+                    .enableDictionaryEncoding()
+                    .withPageSize(1024)
+                    .withDictionaryPageSize(512)
+                    .withValidation(false)
+                    .withWriterVersion(ParquetProperties.WriterVersion.PARQUET_1_0)
+                    .withExtraMetaData(extraMeta)
+                    .build();
             SimpleGroupFactory simpleGroupFactory = new SimpleGroupFactory(s);
             Group group;
             Record record;
@@ -252,9 +274,31 @@ public class ParquetWriter
                 group = buildRecord(record, columns, taskPluginCollector, simpleGroupFactory);
                 writer.write(group);
             }
+            // closing completes the upload, so it is only reached once every record is written
+            writer.close();
+        }
+        catch (IOException | RuntimeException e) {
+            logger.error("Exception occurred while writing file [{}].", fileName);
+            outputStream.abort();
+            closeQuietly(writer);
+            if (e instanceof RuntimeException re) {
+                throw re;
+            }
+            throw AddaxException.asAddaxException(IO_ERROR, e);
+        }
+    }
+
+    private void closeQuietly(org.apache.parquet.hadoop.ParquetWriter<Group> writer)
+    {
+        if (writer == null) {
+            return;
+        }
+        try {
+            // releases the writer, the aborted stream rejects the rest of the file
+            writer.close();
         }
-        catch (IOException e) {
-            throw new RuntimeException(e);
+        catch (IOException | RuntimeException ignored) {
+            // the upload is aborted already
         }
     }
 
@@ -25,22 +25,17 @@ import com.wgzhao.addax.core.exception.AddaxException;
 import com.wgzhao.addax.core.plugin.RecordReceiver;
 import com.wgzhao.addax.core.plugin.TaskPluginCollector;
 import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.plugin.writer.s3writer.S3MultipartOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
-import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
-import software.amazon.awssdk.services.s3.model.CompletedPart;
-import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
-import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
-import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.StringJoiner;
 
@@ -56,9 +51,10 @@ public class TextWriter
     private String encoding;
     private String bucket;
     private String object;
-    private int maxFileSize;
+    private int partSize;
+    private long maxUploadMemory;
     private List<String> header;
-    private S3Client s3Client;
+    private S3AsyncClient s3Client;
 
     public TextWriter()
     {
@@ -130,34 +126,45 @@ public class TextWriter
         return this;
     }
 
-    public int getMaxFileSize()
+    public List<String> getHeader()
     {
-        return maxFileSize;
+        return header;
     }
 
-    public TextWriter setMaxFileSize(int maxFileSize)
+    public TextWriter setHeader(List<String> header)
     {
-        this.maxFileSize = maxFileSize;
+        this.header = header;
         return this;
     }
 
-    public List<String> getHeader()
+    public int getPartSize()
     {
-        return header;
+        return partSize;
     }
 
-    public TextWriter setHeader(List<String> header)
+    public TextWriter setPartSize(int partSize)
     {
-        this.header = header;
+        this.partSize = partSize;
         return this;
     }
 
-    public S3Client getS3Client()
+    public long getMaxUploadMemory()
+    {
+        return maxUploadMemory;
+    }
+
+    public TextWriter setMaxUploadMemory(long maxUploadMemory)
+    {
+        this.maxUploadMemory = maxUploadMemory;
+        return this;
+    }
+
+    public S3AsyncClient getS3Client()
     {
         return s3Client;
     }
 
-    public TextWriter setS3Client(S3Client s3Client)
+    public TextWriter setS3Client(S3AsyncClient s3Client)
     {
         this.s3Client = s3Client;
         return this;
@@ -172,92 +179,33 @@ public class TextWriter
     @Override
     public void write(RecordReceiver lineReceiver, Configuration config, TaskPluginCollector taskPluginCollector)
     {
-
-        // 设置每块字符串长度
-        final int partSize = 1024 * 1024 * 10;
-        long numberCalc = (this.maxFileSize * 1024 * 1024L) / partSize;
-        final long maxPartNumber = numberCalc >= 1 ? numberCalc : 1;
-        //warn: may be StringBuffer->StringBuilder
-        Record record;
-
-        LOG.info("Begin do write, each object's max file size is {}MB...", maxPartNumber * 10);
-        // First create a multipart upload and get the upload id
-        CreateMultipartUploadRequest createMultipartUploadRequest = CreateMultipartUploadRequest.builder()
-                .bucket(bucket)
-                .key(object)
-                .build();
-        CreateMultipartUploadResponse response = s3Client.createMultipartUpload(createMultipartUploadRequest);
-        String uploadId = response.uploadId();
-        int currPart = 1;
-        List<CompletedPart> completedParts = new ArrayList<>();
-
-        UploadPartRequest uploadPartRequest;
-        uploadPartRequest = UploadPartRequest.builder()
-                .bucket(bucket)
-                .key(object)
-                .uploadId(uploadId)
-                .partNumber(currPart).build();
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        Charset charset = Charset.forName(encoding);
-        boolean needInit = true;
-        while ((record = lineReceiver.getFromReader()) != null) {
-            try {
-                if (needInit && !header.isEmpty()) {
-                    // write header
-                    outputStream.write(String.join(String.valueOf(fieldDelimiter), header).getBytes(charset));
-                    outputStream.write("\n".getBytes(charset));
-                    needInit = false;
-                }
-                outputStream.write(record2String(record).getBytes(charset));
-                outputStream.write("\n".getBytes(charset));
-
-                if (outputStream.size() > partSize) {
-                    String etag = s3Client.uploadPart(uploadPartRequest, RequestBody.fromBytes(outputStream.toByteArray())).eTag();
-                    CompletedPart completedPart = CompletedPart.builder().partNumber(currPart).eTag(etag).build();
-                    completedParts.add(completedPart);
-                    currPart += 1;
-                    outputStream.reset();
-
-                    uploadPartRequest = UploadPartRequest.builder()
-                            .bucket(bucket)
-                            .key(object)
-                            .uploadId(uploadId)
-                            .partNumber(currPart).build();
-                    needInit = true;
-                }
+        LOG.info("Begin do write, each part is {}MB and at most {}MB of parts are buffered...",
+                partSize / 1024 / 1024, maxUploadMemory / 1024 / 1024);
+        S3MultipartOutputStream outputStream = new S3MultipartOutputStream(s3Client, bucket, object, partSize, maxUploadMemory);
+        // the writer encodes into a small buffer that is flushed into the direct part buffers
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, Charset.forName(encoding)), 64 * 1024);
+        try {
+            if (header != null && !header.isEmpty()) {
+                writer.write(String.join(String.valueOf(fieldDelimiter), header));
+                writer.write('\n');
             }
-            catch (IOException e) {
-                throw AddaxException.asAddaxException(IO_ERROR, e.getMessage());
+            Record record;
+            while ((record = lineReceiver.getFromReader()) != null) {
+                writer.write(record2String(record));
+                writer.write('\n');
             }
+            // closing completes the upload, so it is only reached once every record is written
+            writer.close();
         }
-        // remain bytes
-        if (outputStream.size() > 0) {
-            String etag = s3Client.uploadPart(uploadPartRequest, RequestBody.fromBytes(outputStream.toByteArray())).eTag();
-            CompletedPart completedPart = CompletedPart.builder().partNumber(currPart).eTag(etag).build();
-            completedParts.add(completedPart);
-            outputStream.reset();
-        }
-        if (!completedParts.isEmpty()) {
-            // Finally, call completeMultipartUpload operation to tell S3 to merge all uploaded
-            // parts and finish the multipart operation.
-            CompletedMultipartUpload completedMultipartUpload = CompletedMultipartUpload.builder()
-                    .parts(completedParts)
-                    .build();
-
-            CompleteMultipartUploadRequest completeMultipartUploadRequest =
-                    CompleteMultipartUploadRequest.builder()
-                            .bucket(bucket)
-                            .key(object)
-                            .uploadId(uploadId)
-                            .multipartUpload(completedMultipartUpload)
-                            .build();
-
-            s3Client.completeMultipartUpload(completeMultipartUploadRequest);
-            LOG.info("end do write");
+        catch (IOException e) {
+            outputStream.abort();
+            throw AddaxException.asAddaxException(IO_ERROR, e.getMessage());
         }
-        else {
-            LOG.info("no content do write");
+        catch (RuntimeException e) {
+            outputStream.abort();
+            throw e;
         }
+        LOG.info("end do write");
     }
 
     private String record2String(Record record)
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.plugin.writer.s3writer;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class S3MultipartOutputStreamTest
+{
+    private static final int PART_SIZE = S3MultipartOutputStream.MIN_PART_SIZE;
+
+    @Test
+    void smallObjectIsSentWithSinglePut()
+            throws IOException
+    {
+        FakeS3 s3 = new FakeS3();
+        byte[] data = randomBytes(1000);
+        try (S3MultipartOutputStream out = new S3MultipartOutputStream(s3.client(), "bucket", "small", PART_SIZE, 4L * PART_SIZE)) {
+            out.write(data);
+        }
+
+        assertEquals(List.of("putObject"), s3.calls);
+        assertArrayEquals(data, s3.objects.get("small"));
+    }
+
+    @Test
+    void largeObjectIsUploadedInOrderedParts()
+            throws IOException
+    {
+        FakeS3 s3 = new FakeS3();
+        s3.delayMillis = 20;
+        byte[] data = randomBytes(2 * PART_SIZE + 12345);
+        try (S3MultipartOutputStream out = new S3MultipartOutputStream(s3.client(), "bucket", "large", PART_SIZE, 2L * PART_SIZE)) {
+            // odd sized writes, so that they straddle the part boundaries
+            for (int off = 0; off < data.length; off += 100_003) {
+                out.write(data, off, Math.min(100_003, data.length - off));
+            }
+            assertEquals(data.length, out.getPosition());
+        }
+
+        assertEquals("createMultipartUpload", s3.calls.get(0));
+        assertEquals(3, s3.calls.stream().filter("uploadPart"::equals).count());
+        assertEquals("completeMultipartUpload", s3.calls.get(s3.calls.size() - 1));
+        assertFalse(s3.calls.contains("abortMultipartUpload"));
+        assertArrayEquals(data, s3.objects.get("large"));
+        // the memory budget of two parts bounds the parts in flight
+        assertTrue(s3.maxInFlight.get() <= 2, "in flight: " + s3.maxInFlight.get());
+    }
+
+    @Test
+    void failedPartAbortsTheUpload()
+    {
+        FakeS3 s3 = new FakeS3();
+        s3.failingPart = 2;
+        byte[] data = randomBytes(4 * PART_SIZE);
+        S3MultipartOutputStream out = new S3MultipartOutputStream(s3.client(), "bucket", "broken", PART_SIZE, 8L * PART_SIZE);
+
+        assertThrows(IOException.class, () -> {
+            try {
+                out.write(data);
+            }
+            finally {
+                out.close();
+            }
+        });
+        assertTrue(s3.calls.contains("abortMultipartUpload"));
+        assertFalse(s3.calls.contains("completeMultipartUpload"));
+        assertFalse(s3.objects.containsKey("broken"));
+        assertThrows(IOException.class, () -> out.write(1));
+    }
+
+    private static byte[] randomBytes(int length)
+    {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    /*
+     * An in-memory S3, only the calls the stream makes are implemented
+     */
+    private static final class FakeS3
+    {
+        final List<String> calls = new CopyOnWriteArrayList<>();
+        final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        final Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        int failingPart = -1;
+        long delayMillis = 0;
+
+        S3AsyncClient client()
+        {
+            return (S3AsyncClient) Proxy.newProxyInstance(S3AsyncClient.class.getClassLoader(), new Class<?>[] {S3AsyncClient.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        calls.add(name);
+                        switch (name) {
+                            case "putObject":
+                                objects.put(keyOf(args[0]), bytesOf((AsyncRequestBody) args[1]));
+                                return CompletableFuture.completedFuture(PutObjectResponse.builder().eTag("etag").build());
+                            case "createMultipartUpload":
+                                return CompletableFuture.completedFuture(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+                            case "uploadPart":
+                                return uploadPart((UploadPartRequest) args[0], (AsyncRequestBody) args[1]);
+                            case "completeMultipartUpload":
+                                return complete((CompleteMultipartUploadRequest) args[0]);
+                            case "abortMultipartUpload":
+                                parts.clear();
+                                return CompletableFuture.completedFuture(AbortMultipartUploadResponse.builder().build());
+                            case "close":
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(name);
+                        }
+                    });
+        }
+
+        private CompletableFuture<UploadPartResponse> uploadPart(UploadPartRequest request, AsyncRequestBody body)
+        {
+            int number = request.partNumber();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            // the body is read before the call returns, the way the SDK reads it before the part is done
+            byte[] bytes = bytesOf(body);
+            assertEquals(request.contentLength(), bytes.length);
+            return CompletableFuture.supplyAsync(() -> {
+                inFlight.decrementAndGet();
+                if (number == failingPart) {
+                    throw new IllegalStateException("part " + number + " failed");
+                }
+                parts.put(number, bytes);
+                return UploadPartResponse.builder().eTag("etag-" + number).build();
+            }, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
+        }
+
+        private CompletableFuture<CompleteMultipartUploadResponse> complete(CompleteMultipartUploadRequest request)
+        {
+            ByteArrayOutputStream object = new ByteArrayOutputStream();
+            int expected = 1;
+            for (CompletedPart part : request.multipartUpload().parts()) {
+                assertEquals(expected++, part.partNumber());
+                assertEquals("etag-" + part.partNumber(), part.eTag());
+                object.writeBytes(parts.get(part.partNumber()));
+            }
+            objects.put(request.key(), object.toByteArray());
+            return CompletableFuture.completedFuture(CompleteMultipartUploadResponse.builder().build());
+        }
+
+        private static String keyOf(Object request)
+        {
+            return ((PutObjectRequest) request).key();
+        }
+
+        private static byte[] bytesOf(AsyncRequestBody body)
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            body.subscribe(new Subscriber<ByteBuffer>()
+            {
+                @Override
+                public void onSubscribe(Subscription s)
+                {
+                    s.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(ByteBuffer buffer)
+                {
+                    byte[] bytes = new byte[buffer.remaining()];
+                    buffer.get(bytes);
+                    out.writeBytes(bytes);
+                }
+
+                @Override
+                public void onError(Throwable t)
+                {
+                    done.completeExceptionally(t);
+                }
+
+                @Override
+                public void onComplete()
+                {
+                    done.complete(null);
+                }
+            });
+            done.join();
+            return out.toByteArray();
+        }
+    }
+}
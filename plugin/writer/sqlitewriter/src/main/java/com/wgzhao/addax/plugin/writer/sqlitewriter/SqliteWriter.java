@@ -68,7 +68,7 @@ public class SqliteWriter
         @Override
         public void prepare()
         {
-            this.commonRdbmsWriterJob.prepare(this.originalConfig);
+            this.commonRdbmsWriterJob.prepare(this.originalConfig, isResuming());
         }
 
         @Override
@@ -77,6 +77,12 @@ public class SqliteWriter
             return this.commonRdbmsWriterJob.split(this.originalConfig, mandatoryNumber);
         }
 
+        @Override
+        public boolean supportResume()
+        {
+            return this.commonRdbmsWriterJob.supportResume(this.originalConfig);
+        }
+
         // 一般来说，是需要推迟到 task 中进行post 的执行（单表情况例外）
         @Override
         public void post()
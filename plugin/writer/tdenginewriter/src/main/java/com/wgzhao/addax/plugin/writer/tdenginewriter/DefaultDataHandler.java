@@ -31,6 +31,7 @@ import com.wgzhao.addax.core.exception.AddaxException;
 import com.wgzhao.addax.core.plugin.RecordReceiver;
 import com.wgzhao.addax.core.plugin.TaskPluginCollector;
 import com.wgzhao.addax.core.util.Configuration;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,9 +42,14 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static com.wgzhao.addax.core.spi.ErrorCode.CONFIG_ERROR;
@@ -61,12 +67,18 @@ public class DefaultDataHandler
     private final String jdbcUrl;
     private final int batchSize;
     private final boolean ignoreTagsUnmatched;
+    private final int sessionNumber;
 
     private final List<String> tables;
     private final List<String> columns;
 
     private Map<String, TableMeta> tableMetas;
     private SchemaManager schemaManager;
+    private TimestampPrecision precision;
+
+    // the connections sub-tables are written over, the first one is the connection the schema is loaded with
+    private final List<Session> sessions = new ArrayList<>();
+    private ExecutorService executor;
 
     public void setTableMetas(Map<String, TableMeta> tableMetas)
     {
@@ -83,6 +95,11 @@ public class DefaultDataHandler
         this.schemaManager = schemaManager;
     }
 
+    public void setPrecision(TimestampPrecision precision)
+    {
+        this.precision = precision;
+    }
+
     private Map<String, List<ColumnMeta>> columnMetas;
 
     static {
@@ -104,6 +121,7 @@ public class DefaultDataHandler
         this.tables = configuration.getList(Key.TABLE, String.class);
         this.columns = configuration.getList(Key.COLUMN, String.class);
         this.ignoreTagsUnmatched = configuration.getBool(TDKey.IGNORE_TAGS_UNMATCHED, DEFAULT_IGNORE_TAGS_UNMATCHED);
+        this.sessionNumber = Math.max(1, configuration.getInt(TDKey.SESSIONS, 1));
     }
 
     @Override
@@ -119,36 +137,120 @@ public class DefaultDataHandler
             this.tableMetas = schemaManager.loadTableMeta(tables);
             // prepare table_name -> column_meta
             this.columnMetas = schemaManager.loadColumnMetas(tables);
+            this.precision = schemaManager.loadDatabasePrecision();
 
-            List<Record> recordBatch = new ArrayList<>();
-            Record record;
-            for (int i = 1; (record = lineReceiver.getFromReader()) != null; i++) {
-                if (i % batchSize != 0) {
+            openSessions(conn);
+            try {
+                List<Record> recordBatch = new ArrayList<>(batchSize);
+                Record record;
+                while ((record = lineReceiver.getFromReader()) != null) {
                     recordBatch.add(record);
+                    count++;
+                    if (recordBatch.size() >= batchSize) {
+                        affectedRows += writeBatch(recordBatch);
+                        recordBatch.clear();
+                    }
                 }
-                else {
-                    affectedRows = writeBatch(conn, recordBatch);
+
+                if (!recordBatch.isEmpty()) {
+                    affectedRows += writeBatch(recordBatch);
                     recordBatch.clear();
                 }
-                count++;
             }
-
-            if (!recordBatch.isEmpty()) {
-                affectedRows = writeBatch(conn, recordBatch);
-                recordBatch.clear();
+            finally {
+                closeSessions();
             }
         }
         catch (SQLException e) {
             throw AddaxException.asAddaxException(EXECUTE_FAIL, e.getMessage());
         }
 
-        if (affectedRows != count) {
-            LOG.error("write record missing or incorrect happened, affectedRows: {}, total: {}", affectedRows, count);
+        if (affectedRows != count * tables.size()) {
+            LOG.error("write record missing or incorrect happened, affectedRows: {}, total: {}", affectedRows, count * tables.size());
         }
 
         return affectedRows;
     }
 
+    private void openSessions(Connection conn)
+            throws SQLException
+    {
+        sessions.add(new Session(conn, false));
+        for (int i = 1; i < sessionNumber; i++) {
+            sessions.add(new Session(DriverManager.getConnection(jdbcUrl, username, password), true));
+        }
+        if (sessionNumber > 1) {
+            LOG.info("write sub-tables over {} connections", sessionNumber);
+            this.executor = Executors.newFixedThreadPool(sessionNumber,
+                    new BasicThreadFactory.Builder().namingPattern("tdengine-writer-%d").daemon(true).build());
+        }
+    }
+
+    private void closeSessions()
+    {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        sessions.forEach(Session::close);
+        sessions.clear();
+    }
+
+    /**
+     * Write groups of rows over the sessions. The groups are spread by their key, so a sub-table
+     * is always written over the same connection and keeps its order, while the groups of
+     * different sessions are written concurrently.
+     *
+     * @param groups the groups of a batch, keyed by sub-table
+     * @param writer writes the groups of one session
+     * @param <T> the type of the groups
+     * @return the number of rows written
+     */
+    private <T> int writeInSessions(Map<String, T> groups, GroupWriter<T> writer)
+    {
+        if (groups.isEmpty()) {
+            return 0;
+        }
+        List<Map<String, T>> parts = new ArrayList<>(sessions.size());
+        for (int i = 0; i < sessions.size(); i++) {
+            parts.add(new LinkedHashMap<>());
+        }
+        groups.forEach((key, group) -> parts.get(Math.floorMod(key.hashCode(), sessions.size())).put(key, group));
+
+        try {
+            if (executor == null) {
+                return writer.write(sessions.get(0), parts.get(0));
+            }
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < sessions.size(); i++) {
+                Session session = sessions.get(i);
+                Map<String, T> part = parts.get(i);
+                if (!part.isEmpty()) {
+                    futures.add(executor.submit(() -> writer.write(session, part)));
+                }
+            }
+            int affectedRows = 0;
+            for (Future<Integer> future : futures) {
+                affectedRows += future.get();
+            }
+            return affectedRows;
+        }
+        catch (SQLException e) {
+            throw AddaxException.asAddaxException(EXECUTE_FAIL, e.getMessage());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw AddaxException.asAddaxException(EXECUTE_FAIL, "interrupted while writing the batch", e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AddaxException addaxException) {
+                throw addaxException;
+            }
+            throw AddaxException.asAddaxException(EXECUTE_FAIL, cause.getMessage(), cause);
+        }
+    }
+
     /**
      * Table types: [ "stb1", "stb2", "tb1", "tb2", "t1" ]
      * stb1[ts,f1,f2] tags:[t1]
@@ -156,26 +258,27 @@ public class DefaultDataHandler
      * 1. Table types are divided into: stb (super table), tb (sub table), t (original table)
      * 2. For stb, create table automatically/schemaless
      * 2.1: If data contains the tbname field, e.g., data: [ts, f1, f2, f3, t1, t2, tbname], tbColumn: [ts, f1, f2, t1] =&ge; insert into tbname using stb1 tags (t1) values(ts, f1, f2)
-     * 2.2: If data does not contain the tbname field, e.g., data: [ts, f1, f2, f3, t1, t2], tbColumn: [ts, f1, f2, t1] =&ge; schemaless: stb1,t1=t1 f1=f1,f2=f2 ts, no batch write
+     * 2.2: If data does not contain the tbname field, e.g., data: [ts, f1, f2, f3, t1, t2], tbColumn: [ts, f1, f2, t1] =&ge; schemaless: stb1,t1=t1 f1=f1,f2=f2 ts
      * 3. For tb, construct SQL, e.g., data: [ts, f1, f2, f3, t1, t2], tbColumn: [ts, f1, f2, t1] =&ge; insert into tb(ts, f1, f2) values(ts, f1, f2)
      * 4. For t, construct SQL, e.g., data: [ts, f1, f2, f3, t1, t2], tbColumn: [ts, f1, f2, f3, t1, t2] =&ge; insert into t(ts, f1, f2, f3, t1, t2) values(ts, f1, f2, f3, t1, t2)
+     * The rows of a super table are grouped by sub-table and written concurrently over the sessions.
      *
-     * @param conn {@link Connection}
      * @param recordBatch list of {@link Record}
      * @return affectedRows
      */
-    public int writeBatch(Connection conn, List<Record> recordBatch)
+    public int writeBatch(List<Record> recordBatch)
     {
+        Connection conn = sessions.get(0).conn;
         int affectedRows = 0;
         for (String table : tables) {
             TableMeta tableMeta = tableMetas.get(table);
             switch (tableMeta.tableType) {
                 case SUP_TABLE: {
                     if (columns.contains("tbname")) {
-                        affectedRows += writeBatchToSupTableBySQL(conn, table, recordBatch);
+                        affectedRows += writeBatchToSupTable(table, recordBatch);
                     }
                     else {
-                        affectedRows += writeBatchToSupTableBySchemaless(conn, table, recordBatch);
+                        affectedRows += writeBatchToSupTableBySchemaless(table, recordBatch);
                     }
                 }
                 break;
@@ -190,6 +293,33 @@ public class DefaultDataHandler
         return affectedRows;
     }
 
+    /**
+     * Group the rows by sub-table and write every group with the stmt interface where the
+     * connection and the column types allow it, with SQL otherwise.
+     *
+     * @param table the super table
+     * @param recordBatch list of {@link Record}
+     * @return {@link Integer}
+     */
+    private int writeBatchToSupTable(String table, List<Record> recordBatch)
+    {
+        int tbnameIndex = indexOf("tbname");
+        Map<String, List<Record>> groups = new LinkedHashMap<>();
+        for (Record record : recordBatch) {
+            groups.computeIfAbsent(record.getColumn(tbnameIndex).asString(), k -> new ArrayList<>()).add(record);
+        }
+
+        List<ColumnMeta> columnMetaList = this.columnMetas.get(table);
+        return writeInSessions(groups, (session, part) -> {
+            if (StmtWriter.isSupported(session.conn, columnMetaList, columns)) {
+                return session.stmtWriter(table, columnMetaList).write(part);
+            }
+            List<Record> records = new ArrayList<>();
+            part.values().forEach(records::addAll);
+            return writeBatchToSupTableBySQL(session.conn, table, records);
+        });
+    }
+
     /**
      * insert into record[idx(tbname)] using table tags(record[idx(t1)]) (ts, f1, f2, f3) values(record[idx(ts)], record[idx(f1)], )
      * record[idx(tbname)] using table tags(record[idx(t1)]) (ts, f1, f2, f3) values(record[idx(ts)], record[idx(f1)], )
@@ -261,21 +391,9 @@ public class DefaultDataHandler
     private String buildColumnValue(ColumnMeta colMeta, Record record)
     {
         Column column = record.getColumn(indexOf(colMeta.field));
-        TimestampPrecision timestampPrecision = schemaManager.loadDatabasePrecision();
         switch (column.getType()) {
-            case DATE: {
-                Date value = column.asDate();
-                switch (timestampPrecision) {
-                    case MILLISEC:
-                        return "" + (value.getTime());
-                    case MICROSEC:
-                        return "" + (value.getTime() * 1000);
-                    case NANOSEC:
-                        return "" + (value.getTime() * 1000_000);
-                    default:
-                        return "'" + column.asString() + "'";
-                }
-            }
+            case DATE:
+                return String.valueOf(toTimestamp(column, precision));
             case BYTES:
             case STRING:
                 if (colMeta.type.equals("TIMESTAMP")) {
@@ -298,123 +416,103 @@ public class DefaultDataHandler
     /**
      * table: ["stb1"], column: ["ts", "f1", "f2", "t1"]
      * data: [ts, f1, f2, f3, t1, t2] tbColumn: [ts, f1, f2, t1] =&gt; schemaless: stb1,t1=t1 f1=f1,f2=f2 ts
+     * The lines of a batch are grouped by series, that is the super table with the tags, which
+     * is what picks the sub-table, and every session writes its series in one call.
      *
-     * @param conn {@link Connection}
      * @param table {@link String}
      * @param recordBatch list of {@link Record}
      * @return {@link Integer}
      */
-    private int writeBatchToSupTableBySchemaless(Connection conn, String table, List<Record> recordBatch)
+    private int writeBatchToSupTableBySchemaless(String table, List<Record> recordBatch)
     {
-        int count = 0;
-        TimestampPrecision timestampPrecision = schemaManager.loadDatabasePrecision();
+        Map<String, List<String>> series = toSeries(table, recordBatch);
+        SchemalessTimestampType timestampType = switch (precision) {
+            case NANOSEC -> SchemalessTimestampType.NANO_SECONDS;
+            case MICROSEC -> SchemalessTimestampType.MICRO_SECONDS;
+            case MILLISEC -> SchemalessTimestampType.MILLI_SECONDS;
+        };
+        return writeInSessions(series, (session, part) -> {
+            List<String> lines = new ArrayList<>();
+            part.values().forEach(lines::addAll);
+            session.schemalessWriter().write(lines, SchemalessProtocolType.LINE, timestampType);
+            return lines.size();
+        });
+    }
 
+    /**
+     * Render the records as lines of the line protocol.
+     *
+     * @param table the super table
+     * @param recordBatch list of {@link Record}
+     * @return the lines, grouped by series in the order the series first appear
+     */
+    Map<String, List<String>> toSeries(String table, List<Record> recordBatch)
+    {
         List<ColumnMeta> columnMetaList = this.columnMetas.get(table);
         ColumnMeta ts = columnMetaList.stream().filter(colMeta -> colMeta.isPrimaryKey).findFirst().orElseThrow(
                 () -> AddaxException.asAddaxException(CONFIG_ERROR, "no primary key found"));
+        int tsIndex = indexOf(ts.field);
 
-        List<String> lines = new ArrayList<>();
+        Map<String, List<String>> series = new LinkedHashMap<>();
         for (Record record : recordBatch) {
-            StringBuilder sb = new StringBuilder();
-            sb.append(table).append(",")
-                    .append(columnMetaList.stream()
-                            .filter(colMeta -> columns.contains(colMeta.field))
-                            .filter(colMeta -> {
-                                return colMeta.isTag;
-                            })
-                            .map(colMeta -> {
-                                String value = record.getColumn(indexOf(colMeta.field)).asString();
-                                if (value.contains(" ")) {
-                                    value = value.replace(" ", "\\ ");
-                                }
-                                return colMeta.field + "=" + value;
-                            })
-                            .collect(Collectors.joining(",")))
-                    .append(" ")
-                    .append(columnMetaList.stream()
-                            .filter(colMeta -> columns.contains(colMeta.field))
-                            .filter(colMeta -> {
-                                return !colMeta.isTag && !colMeta.isPrimaryKey;
-                            })
-                            .map(colMeta -> {
-                                return colMeta.field + "=" + buildSchemalessColumnValue(colMeta, record);
-                            })
-                            .collect(Collectors.joining(",")))
-                    .append(" ");
-            // timestamp
-            Column column = record.getColumn(indexOf(ts.field));
-            Object tsValue = column.getRawData();
-            if (column.getType() == Column.Type.DATE && tsValue instanceof Date) {
-                long time = column.asDate().getTime();
-                switch (timestampPrecision) {
-                    case NANOSEC:
-                        sb.append(time * 1000000);
-                        break;
-                    case MICROSEC:
-                        sb.append(time * 1000);
-                        break;
-                    case MILLISEC:
-                    default:
-                        sb.append(time);
-                }
-            }
-            else if (column.getType() == Column.Type.STRING) {
-                sb.append(Utils.parseTimestamp(column.asString()));
-            }
-            else {
-                sb.append(column.asLong());
-            }
-            String line = sb.toString();
+            String key = table + "," + columnMetaList.stream()
+                    .filter(colMeta -> columns.contains(colMeta.field))
+                    .filter(colMeta -> colMeta.isTag)
+                    .map(colMeta -> colMeta.field + "=" + escapeTag(record.getColumn(indexOf(colMeta.field)).asString()))
+                    .collect(Collectors.joining(","));
+            String line = key + " " + columnMetaList.stream()
+                    .filter(colMeta -> columns.contains(colMeta.field))
+                    .filter(colMeta -> !colMeta.isTag && !colMeta.isPrimaryKey)
+                    .map(colMeta -> colMeta.field + "=" + buildSchemalessColumnValue(colMeta, record))
+                    .collect(Collectors.joining(","))
+                    + " " + toTimestamp(record.getColumn(tsIndex), precision);
             LOG.debug(">>> {}", line);
-            lines.add(line);
-            count++;
+            series.computeIfAbsent(key, k -> new ArrayList<>()).add(line);
         }
+        return series;
+    }
 
-        SchemalessWriter writer;
-        try {
-            writer = new SchemalessWriter(conn);
-        }
-        catch (SQLException e) {
-            throw AddaxException.asAddaxException(EXECUTE_FAIL, e.getMessage());
-        }
-        SchemalessTimestampType timestampType;
-        switch (timestampPrecision) {
-            case NANOSEC:
-                timestampType = SchemalessTimestampType.NANO_SECONDS;
-                break;
-            case MICROSEC:
-                timestampType = SchemalessTimestampType.MICRO_SECONDS;
-                break;
-            case MILLISEC:
-                timestampType = SchemalessTimestampType.MILLI_SECONDS;
-                break;
-            default:
-                timestampType = SchemalessTimestampType.NOT_CONFIGURED;
-        }
-        try {
-            writer.write(lines, SchemalessProtocolType.LINE, timestampType);
-        }
-        catch (SQLException e) {
-            throw AddaxException.asAddaxException(EXECUTE_FAIL, e.getMessage());
+    // commas, equal signs and spaces delimit the tags of a line
+    static String escapeTag(String value)
+    {
+        if (value == null) {
+            return "";
         }
-
-        LOG.warn("schemalessWriter does not return affected rows!");
-        return count;
+        return value.replace(",", "\\,").replace("=", "\\=").replace(" ", "\\ ");
     }
 
-    private long dateAsLong(Column column)
+    /**
+     * The value of a timestamp column in the precision of the database.
+     *
+     * @param column the column, a date, a string or a number already in the precision of the database
+     * @param precision the precision of the database
+     * @return the timestamp, null if the column is null
+     */
+    static Long toTimestamp(Column column, TimestampPrecision precision)
     {
-        TimestampPrecision timestampPrecision = schemaManager.loadDatabasePrecision();
-        long time = column.asDate().getTime();
-        switch (timestampPrecision) {
-            case NANOSEC:
-                return time * 1000000;
-            case MICROSEC:
-                return time * 1000;
-            case MILLISEC:
-            default:
-                return time;
+        if (column == null || column.getRawData() == null) {
+            return null;
+        }
+        if (column.getType() == Column.Type.DATE) {
+            long time = column.asDate().getTime();
+            return switch (precision) {
+                case NANOSEC -> time * 1000_000;
+                case MICROSEC -> time * 1000;
+                case MILLISEC -> time;
+            };
+        }
+        if (column.getType() == Column.Type.STRING) {
+            Timestamp timestamp = Utils.parseTimestamp(column.asString());
+            if (timestamp != null) {
+                long seconds = Math.floorDiv(timestamp.getTime(), 1000);
+                return switch (precision) {
+                    case NANOSEC -> seconds * 1000_000_000 + timestamp.getNanos();
+                    case MICROSEC -> seconds * 1000_000 + timestamp.getNanos() / 1000;
+                    case MILLISEC -> timestamp.getTime();
+                };
+            }
         }
+        return column.asLong();
     }
 
     private String buildSchemalessColumnValue(ColumnMeta colMeta, Record record)
@@ -423,7 +521,7 @@ public class DefaultDataHandler
         switch (column.getType()) {
             case DATE:
                 if (colMeta.type.equals("TIMESTAMP")) {
-                    return dateAsLong(column) + "i64";
+                    return toTimestamp(column, precision) + "i64";
                 }
                 return "L'" + column.asString() + "'";
             case NULL:
@@ -457,7 +555,7 @@ public class DefaultDataHandler
                 }
                 String value = column.asString();
                 value = value.replace("\"", "\\\"");
-                if (colMeta.type.startsWith("BINARY")) {
+                if (colMeta.type.startsWith("BINARY") || colMeta.type.startsWith("VARCHAR")) {
                     return "\"" + value + "\"";
                 }
                 if (colMeta.type.startsWith("NCHAR")) {
@@ -596,4 +694,69 @@ public class DefaultDataHandler
         throw AddaxException.asAddaxException(CONFIG_ERROR,
                 "cannot find col: " + colName + " in columns: " + columns);
     }
+
+    @FunctionalInterface
+    private interface GroupWriter<T>
+    {
+        int write(Session session, Map<String, T> groups)
+                throws SQLException;
+    }
+
+    /*
+     * A connection with the statements and the schemaless writer prepared on it, used by one thread at a time
+     */
+    private final class Session
+    {
+        private final Connection conn;
+        private final boolean owned;
+        private final Map<String, StmtWriter> stmtWriters = new HashMap<>();
+        private SchemalessWriter schemalessWriter;
+
+        Session(Connection conn, boolean owned)
+        {
+            this.conn = conn;
+            this.owned = owned;
+        }
+
+        StmtWriter stmtWriter(String table, List<ColumnMeta> columnMetaList)
+                throws SQLException
+        {
+            StmtWriter stmtWriter = stmtWriters.get(table);
+            if (stmtWriter == null) {
+                stmtWriter = new StmtWriter(conn, table, columnMetaList, columns, precision);
+                stmtWriters.put(table, stmtWriter);
+            }
+            return stmtWriter;
+        }
+
+        SchemalessWriter schemalessWriter()
+                throws SQLException
+        {
+            if (schemalessWriter == null) {
+                schemalessWriter = new SchemalessWriter(conn);
+            }
+            return schemalessWriter;
+        }
+
+        void close()
+        {
+            for (StmtWriter stmtWriter : stmtWriters.values()) {
+                try {
+                    stmtWriter.close();
+                }
+                catch (SQLException e) {
+                    LOG.warn("failed to close the statement: {}", e.getMessage());
+                }
+            }
+            stmtWriters.clear();
+            if (owned) {
+                try {
+                    conn.close();
+                }
+                catch (SQLException e) {
+                    LOG.warn("failed to close the connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,205 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.wgzhao.addax.plugin.writer.tdenginewriter;
+
+import com.taosdata.jdbc.TSDBConnection;
+import com.taosdata.jdbc.TSDBConstants;
+import com.taosdata.jdbc.TSDBPreparedStatement;
+import com.wgzhao.addax.core.element.Column;
+import com.wgzhao.addax.core.element.Record;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Write the rows of a super table with the parameter binding (stmt) interface of the native
+ * connection. The rows of every sub-table are bound as one block of columns, the sub-tables
+ * of a batch are executed together, so neither the statement nor the values are rendered as text.
+ */
+class StmtWriter
+        implements AutoCloseable
+{
+    private final TSDBPreparedStatement pstmt;
+    private final TimestampPrecision precision;
+    private final List<ColumnMeta> tags = new ArrayList<>();
+    private final List<ColumnMeta> fields = new ArrayList<>();
+    private final int[] tagIndexes;
+    private final int[] fieldIndexes;
+
+    StmtWriter(Connection conn, String table, List<ColumnMeta> columnMetas, List<String> columns, TimestampPrecision precision)
+            throws SQLException
+    {
+        this.precision = precision;
+        for (ColumnMeta colMeta : columnMetas) {
+            if (columns.contains(colMeta.field)) {
+                (colMeta.isTag ? tags : fields).add(colMeta);
+            }
+        }
+        this.tagIndexes = tags.stream().mapToInt(colMeta -> columns.indexOf(colMeta.field)).toArray();
+        this.fieldIndexes = fields.stream().mapToInt(colMeta -> columns.indexOf(colMeta.field)).toArray();
+
+        // insert into ? using stb (t1, t2) tags(?, ?) (ts, f1, f2) values(?, ?, ?)
+        String sql = "insert into ? using " + table
+                + tags.stream().map(colMeta -> colMeta.field).collect(Collectors.joining(",", " (", ")"))
+                + tags.stream().map(colMeta -> "?").collect(Collectors.joining(",", " tags(", ")"))
+                + fields.stream().map(colMeta -> colMeta.field).collect(Collectors.joining(",", " (", ")"))
+                + fields.stream().map(colMeta -> "?").collect(Collectors.joining(",", " values(", ")"));
+        this.pstmt = conn.prepareStatement(sql).unwrap(TSDBPreparedStatement.class);
+    }
+
+    /**
+     * Whether the rows of the table can be bound, that is the connection is a native one and
+     * every column written has a type the stmt interface takes.
+     *
+     * @param conn the connection to write with
+     * @param columnMetas the columns of the super table
+     * @param columns the columns configured
+     * @return true if {@link StmtWriter} can write the table
+     */
+    static boolean isSupported(Connection conn, List<ColumnMeta> columnMetas, List<String> columns)
+    {
+        if (!(conn instanceof TSDBConnection)) {
+            return false;
+        }
+        return columnMetas.stream()
+                .filter(colMeta -> columns.contains(colMeta.field))
+                .allMatch(colMeta -> dataType(colMeta) != TSDBConstants.TSDB_DATA_TYPE_NULL
+                        && (colMeta.isTag || dataType(colMeta) != TSDBConstants.TSDB_DATA_TYPE_JSON));
+    }
+
+    /**
+     * Bind the rows of every sub-table and execute them as one batch.
+     *
+     * @param groups the rows of the batch, keyed by sub-table
+     * @return the number of rows written
+     * @throws SQLException if the batch is rejected
+     */
+    int write(Map<String, List<Record>> groups)
+            throws SQLException
+    {
+        int count = 0;
+        for (Map.Entry<String, List<Record>> group : groups.entrySet()) {
+            List<Record> rows = group.getValue();
+            pstmt.setTableName(group.getKey());
+            // a sub-table has a single set of tags, take them from its first row
+            Record first = rows.get(0);
+            for (int i = 0; i < tags.size(); i++) {
+                bindTag(i, tags.get(i), first.getColumn(tagIndexes[i]));
+            }
+            for (int i = 0; i < fields.size(); i++) {
+                bindField(i, fields.get(i), rows, fieldIndexes[i]);
+            }
+            pstmt.columnDataAddBatch();
+            count += rows.size();
+        }
+        pstmt.columnDataExecuteBatch();
+        return count;
+    }
+
+    @Override
+    public void close()
+            throws SQLException
+    {
+        pstmt.columnDataCloseBatch();
+    }
+
+    private void bindTag(int index, ColumnMeta colMeta, Column column)
+            throws SQLException
+    {
+        int type = dataType(colMeta);
+        if (column == null || column.getRawData() == null) {
+            pstmt.setTagNull(index, type);
+            return;
+        }
+        switch (type) {
+            case TSDBConstants.TSDB_DATA_TYPE_TIMESTAMP -> pstmt.setTagTimestamp(index, DefaultDataHandler.toTimestamp(column, precision));
+            case TSDBConstants.TSDB_DATA_TYPE_BOOL -> pstmt.setTagBoolean(index, column.asBoolean());
+            case TSDBConstants.TSDB_DATA_TYPE_TINYINT -> pstmt.setTagByte(index, column.asLong().byteValue());
+            case TSDBConstants.TSDB_DATA_TYPE_SMALLINT -> pstmt.setTagShort(index, column.asLong().shortValue());
+            case TSDBConstants.TSDB_DATA_TYPE_INT -> pstmt.setTagInt(index, column.asLong().intValue());
+            case TSDBConstants.TSDB_DATA_TYPE_BIGINT -> pstmt.setTagLong(index, column.asLong());
+            case TSDBConstants.TSDB_DATA_TYPE_FLOAT -> pstmt.setTagFloat(index, column.asDouble().floatValue());
+            case TSDBConstants.TSDB_DATA_TYPE_DOUBLE -> pstmt.setTagDouble(index, column.asDouble());
+            case TSDBConstants.TSDB_DATA_TYPE_NCHAR -> pstmt.setTagNString(index, column.asString());
+            case TSDBConstants.TSDB_DATA_TYPE_JSON -> pstmt.setTagJson(index, column.asString());
+            default -> pstmt.setTagString(index, column.asString());
+        }
+    }
+
+    private void bindField(int index, ColumnMeta colMeta, List<Record> rows, int columnIndex)
+            throws SQLException
+    {
+        switch (dataType(colMeta)) {
+            case TSDBConstants.TSDB_DATA_TYPE_TIMESTAMP ->
+                    pstmt.setTimestamp(index, values(rows, columnIndex, column -> DefaultDataHandler.toTimestamp(column, precision)));
+            case TSDBConstants.TSDB_DATA_TYPE_BOOL -> pstmt.setBoolean(index, values(rows, columnIndex, Column::asBoolean));
+            case TSDBConstants.TSDB_DATA_TYPE_TINYINT -> pstmt.setByte(index, values(rows, columnIndex, column -> column.asLong().byteValue()));
+            case TSDBConstants.TSDB_DATA_TYPE_SMALLINT -> pstmt.setShort(index, values(rows, columnIndex, column -> column.asLong().shortValue()));
+            case TSDBConstants.TSDB_DATA_TYPE_INT -> pstmt.setInt(index, values(rows, columnIndex, column -> column.asLong().intValue()));
+            case TSDBConstants.TSDB_DATA_TYPE_BIGINT -> pstmt.setLong(index, values(rows, columnIndex, Column::asLong));
+            case TSDBConstants.TSDB_DATA_TYPE_FLOAT -> pstmt.setFloat(index, values(rows, columnIndex, column -> column.asDouble().floatValue()));
+            case TSDBConstants.TSDB_DATA_TYPE_DOUBLE -> pstmt.setDouble(index, values(rows, columnIndex, Column::asDouble));
+            case TSDBConstants.TSDB_DATA_TYPE_NCHAR -> pstmt.setNString(index, values(rows, columnIndex, Column::asString), colMeta.length);
+            default -> pstmt.setString(index, values(rows, columnIndex, Column::asString), colMeta.length);
+        }
+    }
+
+    private static <T> ArrayList<T> values(List<Record> rows, int columnIndex, Function<Column, T> converter)
+    {
+        ArrayList<T> values = new ArrayList<>(rows.size());
+        for (Record row : rows) {
+            Column column = row.getColumn(columnIndex);
+            values.add(column == null || column.getRawData() == null ? null : converter.apply(column));
+        }
+        return values;
+    }
+
+    /*
+     * The type of the column as the stmt interface knows it, TSDB_DATA_TYPE_NULL if it can not be bound,
+     * such as the unsigned integers, which the SQL path writes instead
+     */
+    private static int dataType(ColumnMeta colMeta)
+    {
+        String type = colMeta.type.toUpperCase();
+        int paren = type.indexOf('(');
+        if (paren > 0) {
+            type = type.substring(0, paren);
+        }
+        return switch (type.trim()) {
+            case "TIMESTAMP" -> TSDBConstants.TSDB_DATA_TYPE_TIMESTAMP;
+            case "BOOL" -> TSDBConstants.TSDB_DATA_TYPE_BOOL;
+            case "TINYINT" -> TSDBConstants.TSDB_DATA_TYPE_TINYINT;
+            case "SMALLINT" -> TSDBConstants.TSDB_DATA_TYPE_SMALLINT;
+            case "INT" -> TSDBConstants.TSDB_DATA_TYPE_INT;
+            case "BIGINT" -> TSDBConstants.TSDB_DATA_TYPE_BIGINT;
+            case "FLOAT" -> TSDBConstants.TSDB_DATA_TYPE_FLOAT;
+            case "DOUBLE" -> TSDBConstants.TSDB_DATA_TYPE_DOUBLE;
+            case "BINARY", "VARCHAR" -> TSDBConstants.TSDB_DATA_TYPE_BINARY;
+            case "NCHAR" -> TSDBConstants.TSDB_DATA_TYPE_NCHAR;
+            case "JSON" -> TSDBConstants.TSDB_DATA_TYPE_JSON;
+            default -> TSDBConstants.TSDB_DATA_TYPE_NULL;
+        };
+    }
+}
@@ -25,4 +25,6 @@ public class TDKey
         extends Key
 {
     public static final String IGNORE_TAGS_UNMATCHED = "ignoreTagsUnmatched";
+    // the number of connections a task writes sub-tables over concurrently
+    public static final String SESSIONS = "sessions";
 }
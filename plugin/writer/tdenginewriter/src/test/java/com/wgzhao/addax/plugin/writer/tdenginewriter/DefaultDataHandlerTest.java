@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.writer.tdenginewriter;
+
+import com.wgzhao.addax.core.element.Column;
+import com.wgzhao.addax.core.element.DateColumn;
+import com.wgzhao.addax.core.element.DoubleColumn;
+import com.wgzhao.addax.core.element.LongColumn;
+import com.wgzhao.addax.core.element.Record;
+import com.wgzhao.addax.core.element.StringColumn;
+import com.wgzhao.addax.core.plugin.RecordReceiver;
+import com.wgzhao.addax.core.plugin.TaskPluginCollector;
+import com.wgzhao.addax.core.transport.record.DefaultRecord;
+import com.wgzhao.addax.core.util.Configuration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Renders and groups the rows of the handler, and writes them over a stub JDBC driver, so
+ * that no TDengine server is needed.
+ */
+class DefaultDataHandlerTest
+{
+    private static final StubDriver DRIVER = new StubDriver();
+
+    @BeforeAll
+    static void registerDriver()
+            throws SQLException
+    {
+        DriverManager.registerDriver(DRIVER);
+    }
+
+    @AfterAll
+    static void deregisterDriver()
+            throws SQLException
+    {
+        DriverManager.deregisterDriver(DRIVER);
+    }
+
+    @BeforeEach
+    void resetDriver()
+    {
+        StubDriver.reset();
+    }
+
+    @Test
+    void tagValuesAreEscaped()
+    {
+        assertEquals("San\\ Francisco\\,CA\\=US", DefaultDataHandler.escapeTag("San Francisco,CA=US"));
+        assertEquals("plain", DefaultDataHandler.escapeTag("plain"));
+        assertEquals("", DefaultDataHandler.escapeTag(null));
+    }
+
+    @Test
+    void timestampsFollowThePrecisionOfTheDatabase()
+    {
+        Column date = new DateColumn(1700000000123L);
+        assertEquals(1700000000123L, DefaultDataHandler.toTimestamp(date, TimestampPrecision.MILLISEC));
+        assertEquals(1700000000123000L, DefaultDataHandler.toTimestamp(date, TimestampPrecision.MICROSEC));
+        assertEquals(1700000000123000000L, DefaultDataHandler.toTimestamp(date, TimestampPrecision.NANOSEC));
+
+        // the fraction of a string is kept up to the precision
+        Column string = new StringColumn("2023-11-14 22:13:20.123456789");
+        long seconds = Timestamp.valueOf("2023-11-14 22:13:20").getTime() / 1000;
+        assertEquals(seconds * 1000 + 123, DefaultDataHandler.toTimestamp(string, TimestampPrecision.MILLISEC));
+        assertEquals(seconds * 1000_000 + 123456, DefaultDataHandler.toTimestamp(string, TimestampPrecision.MICROSEC));
+        assertEquals(seconds * 1000_000_000 + 123456789, DefaultDataHandler.toTimestamp(string, TimestampPrecision.NANOSEC));
+
+        // a number is already in the precision of the database
+        assertEquals(42L, DefaultDataHandler.toTimestamp(new LongColumn(42), TimestampPrecision.NANOSEC));
+        assertNull(DefaultDataHandler.toTimestamp(new LongColumn((Long) null), TimestampPrecision.MILLISEC));
+        assertNull(DefaultDataHandler.toTimestamp(null, TimestampPrecision.MILLISEC));
+    }
+
+    @Test
+    void linesAreRenderedAndGroupedBySeries()
+    {
+        DefaultDataHandler handler = newHandler(List.of("meters"), List.of("ts", "current", "voltage", "note", "label", "location", "groupid"), 100, 1);
+        handler.setColumnMetas(Map.of("meters", meterColumns()));
+        handler.setPrecision(TimestampPrecision.MILLISEC);
+
+        List<Record> records = List.of(
+                meter(1000, 10.5, 220, "say \"hi\"", "标签", "San Francisco,CA", 2),
+                meter(1001, 11.0, 221, "b", "l", "Los Angeles", 3),
+                meter(1002, 12.5, 222, "c", "l", "San Francisco,CA", 2));
+        Map<String, List<String>> series = handler.toSeries("meters", records);
+
+        assertEquals(List.of("meters,location=San\\ Francisco\\,CA,groupid=2", "meters,location=Los\\ Angeles,groupid=3"),
+                new ArrayList<>(series.keySet()));
+        assertEquals(List.of(
+                        "meters,location=San\\ Francisco\\,CA,groupid=2 current=10.5f32,voltage=220i32,note=\"say \\\"hi\\\"\",label=L\"标签\" 1000",
+                        "meters,location=San\\ Francisco\\,CA,groupid=2 current=12.5f32,voltage=222i32,note=\"c\",label=L\"l\" 1002"),
+                series.get("meters,location=San\\ Francisco\\,CA,groupid=2"));
+        assertEquals(List.of("meters,location=Los\\ Angeles,groupid=3 current=11.0f32,voltage=221i32,note=\"b\",label=L\"l\" 1001"),
+                series.get("meters,location=Los\\ Angeles,groupid=3"));
+    }
+
+    @Test
+    void batchOfExactlyBatchSizeRecordsKeepsEveryRecord()
+    {
+        for (int count : new int[] {3, 6, 7}) {
+            StubDriver.reset();
+            normalTable();
+            DefaultDataHandler handler = newHandler(List.of("t"), List.of("ts", "v"), 3, 1);
+
+            List<Record> records = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Record record = new DefaultRecord();
+                record.addColumn(new LongColumn(1000 + i));
+                record.addColumn(new LongColumn(i));
+                records.add(record);
+            }
+
+            assertEquals(count, handler.handle(receiver(records), new DiscardingCollector()));
+            List<String> updates = StubDriver.UPDATES.get(0);
+            assertEquals((count + 2) / 3, updates.size());
+            assertEquals(count, updates.stream().mapToInt(StubDriver::rows).sum());
+        }
+    }
+
+    @Test
+    void subTablesStayOnOneSessionEach()
+    {
+        superTable();
+        DefaultDataHandler handler = newHandler(List.of("meters"), List.of("tbname", "ts", "voltage", "groupid"), 5, 3);
+
+        // six sub-tables, interleaved over three batches
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            Record record = new DefaultRecord();
+            record.addColumn(new StringColumn("d" + (i % 6)));
+            record.addColumn(new LongColumn(1000 + i));
+            record.addColumn(new LongColumn(200 + i));
+            record.addColumn(new LongColumn(i % 6));
+            records.add(record);
+        }
+
+        assertEquals(15, handler.handle(receiver(records), new DiscardingCollector()));
+
+        // the connection of every sub-table, and the timestamps written to it
+        Map<String, Integer> sessionOf = new HashMap<>();
+        Map<String, List<Long>> written = new HashMap<>();
+        Pattern row = Pattern.compile("(d\\d) using meters tags\\(\\d+\\) \\(ts,voltage\\) values\\((\\d+),");
+        StubDriver.UPDATES.forEach((connection, updates) -> {
+            for (String sql : updates) {
+                Matcher matcher = row.matcher(sql);
+                while (matcher.find()) {
+                    Integer previous = sessionOf.put(matcher.group(1), connection);
+                    if (previous != null) {
+                        assertEquals(previous, connection, "sub-table " + matcher.group(1) + " moved to another session");
+                    }
+                    written.computeIfAbsent(matcher.group(1), k -> new ArrayList<>()).add(Long.parseLong(matcher.group(2)));
+                }
+            }
+        });
+        assertEquals(6, sessionOf.size());
+        for (int i = 0; i < 6; i++) {
+            // in the order of the reader
+            List<Long> expected = i < 3 ? List.of(1000L + i, 1006L + i, 1012L + i) : List.of(1000L + i, 1006L + i);
+            assertEquals(expected, written.get("d" + i));
+        }
+        // the sub-tables are spread over every session
+        assertEquals(3, StubDriver.UPDATES.size());
+    }
+
+    private static DefaultDataHandler newHandler(List<String> tables, List<String> columns, int batchSize, int sessions)
+    {
+        Configuration conf = Configuration.newDefault();
+        conf.set("jdbcUrl", StubDriver.URL);
+        conf.set("table", tables);
+        conf.set("column", columns);
+        conf.set("batchSize", batchSize);
+        conf.set(TDKey.SESSIONS, sessions);
+        return new DefaultDataHandler(conf);
+    }
+
+    private static void database()
+    {
+        StubDriver.QUERIES.put("select database()", List.of(Map.of("database()", "test")));
+        StubDriver.QUERIES.put("show databases", List.of(Map.of("name", "test", "precision", "ms")));
+    }
+
+    private static void normalTable()
+    {
+        database();
+        StubDriver.QUERIES.put("show tables", List.of(Map.of("table_name", "t", "stable_name", "", "columns", 2)));
+        StubDriver.QUERIES.put("describe t", List.of(column("ts", "TIMESTAMP", ""), column("v", "BIGINT", "")));
+    }
+
+    private static void superTable()
+    {
+        database();
+        StubDriver.QUERIES.put("show stables", List.of(Map.of("name", "meters", "columns", 2, "tags", 1, "tables", 6)));
+        StubDriver.QUERIES.put("describe meters", List.of(column("ts", "TIMESTAMP", ""), column("voltage", "INT", ""),
+                column("groupid", "INT", "TAG")));
+    }
+
+    private static Map<String, Object> column(String field, String type, String note)
+    {
+        return Map.of("Field", field, "Type", type, "Length", 8, "Note", note);
+    }
+
+    private static List<ColumnMeta> meterColumns()
+    {
+        List<ColumnMeta> columnMetas = new ArrayList<>();
+        columnMetas.add(columnMeta("ts", "TIMESTAMP", false, true));
+        columnMetas.add(columnMeta("current", "FLOAT", false, false));
+        columnMetas.add(columnMeta("voltage", "INT", false, false));
+        columnMetas.add(columnMeta("note", "VARCHAR", false, false));
+        columnMetas.add(columnMeta("label", "NCHAR", false, false));
+        columnMetas.add(columnMeta("location", "VARCHAR", true, false));
+        columnMetas.add(columnMeta("groupid", "INT", true, false));
+        return columnMetas;
+    }
+
+    private static ColumnMeta columnMeta(String field, String type, boolean isTag, boolean isPrimaryKey)
+    {
+        ColumnMeta columnMeta = new ColumnMeta();
+        columnMeta.field = field;
+        columnMeta.type = type;
+        columnMeta.isTag = isTag;
+        columnMeta.isPrimaryKey = isPrimaryKey;
+        return columnMeta;
+    }
+
+    private static Record meter(long ts, double current, long voltage, String note, String label, String location, long groupId)
+    {
+        Record record = new DefaultRecord();
+        record.addColumn(new LongColumn(ts));
+        record.addColumn(new DoubleColumn(current));
+        record.addColumn(new LongColumn(voltage));
+        record.addColumn(new StringColumn(note));
+        record.addColumn(new StringColumn(label));
+        record.addColumn(new StringColumn(location));
+        record.addColumn(new LongColumn(groupId));
+        return record;
+    }
+
+    private static RecordReceiver receiver(List<Record> records)
+    {
+        Iterator<Record> iterator = records.iterator();
+        return new RecordReceiver()
+        {
+            @Override
+            public Record getFromReader()
+            {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+            @Override
+            public void shutdown()
+            {
+            }
+        };
+    }
+
+    private static final class DiscardingCollector
+            extends TaskPluginCollector
+    {
+        @Override
+        public void collectDirtyRecord(Record dirtyRecord, Throwable t, String errorMessage)
+        {
+            throw new AssertionError(errorMessage);
+        }
+
+        @Override
+        public void collectMessage(String key, String value)
+        {
+        }
+    }
+}
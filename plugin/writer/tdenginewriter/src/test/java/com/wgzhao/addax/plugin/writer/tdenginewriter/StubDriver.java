@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.wgzhao.addax.plugin.writer.tdenginewriter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * A JDBC driver for {@code jdbc:stub:} urls, which answers the queries from canned rows and
+ * records the updates by connection, counting a row for every group of values.
+ */
+public class StubDriver
+        implements Driver
+{
+    static final String URL = "jdbc:stub:tdengine";
+
+    // the rows of the queries, by statement
+    static final Map<String, List<Map<String, Object>>> QUERIES = new ConcurrentHashMap<>();
+    // the updates executed, by the number of the connection, from 0
+    static final Map<Integer, List<String>> UPDATES = new ConcurrentHashMap<>();
+    private static final AtomicInteger CONNECTIONS = new AtomicInteger();
+
+    static void reset()
+    {
+        QUERIES.clear();
+        UPDATES.clear();
+        CONNECTIONS.set(0);
+    }
+
+    @Override
+    public Connection connect(String url, Properties info)
+    {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        int number = CONNECTIONS.getAndIncrement();
+        return proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+            case "createStatement" -> statement(number);
+            case "close" -> null;
+            case "isClosed" -> false;
+            case "toString" -> "connection " + number;
+            case "hashCode" -> number;
+            case "equals" -> proxy == args[0];
+            default -> throw new SQLFeatureNotSupportedException(method.getName());
+        });
+    }
+
+    private static Statement statement(int connection)
+    {
+        return proxy(Statement.class, (proxy, method, args) -> switch (method.getName()) {
+            case "executeQuery" -> resultSet(QUERIES.getOrDefault((String) args[0], List.of()));
+            case "executeUpdate" -> {
+                String sql = (String) args[0];
+                UPDATES.computeIfAbsent(connection, k -> new CopyOnWriteArrayList<>()).add(sql);
+                yield rows(sql);
+            }
+            case "close" -> null;
+            default -> throw new SQLFeatureNotSupportedException(method.getName());
+        });
+    }
+
+    /*
+     * The rows of an insert, a super table insert has values for every row, the others a group
+     * of values for every row. The values themselves hold no parentheses.
+     */
+    static int rows(String sql)
+    {
+        if (sql.contains(" using ")) {
+            return sql.split(" values\\(", -1).length - 1;
+        }
+        int rows = 0;
+        for (int i = sql.indexOf(" values"); i < sql.length(); i++) {
+            if (sql.charAt(i) == '(') {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static ResultSet resultSet(List<Map<String, Object>> rows)
+    {
+        Iterator<Map<String, Object>> iterator = rows.iterator();
+        Map<String, Object>[] current = new Map[1];
+        return proxy(ResultSet.class, (proxy, method, args) -> switch (method.getName()) {
+            case "next" -> {
+                current[0] = iterator.hasNext() ? iterator.next() : null;
+                yield current[0] != null;
+            }
+            case "getString" -> {
+                Object value = current[0].get((String) args[0]);
+                yield value == null ? null : value.toString();
+            }
+            case "getInt" -> ((Number) current[0].getOrDefault((String) args[0], 0)).intValue();
+            case "getObject" -> current[0].get((String) args[0]);
+            case "close" -> null;
+            default -> throw new SQLFeatureNotSupportedException(method.getName());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler)
+    {
+        return (T) Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    @Override
+    public boolean acceptsURL(String url)
+    {
+        return url != null && url.startsWith("jdbc:stub:");
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info)
+    {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion()
+    {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion()
+    {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant()
+    {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger()
+            throws SQLFeatureNotSupportedException
+    {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
@@ -17,7 +17,8 @@
 
 package com.wgzhao.addax.server;
 
-import com.wgzhao.addax.server.manager.TaskManager;
+import com.wgzhao.addax.core.statistics.MetricsExporter;
+import com.wgzhao.addax.server.manager.JobQueue;
 import com.wgzhao.addax.server.service.TaskService;
 import com.wgzhao.addax.server.model.TaskInfo;
 
@@ -37,15 +38,19 @@ import java.util.HashMap;
 import java.net.URLDecoder;
 
 /**
- * Minimal HTTP server using JDK HttpServer. Provides /api/submit and /api/status endpoints.
+ * Minimal HTTP server using JDK HttpServer. Provides /api/submit and /api/status endpoints,
+ * and the Prometheus metrics of the running jobs and of the job queue at /metrics.
  */
 public class AddaxServer
 {
     private static final int DEFAULT_PORT = 10601;
     private static final int DEFAULT_PARALLEL = 30;
+    private static final int DEFAULT_MAX_CHANNELS = 256;
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
 
     /**
-     * Main entry. Accepts optional args: {@code -p|--parallel &lt;n&gt;} and {@code --port &lt;port&gt;}.
+     * Main entry. Accepts optional args: {@code -p|--parallel &lt;n&gt;}, {@code --port &lt;port&gt;},
+     * {@code --max-channels &lt;n&gt;} and {@code --queue-size &lt;n&gt;}.
      *
      * @param args command line arguments
      * @throws Exception on startup error
@@ -55,6 +60,8 @@ public class AddaxServer
     {
         int port = DEFAULT_PORT;
         int parallel = DEFAULT_PARALLEL;
+        int maxChannels = DEFAULT_MAX_CHANNELS;
+        int queueSize = DEFAULT_QUEUE_SIZE;
 
         for (int i = 0; i < args.length; i++) {
             switch (args[i]) {
@@ -77,21 +84,41 @@ public class AddaxServer
                         }
                     }
                     break;
+                case "--max-channels":
+                    if (i + 1 < args.length) {
+                        try {
+                            maxChannels = Integer.parseInt(args[++i]);
+                        }
+                        catch (NumberFormatException ignored) {
+                        }
+                    }
+                    break;
+                case "--queue-size":
+                    if (i + 1 < args.length) {
+                        try {
+                            queueSize = Integer.parseInt(args[++i]);
+                        }
+                        catch (NumberFormatException ignored) {
+                        }
+                    }
+                    break;
                 default:
                     // ignore
             }
         }
 
-        TaskManager.setMaxConcurrentTasks(parallel);
         ExecutorService executor = Executors.newCachedThreadPool();
-        TaskService taskService = new TaskService(executor);
+        JobQueue jobQueue = new JobQueue(executor, queueSize, parallel, maxChannels);
+        TaskService taskService = new TaskService(jobQueue);
 
         HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
         server.createContext("/api/submit", new SubmitHandler(taskService));
         server.createContext("/api/status", new StatusHandler(taskService));
+        server.createContext("/metrics", new MetricsHandler(jobQueue));
         server.setExecutor(Executors.newFixedThreadPool(Math.max(2, parallel)));
 
-        System.out.println("Starting Addax minimal HTTP server on port " + port + " with maxParallel=" + parallel);
+        System.out.println("Starting Addax minimal HTTP server on port " + port + " with maxParallel=" + parallel
+                + ", maxChannels=" + maxChannels + ", queueSize=" + queueSize);
         server.start();
     }
 
@@ -207,6 +234,36 @@ public class AddaxServer
         }
     }
 
+    record MetricsHandler(JobQueue jobQueue)
+            implements HttpHandler
+    {
+        @Override
+        public void handle(HttpExchange exchange)
+                throws IOException
+        {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String metrics = MetricsExporter.scrape()
+                    + "# HELP addax_server_queued_jobs Jobs waiting in the queue\n"
+                    + "# TYPE addax_server_queued_jobs gauge\n"
+                    + "addax_server_queued_jobs " + jobQueue.getQueuedJobs() + "\n"
+                    + "# HELP addax_server_running_jobs Jobs admitted and running\n"
+                    + "# TYPE addax_server_running_jobs gauge\n"
+                    + "addax_server_running_jobs " + jobQueue.getRunningJobs() + "\n"
+                    + "# HELP addax_server_used_channels Channels used by the running jobs\n"
+                    + "# TYPE addax_server_used_channels gauge\n"
+                    + "addax_server_used_channels " + jobQueue.getUsedChannels() + "\n";
+            byte[] bytes = metrics.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", MetricsExporter.CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        }
+    }
+
     static String escapeJson(String s)
     {
         if (s == null) {
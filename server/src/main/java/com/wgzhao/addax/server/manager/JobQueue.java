@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.server.manager;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * A bounded priority queue of submitted jobs, admitted by the total number of channels they run.
+ * <p>
+ * Jobs are started by priority, higher first, then in submission order. The head of the queue
+ * starts as soon as it fits within both the running job limit and the channel budget, and smaller
+ * jobs behind it wait, so a large job is never starved. A job asking for more channels than the
+ * whole budget still runs, alone. Dispatching happens on submission and on completion, there is
+ * no polling.
+ * <p>
+ * Jobs also carry a group, and only jobs of the same group run at the same time. The server groups
+ * jobs by their column casting settings, which are bound for the whole JVM, so that a job never
+ * converts its dates or bytes with the settings of another one. The head of the queue waits for
+ * the jobs of other groups to finish like it waits for channels.
+ */
+public class JobQueue
+{
+    private final ExecutorService executor;
+    private final int capacity;
+    private final int maxRunningJobs;
+    private final int maxChannels;
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(
+            Comparator.comparingInt(Entry::priority).reversed().thenComparingLong(Entry::sequence));
+    private long sequence = 0;
+    private int runningJobs = 0;
+    private int usedChannels = 0;
+    private String runningGroup = null;
+
+    /**
+     * @param executor the executor running the jobs
+     * @param capacity the maximum number of jobs waiting in the queue
+     * @param maxRunningJobs the maximum number of jobs running at the same time
+     * @param maxChannels the maximum number of channels of all the running jobs
+     */
+    public JobQueue(ExecutorService executor, int capacity, int maxRunningJobs, int maxChannels)
+    {
+        this.executor = executor;
+        this.capacity = capacity;
+        this.maxRunningJobs = maxRunningJobs;
+        this.maxChannels = maxChannels;
+    }
+
+    /**
+     * Queue a job.
+     *
+     * @param priority the priority of the job, higher runs first
+     * @param channels the number of channels the job runs with
+     * @param group the group of the job, only jobs of the same group run together
+     * @param job the job itself
+     * @return false if the queue is full
+     */
+    public synchronized boolean offer(int priority, int channels, String group, Runnable job)
+    {
+        if (queue.size() >= capacity) {
+            return false;
+        }
+        queue.add(new Entry(priority, Math.max(1, channels), group, sequence++, job));
+        dispatch();
+        return true;
+    }
+
+    public synchronized int getQueuedJobs()
+    {
+        return queue.size();
+    }
+
+    public synchronized int getRunningJobs()
+    {
+        return runningJobs;
+    }
+
+    public synchronized int getUsedChannels()
+    {
+        return usedChannels;
+    }
+
+    private void dispatch()
+    {
+        while (!queue.isEmpty() && runningJobs < maxRunningJobs) {
+            Entry head = queue.peek();
+            if (runningJobs > 0 && (usedChannels + head.channels() > maxChannels || !runningGroup.equals(head.group()))) {
+                return;
+            }
+            queue.poll();
+            runningJobs++;
+            usedChannels += head.channels();
+            runningGroup = head.group();
+            try {
+                executor.execute(() -> {
+                    try {
+                        head.job().run();
+                    }
+                    finally {
+                        release(head);
+                    }
+                });
+            }
+            catch (RuntimeException e) {
+                runningJobs--;
+                usedChannels -= head.channels();
+                throw e;
+            }
+        }
+    }
+
+    private synchronized void release(Entry entry)
+    {
+        runningJobs--;
+        usedChannels -= entry.channels();
+        dispatch();
+    }
+
+    private record Entry(int priority, int channels, String group, long sequence, Runnable job) {}
+}
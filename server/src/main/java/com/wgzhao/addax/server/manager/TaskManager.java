@@ -19,39 +19,14 @@ package com.wgzhao.addax.server.manager;
 
 import com.wgzhao.addax.server.model.TaskInfo;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Semaphore;
 import java.util.Map;
 
 /**
  * Manages the lifecycle, status, and results of tasks.
- * Controls the maximum number of concurrent running tasks.
+ * How many of them run at the same time is decided by {@link JobQueue}.
  */
 public class TaskManager {
     private static final Map<String, TaskInfo> tasks = new ConcurrentHashMap<>();
-    private static Semaphore semaphore = new Semaphore(30); // Default max concurrent tasks
-
-    /**
-     * Set the maximum number of concurrent running tasks.
-     * @param maxTasks maximum concurrent tasks
-     */
-    public static void setMaxConcurrentTasks(int maxTasks) {
-        semaphore = new Semaphore(maxTasks);
-    }
-
-    /**
-     * Try to acquire a slot for a new running task.
-     * @return true if acquired, false if limit reached
-     */
-    public static boolean tryAcquireSlot() {
-        return semaphore.tryAcquire();
-    }
-
-    /**
-     * Release a slot when a task finishes.
-     */
-    public static void releaseSlot() {
-        semaphore.release();
-    }
 
     /**
      * Add a new task to the manager.
@@ -61,6 +36,14 @@ public class TaskManager {
         tasks.put(taskInfo.getTaskId(), taskInfo);
     }
 
+    /**
+     * Remove a task which has not been accepted.
+     * @param taskId task ID
+     */
+    public static void removeTask(String taskId) {
+        tasks.remove(taskId);
+    }
+
     /**
      * Get task information by task ID.
      * @param taskId task ID
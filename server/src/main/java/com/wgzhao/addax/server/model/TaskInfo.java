@@ -19,7 +19,7 @@ package com.wgzhao.addax.server.model;
 
 public class TaskInfo {
     public enum Status {
-        RUNNING, SUCCESS, FAILED
+        QUEUED, RUNNING, SUCCESS, FAILED
     }
 
     private final String taskId;
@@ -29,7 +29,7 @@ public class TaskInfo {
 
     public TaskInfo(String taskId) {
         this.taskId = taskId;
-        this.status = Status.RUNNING;
+        this.status = Status.QUEUED;
     }
 
     // getters and setters
@@ -17,53 +17,72 @@
 
 package com.wgzhao.addax.server.service;
 
+import com.wgzhao.addax.core.Engine;
+import com.wgzhao.addax.core.element.ColumnCast;
+import com.wgzhao.addax.core.util.ConfigParser;
+import com.wgzhao.addax.core.util.Configuration;
+import com.wgzhao.addax.server.manager.JobQueue;
 import com.wgzhao.addax.server.manager.TaskManager;
 import com.wgzhao.addax.server.model.TaskInfo;
 
-import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
+
+import static com.wgzhao.addax.core.util.container.CoreConstant.JOB_SETTING_SPEED_CHANNEL;
 
 /**
- * Service for submitting and executing tasks using a provided ExecutorService.
- * This implementation uses only JDK classes (no external web framework) and
- * invokes Addax Engine via reflection.
+ * Service for submitting and executing tasks through a {@link JobQueue}.
+ * The job runs in the server JVM, reusing the plugin class loaders and the parsed
+ * plugin configurations of the previous jobs, and its query parameters are variables
+ * of that job only rather than JVM wide system properties.
  */
 public class TaskService
 {
-    private final ExecutorService executor;
+    private static final String PRIORITY_PARAM = "priority";
+
+    private final JobQueue jobQueue;
 
     /**
-     * Construct TaskService with an ExecutorService used to run tasks asynchronously.
+     * Construct TaskService with the queue the submitted jobs wait in.
      *
-     * @param executor ExecutorService instance
+     * @param jobQueue JobQueue instance
      */
-    public TaskService(ExecutorService executor)
+    public TaskService(JobQueue jobQueue)
     {
-        this.executor = executor;
+        this.jobQueue = jobQueue;
     }
 
     /**
      * Submit a task with explicit parameters. The job JSON must be provided in the body
-     * of the POST request. Other parameters (e.g. name, jvm) are provided as query params.
-     * This method accepts a raw jvmParam string (can be JSON object) and will try to parse it.
+     * of the POST request. Other parameters are provided as query params and replace the
+     * {@code ${name}} placeholders of this job, {@code priority} orders the queue, higher first.
      *
      * @param jobJson job JSON content from request body
-     * @param params optional jvm parameter string (JSON object or empty)
+     * @param params the variables of the job
      * @return taskId if accepted, or an error string starting with "ERROR:"
      */
     public String submitTask(String jobJson, Map<String, String> params)
     {
-        // currently name and jvmMap are passed to task execution; jvmMap is not used to spawn JVMs
-        if (!TaskManager.tryAcquireSlot()) {
-            return "ERROR: Maximum number of concurrent tasks reached.";
+        // parse at submission, so that a broken job is refused at once and the channels it needs are known
+        Configuration configuration = ConfigParser.parse(Configuration.from(jobJson, params), params);
+        int channels = configuration.getInt(JOB_SETTING_SPEED_CHANNEL, 1);
+        int priority = 0;
+        try {
+            priority = Integer.parseInt(params.getOrDefault(PRIORITY_PARAM, "0"));
         }
+        catch (NumberFormatException ignored) {
+        }
+
         String taskId = UUID.randomUUID().toString();
         TaskInfo info = new TaskInfo(taskId);
         TaskManager.addTask(info);
 
-        executor.submit(() -> runTask(taskId, params, jobJson));
+        // the casting settings are global, jobs which differ in them do not run together
+        String castSettings = ColumnCast.settingsOf(configuration);
+        if (!jobQueue.offer(priority, channels, castSettings, () -> runTask(taskId, configuration))) {
+            TaskManager.removeTask(taskId);
+            return "ERROR: The job queue is full.";
+        }
         return taskId;
     }
 
@@ -78,43 +97,15 @@ public class TaskService
         return TaskManager.getTask(taskId);
     }
 
-    private void runTask(String taskId, Map<String, String> params, String jobJson)
+    private void runTask(String taskId, Configuration configuration)
     {
-        java.nio.file.Path tmp = null;
-        params.forEach(System::setProperty);
+        TaskManager.updateTask(taskId, TaskInfo.Status.RUNNING, null, null);
         try {
-            // write job JSON to a temporary file
-            tmp = java.nio.file.Files.createTempFile("addax-job-", ".json");
-            java.nio.file.Files.writeString(tmp, jobJson == null ? "" : jobJson, java.nio.charset.StandardCharsets.UTF_8);
-
-            // Call Engine.entry(String[] args) to run job without invoking System.exit
-            Class<?> engineClass = Class.forName("com.wgzhao.addax.core.Engine");
-            try {
-                Method entryMethod = engineClass.getMethod("entry", String[].class);
-                String[] args = new String[] {"-job", tmp.toString()};
-                // invoke static method; cast to Object to avoid varargs expansion
-                entryMethod.invoke(null, (Object) args);
-            }
-            catch (NoSuchMethodException nsme) {
-                // Fallback: try calling main(String[]), but main calls System.exit so avoid it.
-                throw new RuntimeException("Engine.entry(String[]) not found; cannot safely invoke Engine.main from server process.", nsme);
-            }
-
+            Engine.run(configuration);
             TaskManager.updateTask(taskId, TaskInfo.Status.SUCCESS, "Job executed.", null);
         }
         catch (Throwable e) {
             TaskManager.updateTask(taskId, TaskInfo.Status.FAILED, null, e.toString());
         }
-        finally {
-            // cleanup temp file
-            if (tmp != null) {
-                try {
-                    java.nio.file.Files.deleteIfExists(tmp);
-                }
-                catch (Exception ignored) {
-                }
-            }
-            TaskManager.releaseSlot();
-        }
     }
 }
@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.wgzhao.addax.server.manager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobQueueTest
+{
+    private final ManualExecutor executor = new ManualExecutor();
+    private final List<String> started = new ArrayList<>();
+
+    @Test
+    void jobsStartWithinTheChannelBudget()
+    {
+        JobQueue queue = new JobQueue(executor, 10, 10, 8);
+        offer(queue, 0, 4, "a", "j1");
+        offer(queue, 0, 4, "a", "j2");
+        offer(queue, 0, 1, "a", "j3");
+
+        executor.startAll();
+        assertEquals(List.of("j1", "j2"), started);
+        assertEquals(8, queue.getUsedChannels());
+        assertEquals(1, queue.getQueuedJobs());
+
+        executor.finish("j1");
+        executor.startAll();
+        assertEquals(List.of("j1", "j2", "j3"), started);
+        assertEquals(5, queue.getUsedChannels());
+    }
+
+    @Test
+    void aJobLargerThanTheBudgetRunsAlone()
+    {
+        JobQueue queue = new JobQueue(executor, 10, 10, 8);
+        offer(queue, 0, 1, "a", "small");
+        offer(queue, 0, 20, "a", "large");
+        executor.startAll();
+        assertEquals(List.of("small"), started);
+
+        executor.finish("small");
+        executor.startAll();
+        assertEquals(List.of("small", "large"), started);
+        assertEquals(1, queue.getRunningJobs());
+    }
+
+    @Test
+    void higherPriorityFirstThenSubmissionOrder()
+    {
+        JobQueue queue = new JobQueue(executor, 10, 1, 8);
+        offer(queue, 0, 1, "a", "first");
+        offer(queue, 0, 1, "a", "low");
+        offer(queue, 5, 1, "a", "high");
+        offer(queue, 0, 1, "a", "last");
+
+        for (String name : List.of("first", "high", "low", "last")) {
+            executor.startAll();
+            assertEquals(name, started.get(started.size() - 1));
+            executor.finish(name);
+        }
+    }
+
+    @Test
+    void jobsOfDifferentGroupsDoNotRunTogether()
+    {
+        JobQueue queue = new JobQueue(executor, 10, 10, 8);
+        offer(queue, 0, 1, "utc", "j1");
+        offer(queue, 0, 1, "gmt+8", "j2");
+        offer(queue, 0, 1, "utc", "j3");
+        executor.startAll();
+        // the head waits for the other group, and the jobs behind it wait for the head
+        assertEquals(List.of("j1"), started);
+
+        executor.finish("j1");
+        executor.startAll();
+        assertEquals(List.of("j1", "j2"), started);
+
+        executor.finish("j2");
+        executor.startAll();
+        assertEquals(List.of("j1", "j2", "j3"), started);
+    }
+
+    @Test
+    void aFullQueueRefusesJobs()
+    {
+        JobQueue queue = new JobQueue(executor, 1, 1, 8);
+        assertTrue(offer(queue, 0, 1, "a", "running"));
+        assertTrue(offer(queue, 0, 1, "a", "queued"));
+        assertFalse(offer(queue, 0, 1, "a", "refused"));
+    }
+
+    private boolean offer(JobQueue queue, int priority, int channels, String group, String name)
+    {
+        return queue.offer(priority, channels, group, executor.job(name));
+    }
+
+    /*
+     * Runs every job in a thread of its own. A job records its name once started, then blocks
+     * until the test finishes it, when the queue releases its channels and dispatches again.
+     */
+    private final class ManualExecutor
+            extends AbstractExecutorService
+    {
+        private final Map<String, CountDownLatch> finishes = new ConcurrentHashMap<>();
+        private final Map<String, Thread> threads = new ConcurrentHashMap<>();
+        private final List<String> running = Collections.synchronizedList(new ArrayList<>());
+        private final Semaphore entered = new Semaphore(0);
+
+        Runnable job(String name)
+        {
+            CountDownLatch finish = new CountDownLatch(1);
+            finishes.put(name, finish);
+            return () -> {
+                threads.put(name, Thread.currentThread());
+                running.add(name);
+                entered.release();
+                try {
+                    finish.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+        }
+
+        @Override
+        public void execute(Runnable command)
+        {
+            Thread thread = new Thread(command);
+            thread.setDaemon(true);
+            thread.start();
+            // started in dispatch order
+            entered.acquireUninterruptibly();
+        }
+
+        // the jobs dispatched so far
+        void startAll()
+        {
+            synchronized (running) {
+                started.clear();
+                started.addAll(running);
+            }
+        }
+
+        // let a job complete, and wait for the queue to dispatch after it
+        void finish(String name)
+        {
+            finishes.get(name).countDown();
+            try {
+                threads.get(name).join(10_000);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void shutdown() {}
+
+        @Override
+        public List<Runnable> shutdownNow()
+        {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit)
+        {
+            return true;
+        }
+    }
+}